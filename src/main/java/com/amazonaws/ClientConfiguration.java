@@ -14,6 +14,9 @@
  */
 package com.amazonaws;
 
+import com.amazonaws.internal.CustomBackoffStrategy;
+import com.amazonaws.retry.JitteredBackoffStrategy;
+import com.amazonaws.retry.RetryBudget;
 import com.amazonaws.util.VersionInfoUtils;
 /**
  * Client configuration options such as proxy settings, user agent string, max
@@ -33,6 +36,12 @@ public class ClientConfiguration {
     /** The default maximum number of retries for error responses. */
     public static final int DEFAULT_MAX_RETRIES = 3;
 
+    /** The default number of requests to keep response metadata for. */
+    public static final int DEFAULT_RESPONSE_METADATA_CACHE_SIZE = 50;
+
+    /** The default retry budget capacity, which leaves retries unbudgeted. */
+    public static final int DEFAULT_RETRY_BUDGET_CAPACITY = 0;
+
     /** The HTTP user agent header passed with all HTTP requests. */
     private String userAgent = DEFAULT_USER_AGENT;
 
@@ -42,6 +51,18 @@ public class ClientConfiguration {
      */
     private int maxErrorRetry = DEFAULT_MAX_RETRIES;
 
+    /**
+     * Optional back-off strategy that controls how long to wait between
+     * retries. If not specified, each service's default strategy is used.
+     */
+    private CustomBackoffStrategy backoffStrategy = null;
+
+    /**
+     * The capacity of the client-wide token bucket that retries are drawn
+     * from. A value of 0 disables the retry budget.
+     */
+    private int retryBudgetCapacity = DEFAULT_RETRY_BUDGET_CAPACITY;
+
     /**
      * The protocol to use when connecting to Amazon Web Services.
      * <p>
@@ -99,6 +120,12 @@ public class ClientConfiguration {
      */
     private int socketReceiveBufferSizeHint = 0;
 
+    /**
+     * The number of recently executed requests to keep response metadata for.
+     * A value of 0 disables the response metadata cache.
+     */
+    private int responseMetadataCacheSize = DEFAULT_RESPONSE_METADATA_CACHE_SIZE;
+
 
     public ClientConfiguration() {}
 
@@ -106,6 +133,8 @@ public class ClientConfiguration {
         this.connectionTimeout = other.connectionTimeout;
         this.maxConnections    = other.maxConnections;
         this.maxErrorRetry     = other.maxErrorRetry;
+        this.backoffStrategy   = other.backoffStrategy;
+        this.retryBudgetCapacity = other.retryBudgetCapacity;
         this.protocol          = other.protocol;
         this.proxyDomain       = other.proxyDomain;
         this.proxyHost         = other.proxyHost;
@@ -118,6 +147,7 @@ public class ClientConfiguration {
 
         this.socketReceiveBufferSizeHint = other.socketReceiveBufferSizeHint;
         this.socketSendBufferSizeHint    = other.socketSendBufferSizeHint;
+        this.responseMetadataCacheSize   = other.responseMetadataCacheSize;
     }
 
     /**
@@ -501,6 +531,86 @@ public class ClientConfiguration {
         return this;
     }
 
+    /**
+     * Returns the optional back-off strategy that controls how long to wait
+     * between retries of failed retryable requests. If not specified, each
+     * service's default strategy is used.
+     *
+     * @return The optional back-off strategy for retries.
+     */
+    public CustomBackoffStrategy getBackoffStrategy() {
+        return backoffStrategy;
+    }
+
+    /**
+     * Sets the optional back-off strategy that controls how long to wait
+     * between retries of failed retryable requests, such as a
+     * {@link JitteredBackoffStrategy}. If not specified, each service's
+     * default strategy is used.
+     *
+     * @param backoffStrategy
+     *            The optional back-off strategy for retries.
+     */
+    public void setBackoffStrategy(CustomBackoffStrategy backoffStrategy) {
+        this.backoffStrategy = backoffStrategy;
+    }
+
+    /**
+     * Sets the optional back-off strategy that controls how long to wait
+     * between retries of failed retryable requests, and returns the updated
+     * ClientConfiguration object.
+     *
+     * @param backoffStrategy
+     *            The optional back-off strategy for retries.
+     *
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withBackoffStrategy(CustomBackoffStrategy backoffStrategy) {
+        setBackoffStrategy(backoffStrategy);
+        return this;
+    }
+
+    /**
+     * Returns the capacity of the client-wide retry budget. A value of 0
+     * means retries are limited only by the maximum error retry count.
+     *
+     * @return The capacity of the client-wide retry budget.
+     *
+     * @see RetryBudget
+     */
+    public int getRetryBudgetCapacity() {
+        return retryBudgetCapacity;
+    }
+
+    /**
+     * Sets the capacity of the client-wide retry budget. Each retry withdraws
+     * tokens from the budget and each successful request deposits some back,
+     * so a client stops retrying when most of its requests are failing. A
+     * value of 0 disables the retry budget.
+     *
+     * @param retryBudgetCapacity
+     *            The capacity of the client-wide retry budget.
+     *
+     * @see RetryBudget
+     */
+    public void setRetryBudgetCapacity(int retryBudgetCapacity) {
+        this.retryBudgetCapacity = retryBudgetCapacity;
+    }
+
+    /**
+     * Sets the capacity of the client-wide retry budget, and returns the
+     * updated ClientConfiguration object.
+     *
+     * @param retryBudgetCapacity
+     *            The capacity of the client-wide retry budget.
+     *
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withRetryBudgetCapacity(int retryBudgetCapacity) {
+        setRetryBudgetCapacity(retryBudgetCapacity);
+        return this;
+    }
+
     /**
      * Returns the amount of time to wait (in milliseconds) for data to be
      * transfered over an established, open connection before the connection
@@ -713,4 +823,43 @@ public class ClientConfiguration {
         return this;
     }
 
+    /**
+     * Returns the number of recently executed requests that response metadata
+     * is kept for, so that it can be retrieved through a client's
+     * <code>getCachedResponseMetadata</code> method. A value of 0 means the
+     * response metadata cache is disabled.
+     *
+     * @return The number of requests to keep response metadata for.
+     */
+    public int getResponseMetadataCacheSize() {
+        return responseMetadataCacheSize;
+    }
+
+    /**
+     * Sets the number of recently executed requests that response metadata
+     * is kept for. Response metadata is only needed for troubleshooting, so
+     * applications that never retrieve it can set this to 0 to disable the
+     * cache entirely.
+     *
+     * @param responseMetadataCacheSize
+     *            The number of requests to keep response metadata for.
+     */
+    public void setResponseMetadataCacheSize(int responseMetadataCacheSize) {
+        this.responseMetadataCacheSize = responseMetadataCacheSize;
+    }
+
+    /**
+     * Sets the number of recently executed requests that response metadata
+     * is kept for, and returns the updated ClientConfiguration object.
+     *
+     * @param responseMetadataCacheSize
+     *            The number of requests to keep response metadata for.
+     *
+     * @return The updated ClientConfiguration object.
+     */
+    public ClientConfiguration withResponseMetadataCacheSize(int responseMetadataCacheSize) {
+        setResponseMetadataCacheSize(responseMetadataCacheSize);
+        return this;
+    }
+
 }
@@ -19,8 +19,10 @@ import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.UUID;
@@ -108,14 +110,17 @@ public class AWS3Signer extends AbstractAWSSigner {
              * the request body and not as a query string. POST formatted query
              * params should *NOT* be included in the request payload.
              */
-            stringToSign = request.getHttpMethod().toString() + "\n"
-                    + getCanonicalizedResourcePath(path) + "\n"
-                    + getCanonicalizedQueryString(request.getParameters()) + "\n"
-                    + getCanonicalizedHeadersForStringToSign(request) + "\n"
-                    + getRequestPayloadWithoutQueryParams(request);
+            stringToSign = new StringBuilder(256)
+                    .append(request.getHttpMethod().toString()).append('\n')
+                    .append(getCanonicalizedResourcePath(path)).append('\n')
+                    .append(getCanonicalizedQueryString(request.getParameters())).append('\n')
+                    .append(getCanonicalizedHeadersForStringToSign(request)).append('\n')
+                    .append(getRequestPayloadWithoutQueryParams(request)).toString();
             bytesToSign = hash(stringToSign);
         }
-        log.debug("Calculated StringToSign: " + stringToSign);
+        if (log.isDebugEnabled()) {
+            log.debug("Calculated StringToSign: " + stringToSign);
+        }
 
         String signature = signAndBase64Encode(bytesToSign, sanitizedCredentials.getAWSSecretKey(), algorithm);
 
@@ -171,23 +176,23 @@ public class AWS3Signer extends AbstractAWSSigner {
     }
 
     protected String getCanonicalizedHeadersForStringToSign(Request<?> request) {
-        List<String> headersToSign = getHeadersForStringToSign(request);
-
-        for (int i = 0; i < headersToSign.size(); i++) {
-            headersToSign.set(i, headersToSign.get(i).toLowerCase());
+        Set<String> headersToSign = new HashSet<String>();
+        for (String header : getHeadersForStringToSign(request)) {
+            headersToSign.add(header.toLowerCase());
         }
 
         SortedMap<String, String> sortedHeaderMap = new TreeMap<String, String>();
         for (Map.Entry<String, String> entry : request.getHeaders().entrySet()) {
-            if (headersToSign.contains(entry.getKey().toLowerCase())) {
-                sortedHeaderMap.put(entry.getKey().toLowerCase(), entry.getValue());
+            String lowerCaseKey = entry.getKey().toLowerCase();
+            if (headersToSign.contains(lowerCaseKey)) {
+                sortedHeaderMap.put(lowerCaseKey, entry.getValue());
             }
         }
 
-        StringBuilder builder = new StringBuilder();
+        StringBuilder builder = new StringBuilder(sortedHeaderMap.size() * 48);
         for (Map.Entry<String, String> entry : sortedHeaderMap.entrySet()) {
-            builder.append(entry.getKey().toLowerCase()).append(":")
-            .append(entry.getValue()).append("\n");
+            builder.append(entry.getKey()).append(':')
+            .append(entry.getValue()).append('\n');
         }
 
         return builder.toString();
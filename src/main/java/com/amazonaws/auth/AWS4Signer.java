@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.SimpleTimeZone;
 
 import org.apache.commons.logging.Log;
@@ -31,6 +32,7 @@ import com.amazonaws.AmazonClientException;
 import com.amazonaws.Request;
 import com.amazonaws.util.AwsHostNameUtils;
 import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.GmtDateFormat;
 import com.amazonaws.util.HttpUtils;
 
 /**
@@ -84,6 +86,10 @@ public class AWS4Signer extends AbstractAWSSigner {
         this.doubleUrlEncode = doubleUrlEncoding;
     }
 
+    /**
+     * @deprecated No longer used; dates are formatted by {@link GmtDateFormat}.
+     */
+    @Deprecated
     protected ThreadLocal<SimpleDateFormat> dateTimeFormat = new ThreadLocal<SimpleDateFormat>() {
         @Override
         protected SimpleDateFormat initialValue() {
@@ -93,6 +99,10 @@ public class AWS4Signer extends AbstractAWSSigner {
         }
     };
 
+    /**
+     * @deprecated No longer used; dates are formatted by {@link GmtDateFormat}.
+     */
+    @Deprecated
     protected ThreadLocal<SimpleDateFormat> dateStampFormat = new ThreadLocal<SimpleDateFormat>() {
         @Override
         protected SimpleDateFormat initialValue() {
@@ -104,6 +114,9 @@ public class AWS4Signer extends AbstractAWSSigner {
 
     protected static final Log log = LogFactory.getLog(AWS4Signer.class);
 
+    /** Derived signing keys, shared by all signers since they only depend on their scope. */
+    private static final SigningKeyCache signingKeyCache = new SigningKeyCache();
+
 
     /* (non-Javadoc)
      * @see com.amazonaws.auth.Signer#sign(com.amazonaws.Request, com.amazonaws.auth.AWSCredentials)
@@ -205,56 +218,84 @@ public class AWS4Signer extends AbstractAWSSigner {
     }
 
     protected String getCanonicalizedHeaderString(Request<?> request) {
-        List<String> sortedHeaders = new ArrayList<String>();
-        sortedHeaders.addAll(request.getHeaders().keySet());
-        Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
-
-        StringBuilder buffer = new StringBuilder();
+        List<String> sortedHeaders = getSortedHeaders(request);
+        Map<String, String> headers = request.getHeaders();
+        StringBuilder buffer = new StringBuilder(sortedHeaders.size() * 32);
         for (String header : sortedHeaders) {
-            buffer.append(header.toLowerCase().replaceAll("\\s+", " ") + ":" + request.getHeaders().get(header).replaceAll("\\s+", " "));
-            buffer.append("\n");
+            appendCompactedWhitespace(buffer, header.toLowerCase());
+            buffer.append(':');
+            appendCompactedWhitespace(buffer, headers.get(header));
+            buffer.append('\n');
         }
-
         return buffer.toString();
     }
 
     protected String getSignedHeadersString(Request<?> request) {
-        List<String> sortedHeaders = new ArrayList<String>();
-        sortedHeaders.addAll(request.getHeaders().keySet());
-        Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
-
-        StringBuilder buffer = new StringBuilder();
+        List<String> sortedHeaders = getSortedHeaders(request);
+        StringBuilder buffer = new StringBuilder(sortedHeaders.size() * 16);
         for (String header : sortedHeaders) {
-            if (buffer.length() > 0) buffer.append(";");
+            if (buffer.length() > 0) buffer.append(';');
             buffer.append(header.toLowerCase());
         }
-
         return buffer.toString();
     }
 
+    /**
+     * Returns the names of the request's headers, sorted the way they appear
+     * in the canonical request.
+     */
+    private static List<String> getSortedHeaders(Request<?> request) {
+        List<String> sortedHeaders = new ArrayList<String>(request.getHeaders().keySet());
+        Collections.sort(sortedHeaders, String.CASE_INSENSITIVE_ORDER);
+        return sortedHeaders;
+    }
+
+    /**
+     * Appends the specified value, replacing each run of whitespace
+     * characters with a single space.
+     */
+    private static void appendCompactedWhitespace(StringBuilder buffer, String value) {
+        boolean inWhitespace = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B') {
+                if (!inWhitespace) buffer.append(' ');
+                inWhitespace = true;
+            } else {
+                buffer.append(c);
+                inWhitespace = false;
+            }
+        }
+    }
+
     protected String getCanonicalRequest(Request<?> request, String contentSha256) {
         /* This would url-encode the resource path for the first time */
         String path = HttpUtils.appendUri(request.getEndpoint().getPath(), request.getResourcePath());
 
-        String canonicalRequest =
-                request.getHttpMethod().toString() + "\n" +
+        StringBuilder canonicalRequest = new StringBuilder(512);
+        canonicalRequest.append(request.getHttpMethod().toString()).append('\n')
         /* This would optionally double url-encode the resource path */
-                        getCanonicalizedResourcePath(path, doubleUrlEncode) + "\n" +
-                        getCanonicalizedQueryString(request) + "\n" +
-                        getCanonicalizedHeaderString(request) + "\n" +
-                        getSignedHeadersString(request) + "\n" +
-                        contentSha256;
-        log.debug("AWS4 Canonical Request: '\"" + canonicalRequest + "\"");
-        return canonicalRequest;
+                .append(getCanonicalizedResourcePath(path, doubleUrlEncode)).append('\n')
+                .append(getCanonicalizedQueryString(request)).append('\n')
+                .append(getCanonicalizedHeaderString(request)).append('\n')
+                .append(getSignedHeadersString(request)).append('\n')
+                .append(contentSha256);
+        String result = canonicalRequest.toString();
+        if (log.isDebugEnabled()) {
+            log.debug("AWS4 Canonical Request: '\"" + result + "\"");
+        }
+        return result;
     }
 
     protected String getStringToSign(String algorithm, String dateTime, String scope, String canonicalRequest) {
-        String stringToSign =
-                algorithm + "\n" +
-                        dateTime + "\n" +
-                        scope + "\n" +
-                        BinaryUtils.toHex(hash(canonicalRequest));
-        log.debug("AWS4 String to Sign: '\"" + stringToSign + "\"");
+        String stringToSign = new StringBuilder(algorithm.length() + scope.length() + 90)
+                .append(algorithm).append('\n')
+                .append(dateTime).append('\n')
+                .append(scope).append('\n')
+                .append(BinaryUtils.toHex(hash(canonicalRequest))).toString();
+        if (log.isDebugEnabled()) {
+            log.debug("AWS4 String to Sign: '\"" + stringToSign + "\"");
+        }
         return stringToSign;
     }
 
@@ -268,26 +309,53 @@ public class AWS4Signer extends AbstractAWSSigner {
         String dateStamp = getDateStamp(date);
         String scope =  dateStamp + "/" + regionName + "/" + serviceName + "/" + TERMINATOR;
 
-        String stringToSign = getStringToSign(algorithm, dateTime, scope, getCanonicalRequest(request,contentSha256 ));
+        String canonicalRequest = getCanonicalRequest(request, contentSha256);
+        String stringToSign = getStringToSign(algorithm, dateTime, scope, canonicalRequest);
+
+        byte[] kSigning = getSigningKey(sanitizedCredentials, dateStamp, regionName, serviceName);
+
+        byte[] signature = sign(stringToSign.getBytes(), kSigning, SigningAlgorithm.HmacSHA256);
+        return new HeaderSigningResult(dateTime, scope, kSigning, signature);
+    }
+
+    /**
+     * Returns the derived AWS4 signing key for the specified credentials and
+     * scope, from the shared signing key cache if it has already been derived
+     * today. The returned array is the caller's own copy.
+     */
+    protected byte[] getSigningKey(AWSCredentials sanitizedCredentials, String dateStamp, String regionName, String serviceName) {
+        String accessKeyId = sanitizedCredentials.getAWSAccessKeyId();
+        String secretKey = sanitizedCredentials.getAWSSecretKey();
+
+        byte[] kSigning = signingKeyCache.get(accessKeyId, secretKey, dateStamp, regionName, serviceName);
+        if (kSigning != null) return kSigning;
 
         // AWS4 uses a series of derived keys, formed by hashing different
         // pieces of data
-        byte[] kSecret = ("AWS4" + sanitizedCredentials.getAWSSecretKey()).getBytes();
+        byte[] kSecret = ("AWS4" + secretKey).getBytes();
         byte[] kDate = sign(dateStamp, kSecret, SigningAlgorithm.HmacSHA256);
         byte[] kRegion = sign(regionName, kDate, SigningAlgorithm.HmacSHA256);
         byte[] kService = sign(serviceName, kRegion, SigningAlgorithm.HmacSHA256);
-        byte[] kSigning = sign(TERMINATOR, kService, SigningAlgorithm.HmacSHA256);
+        kSigning = sign(TERMINATOR, kService, SigningAlgorithm.HmacSHA256);
 
-        byte[] signature = sign(stringToSign.getBytes(), kSigning, SigningAlgorithm.HmacSHA256);
-        return new HeaderSigningResult(dateTime, scope, kSigning, signature);
+        signingKeyCache.put(accessKeyId, secretKey, dateStamp, regionName, serviceName, kSigning);
+        return kSigning;
+    }
+
+    /**
+     * Returns the cache of derived signing keys shared by all AWS4 signers,
+     * for example to monitor its hit rate.
+     */
+    public static SigningKeyCache getSigningKeyCache() {
+        return signingKeyCache;
     }
 
     protected String getDateTimeStamp(Date date) {
-        return dateTimeFormat.get().format(date);
+        return GmtDateFormat.formatCompressedIso8601(date.getTime());
     }
 
     protected String getDateStamp(Date date) {
-        return dateStampFormat.get().format(date);
+        return GmtDateFormat.formatDateStamp(date.getTime());
     }
 
     protected Date getDateFromRequest(Request<?> request) {
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.auth;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Runs the credentials refresh of a credentials provider on a background
+ * thread, so that callers can keep using the provider's current, still valid
+ * credentials while new ones are fetched. At most one background refresh per
+ * provider is in flight at any time.
+ */
+class AsyncCredentialsRefresher {
+
+    private static final Log log = LogFactory.getLog(AsyncCredentialsRefresher.class);
+
+    /**
+     * Shared by all providers; threads are daemons and are reclaimed after a
+     * minute of inactivity, so an idle SDK holds no refresh threads.
+     */
+    private static final ExecutorService executor =
+            Executors.newCachedThreadPool(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "java-sdk-credentials-refresh");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final Runnable refresh;
+
+    /**
+     * @param refresh
+     *            Loads new credentials into the owning provider.
+     */
+    AsyncCredentialsRefresher(Runnable refresh) {
+        this.refresh = refresh;
+    }
+
+    /**
+     * Starts a background refresh, unless one is already running. Failures
+     * are logged and otherwise ignored; the next caller to find the
+     * credentials close to expiry will try again.
+     */
+    void refreshAsync() {
+        if (!refreshing.compareAndSet(false, true)) return;
+
+        try {
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        refresh.run();
+                    } catch (RuntimeException e) {
+                        log.warn("Unable to refresh credentials in the background: " + e.getMessage(), e);
+                    } finally {
+                        refreshing.set(false);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.set(false);
+            log.warn("Unable to schedule a background credentials refresh", e);
+        }
+    }
+}
@@ -31,31 +31,111 @@ import com.amazonaws.util.json.JSONObject;
 public class InstanceProfileCredentialsProvider implements
 		AWSCredentialsProvider {
 
+	/**
+	 * @deprecated Only kept up to date for subclasses; the credentials are
+	 *             read together with their expiration from a single holder.
+	 */
+	@Deprecated
 	protected volatile AWSCredentials credentials;
+
+	/**
+	 * @deprecated Only kept up to date for subclasses; the expiration is
+	 *             read together with its credentials from a single holder.
+	 */
+	@Deprecated
 	protected volatile Date credentialsExpiration;
 
+	/** The current credentials and their expiration, published together. */
+	private volatile LoadedCredentials loadedCredentials;
+
+	private volatile boolean refreshCredentialsAsync;
+
+	private final AsyncCredentialsRefresher asyncRefresher = new AsyncCredentialsRefresher(
+			new Runnable() {
+				public void run() {
+					loadCredentials();
+				}
+			});
+
+	/**
+	 * Constructs a new provider that loads credentials from the Amazon EC2
+	 * metadata service on the calling thread whenever they are within five
+	 * minutes of expiring.
+	 */
+	public InstanceProfileCredentialsProvider() {
+		this(false);
+	}
+
+	/**
+	 * Constructs a new provider that loads credentials from the Amazon EC2
+	 * metadata service.
+	 *
+	 * @param refreshCredentialsAsync
+	 *            If true, credentials that are within five minutes of expiring
+	 *            are refreshed on a background thread while callers keep
+	 *            receiving the current, still valid credentials; callers only
+	 *            wait on the metadata service when there are no credentials
+	 *            yet or they have actually expired. If false, the calling
+	 *            thread refreshes them.
+	 */
+	public InstanceProfileCredentialsProvider(boolean refreshCredentialsAsync) {
+		this.refreshCredentialsAsync = refreshCredentialsAsync;
+	}
+
+	/**
+	 * Sets whether credentials that are about to expire are refreshed on a
+	 * background thread instead of the calling thread.
+	 *
+	 * @see #InstanceProfileCredentialsProvider(boolean)
+	 */
+	public void setRefreshCredentialsAsync(boolean refreshCredentialsAsync) {
+		this.refreshCredentialsAsync = refreshCredentialsAsync;
+	}
+
+	/**
+	 * Returns whether credentials that are about to expire are refreshed on
+	 * a background thread instead of the calling thread.
+	 */
+	public boolean isRefreshCredentialsAsync() {
+		return refreshCredentialsAsync;
+	}
+
 	public AWSCredentials getCredentials() {
-		if (needsToLoadCredentials())
-			loadCredentials();
-		if (expired()) {
+		if (needsToLoadCredentials()) {
+			LoadedCredentials current = loadedCredentials;
+			if (refreshCredentialsAsync && current != null && !expired(current)) {
+				asyncRefresher.refreshAsync();
+			} else {
+				loadCredentials();
+			}
+		}
+
+		// Reads the credentials and their expiration in one go, so a
+		// concurrent refresh can't pair the old ones with a new expiration
+		LoadedCredentials current = loadedCredentials;
+		if (current == null) return null;
+		if (expired(current)) {
 			throw new AmazonClientException(
 					"The credentials received from the Amazon EC2 metadata service have expired");
 		}
 
-		return credentials;
+		return current.credentials;
 	}
 
 	public void refresh() {
+		loadedCredentials = null;
 		credentials = null;
+		credentialsExpiration = null;
 	}
 
 	protected boolean needsToLoadCredentials() {
-		if (credentials == null)
+		LoadedCredentials current = loadedCredentials;
+		if (current == null)
 			return true;
 
-		if (credentialsExpiration != null) {
+		if (current.expiration != null) {
 			int thresholdInMilliseconds = 1000 * 60 * 5;
-			boolean withinExpirationThreshold = credentialsExpiration.getTime()
+			boolean withinExpirationThreshold = current.expiration.getTime()
 					- System.currentTimeMillis() < thresholdInMilliseconds;
 			if (withinExpirationThreshold)
 				return true;
@@ -64,9 +144,9 @@ public class InstanceProfileCredentialsProvider implements
 		return false;
 	}
 
-	private boolean expired() {
-		if (credentialsExpiration != null) {
-			if (credentialsExpiration.getTime() < System.currentTimeMillis()) {
+	private static boolean expired(LoadedCredentials current) {
+		if (current.expiration != null) {
+			if (current.expiration.getTime() < System.currentTimeMillis()) {
 				return true;
 			}
 		}
@@ -82,17 +162,19 @@ public class InstanceProfileCredentialsProvider implements
 						.getDefaultCredentials();
 				JSONObject jsonObject = new JSONObject(credentialsResponse);
 
+				AWSCredentials newCredentials;
 				if (jsonObject.has("Token")) {
-					credentials = new BasicSessionCredentials(
+					newCredentials = new BasicSessionCredentials(
 							jsonObject.getString("AccessKeyId"),
 							jsonObject.getString("SecretAccessKey"),
 							jsonObject.getString("Token"));
 				} else {
-					credentials = new BasicAWSCredentials(
+					newCredentials = new BasicAWSCredentials(
 							jsonObject.getString("AccessKeyId"),
 							jsonObject.getString("SecretAccessKey"));
 				}
 
+				Date newExpiration = null;
 				if (jsonObject.has("Expiration")) {
 					/*
 					 * TODO: The expiration string comes in a different format
@@ -102,9 +184,13 @@ public class InstanceProfileCredentialsProvider implements
 					String expiration = jsonObject.getString("Expiration");
 					expiration = expiration.replaceAll("\\+0000$", "Z");
 
-					credentialsExpiration = new DateUtils()
+					newExpiration = new DateUtils()
 							.parseIso8601Date(expiration);
 				}
+
+				loadedCredentials = new LoadedCredentials(newCredentials, newExpiration);
+				credentials = newCredentials;
+				credentialsExpiration = newExpiration;
 			} catch (IOException e) {
 				throw new AmazonClientException(
 						"Unable to load credentials from Amazon EC2 metadata service",
@@ -126,4 +212,15 @@ public class InstanceProfileCredentialsProvider implements
 	public String toString() {
 		return getClass().getSimpleName();
 	}
+
+	/** Credentials together with their expiration time, if any */
+	private static final class LoadedCredentials {
+		private final AWSCredentials credentials;
+		private final Date expiration;
+
+		private LoadedCredentials(AWSCredentials credentials, Date expiration) {
+			this.credentials = credentials;
+			this.expiration = expiration;
+		}
+	}
 }
@@ -40,11 +40,22 @@ public class STSAssumeRoleSessionCredentialsProvider implements AWSCredentialsPr
     /** The client for starting STS sessions. */
     private final AWSSecurityTokenService securityTokenService;
 
-    /** The current session credentials. */
-    private AWSSessionCredentials sessionCredentials;
+    /**
+     * The current session credentials and their expiration time, published
+     * together so that readers never pair credentials with another session's
+     * expiration time.
+     */
+    private volatile Session session;
 
-    /** The expiration time for the current session credentials. */
-    private Date sessionCredentialsExpiration;
+    /** Whether sessions about to expire are renewed in the background. */
+    private volatile boolean refreshCredentialsAsync;
+
+    /** Renews the session on a background thread. */
+    private final AsyncCredentialsRefresher asyncRefresher = new AsyncCredentialsRefresher(new Runnable() {
+        public void run() {
+            startSessionIfNeeded();
+        }
+    });
 
     /** The arn of the role to be assumed. */
     private String roleArn;
@@ -160,16 +171,42 @@ public class STSAssumeRoleSessionCredentialsProvider implements AWSCredentialsPr
         securityTokenService = new AWSSecurityTokenServiceClient(longLivedCredentialsProvider, clientConfiguration);
     }
 
+    /**
+     * Sets whether a session that is about to expire is renewed on a
+     * background thread. If true, callers keep receiving the current, still
+     * valid session credentials while the new session is started, and only
+     * wait on STS when there is no session yet or it has actually expired. If
+     * false (the default), the calling thread renews the session.
+     *
+     * @param refreshCredentialsAsync
+     *            Whether to renew sessions in the background.
+     */
+    public void setRefreshCredentialsAsync(boolean refreshCredentialsAsync) {
+        this.refreshCredentialsAsync = refreshCredentialsAsync;
+    }
+
+    /**
+     * Returns whether a session that is about to expire is renewed on a
+     * background thread.
+     */
+    public boolean isRefreshCredentialsAsync() {
+        return refreshCredentialsAsync;
+    }
+
     @Override
     public AWSCredentials getCredentials() {
         if (needsNewSession()) {
-            startSession();
+            if (refreshCredentialsAsync && !sessionExpired()) {
+                asyncRefresher.refreshAsync();
+            } else {
+                startSessionIfNeeded();
+            }
         }
-        return sessionCredentials;
+        return session.credentials;
     }
 
     @Override
-    public void refresh() {
+    public synchronized void refresh() {
         startSession();
     }
 
@@ -185,9 +222,9 @@ public class STSAssumeRoleSessionCredentialsProvider implements AWSCredentialsPr
                 .withRoleSessionName(roleSessionName));
         Credentials stsCredentials = assumeRoleResult.getCredentials();
 
-        sessionCredentials = new BasicSessionCredentials(stsCredentials.getAccessKeyId(),
-                stsCredentials.getSecretAccessKey(), stsCredentials.getSessionToken());
-        sessionCredentialsExpiration = stsCredentials.getExpiration();
+        session = new Session(new BasicSessionCredentials(stsCredentials.getAccessKeyId(),
+                stsCredentials.getSecretAccessKey(), stsCredentials.getSessionToken()),
+                stsCredentials.getExpiration());
     }
 
     /**
@@ -198,11 +235,42 @@ public class STSAssumeRoleSessionCredentialsProvider implements AWSCredentialsPr
      * @return True if a new STS session needs to be started.
      */
     private boolean needsNewSession() {
-        if (sessionCredentials == null) {
+        Session current = session;
+        if (current == null) {
             return true;
         }
-        long timeRemaining = sessionCredentialsExpiration.getTime() - System.currentTimeMillis();
+        long timeRemaining = current.expiration.getTime() - System.currentTimeMillis();
         return timeRemaining < EXPIRY_TIME_MILLIS;
     }
 
-}
\ No newline at end of file
+    /**
+     * Starts a new session unless another thread already did so while this
+     * one was waiting.
+     */
+    private synchronized void startSessionIfNeeded() {
+        if (needsNewSession()) startSession();
+    }
+
+    /**
+     * Returns true if there is no session yet, or the current session has
+     * expired.
+     */
+    private boolean sessionExpired() {
+        Session current = session;
+        if (current == null) return true;
+
+        return current.expiration.getTime() <= System.currentTimeMillis();
+    }
+
+    /** Session credentials together with their expiration time. */
+    private static final class Session {
+        private final AWSSessionCredentials credentials;
+        private final Date expiration;
+
+        private Session(AWSSessionCredentials credentials, Date expiration) {
+            this.credentials = credentials;
+            this.expiration = expiration;
+        }
+    }
+
+}
@@ -36,11 +36,22 @@ public class STSSessionCredentialsProvider implements AWSCredentialsProvider {
     /** The client for starting STS sessions */
     private final AWSSecurityTokenService securityTokenService;
 
-    /** The current session credentials */
-    private AWSSessionCredentials sessionCredentials;
+    /**
+     * The current session credentials and their expiration time, published
+     * together so that readers never pair credentials with another session's
+     * expiration time
+     */
+    private volatile Session session;
 
-    /** The expiration time for the current session credentials */
-    private Date sessionCredentialsExpiration;
+    /** Whether sessions about to expire are renewed in the background */
+    private volatile boolean refreshCredentialsAsync;
+
+    /** Renews the session on a background thread */
+    private final AsyncCredentialsRefresher asyncRefresher = new AsyncCredentialsRefresher(new Runnable() {
+        public void run() {
+            startSessionIfNeeded();
+        }
+    });
 
 
     /**
@@ -105,15 +116,43 @@ public class STSSessionCredentialsProvider implements AWSCredentialsProvider {
         securityTokenService = new AWSSecurityTokenServiceClient(longLivedCredentialsProvider, clientConfiguration);
     }
 
+    /**
+     * Sets whether a session that is about to expire is renewed on a
+     * background thread. If true, callers keep receiving the current, still
+     * valid session credentials while the new session is started, and only
+     * wait on STS when there is no session yet or it has actually expired. If
+     * false (the default), the calling thread renews the session.
+     *
+     * @param refreshCredentialsAsync
+     *            Whether to renew sessions in the background.
+     */
+    public void setRefreshCredentialsAsync(boolean refreshCredentialsAsync) {
+        this.refreshCredentialsAsync = refreshCredentialsAsync;
+    }
+
+    /**
+     * Returns whether a session that is about to expire is renewed on a
+     * background thread.
+     */
+    public boolean isRefreshCredentialsAsync() {
+        return refreshCredentialsAsync;
+    }
+
     @Override
     public AWSCredentials getCredentials() {
-        if (needsNewSession()) startSession();
-
-        return sessionCredentials;
+        if (needsNewSession()) {
+            if (refreshCredentialsAsync && !sessionExpired()) {
+                asyncRefresher.refreshAsync();
+            } else {
+                startSessionIfNeeded();
+            }
+        }
+
+        return session.credentials;
     }
 
     @Override
-    public void refresh() {
+    public synchronized void refresh() {
         startSession();
     }
 
@@ -127,11 +166,11 @@ public class STSSessionCredentialsProvider implements AWSCredentialsProvider {
                 .getSessionToken(new GetSessionTokenRequest().withDurationSeconds(DEFAULT_DURATION_SECONDS));
         Credentials stsCredentials = sessionTokenResult.getCredentials();
 
-        sessionCredentials = new BasicSessionCredentials(
+        session = new Session(new BasicSessionCredentials(
                 stsCredentials.getAccessKeyId(),
                 stsCredentials.getSecretAccessKey(),
-                stsCredentials.getSessionToken());
-        sessionCredentialsExpiration = stsCredentials.getExpiration();
+                stsCredentials.getSessionToken()),
+                stsCredentials.getExpiration());
     }
 
     /**
@@ -142,10 +181,41 @@ public class STSSessionCredentialsProvider implements AWSCredentialsProvider {
      * @return True if a new STS session needs to be started.
      */
     private boolean needsNewSession() {
-        if (sessionCredentials == null) return true;
+        Session current = session;
+        if (current == null) return true;
 
-        long timeRemaining = sessionCredentialsExpiration.getTime() - System.currentTimeMillis();
+        long timeRemaining = current.expiration.getTime() - System.currentTimeMillis();
         return timeRemaining < (60 * 1000);
     }
 
+    /**
+     * Starts a new session unless another thread already did so while this
+     * one was waiting.
+     */
+    private synchronized void startSessionIfNeeded() {
+        if (needsNewSession()) startSession();
+    }
+
+    /**
+     * Returns true if there is no session yet, or the current session has
+     * expired.
+     */
+    private boolean sessionExpired() {
+        Session current = session;
+        if (current == null) return true;
+
+        return current.expiration.getTime() <= System.currentTimeMillis();
+    }
+
+    /** Session credentials together with their expiration time */
+    private static final class Session {
+        private final AWSSessionCredentials credentials;
+        private final Date expiration;
+
+        private Session(AWSSessionCredentials credentials, Date expiration) {
+            this.credentials = credentials;
+            this.expiration = expiration;
+        }
+    }
+
 }
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.auth;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Bounded, thread-safe cache of AWS4 derived signing keys.
+ * <p>
+ * An AWS4 signing key is derived from the secret key through four chained
+ * HMAC operations over the date stamp, region and service, so it only changes
+ * once a day for a given set of credentials, region and service. Caching it
+ * means a request only needs one HMAC operation (over the string to sign)
+ * rather than five.
+ * <p>
+ * Entries are keyed by access key, date stamp, region and service, and each
+ * entry remembers a SHA-256 fingerprint of the secret key it was derived from
+ * so that rotated credentials which reuse an access key never get a stale
+ * signing key; the secret key itself is never copied. The fingerprint is only
+ * recomputed when a lookup is made with a different secret key string than
+ * the one the entry was last checked against, so repeated requests with the
+ * same credentials don't hash anything. Lookups don't lock; when the cache is
+ * full, keys for other days are evicted first, then arbitrary entries.
+ */
+public final class SigningKeyCache {
+
+    /** The default maximum number of signing keys to cache. */
+    public static final int DEFAULT_MAX_SIZE = 300;
+
+    private final int maxSize;
+    private final ConcurrentMap<String, SigningKey> cache = new ConcurrentHashMap<String, SigningKey>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructs a new, empty cache holding up to
+     * {@link #DEFAULT_MAX_SIZE} signing keys.
+     */
+    public SigningKeyCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Constructs a new, empty cache.
+     *
+     * @param maxSize
+     *            The maximum number of signing keys to cache.
+     */
+    public SigningKeyCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns a copy of the cached signing key for the specified scope, or
+     * null if no key has been cached for it yet.
+     */
+    byte[] get(String accessKeyId, String secretKey, String dateStamp, String regionName, String serviceName) {
+        String cacheKey = cacheKey(accessKeyId, dateStamp, regionName, serviceName);
+        SigningKey signingKey = cache.get(cacheKey);
+        if (signingKey == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (signingKey.secretKey.get() != secretKey) {
+            if (!MessageDigest.isEqual(signingKey.secretKeyFingerprint, fingerprint(secretKey))) {
+                misses.incrementAndGet();
+                return null;
+            }
+            // Same secret key in a different string; remember this one so
+            // the next lookup with it can skip the fingerprint
+            cache.replace(cacheKey, signingKey, new SigningKey(secretKey, signingKey.secretKeyFingerprint, signingKey.dateStamp, signingKey.key));
+        }
+        hits.incrementAndGet();
+        return signingKey.key.clone();
+    }
+
+    /**
+     * Caches a copy of the signing key derived for the specified scope.
+     */
+    void put(String accessKeyId, String secretKey, String dateStamp, String regionName, String serviceName, byte[] key) {
+        cache.put(cacheKey(accessKeyId, dateStamp, regionName, serviceName),
+                new SigningKey(secretKey, fingerprint(secretKey), dateStamp, key.clone()));
+        if (cache.size() > maxSize) evict(dateStamp);
+    }
+
+    /**
+     * Removes all cached signing keys and resets the hit and miss counts.
+     */
+    public void clear() {
+        cache.clear();
+        hits.set(0);
+        misses.set(0);
+    }
+
+    /** Returns the number of signing keys currently cached. */
+    public int size() {
+        return cache.size();
+    }
+
+    /** Returns the number of lookups that found a cached signing key. */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /** Returns the number of lookups that had to derive a new signing key. */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the fraction of lookups that found a cached signing key, or 0
+     * if there have been no lookups.
+     */
+    public double getHitRate() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double)hitCount / total;
+    }
+
+    /**
+     * Shrinks the cache back to its maximum size, dropping keys derived for
+     * days other than the specified one before any others.
+     */
+    private void evict(String currentDateStamp) {
+        Iterator<SigningKey> iterator = cache.values().iterator();
+        while (iterator.hasNext() && cache.size() > maxSize) {
+            if (!iterator.next().dateStamp.equals(currentDateStamp)) iterator.remove();
+        }
+        iterator = cache.values().iterator();
+        while (iterator.hasNext() && cache.size() > maxSize) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static String cacheKey(String accessKeyId, String dateStamp, String regionName, String serviceName) {
+        return new StringBuilder(accessKeyId.length() + 48)
+                .append(accessKeyId).append('/')
+                .append(dateStamp).append('/')
+                .append(regionName).append('/')
+                .append(serviceName).toString();
+    }
+
+    /**
+     * Returns the SHA-256 hash of the specified secret key, which identifies
+     * it without keeping a copy of it.
+     */
+    private static byte[] fingerprint(String secretKey) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(secretKey.getBytes("UTF-8"));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AmazonClientException("Unable to compute hash while signing request: " + e.getMessage(), e);
+        } catch (UnsupportedEncodingException e) {
+            throw new AmazonClientException("Unable to compute hash while signing request: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class SigningKey {
+        /** The secret key string last matched to this entry, weakly held so it isn't kept alive. */
+        private final WeakReference<String> secretKey;
+        private final byte[] secretKeyFingerprint;
+        private final String dateStamp;
+        private final byte[] key;
+
+        SigningKey(String secretKey, byte[] secretKeyFingerprint, String dateStamp, byte[] key) {
+            this.secretKey = new WeakReference<String>(secretKey);
+            this.secretKeyFingerprint = secretKeyFingerprint;
+            this.dateStamp = dateStamp;
+            this.key = key;
+        }
+    }
+}
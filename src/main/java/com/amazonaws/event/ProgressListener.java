@@ -30,8 +30,9 @@ public interface ProgressListener {
     /**
      * Called when progress has changed, such as additional bytes transferred,
      * transfer failed, etc. The execution of the callback of this listener is managed
-     * by {@link ProgressListenerCallbackExecutor} class, which maintains a single thread
-     * to sequentially execute all progressChanged callbacks.
+     * by {@link ProgressListenerCallbackExecutor} class, which sequentially executes
+     * all progressChanged callbacks on a single thread shared by all listeners, and
+     * may combine several byte-count events into one.
      *
      * @param progressEvent
      *            The event describing the progress change.
@@ -14,49 +14,167 @@
  */
 package com.amazonaws.event;
 
-import java.util.concurrent.ExecutorService;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 
 /**
  * This class wraps a ProgressListener object, and manages all its callback
- * execution. Callbacks are executed sequentially in a separate single thread.
+ * execution. Callbacks are executed sequentially, in the order the events
+ * were reported, on a single daemon thread shared by all listeners.
+ * <p>
+ * Events that only report transferred bytes (those with no event code) are
+ * coalesced: bytes reported while earlier events are still waiting to be
+ * delivered are summed into a single event. Deliveries of such events to a
+ * listener can also be throttled with
+ * {@link #setMinimumDeliveryIntervalMillis(long)}. Events with an event
+ * code are never merged, and are always delivered after the bytes reported
+ * before them.
+ * <p>
+ * Because all listeners share one thread, callbacks should return quickly.
  */
 public class ProgressListenerCallbackExecutor {
 
+    private static final Log log = LogFactory.getLog(ProgressListenerCallbackExecutor.class);
+
+    /** The thread executing the callbacks of all listeners. **/
+    private static final ScheduledExecutorService dispatcher =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "java-sdk-progress-listener-callback-thread");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    /** The minimum time between two deliveries of byte-count events to a listener. **/
+    private static volatile long minimumDeliveryIntervalNanos = 0;
+
     /** The wrapped ProgressListener **/
     private final ProgressListener listener;
-    
-    /** A single thread pool for executing ProgressListener callback. **/
-    private ExecutorService executor;
-    
+
+    /** Events waiting to be delivered, in the order they were reported. **/
+    private final Queue<ProgressEvent> pendingEvents = new ConcurrentLinkedQueue<ProgressEvent>();
+
+    /** Bytes reported since the last time they were moved to the pending events. **/
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    /** Guards moving the pending bytes to the pending events, to keep them in order. **/
+    private final Object flushLock = new Object();
+
+    /** Whether a delivery is scheduled or running on the dispatcher thread. **/
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean(false);
+
+    private volatile long lastDeliveryNanos = System.nanoTime();
+
+    private final Runnable delivery = new Runnable() {
+        public void run() {
+            try {
+                synchronized (flushLock) {
+                    flushPendingBytes();
+                }
+                ProgressEvent event;
+                while ((event = pendingEvents.poll()) != null) {
+                    try {
+                        listener.progressChanged(event);
+                    } catch (RuntimeException e) {
+                        log.warn("Progress listener threw an exception: " + e.getMessage(), e);
+                    }
+                }
+                lastDeliveryNanos = System.nanoTime();
+            } finally {
+                deliveryScheduled.set(false);
+                // Events may have been reported after the queue was drained
+                // but before the flag was cleared
+                if (!pendingEvents.isEmpty() || pendingBytes.get() != 0) {
+                    scheduleDelivery();
+                }
+            }
+        }
+    };
+
     public ProgressListenerCallbackExecutor(ProgressListener listener) {
         this.listener = listener;
     }
-    
+
     public void progressChanged(final ProgressEvent progressEvent) {
         if (listener == null) return;
-        
-        synchronized (this) {
-            if (executor == null) {
-                executor = Executors.newSingleThreadExecutor();
+
+        if (progressEvent.getEventCode() == 0) {
+            pendingBytes.addAndGet(progressEvent.getBytesTransferred());
+        } else {
+            synchronized (flushLock) {
+                flushPendingBytes();
+                pendingEvents.add(progressEvent);
             }
-            executor.submit(new Runnable() {
-                
-                @Override
-                public void run() {
-                    listener.progressChanged(progressEvent);
-                }
-            });
         }
-        
+
+        if (!deliveryScheduled.get()) scheduleDelivery();
+    }
+
+    /**
+     * Moves the bytes reported so far into the pending events, so that they
+     * are delivered before any event queued afterwards. Must be called while
+     * holding {@link #flushLock}.
+     */
+    private void flushPendingBytes() {
+        long bytes = pendingBytes.getAndSet(0);
+        if (bytes != 0) pendingEvents.add(new ProgressEvent(bytes));
     }
-    
-    public synchronized void shutDown() {
-        if (executor != null) {
-            executor.shutdown();
+
+    private void scheduleDelivery() {
+        if (!deliveryScheduled.compareAndSet(false, true)) return;
+
+        long delay = 0;
+        if (pendingEvents.isEmpty()) {
+            // Only bytes to report; respect the minimum delivery interval
+            delay = lastDeliveryNanos + minimumDeliveryIntervalNanos - System.nanoTime();
         }
+        dispatcher.schedule(delivery, Math.max(0, delay), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Does nothing; callbacks are now executed on a thread shared by all
+     * listeners, which is never shut down. Events already reported are still
+     * delivered.
+     */
+    public void shutDown() {
     }
-    
+
+    /**
+     * Sets the minimum time between two deliveries of byte-count events to
+     * the same listener; bytes reported in between are summed into a single
+     * event. Events with an event code are not delayed beyond the next
+     * delivery. Defaults to 0, which delivers events as soon as the callback
+     * thread is free.
+     *
+     * @param intervalMillis
+     *            The minimum time, in milliseconds, between two deliveries
+     *            of byte-count events to a listener.
+     */
+    public static void setMinimumDeliveryIntervalMillis(long intervalMillis) {
+        if (intervalMillis < 0) {
+            throw new IllegalArgumentException("The minimum delivery interval must not be negative");
+        }
+        minimumDeliveryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    }
+
+    /**
+     * Returns the minimum time, in milliseconds, between two deliveries of
+     * byte-count events to the same listener.
+     */
+    public static long getMinimumDeliveryIntervalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(minimumDeliveryIntervalNanos);
+    }
+
     /**
      * Returns a new ProgressListenerCallbackExecutor instance that wraps the
      * specified ProgressListener if it is not null, otherwise directly returns
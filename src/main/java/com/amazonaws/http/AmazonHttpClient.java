@@ -26,6 +26,16 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import javax.net.ssl.SSLContext;
 
@@ -54,6 +64,10 @@ import com.amazonaws.SDKGlobalConfiguration;
 import com.amazonaws.handlers.RequestHandler;
 import com.amazonaws.internal.CRC32MismatchException;
 import com.amazonaws.internal.CustomBackoffStrategy;
+import com.amazonaws.metrics.AwsSdkMetrics;
+import com.amazonaws.metrics.MetricsCollector;
+import com.amazonaws.metrics.RequestSample;
+import com.amazonaws.retry.RetryBudget;
 import com.amazonaws.util.AWSRequestMetrics;
 import com.amazonaws.util.AWSRequestMetrics.Field;
 import com.amazonaws.util.CountingInputStream;
@@ -85,11 +99,31 @@ public class AmazonHttpClient {
     /** Client configuration options, such as proxy settings, max retries, etc. */
     private final ClientConfiguration config;
 
+    /** Optional client-wide budget that retries are drawn from */
+    private final RetryBudget retryBudget;
+
     /** Cache of metadata for recently executed requests for diagnostic purposes */
-    private final ResponseMetadataCache responseMetadataCache = new ResponseMetadataCache(50);
+    private final ResponseMetadataCache responseMetadataCache;
 
     private static final Random random = new Random();
 
+    /**
+     * Shared scheduler used to resume asynchronously executed requests once
+     * their retry back-off has elapsed. It only ever hands attempts back to
+     * the caller's executor, so a single daemon thread is enough.
+     */
+    private static final ScheduledExecutorService retryScheduler =
+            Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "java-sdk-retry-scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    /** Operation names for metrics, cached by original request class */
+    private static final ConcurrentMap<Class<?>, String> operationNames = new ConcurrentHashMap<Class<?>, String>();
+
     private static HttpRequestFactory httpRequestFactory = new HttpRequestFactory();
     private static HttpClientFactory httpClientFactory = new HttpClientFactory();
 
@@ -120,6 +154,9 @@ public class AmazonHttpClient {
     public AmazonHttpClient(ClientConfiguration clientConfiguration) {
         this.config = clientConfiguration;
         this.httpClient = httpClientFactory.createHttpClient(config);
+        this.responseMetadataCache = new ResponseMetadataCache(config.getResponseMetadataCacheSize());
+        this.retryBudget = config.getRetryBudgetCapacity() > 0
+                ? new RetryBudget(config.getRetryBudgetCapacity()) : null;
     }
 
     /**
@@ -217,6 +254,101 @@ public class AmazonHttpClient {
         }
     }
 
+    /**
+     * Executes the request asynchronously and returns a future for the result.
+     * Each attempt runs as a separate task on the specified executor, and any
+     * back-off between retries is scheduled rather than slept, so no thread is
+     * held by this request while it waits to be retried.
+     *
+     * @param request
+     *            The AmazonWebServices request to send to the remote server
+     * @param responseHandler
+     *            A response handler to accept a successful response from the
+     *            remote server
+     * @param errorResponseHandler
+     *            A response handler to accept an unsuccessful response from the
+     *            remote server
+     * @param executionContext
+     *            Additional information about the context of this web service
+     *            call
+     * @param executor
+     *            The executor on which each attempt of the request is run
+     *
+     * @return A future that is completed with the result of the request once
+     *         it succeeds, or with the exception that caused it to fail.
+     */
+    public <T> Future<T> executeAsync(final Request<?> request,
+            final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+            final HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+            final ExecutionContext executionContext,
+            final Executor executor) throws AmazonClientException {
+
+        if (executionContext == null) throw new AmazonClientException("Internal SDK Error: No execution context parameter specified.");
+        List<RequestHandler> handlers = executionContext.getRequestHandlers();
+        if (handlers == null) handlers = new ArrayList<RequestHandler>();
+        final List<RequestHandler> requestHandlers = handlers;
+
+        for ( RequestHandler requestHandler : requestHandlers ) {
+            requestHandler.beforeRequest(request);
+        }
+
+        final RequestExecution<T> execution = new RequestExecution<T>(
+                request, responseHandler, errorResponseHandler, executionContext);
+        final ResponseFuture<T> future = new ResponseFuture<T>();
+
+        executor.execute(new Runnable() {
+            public void run() {
+                if (future.isCancelled()) return;
+
+                try {
+                    if (execution.attempt()) {
+                        execution.collectMetrics(true);
+                        T t = execution.getResult();
+                        TimingInfo timingInfo = executionContext.getAwsRequestMetrics().getTimingInfo();
+                        timingInfo.setEndTime(System.currentTimeMillis());
+
+                        for (RequestHandler handler : requestHandlers) {
+                            try {
+                                handler.afterResponse(request, t, timingInfo);
+                            } catch (ClassCastException cce) {}
+                        }
+                        future.complete(t);
+                    } else {
+                        final Runnable attempt = this;
+                        retryScheduler.schedule(new Runnable() {
+                            public void run() {
+                                try {
+                                    executor.execute(attempt);
+                                } catch (RejectedExecutionException ree) {
+                                    // Nothing else would ever complete the future
+                                    AmazonClientException e = new AmazonClientException(
+                                            "Unable to retry request: " + ree.getMessage(), ree);
+                                    execution.collectMetrics(false);
+                                    for (RequestHandler handler : requestHandlers) {
+                                        handler.afterError(request, e);
+                                    }
+                                    future.fail(e);
+                                }
+                            }
+                        }, execution.getBackoffDelay(), TimeUnit.MILLISECONDS);
+                    }
+                } catch (AmazonClientException e) {
+                    execution.collectMetrics(false);
+                    for (RequestHandler handler : requestHandlers) {
+                        handler.afterError(request, e);
+                    }
+                    future.fail(e);
+                } catch (Throwable t) {
+                    // Errors must complete the future too, or callers would wait on it forever
+                    future.fail(t);
+                    execution.collectMetrics(false);
+                    if (t instanceof Error) throw (Error)t;
+                }
+            }
+        });
+        return future;
+    }
+
     /**
      * Internal method to execute the HTTP method given.
      *
@@ -229,47 +361,131 @@ public class AmazonHttpClient {
             ExecutionContext executionContext)
             throws AmazonClientException, AmazonServiceException {
 
+        RequestExecution<T> execution = new RequestExecution<T>(
+                request, responseHandler, errorResponseHandler, executionContext);
+        AWSRequestMetrics awsRequestMetrics = executionContext.getAwsRequestMetrics();
+
+        boolean successful = false;
+        try {
+            while (!execution.attempt()) {
+                awsRequestMetrics.startEvent(Field.RetryPauseTime.name());
+                pause(execution.getBackoffDelay());
+                awsRequestMetrics.endEvent(Field.RetryPauseTime.name());
+            }
+            successful = true;
+            return execution.getResult();
+        } finally {
+            execution.collectMetrics(successful);
+        }
+    }
+
+    /**
+     * The state of a single request as it moves through its attempts. Each
+     * call to {@link #attempt()} sends the request once; between attempts the
+     * caller decides how to wait out the back-off delay, which lets the same
+     * retry logic drive both blocking and asynchronous execution.
+     */
+    private final class RequestExecution<T> {
+        private final Request<?> request;
+        private final HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler;
+        private final HttpResponseHandler<AmazonServiceException> errorResponseHandler;
+        private final ExecutionContext executionContext;
+        private final AWSRequestMetrics awsRequestMetrics;
+
         /*
-         * Depending on which response handler we end up choosing to handle the
-         * HTTP response, it might require us to leave the underlying HTTP
-         * connection open, depending on whether or not it reads the complete
-         * HTTP response stream from the HTTP connection, or if delays reading
-         * any of the content until after a response is returned to the caller.
+         * Copy of the original request params and headers so that we can
+         * permute them on each attempt and start over with the original
+         * every time.
          */
-        boolean leaveHttpConnectionOpen = false;
-
-        AWSRequestMetrics awsRequestMetrics = executionContext.getAwsRequestMetrics();
-        /* add the service endpoint to the logs. You can infer service name from service endpoint */
-        awsRequestMetrics.addProperty(Field.ServiceName.name(), request.getServiceName());
-        awsRequestMetrics.addProperty(Field.ServiceEndpoint.name(), request.getEndpoint());
+        private final Map<String, String> originalParameters;
+        private final Map<String, String> originalHeaders;
 
+        /*
+         * The original content, which signers that encode the payload (such
+         * as aws-chunked) replace on every attempt.
+         */
+        private final InputStream originalContent;
+
+        private int retryCount = 0;
+        private URI redirectedURI = null;
+        private HttpEntity entity = null;
+        private AmazonServiceException exception = null;
+        private long backoffDelay = 0;
+        private int retryCost = 0;
+        private T result;
+
+        private final long startNanos = System.nanoTime();
+        private int throttleCount = 0;
+        private long bytesSent = 0;
+        private long bytesReceived = 0;
+
+        RequestExecution(Request<?> request,
+                HttpResponseHandler<AmazonWebServiceResponse<T>> responseHandler,
+                HttpResponseHandler<AmazonServiceException> errorResponseHandler,
+                ExecutionContext executionContext) {
+            this.request = request;
+            this.responseHandler = responseHandler;
+            this.errorResponseHandler = errorResponseHandler;
+            this.executionContext = executionContext;
+            this.awsRequestMetrics = executionContext.getAwsRequestMetrics();
+
+            /* add the service endpoint to the logs. You can infer service name from service endpoint */
+            awsRequestMetrics.addProperty(Field.ServiceName.name(), request.getServiceName());
+            awsRequestMetrics.addProperty(Field.ServiceEndpoint.name(), request.getEndpoint());
+
+            // Apply whatever request options we know how to handle, such as user-agent.
+            setUserAgent(request);
+
+            originalParameters = new HashMap<String, String>();
+            originalParameters.putAll(request.getParameters());
+            originalHeaders = new HashMap<String, String>();
+            originalHeaders.putAll(request.getHeaders());
+            originalContent = request.getContent();
+        }
 
-        // Apply whatever request options we know how to handle, such as user-agent.
-        setUserAgent(request);
+        /** Returns the result of the request once an attempt has succeeded. */
+        T getResult() {
+            return result;
+        }
 
-        int retryCount = 0;
-        URI redirectedURI = null;
-        HttpEntity entity = null;
-        AmazonServiceException exception = null;
+        /**
+         * Returns how long, in milliseconds, to wait before the next attempt,
+         * as decided by the last failed attempt.
+         */
+        long getBackoffDelay() {
+            return backoffDelay;
+        }
 
-        // Make a copy of the original request params and headers so that we can
-        // permute it in this loop and start over with the original every time.
-        Map<String, String> originalParameters = new HashMap<String, String>();
-        originalParameters.putAll(request.getParameters());
-        Map<String, String> originalHeaders = new HashMap<String, String>();
-        originalHeaders.putAll(request.getHeaders());
+        /**
+         * Sends the request once.
+         *
+         * @return True if the request completed successfully and its result is
+         *         available, or false if it failed with a retriable error and
+         *         should be attempted again after the back-off delay.
+         *
+         * @throws AmazonClientException
+         *             If the request failed and should not be retried.
+         */
+        boolean attempt() throws AmazonClientException, AmazonServiceException {
+            /*
+             * Depending on which response handler we end up choosing to handle the
+             * HTTP response, it might require us to leave the underlying HTTP
+             * connection open, depending on whether or not it reads the complete
+             * HTTP response stream from the HTTP connection, or if delays reading
+             * any of the content until after a response is returned to the caller.
+             */
+            boolean leaveHttpConnectionOpen = false;
 
-        while (true) {
             awsRequestMetrics.setCounter(Field.AttemptCount.name(), retryCount+1);
             if ( retryCount > 0 ) {
                 request.setParameters(originalParameters);
                 request.setHeaders(originalHeaders);
+                request.setContent(originalContent);
             }
 
             HttpRequestBase httpRequest = null;
             org.apache.http.HttpResponse response = null;
 
-
             try {
                 // Sign the request if a signer was provided
                 if (executionContext.getSigner() != null && executionContext.getCredentials() != null) {
@@ -282,6 +498,9 @@ public class AmazonHttpClient {
                     requestLog.debug("Sending Request: " + request.toString());
                  }
 
+                // An entity built around a previous attempt's encoded payload can't be reused
+                if (request.getContent() != originalContent) entity = null;
+
                 httpRequest = httpRequestFactory.createHttpRequest(request, config, entity, executionContext);
 
                 if (httpRequest instanceof HttpEntityEnclosingRequest) {
@@ -292,12 +511,6 @@ public class AmazonHttpClient {
                     httpRequest.setURI(redirectedURI);
                 }
 
-                if ( retryCount > 0 ) {
-                    awsRequestMetrics.startEvent(Field.RetryPauseTime.name());
-                    pauseExponentially(retryCount, exception, executionContext.getCustomBackoffStrategy());
-                    awsRequestMetrics.endEvent(Field.RetryPauseTime.name());
-                }
-
                 if ( entity != null ) {
                     InputStream content = entity.getContent();
                     if ( retryCount > 0 ) {
@@ -314,10 +527,18 @@ public class AmazonHttpClient {
 
                 exception = null;
 
+                if ( entity != null && entity.getContentLength() > 0 ) {
+                    bytesSent += entity.getContentLength();
+                }
+
                 awsRequestMetrics.startEvent(Field.HttpRequestTime.name());
                 response = httpClient.execute(httpRequest);
                 awsRequestMetrics.endEvent(Field.HttpRequestTime.name());
 
+                if ( response.getEntity() != null && response.getEntity().getContentLength() > 0 ) {
+                    bytesReceived += response.getEntity().getContentLength();
+                }
+
 
                 if (isRequestSuccessful(response)) {
 
@@ -328,7 +549,11 @@ public class AmazonHttpClient {
                      * treat the service call as successful.
                      */
                     leaveHttpConnectionOpen = responseHandler.needsConnectionLeftOpen();
-                    return handleResponse(request, responseHandler, httpRequest, response, executionContext);
+                    result = handleResponse(request, responseHandler, httpRequest, response, executionContext);
+                    if (retryBudget != null) {
+                        retryBudget.release(retryCost > 0 ? retryCost : RetryBudget.SUCCESS_REFUND);
+                    }
+                    return true;
                 } else if (isTemporaryRedirect(response)) {
                     /*
                      * S3 sends 307 Temporary Redirects if you try to delete an
@@ -351,20 +576,24 @@ public class AmazonHttpClient {
                     awsRequestMetrics.addProperty(Field.AWSRequestID.name(), exception.getRequestId());
                     awsRequestMetrics.addProperty(Field.AWSErrorCode.name(), exception.getErrorCode());
                     awsRequestMetrics.addProperty(Field.StatusCode.name(), exception.getStatusCode());
-                    
-                    if (!shouldRetry(httpRequest, exception, retryCount)) {
+                    if (isThrottlingException(exception)) {
+                        throttleCount++;
+                    }
+
+                    if (!shouldRetry(httpRequest, exception, retryCount)
+                            || !acquireRetryCost(RetryBudget.RETRY_COST)) {
                         throw exception;
                     }
-                    
+
                     /*
                      * Checking for clock skew error again because we don't want to set the
                      * global time offset for every service exception.
                      */
                     if(isClockSkewError(exception)) {
                     	int timeOffset = parseClockSkewOffset(response, exception);
-                    	SDKGlobalConfiguration.setGlobalTimeOffset(timeOffset);                     
+                    	SDKGlobalConfiguration.setGlobalTimeOffset(timeOffset);
                     }
-                    
+
                     resetRequestAfterError(request, exception);
                 }
             } catch (IOException ioe) {
@@ -372,7 +601,8 @@ public class AmazonHttpClient {
                 awsRequestMetrics.addProperty(Field.Exception.name(), ioe.toString());
                 awsRequestMetrics.addProperty(Field.AWSRequestID.name(), null);
 
-                if (!shouldRetry(httpRequest, ioe, retryCount)) {
+                if (!shouldRetry(httpRequest, ioe, retryCount)
+                        || !acquireRetryCost(RetryBudget.IO_ERROR_RETRY_COST)) {
                     throw new AmazonClientException("Unable to execute HTTP request: " + ioe.getMessage(), ioe);
                 }
                 resetRequestAfterError(request, ioe);
@@ -397,7 +627,102 @@ public class AmazonHttpClient {
                     }
                 }
             }
-        } /* end while (true) */
+
+            CustomBackoffStrategy backoffStrategy = config.getBackoffStrategy();
+            if (backoffStrategy == null) {
+                backoffStrategy = executionContext.getCustomBackoffStrategy();
+            }
+            backoffDelay = computeBackoffDelay(retryCount, exception, backoffStrategy);
+            return false;
+        }
+
+        /**
+         * Hands the metrics of this request, once it has finally succeeded or
+         * failed, to the SDK's metrics collector. A failing collector never
+         * fails the request.
+         */
+        void collectMetrics(boolean successful) {
+            MetricsCollector collector = AwsSdkMetrics.getMetricsCollector();
+            if (collector == MetricsCollector.NONE) return;
+
+            try {
+                collector.collect(new RequestSample(request.getServiceName(),
+                        getOperationName(request), System.nanoTime() - startNanos,
+                        retryCount, throttleCount, bytesSent, bytesReceived, successful));
+            } catch (RuntimeException e) {
+                log.warn("Unable to collect request metrics", e);
+            }
+        }
+
+        /**
+         * Withdraws the cost of the next retry from the client's retry budget,
+         * if it has one, remembering it so that it can be refunded if the retry
+         * succeeds.
+         *
+         * @return True if the retry may proceed, or false if the budget is
+         *         exhausted.
+         */
+        private boolean acquireRetryCost(int cost) {
+            if (retryBudget == null) return true;
+            if (!retryBudget.tryAcquire(cost)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Retry budget exhausted, not retrying request");
+                }
+                return false;
+            }
+            retryCost = cost;
+            return true;
+        }
+    }
+
+    /**
+     * Future for the result of an asynchronously executed request, completed
+     * by whichever attempt finally succeeds or fails.
+     */
+    private static final class ResponseFuture<T> extends FutureTask<T> {
+        private static final Runnable NO_OP = new Runnable() {
+            public void run() {}
+        };
+
+        ResponseFuture() {
+            super(NO_OP, null);
+        }
+
+        void complete(T result) {
+            set(result);
+        }
+
+        void fail(Throwable t) {
+            setException(t);
+        }
+
+        /**
+         * Does nothing: the future is only completed by the request's
+         * attempts, never by running it.
+         */
+        @Override
+        public void run() {}
+    }
+
+    /**
+     * Returns the operation name for the specified request, derived from the
+     * class name of its original request object (e.g. "PutItem" for a
+     * PutItemRequest).
+     */
+    private static String getOperationName(Request<?> request) {
+        AmazonWebServiceRequest originalRequest = request.getOriginalRequest();
+        if (originalRequest == null) return "Unknown";
+
+        Class<?> requestClass = originalRequest.getClass();
+        String operationName = operationNames.get(requestClass);
+        if (operationName == null) {
+            operationName = requestClass.getSimpleName();
+            if (operationName.endsWith("Request") && operationName.length() > "Request".length()) {
+                operationName = operationName.substring(0, operationName.length() - "Request".length());
+            }
+            operationNames.putIfAbsent(requestClass, operationName);
+        }
+        return operationName;
     }
 
     /**
@@ -720,15 +1045,15 @@ public class AmazonHttpClient {
     }
 
     /**
-     * Exponential sleep on failed request to avoid flooding a service with
-     * retries.
+     * Returns the exponential back-off delay to apply before retrying a failed
+     * request, to avoid flooding a service with retries.
      *
      * @param retries
      *            Current retry count.
      * @param previousException
      *            Exception information for the previous attempt, if any.
      */
-    private void pauseExponentially(int retries, AmazonServiceException previousException, CustomBackoffStrategy backoffStrategy) {
+    private long computeBackoffDelay(int retries, AmazonServiceException previousException, CustomBackoffStrategy backoffStrategy) {
         long delay = 0;
         if (backoffStrategy != null) {
             delay = backoffStrategy.getBackoffPeriod(retries);
@@ -745,7 +1070,13 @@ public class AmazonHttpClient {
             log.debug("Retriable error detected, " +
                     "will retry in " + delay + "ms, attempt number: " + retries);
         }
+        return delay;
+    }
 
+    /**
+     * Blocks the calling thread for the back-off delay before a retry.
+     */
+    private void pause(long delay) {
         try {
             Thread.sleep(delay);
         } catch (InterruptedException e) {
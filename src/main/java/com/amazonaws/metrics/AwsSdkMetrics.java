@@ -0,0 +1,54 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+/**
+ * Global configuration of the SDK's request metrics.
+ * <p>
+ * By default, every request's metrics are aggregated in memory by the
+ * {@link #getRequestMetricsRegistry() default registry}, which costs a few
+ * atomic updates per request. A different {@link MetricsCollector} can be
+ * installed to send metrics elsewhere, or {@link MetricsCollector#NONE} to
+ * turn collection off.
+ */
+public final class AwsSdkMetrics {
+
+    private static final RequestMetricsRegistry registry = new RequestMetricsRegistry();
+
+    private static volatile MetricsCollector collector = registry;
+
+    private AwsSdkMetrics() {}
+
+    /** Returns the collector that receives the metrics of every request. */
+    public static MetricsCollector getMetricsCollector() {
+        return collector;
+    }
+
+    /**
+     * Sets the collector that receives the metrics of every request. A null
+     * collector turns metrics collection off.
+     */
+    public static void setMetricsCollector(MetricsCollector metricsCollector) {
+        collector = metricsCollector == null ? MetricsCollector.NONE : metricsCollector;
+    }
+
+    /**
+     * Returns the SDK's default in-memory metrics registry, which is also the
+     * default metrics collector.
+     */
+    public static RequestMetricsRegistry getRequestMetricsRegistry() {
+        return registry;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+/**
+ * Service provider interface for receiving the metrics of each request sent
+ * by the SDK.
+ * <p>
+ * A collector is called once per request, on the thread that completed the
+ * request, after the request has either succeeded or failed for the last
+ * time. Implementations must be thread safe and should return quickly, since
+ * they run on the request path; anything expensive, such as publishing the
+ * metrics somewhere, should be handed off to a background thread.
+ *
+ * @see AwsSdkMetrics#setMetricsCollector(MetricsCollector)
+ */
+public abstract class MetricsCollector {
+
+    /** A collector that discards all metrics. */
+    public static final MetricsCollector NONE = new MetricsCollector() {
+        @Override
+        public void collect(RequestSample sample) {}
+    };
+
+    /**
+     * Receives the metrics of a completed request.
+     *
+     * @param sample
+     *            The metrics of the completed request.
+     */
+    public abstract void collect(RequestSample sample);
+}
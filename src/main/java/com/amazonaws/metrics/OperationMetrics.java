@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Aggregated metrics for all requests sent to one operation of one service.
+ * All recording is lock-free.
+ */
+public final class OperationMetrics implements OperationMetricsMBean {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final String serviceName;
+    private final String operationName;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong throttleCount = new AtomicLong();
+    private final AtomicLong bytesSent = new AtomicLong();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    OperationMetrics(String serviceName, String operationName) {
+        this.serviceName = serviceName;
+        this.operationName = operationName;
+    }
+
+    void record(RequestSample sample) {
+        latency.record(sample.getLatencyNanos());
+        if (!sample.isSuccessful()) errorCount.incrementAndGet();
+        if (sample.getAttemptCount() > 1) retryCount.addAndGet(sample.getAttemptCount() - 1);
+        if (sample.getThrottleCount() > 0) throttleCount.addAndGet(sample.getThrottleCount());
+        if (sample.getBytesSent() > 0) bytesSent.addAndGet(sample.getBytesSent());
+        if (sample.getBytesReceived() > 0) bytesReceived.addAndGet(sample.getBytesReceived());
+    }
+
+    /** Returns the histogram of request latencies, in nanoseconds. */
+    public LatencyHistogram getLatencyHistogram() {
+        return latency;
+    }
+
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    public String getOperationName() {
+        return operationName;
+    }
+
+    public long getRequestCount() {
+        return latency.getCount();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public long getThrottleCount() {
+        return throttleCount.get();
+    }
+
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public double getMeanLatencyMillis() {
+        return latency.getMean() / NANOS_PER_MILLI;
+    }
+
+    public double getMaxLatencyMillis() {
+        return latency.getMax() / NANOS_PER_MILLI;
+    }
+
+    public double getLatencyP50Millis() {
+        return latency.getValueAtPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    public double getLatencyP90Millis() {
+        return latency.getValueAtPercentile(90) / NANOS_PER_MILLI;
+    }
+
+    public double getLatencyP99Millis() {
+        return latency.getValueAtPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    public void reset() {
+        latency.reset();
+        errorCount.set(0);
+        retryCount.set(0);
+        throttleCount.set(0);
+        bytesSent.set(0);
+        bytesReceived.set(0);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+/**
+ * JMX management interface for the metrics of one service operation.
+ */
+public interface OperationMetricsMBean {
+
+    public String getServiceName();
+
+    public String getOperationName();
+
+    public long getRequestCount();
+
+    public long getErrorCount();
+
+    public long getRetryCount();
+
+    public long getThrottleCount();
+
+    public long getBytesSent();
+
+    public long getBytesReceived();
+
+    public double getMeanLatencyMillis();
+
+    public double getMaxLatencyMillis();
+
+    public double getLatencyP50Millis();
+
+    public double getLatencyP90Millis();
+
+    public double getLatencyP99Millis();
+
+    public void reset();
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Metrics collector that aggregates request metrics in memory, per service
+ * and operation, and can optionally export them through JMX.
+ * <p>
+ * This is the SDK's default metrics collector. Each operation's metrics can
+ * be read with {@link #getOperationMetrics(String, String)}, or, once
+ * {@link #setJmxExportEnabled(boolean)} is turned on, through MBeans named
+ * <code>com.amazonaws.metrics:type=Operation,service=&lt;service&gt;,operation=&lt;operation&gt;</code>.
+ */
+public class RequestMetricsRegistry extends MetricsCollector {
+
+    private static final Log log = LogFactory.getLog(RequestMetricsRegistry.class);
+
+    private static final String JMX_DOMAIN = "com.amazonaws.metrics";
+
+    private final ConcurrentMap<String, OperationMetrics> operations =
+            new ConcurrentHashMap<String, OperationMetrics>();
+
+    private volatile boolean jmxExportEnabled = false;
+
+    @Override
+    public void collect(RequestSample sample) {
+        getOrCreate(sample.getServiceName(), sample.getOperationName()).record(sample);
+    }
+
+    /**
+     * Returns the metrics for the specified service operation, or null if no
+     * request has been sent to it yet.
+     */
+    public OperationMetrics getOperationMetrics(String serviceName, String operationName) {
+        return operations.get(key(serviceName, operationName));
+    }
+
+    /** Returns the metrics of every service operation with recorded requests. */
+    public List<OperationMetrics> getAllOperationMetrics() {
+        return new ArrayList<OperationMetrics>(operations.values());
+    }
+
+    /** Resets the metrics of every service operation. */
+    public void reset() {
+        for (OperationMetrics metrics : operations.values()) {
+            metrics.reset();
+        }
+    }
+
+    /** Returns true if operation metrics are exported through JMX. */
+    public boolean isJmxExportEnabled() {
+        return jmxExportEnabled;
+    }
+
+    /**
+     * Sets whether operation metrics are exported through JMX, registering or
+     * unregistering an MBean for each operation with the platform MBean
+     * server.
+     */
+    public synchronized void setJmxExportEnabled(boolean jmxExportEnabled) {
+        if (this.jmxExportEnabled == jmxExportEnabled) return;
+        this.jmxExportEnabled = jmxExportEnabled;
+        for (OperationMetrics metrics : operations.values()) {
+            if (jmxExportEnabled) {
+                registerMBean(metrics);
+            } else {
+                unregisterMBean(metrics);
+            }
+        }
+    }
+
+    private OperationMetrics getOrCreate(String serviceName, String operationName) {
+        String key = key(serviceName, operationName);
+        OperationMetrics metrics = operations.get(key);
+        if (metrics != null) return metrics;
+
+        metrics = new OperationMetrics(serviceName, operationName);
+        OperationMetrics existing = operations.putIfAbsent(key, metrics);
+        if (existing != null) return existing;
+
+        if (jmxExportEnabled) {
+            synchronized (this) {
+                if (jmxExportEnabled) registerMBean(metrics);
+            }
+        }
+        return metrics;
+    }
+
+    private static String key(String serviceName, String operationName) {
+        return serviceName + "." + operationName;
+    }
+
+    private static void registerMBean(OperationMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = objectName(metrics);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(metrics, name);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to register metrics MBean for " + key(metrics.getServiceName(), metrics.getOperationName()), e);
+        }
+    }
+
+    private static void unregisterMBean(OperationMetrics metrics) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = objectName(metrics);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (Exception e) {
+            log.warn("Unable to unregister metrics MBean for " + key(metrics.getServiceName(), metrics.getOperationName()), e);
+        }
+    }
+
+    private static ObjectName objectName(OperationMetrics metrics) throws Exception {
+        return new ObjectName(JMX_DOMAIN + ":type=Operation"
+                + ",service=" + ObjectName.quote(String.valueOf(metrics.getServiceName()))
+                + ",operation=" + ObjectName.quote(String.valueOf(metrics.getOperationName())));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.metrics;
+
+/**
+ * The metrics of a single completed request, as passed to a
+ * {@link MetricsCollector}.
+ */
+public final class RequestSample {
+    private final String serviceName;
+    private final String operationName;
+    private final long latencyNanos;
+    private final int attemptCount;
+    private final int throttleCount;
+    private final long bytesSent;
+    private final long bytesReceived;
+    private final boolean successful;
+
+    public RequestSample(String serviceName, String operationName, long latencyNanos,
+            int attemptCount, int throttleCount, long bytesSent, long bytesReceived, boolean successful) {
+        this.serviceName = serviceName;
+        this.operationName = operationName;
+        this.latencyNanos = latencyNanos;
+        this.attemptCount = attemptCount;
+        this.throttleCount = throttleCount;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.successful = successful;
+    }
+
+    /** Returns the name of the service the request was sent to. */
+    public String getServiceName() {
+        return serviceName;
+    }
+
+    /** Returns the name of the operation, such as "PutItem". */
+    public String getOperationName() {
+        return operationName;
+    }
+
+    /**
+     * Returns the time, in nanoseconds, from the start of the first attempt
+     * to the end of the last one, including any retry back-off.
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /** Returns the number of times the request was sent. */
+    public int getAttemptCount() {
+        return attemptCount;
+    }
+
+    /** Returns the number of attempts that were rejected by throttling. */
+    public int getThrottleCount() {
+        return throttleCount;
+    }
+
+    /** Returns the number of request content bytes sent, over all attempts. */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Returns the number of response content bytes received, as declared by
+     * the responses' Content-Length headers.
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /** Returns true if the request ultimately succeeded. */
+    public boolean isSuccessful() {
+        return successful;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+import java.util.Random;
+
+import com.amazonaws.internal.CustomBackoffStrategy;
+
+/**
+ * Exponential back-off strategy that randomizes each delay, so that clients
+ * which were throttled at the same moment don't all retry at the same moment
+ * and trigger the same throttling again.
+ * <p>
+ * The un-jittered delay for retry attempt <i>n</i> is
+ * <code>min(maxBackoff, baseDelay * 2<sup>n</sup>)</code>. With
+ * {@link Jitter#FULL} the actual delay is chosen uniformly between zero and
+ * that value; with {@link Jitter#EQUAL} half of it is kept and the other half
+ * is chosen uniformly.
+ */
+public class JitteredBackoffStrategy extends CustomBackoffStrategy {
+
+    /** How much of the exponential delay is randomized. */
+    public static enum Jitter {
+        /** The whole delay is chosen uniformly between zero and its cap. */
+        FULL,
+
+        /** Half of the delay is fixed and the other half is randomized. */
+        EQUAL
+    }
+
+    /** Full jitter over a 100ms base delay, capped at 20 seconds. */
+    public static final CustomBackoffStrategy DEFAULT =
+            new JitteredBackoffStrategy(100, 20 * 1000, Jitter.FULL);
+
+    private static final Random random = new Random();
+
+    private final int baseDelay;
+    private final int maxBackoff;
+    private final Jitter jitter;
+
+    /**
+     * Constructs a new jittered back-off strategy.
+     *
+     * @param baseDelay
+     *            The delay, in milliseconds, that is doubled on each retry
+     *            attempt.
+     * @param maxBackoff
+     *            The maximum delay, in milliseconds, before any jitter is
+     *            applied.
+     * @param jitter
+     *            How much of each delay is randomized.
+     */
+    public JitteredBackoffStrategy(int baseDelay, int maxBackoff, Jitter jitter) {
+        if (baseDelay <= 0 || maxBackoff <= 0) {
+            throw new IllegalArgumentException("Back-off delays must be positive");
+        }
+        if (jitter == null) {
+            throw new IllegalArgumentException("Jitter must be specified");
+        }
+        this.baseDelay = baseDelay;
+        this.maxBackoff = maxBackoff;
+        this.jitter = jitter;
+    }
+
+    @Override
+    public int getBackoffPeriod(int retryAttempts) {
+        if (retryAttempts <= 0) return 0;
+
+        // Cap the exponent so that the shift can't overflow
+        int exponent = Math.min(retryAttempts, 30);
+        long ceiling = Math.min((long)baseDelay << exponent, maxBackoff);
+        // Leaves room for the bound of nextInt, which is one past the ceiling
+        ceiling = Math.min(ceiling, Integer.MAX_VALUE - 1);
+
+        switch (jitter) {
+        case EQUAL:
+            int half = (int)(ceiling / 2);
+            return half + random.nextInt(half + 1);
+        case FULL:
+        default:
+            return random.nextInt((int)ceiling + 1);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.retry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client-wide token bucket that limits how many retries a client can make
+ * relative to its successful requests.
+ * <p>
+ * Every retry withdraws tokens from the bucket, and every successful request
+ * deposits some back, up to the bucket's capacity. While a service is healthy
+ * the bucket stays full and retries behave as usual; during an outage the
+ * bucket drains and failed requests are returned to the caller immediately
+ * instead of multiplying the load on the service with retries.
+ * <p>
+ * Instances are thread safe and intended to be shared by all requests sent
+ * through one client.
+ */
+public class RetryBudget {
+
+    /** Tokens withdrawn for retrying a request after an error response. */
+    public static final int RETRY_COST = 5;
+
+    /**
+     * Tokens withdrawn for retrying a request after an I/O error, which
+     * usually indicates a more serious problem than an error response.
+     */
+    public static final int IO_ERROR_RETRY_COST = 10;
+
+    /** Tokens deposited for a request that succeeds on its first attempt. */
+    public static final int SUCCESS_REFUND = 1;
+
+    private final int capacity;
+    private final AtomicInteger available;
+
+    /**
+     * Constructs a new, full retry budget.
+     *
+     * @param capacity
+     *            The maximum number of tokens the budget can hold.
+     */
+    public RetryBudget(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Retry budget capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.available = new AtomicInteger(capacity);
+    }
+
+    /**
+     * Attempts to withdraw the specified number of tokens for a retry.
+     *
+     * @param cost
+     *            The number of tokens the retry costs.
+     *
+     * @return True if the tokens were withdrawn and the retry may proceed,
+     *         otherwise false.
+     */
+    public boolean tryAcquire(int cost) {
+        while (true) {
+            int current = available.get();
+            if (current < cost) return false;
+            if (available.compareAndSet(current, current - cost)) return true;
+        }
+    }
+
+    /**
+     * Deposits the specified number of tokens, up to the budget's capacity.
+     *
+     * @param amount
+     *            The number of tokens to deposit.
+     */
+    public void release(int amount) {
+        while (true) {
+            int current = available.get();
+            if (current >= capacity) return;
+            int updated = Math.min(capacity, current + amount);
+            if (available.compareAndSet(current, updated)) return;
+        }
+    }
+
+    /**
+     * Returns the number of tokens currently available for retries.
+     */
+    public int getAvailableCapacity() {
+        return available.get();
+    }
+
+    /**
+     * Returns the maximum number of tokens this budget can hold.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -31,7 +31,7 @@ import com.amazonaws.services.datapipeline.model.*;
 import com.amazonaws.transform.Marshaller;
 import com.amazonaws.util.BinaryUtils;
 import com.amazonaws.util.StringUtils;
-import com.amazonaws.util.StringInputStream;
+import com.amazonaws.util.UTF8ByteArrayWriter;
 import com.amazonaws.util.json.*;
 
 /**
@@ -78,8 +78,8 @@ public class CreatePipelineRequestMarshaller implements Marshaller<Request<Creat
 
         
         try {
-          StringWriter stringWriter = new StringWriter();
-          JSONWriter jsonWriter = new JSONWriter(stringWriter);
+          UTF8ByteArrayWriter contentWriter = new UTF8ByteArrayWriter();
+          JSONWriter jsonWriter = new JSONWriter(contentWriter);
 
           
             
@@ -98,10 +98,8 @@ public class CreatePipelineRequestMarshaller implements Marshaller<Request<Creat
           jsonWriter.endObject();
           
 
-          String snippet = stringWriter.toString();
-          byte[] content = snippet.getBytes("UTF-8");
-          request.setContent(new StringInputStream(snippet));
-          request.addHeader("Content-Length", Integer.toString(content.length));
+          request.addHeader("Content-Length", Integer.toString(contentWriter.size()));
+          request.setContent(contentWriter.getInputStream());
         } catch(Throwable t) {
           throw new AmazonClientException("Unable to marshall request to JSON: " + t.getMessage(), t);
         }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2013 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Runs the batches of one batch operation of the mapper, up to a maximum
+ * number at a time. The calling thread prepares the next batch while earlier
+ * ones are sent, and blocks in {@link #submit(Runnable)} while the maximum
+ * number of batches are in flight, so only that many batches are held in
+ * memory. With a maximum of one, batches run on the calling thread.
+ * <p>
+ * The first exception thrown by a batch is rethrown to the calling thread by
+ * the next call to {@link #submit(Runnable)} or {@link #awaitCompletion()},
+ * and the batches still running are cancelled.
+ */
+final class BatchExecutor {
+
+    private final ExecutorService executorService;
+    private final Semaphore permits;
+    private final List<Future<?>> futures = new ArrayList<Future<?>>();
+
+    BatchExecutor(int maxConcurrentBatches) {
+        if (maxConcurrentBatches > 1) {
+            executorService = Executors.newFixedThreadPool(maxConcurrentBatches);
+            permits = new Semaphore(maxConcurrentBatches);
+        } else {
+            executorService = null;
+            permits = null;
+        }
+    }
+
+    /**
+     * Runs the batch given, waiting until fewer than the maximum number of
+     * batches are in flight.
+     */
+    void submit(final Runnable batch) {
+        if (executorService == null) {
+            batch.run();
+            return;
+        }
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            shutdown();
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        }
+        futures.add(executorService.submit(new Runnable() {
+            public void run() {
+                try {
+                    batch.run();
+                } finally {
+                    permits.release();
+                }
+            }
+        }));
+
+        // Rethrow failures early and stop tracking finished batches
+        for (Iterator<Future<?>> it = futures.iterator(); it.hasNext();) {
+            Future<?> future = it.next();
+            if (future.isDone()) {
+                getResult(future);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Waits for all the batches submitted to finish, and releases the threads
+     * used to run them.
+     */
+    void awaitCompletion() {
+        try {
+            for (Future<?> future : futures) {
+                getResult(future);
+            }
+        } finally {
+            shutdown();
+        }
+    }
+
+    private void getResult(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            shutdown();
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        } catch (ExecutionException e) {
+            shutdown();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new AmazonClientException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Stops the batches still running, if any, and releases the threads.
+     */
+    void shutdown() {
+        if (executorService != null) executorService.shutdownNow();
+    }
+}
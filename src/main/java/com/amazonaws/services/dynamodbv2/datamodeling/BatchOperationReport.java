@@ -0,0 +1,143 @@
+/*
+ * Copyright 2013 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+
+/**
+ * Statistics of a batch operation of the {@link DynamoDBMapper}, filled in as
+ * the operation runs when passed to
+ * {@link DynamoDBMapper#batchWrite(List, List, DynamoDBMapperConfig, BatchOperationReport)}
+ * or {@link DynamoDBMapper#batchLoad(List, DynamoDBMapperConfig, BatchOperationReport)}.
+ * <p>
+ * For batch loads, it also holds the keys that were still unprocessed when
+ * the retries ran out; batch writes return their failures as
+ * {@link DynamoDBMapper.FailedBatch}es.
+ */
+public class BatchOperationReport {
+
+    private int requestCount;
+    private int retryCount;
+    private int throttledRequestCount;
+    private long itemsProcessed;
+    private double consumedCapacityUnits;
+    private long elapsedMillis;
+    private final Map<String, KeysAndAttributes> unprocessedKeys = new HashMap<String, KeysAndAttributes>();
+
+    /**
+     * Returns the number of BatchWriteItem or BatchGetItem requests sent,
+     * including retries.
+     */
+    public synchronized int getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Returns the number of requests sent again to retry unprocessed items or
+     * throttled batches.
+     */
+    public synchronized int getRetryCount() {
+        return retryCount;
+    }
+
+    /**
+     * Returns the number of requests rejected because the provisioned
+     * throughput was exceeded.
+     */
+    public synchronized int getThrottledRequestCount() {
+        return throttledRequestCount;
+    }
+
+    /**
+     * Returns the number of items written, deleted or read. For batch loads,
+     * keys with no item are counted as processed too.
+     */
+    public synchronized long getItemsProcessed() {
+        return itemsProcessed;
+    }
+
+    /**
+     * Returns the capacity units consumed by the operation, as reported by
+     * DynamoDB.
+     */
+    public synchronized double getConsumedCapacityUnits() {
+        return consumedCapacityUnits;
+    }
+
+    /**
+     * Returns how long the operation took, in milliseconds.
+     */
+    public synchronized long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns the keys of a batch load, by table name, that DynamoDB still
+     * hadn't processed when the retries ran out.
+     */
+    public synchronized Map<String, KeysAndAttributes> getUnprocessedKeys() {
+        return new HashMap<String, KeysAndAttributes>(unprocessedKeys);
+    }
+
+    /**
+     * Records a request that completed, and returns the capacity it consumed.
+     */
+    synchronized double requestCompleted(long items, List<ConsumedCapacity> consumedCapacity) {
+        requestCount++;
+        itemsProcessed += items;
+        double units = 0;
+        if (consumedCapacity != null) {
+            for (ConsumedCapacity capacity : consumedCapacity) {
+                if (capacity.getCapacityUnits() != null) units += capacity.getCapacityUnits();
+            }
+        }
+        consumedCapacityUnits += units;
+        return units;
+    }
+
+    synchronized void requestThrottled() {
+        requestCount++;
+        throttledRequestCount++;
+    }
+
+    synchronized void retried() {
+        retryCount++;
+    }
+
+    synchronized void setElapsedMillis(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    synchronized void addUnprocessedKeys(Map<String, KeysAndAttributes> keys) {
+        for (Map.Entry<String, KeysAndAttributes> entry : keys.entrySet()) {
+            KeysAndAttributes existing = unprocessedKeys.get(entry.getKey());
+            if (existing == null) {
+                existing = new KeysAndAttributes()
+                        .withConsistentRead(entry.getValue().getConsistentRead())
+                        .withAttributesToGet(entry.getValue().getAttributesToGet())
+                        .withKeys(new ArrayList<Map<String, AttributeValue>>());
+                unprocessedKeys.put(entry.getKey(), existing);
+            }
+            existing.getKeys().addAll(entry.getValue().getKeys());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2013 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * Holds the capacity consumed by requests to about a target number of
+ * capacity units per second. Requests wait in {@link #acquire()} while the
+ * capacity consumed so far is ahead of the target; since the capacity a
+ * request consumes is only known once DynamoDB returns it, concurrent
+ * requests can overshoot the target by up to one request each.
+ * <p>
+ * Up to one second's worth of unused capacity is kept for bursts.
+ */
+final class CapacityRateLimiter {
+
+    private final double unitsPerSecond;
+
+    /** The capacity units available; negative while requests are ahead. */
+    private double availableUnits;
+    private long lastRefillNanos = System.nanoTime();
+
+    CapacityRateLimiter(double unitsPerSecond) {
+        this.unitsPerSecond = unitsPerSecond;
+        this.availableUnits = unitsPerSecond;
+    }
+
+    /**
+     * Waits until a request can be sent without getting ahead of the target.
+     */
+    void acquire() {
+        while (true) {
+            long waitNanos;
+            synchronized (this) {
+                refill();
+                if (availableUnits >= 0) return;
+                waitNanos = (long) (-availableUnits / unitsPerSecond * 1000000000L);
+            }
+            try {
+                Thread.sleep(waitNanos / 1000000L, (int) (waitNanos % 1000000L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmazonClientException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Records the capacity units consumed by a request.
+     */
+    synchronized void consumed(double units) {
+        refill();
+        availableUnits -= units;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        availableUnits = Math.min(unitsPerSecond,
+                availableUnits + (now - lastRefillNanos) / 1000000000.0 * unitsPerSecond);
+        lastRefillNanos = now;
+    }
+}
@@ -23,7 +23,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +35,7 @@ import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.http.AmazonHttpClient;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.BatchOptions;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.ConsistentReads;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.SaveBehavior;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
@@ -46,6 +46,7 @@ import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
 import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
@@ -57,6 +58,7 @@ import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.dynamodbv2.model.PutRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
 import com.amazonaws.services.dynamodbv2.model.Select;
@@ -161,6 +163,11 @@ public class DynamoDBMapper {
     /** The max back off time for batch write */
     private static final long MAX_BACKOFF_IN_MILLISECONDS = 1000 * 3;
 
+    private static final int MAX_ITEMS_PER_BATCH_WRITE = 25;
+    private static final int MAX_ITEMS_PER_BATCH_GET = 100;
+
+    private static final Random random = new Random();
+
     /**
      * User agent for requests made using the {@link DynamoDBMapper}.
      */
@@ -1132,118 +1139,154 @@ public class DynamoDBMapper {
      *         the exceptions causing the failure.
      */
     public List<FailedBatch> batchWrite(List<? extends Object> objectsToWrite, List<? extends Object> objectsToDelete, DynamoDBMapperConfig config) {
+        return batchWrite(objectsToWrite, objectsToDelete, config, null);
+    }
+
+    /**
+     * Saves and deletes the objects given using one or more calls to the
+     * {@link AmazonDynamoDB#batchWriteItem(BatchWriteItemRequest)} API.
+     * <p>
+     * Objects are marshalled into batches of up to 25 items as the batches
+     * are sent, so only the batches in flight are held in memory. Up to
+     * {@link BatchOptions#getMaxConcurrentBatches()} batches are sent at a
+     * time; unprocessed items and throttled batches are retried with jittered
+     * exponential back-off up to {@link BatchOptions#getMaxRetries()} times,
+     * and the capacity consumed can be limited with
+     * {@link BatchOptions#getTargetCapacityUnitsPerSecond()}.
+     *
+     * @param objectsToWrite
+     *            A list of objects to save to DynamoDB. <b>No version checks
+     *            are performed</b>, as required by the
+     *            {@link AmazonDynamoDB#batchWriteItem(BatchWriteItemRequest)}
+     *            API.
+     * @param objectsToDelete
+     *            A list of objects to delete from DynamoDB. <b>No version
+     *            checks are performed</b>, as required by the
+     *            {@link AmazonDynamoDB#batchWriteItem(BatchWriteItemRequest)}
+     *            API.
+     * @param config
+     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()} and
+     *            {@link DynamoDBMapperConfig#getBatchOptions()} are
+     *            considered; if a table name override is specified, all
+     *            objects in the two parameter lists will be considered to
+     *            belong to the given table override.
+     * @param report
+     *            Filled in with statistics of the operation, or null.
+     * @return A list of failed batches, each holding the items that couldn't
+     *         be written and the exception causing the failure.
+     */
+    public List<FailedBatch> batchWrite(List<? extends Object> objectsToWrite, List<? extends Object> objectsToDelete, DynamoDBMapperConfig config, BatchOperationReport report) {
         config = mergeConfig(config);
+        long startTime = System.currentTimeMillis();
+        BatchContext context = new BatchContext(config.getBatchOptions(), report);
 
-        List<FailedBatch> totalFailedBatches = new LinkedList<FailedBatch>();
+        List<FailedBatch> totalFailedBatches = Collections.synchronizedList(new LinkedList<FailedBatch>());
 
-        HashMap<String, List<WriteRequest>> requestItems = new HashMap<String, List<WriteRequest>>();
+        Map<String, List<WriteRequest>> requestItems = new HashMap<String, List<WriteRequest>>();
+        int count = 0;
 
         List<ValueUpdate> inMemoryUpdates = new LinkedList<ValueUpdate>();
-        for ( Object toWrite : objectsToWrite ) {
-            Class<?> clazz = toWrite.getClass();
-            String tableName = getTableName(clazz, config);
+        BatchExecutor executor = new BatchExecutor(context.options.getMaxConcurrentBatches());
+        try {
+            for ( Object toWrite : objectsToWrite ) {
+                Class<?> clazz = toWrite.getClass();
+                String tableName = getTableName(clazz, config);
 
-            Map<String, AttributeValue> attributeValues = new HashMap<String, AttributeValue>();
+                Map<String, AttributeValue> attributeValues = new HashMap<String, AttributeValue>();
 
-            // Look at every getter and construct a value object for it
-            for ( Method method : reflector.getRelevantGetters(clazz) ) {
-                Object getterResult = safeInvoke(method, toWrite);
-                String attributeName = reflector.getAttributeName(method);
+                // Look at every getter and construct a value object for it
+                for ( Method method : reflector.getRelevantGetters(clazz) ) {
+                    Object getterResult = safeInvoke(method, toWrite);
+                    String attributeName = reflector.getAttributeName(method);
 
-                AttributeValue currentValue = null;
-                if ( getterResult == null && reflector.isAssignableKey(method) ) {
-                    currentValue = getAutoGeneratedKeyAttributeValue(method, getterResult);
-                    inMemoryUpdates.add(new ValueUpdate(method, currentValue, toWrite));
-                } else {
-                    currentValue = getSimpleAttributeValue(method, getterResult);
-                }
+                    AttributeValue currentValue = null;
+                    if ( getterResult == null && reflector.isAssignableKey(method) ) {
+                        currentValue = getAutoGeneratedKeyAttributeValue(method, getterResult);
+                        inMemoryUpdates.add(new ValueUpdate(method, currentValue, toWrite));
+                    } else {
+                        currentValue = getSimpleAttributeValue(method, getterResult);
+                    }
 
-                if ( currentValue != null ) {
-                    attributeValues.put(attributeName, currentValue);
+                    if ( currentValue != null ) {
+                        attributeValues.put(attributeName, currentValue);
+                    }
                 }
-            }
-
-            if ( !requestItems.containsKey(tableName) ) {
-                requestItems.put(tableName, new LinkedList<WriteRequest>());
-            }
 
-            requestItems.get(tableName).add(
-                    new WriteRequest().withPutRequest(new PutRequest().withItem(transformAttributes(clazz, attributeValues))));
-        }
+                if ( !requestItems.containsKey(tableName) ) {
+                    requestItems.put(tableName, new LinkedList<WriteRequest>());
+                }
 
-        for ( Object toDelete : objectsToDelete ) {
-            Class<?> clazz = toDelete.getClass();
+                requestItems.get(tableName).add(
+                        new WriteRequest().withPutRequest(new PutRequest().withItem(transformAttributes(clazz, attributeValues))));
 
-            String tableName = getTableName(clazz, config);
+                if ( ++count == MAX_ITEMS_PER_BATCH_WRITE ) {
+                    submitWriteBatch(executor, requestItems, context, totalFailedBatches);
+                    requestItems = new HashMap<String, List<WriteRequest>>();
+                    count = 0;
+                }
+            }
 
-            Map<String, AttributeValue> key = getKey(toDelete);
+            for ( Object toDelete : objectsToDelete ) {
+                Class<?> clazz = toDelete.getClass();
 
-            if ( !requestItems.containsKey(tableName) ) {
-                requestItems.put(tableName, new LinkedList<WriteRequest>());
-            }
+                String tableName = getTableName(clazz, config);
 
-            requestItems.get(tableName).add(
-                    new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key)));
-        }
+                Map<String, AttributeValue> key = getKey(toDelete);
 
-        // Break into chunks of 25 items and make service requests to DynamoDB
-        while ( !requestItems.isEmpty() ) {
-            HashMap<String, List<WriteRequest>> batch = new HashMap<String, List<WriteRequest>>();
-            int i = 0;
-            Iterator<Entry<String, List<WriteRequest>>> tableIter = requestItems.entrySet().iterator();
-            while ( tableIter.hasNext() && i < 25 ) {
-                Entry<String, List<WriteRequest>> tableRequest = tableIter.next();
-                batch.put(tableRequest.getKey(), new LinkedList<WriteRequest>());
-                Iterator<WriteRequest> writeRequestIter = tableRequest.getValue().iterator();
-                while ( writeRequestIter.hasNext() && i++ < 25 ) {
-                    WriteRequest writeRequest = writeRequestIter.next();
-                    batch.get(tableRequest.getKey()).add(writeRequest);
-                    writeRequestIter.remove();
+                if ( !requestItems.containsKey(tableName) ) {
+                    requestItems.put(tableName, new LinkedList<WriteRequest>());
                 }
 
-                // If we've processed all the write requests for this table,
-                // remove it from the parent iterator.
-                if ( !writeRequestIter.hasNext() ) {
-                    tableIter.remove();
+                requestItems.get(tableName).add(
+                        new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key)));
+
+                if ( ++count == MAX_ITEMS_PER_BATCH_WRITE ) {
+                    submitWriteBatch(executor, requestItems, context, totalFailedBatches);
+                    requestItems = new HashMap<String, List<WriteRequest>>();
+                    count = 0;
                 }
             }
 
-            List<FailedBatch> failedBatches = writeOneBatch(batch);
-            if (failedBatches != null) {
-                totalFailedBatches.addAll(failedBatches);
-
-                // If contains throttling exception, we do a backoff
-                if (containsThrottlingException(failedBatches)) {
-                    try {
-                        Thread.sleep(1000 * 2);
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new AmazonClientException(e.getMessage(), e);
-                    }
-                }
+            if ( count > 0 ) {
+                submitWriteBatch(executor, requestItems, context, totalFailedBatches);
             }
+            executor.awaitCompletion();
+        } finally {
+            executor.shutdown();
         }
 
-
-
         // Once the entire batch is processed, update assigned keys in memory
         for ( ValueUpdate update : inMemoryUpdates ) {
             update.apply();
         }
 
-        return totalFailedBatches;
+        context.report.setElapsedMillis(System.currentTimeMillis() - startTime);
+        return new LinkedList<FailedBatch>(totalFailedBatches);
+    }
+
+    /**
+     * Sends the batch of requests given with the executor, collecting its
+     * failures.
+     */
+    private void submitWriteBatch(BatchExecutor executor, final Map<String, List<WriteRequest>> batch,
+            final BatchContext context, final List<FailedBatch> failedBatches) {
+        executor.submit(new Runnable() {
+            public void run() {
+                failedBatches.addAll(writeOneBatch(batch, context));
+            }
+        });
     }
 
     /**
      * Process one batch of requests(max 25). It will divide the batch if
      * receives request too large exception(the total size of the request is beyond 1M).
      */
-    private List<FailedBatch> writeOneBatch(Map<String, List<WriteRequest>> batch) {
+    private List<FailedBatch> writeOneBatch(Map<String, List<WriteRequest>> batch, BatchContext context) {
 
         List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
         Map<String, List<WriteRequest>> firstHalfBatch = new HashMap<String, List<WriteRequest>>();
         Map<String, List<WriteRequest>> secondHalfBatch = new HashMap<String, List<WriteRequest>>();
-        FailedBatch failedBatch = callUntilCompletion(batch);
+        FailedBatch failedBatch = callUntilCompletion(batch, context);
 
         if (failedBatch != null) {
             // If the exception is request entity too large, we divide the batch
@@ -1255,12 +1298,12 @@ public class DynamoDBMapper {
                 // If only one item left, the item size must beyond 64k, which
                 // exceedes the limit.
 
-                if (computeFailedBatchSize(failedBatch) == 1) {
+                if (countWriteRequests(failedBatch.getUnprocessedItems()) == 1) {
                     failedBatches.add(failedBatch);
                 } else {
                     divideBatch(batch, firstHalfBatch, secondHalfBatch);
-                    failedBatches.addAll(writeOneBatch(firstHalfBatch));
-                    failedBatches.addAll(writeOneBatch(secondHalfBatch));
+                    failedBatches.addAll(writeOneBatch(firstHalfBatch, context));
+                    failedBatches.addAll(writeOneBatch(secondHalfBatch, context));
                 }
 
             } else {
@@ -1272,17 +1315,11 @@ public class DynamoDBMapper {
     }
 
     /**
-     * Check whether there are throttling exception in the failed batches.
+     * Check whether the exception is a throttling exception.
      */
-    private boolean containsThrottlingException (List<FailedBatch> failedBatches) {
-        for (FailedBatch failedBatch : failedBatches) {
-           Exception e = failedBatch.getException();
-            if (e instanceof AmazonServiceException
-                    && AmazonHttpClient.isThrottlingException((AmazonServiceException) e)) {
-                return true;
-            }
-        }
-        return false;
+    private boolean isThrottlingException(Exception e) {
+        return e instanceof AmazonServiceException
+                && AmazonHttpClient.isThrottlingException((AmazonServiceException) e);
     }
 
     /**
@@ -1306,45 +1343,62 @@ public class DynamoDBMapper {
     }
 
     /**
-     * Count the total number of unprocessed items in the failed batch.
+     * Count the total number of write requests in the batch.
      */
-
-    private int computeFailedBatchSize(FailedBatch failedBatch) {
-
+    private int countWriteRequests(Map<String, List<WriteRequest>> batch) {
         int count = 0;
-
-        for (String tableName : failedBatch.getUnprocessedItems().keySet()) {
-            count += failedBatch.getUnprocessedItems().get(tableName).size();
+        if (batch != null) {
+            for (List<WriteRequest> requests : batch.values()) {
+                count += requests.size();
+            }
         }
         return count;
     }
 
     /**
-     * Continue trying to process the batch until it finishes or an exception
-     * occurs.
+     * Continue trying to process the batch until it finishes, an exception
+     * occurs, or the retries run out. Throttled batches are retried too.
      */
-
-    private FailedBatch callUntilCompletion(Map<String, List<WriteRequest>> batch) {
-        BatchWriteItemResult result = null;
+    private FailedBatch callUntilCompletion(Map<String, List<WriteRequest>> batch, BatchContext context) {
         int retries = 0;
-        FailedBatch failedBatch = null;
         while (true) {
+            BatchWriteItemResult result = null;
+            context.beforeRequest();
             try {
-                result = db.batchWriteItem(new BatchWriteItemRequest().withRequestItems(batch));
+                result = db.batchWriteItem(applyUserAgent(new BatchWriteItemRequest().withRequestItems(batch)
+                        .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL)));
             } catch (Exception e) {
-                failedBatch = new FailedBatch();
-                failedBatch.setUnprocessedItems(batch);
-                failedBatch.setException(e);
-                return failedBatch;
+                if (isThrottlingException(e)) {
+                    context.report.requestThrottled();
+                    if (retries < context.options.getMaxRetries()) {
+                        context.report.retried();
+                        pauseExponentially(++retries);
+                        continue;
+                    }
+                }
+                return newFailedBatch(batch, e);
             }
-            retries++;
+
+            int unprocessed = countWriteRequests(result.getUnprocessedItems());
+            context.requestCompleted(countWriteRequests(batch) - unprocessed, result.getConsumedCapacity());
+            if (unprocessed == 0) {
+                return null;
+            }
+
             batch = result.getUnprocessedItems();
-            if (batch.size() > 0) {
-                pauseExponentially(retries);
-            } else {
-                break;
+            if (retries >= context.options.getMaxRetries()) {
+                return newFailedBatch(batch, new AmazonClientException(
+                        unprocessed + " items were still unprocessed after " + retries + " retries"));
             }
+            context.report.retried();
+            pauseExponentially(++retries);
         }
+    }
+
+    private FailedBatch newFailedBatch(Map<String, List<WriteRequest>> unprocessedItems, Exception e) {
+        FailedBatch failedBatch = new FailedBatch();
+        failedBatch.setUnprocessedItems(unprocessedItems);
+        failedBatch.setException(e);
         return failedBatch;
     }
 
@@ -1364,11 +1418,51 @@ public class DynamoDBMapper {
      *            Key objects, corresponding to the class to fetch, with their
      *            primary key values set.
      * @param config
-     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()} and
-     *            {@link DynamoDBMapperConfig#getConsistentReads()} are
-     *            considered.
+     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()},
+     *            {@link DynamoDBMapperConfig#getConsistentReads()} and
+     *            {@link DynamoDBMapperConfig#getBatchOptions()} are
+     *            considered; unprocessed keys are retried until all keys are
+     *            processed, regardless of {@link BatchOptions#getMaxRetries()},
+     *            while throttled batches are retried up to that many times.
+     * @see DynamoDBMapper#batchLoad(List, DynamoDBMapperConfig, BatchOperationReport)
      */
     public Map<String, List<Object>> batchLoad(List<Object> itemsToGet, DynamoDBMapperConfig config) {
+        return batchLoad(itemsToGet, config, new BatchOperationReport(), false);
+    }
+
+    /**
+     * Retrieves multiple items from multiple tables using their primary keys.
+     * <p>
+     * Keys are gathered into batches of up to 100 keys as the batches are
+     * sent. Up to {@link BatchOptions#getMaxConcurrentBatches()} batches are
+     * sent at a time; unprocessed keys and throttled batches are retried with
+     * jittered exponential back-off up to {@link BatchOptions#getMaxRetries()}
+     * times, and the capacity consumed can be limited with
+     * {@link BatchOptions#getTargetCapacityUnitsPerSecond()}.
+     *
+     * @param itemsToGet
+     *            Key objects, corresponding to the class to fetch, with their
+     *            primary key values set.
+     * @param config
+     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()},
+     *            {@link DynamoDBMapperConfig#getConsistentReads()} and
+     *            {@link DynamoDBMapperConfig#getBatchOptions()} are
+     *            considered.
+     * @param report
+     *            Filled in with statistics of the operation, and with the keys
+     *            still unprocessed when the retries ran out.
+     */
+    public Map<String, List<Object>> batchLoad(List<Object> itemsToGet, DynamoDBMapperConfig config, BatchOperationReport report) {
+        return batchLoad(itemsToGet, config, report, true);
+    }
+
+    /**
+     * Retrieves multiple items from multiple tables using their primary keys,
+     * retrying unprocessed keys up to {@link BatchOptions#getMaxRetries()}
+     * times if boundedRetries is true, otherwise until all keys are processed.
+     */
+    private Map<String, List<Object>> batchLoad(List<Object> itemsToGet, DynamoDBMapperConfig config,
+            BatchOperationReport report, boolean boundedRetries) {
         config = mergeConfig(config);
         boolean consistentReads = (config.getConsistentReads() == ConsistentReads.CONSISTENT);
 
@@ -1376,38 +1470,49 @@ public class DynamoDBMapper {
             return new HashMap<String, List<Object>>();
         }
 
+        long startTime = System.currentTimeMillis();
+        BatchContext context = new BatchContext(config.getBatchOptions(), report, boundedRetries);
+
         Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
         Map<String, Class<?>> classesByTableName = new HashMap<String, Class<?>>();
         Map<String, List<Object>> resultSet = new HashMap<String, List<Object>>();
         int count = 0;
 
-        for ( Object keyObject : itemsToGet ) {
-            Class<?> clazz = keyObject.getClass();
+        BatchExecutor executor = new BatchExecutor(context.options.getMaxConcurrentBatches());
+        try {
+            for ( Object keyObject : itemsToGet ) {
+                Class<?> clazz = keyObject.getClass();
 
-            String tableName = getTableName(clazz, config);
-            classesByTableName.put(tableName, clazz);
+                String tableName = getTableName(clazz, config);
+                classesByTableName.put(tableName, clazz);
 
-            if ( !requestItems.containsKey(tableName) ) {
-                requestItems.put(
-                        tableName,
-                        new KeysAndAttributes().withConsistentRead(consistentReads).withKeys(
-                                new LinkedList<Map<String, AttributeValue>>()));
-            }
+                if ( !requestItems.containsKey(tableName) ) {
+                    requestItems.put(
+                            tableName,
+                            new KeysAndAttributes().withConsistentRead(consistentReads).withKeys(
+                                    new LinkedList<Map<String, AttributeValue>>()));
+                }
 
-            requestItems.get(tableName).getKeys().add(getKey(keyObject));
+                requestItems.get(tableName).getKeys().add(getKey(keyObject));
 
-            // Reach the maximum number which can be handled in a single batchGet
-            if ( ++count == 100 ) {
-                processBatchGetRequest(classesByTableName, requestItems, resultSet);
-                requestItems.clear();
-                count = 0;
+                // Reach the maximum number which can be handled in a single batchGet
+                if ( ++count == MAX_ITEMS_PER_BATCH_GET ) {
+                    submitGetBatch(executor, classesByTableName, requestItems, resultSet, context);
+                    requestItems = new HashMap<String, KeysAndAttributes>();
+                    classesByTableName = new HashMap<String, Class<?>>();
+                    count = 0;
+                }
             }
-        }
 
-        if ( count > 0 ) {
-            processBatchGetRequest(classesByTableName, requestItems, resultSet);
+            if ( count > 0 ) {
+                submitGetBatch(executor, classesByTableName, requestItems, resultSet, context);
+            }
+            executor.awaitCompletion();
+        } finally {
+            executor.shutdown();
         }
 
+        context.report.setElapsedMillis(System.currentTimeMillis() - startTime);
         return resultSet;
     }
 
@@ -1432,8 +1537,9 @@ public class DynamoDBMapper {
      * @param itemsToGet
      *            Map from class to load to list of primary key attributes.
      * @param config
-     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()} and
-     *            {@link DynamoDBMapperConfig#getConsistentReads()} are
+     *            Only {@link DynamoDBMapperConfig#getTableNameOverride()},
+     *            {@link DynamoDBMapperConfig#getConsistentReads()} and
+     *            {@link DynamoDBMapperConfig#getBatchOptions()} are
      *            considered.
      */
     public Map<String, List<Object>> batchLoad(Map<Class<?>, List<KeyPair>> itemsToGet, DynamoDBMapperConfig config) {
@@ -1452,37 +1558,131 @@ public class DynamoDBMapper {
         return batchLoad(keys, config);
     }
 
+    /**
+     * Sends the batch of keys given with the executor, adding the items
+     * loaded to the result set.
+     */
+    private void submitGetBatch(BatchExecutor executor, final Map<String, Class<?>> classesByTableName,
+            final Map<String, KeysAndAttributes> requestItems, final Map<String, List<Object>> resultSet,
+            final BatchContext context) {
+        executor.submit(new Runnable() {
+            public void run() {
+                processBatchGetRequest(classesByTableName, requestItems, resultSet, context);
+            }
+        });
+    }
+
     private void processBatchGetRequest(Map<String, Class<?>> classesByTableName,
                                         Map<String, KeysAndAttributes> requestItems,
-                                        Map<String, List<Object>> resultSet) {
+                                        Map<String, List<Object>> resultSet,
+                                        BatchContext context) {
 
-        BatchGetItemResult batchGetItemResult = null;
-        BatchGetItemRequest batchGetItemRequest = new BatchGetItemRequest();
-        batchGetItemRequest.setRequestItems(requestItems);
-        do {
-            if ( batchGetItemResult != null ) {
-                batchGetItemRequest.setRequestItems(batchGetItemResult.getUnprocessedKeys());
+        int retries = 0;
+        while (true) {
+            BatchGetItemResult batchGetItemResult = null;
+            context.beforeRequest();
+            try {
+                batchGetItemResult = db.batchGetItem(applyUserAgent(new BatchGetItemRequest()
+                        .withRequestItems(requestItems).withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL)));
+            } catch (AmazonServiceException e) {
+                if (isThrottlingException(e)) {
+                    context.report.requestThrottled();
+                    if (retries < context.options.getMaxRetries()) {
+                        context.report.retried();
+                        pauseExponentially(++retries);
+                        continue;
+                    }
+                }
+                throw e;
             }
 
-            batchGetItemResult = db.batchGetItem(batchGetItemRequest);
+            Map<String, KeysAndAttributes> unprocessedKeys = batchGetItemResult.getUnprocessedKeys();
+            int unprocessed = countKeys(unprocessedKeys);
+            context.requestCompleted(countKeys(requestItems) - unprocessed, batchGetItemResult.getConsumedCapacity());
+
             Map<String, List<Map<String, AttributeValue>>> responses = batchGetItemResult.getResponses();
             for ( String tableName : responses.keySet() ) {
-                List<Object> objects = null;
-                if ( resultSet.get(tableName) != null ) {
-                    objects = resultSet.get(tableName);
-                } else {
-                    objects = new LinkedList<Object>();
-                }
-
+                List<Object> objects = new LinkedList<Object>();
                 for ( Map<String, AttributeValue> item : responses.get(tableName) ) {
                     objects.add(marshallIntoObject(classesByTableName.get(tableName), item));
                 }
 
-                resultSet.put(tableName, objects);
+                synchronized (resultSet) {
+                    if ( resultSet.get(tableName) != null ) {
+                        resultSet.get(tableName).addAll(objects);
+                    } else {
+                        resultSet.put(tableName, objects);
+                    }
+                }
             }
+
             // To see whether there are unprocessed keys.
-        } while ( batchGetItemResult.getUnprocessedKeys() != null && batchGetItemResult.getUnprocessedKeys().size() > 0 );
+            if ( unprocessed == 0 ) {
+                return;
+            }
+            if ( retries >= context.maxRetries ) {
+                context.report.addUnprocessedKeys(unprocessedKeys);
+                return;
+            }
+            requestItems = unprocessedKeys;
+            context.report.retried();
+            pauseExponentially(++retries);
+        }
+    }
 
+    /**
+     * Count the total number of keys in the batch.
+     */
+    private int countKeys(Map<String, KeysAndAttributes> batch) {
+        int count = 0;
+        if ( batch != null ) {
+            for ( KeysAndAttributes keysAndAttributes : batch.values() ) {
+                if ( keysAndAttributes.getKeys() != null ) {
+                    count += keysAndAttributes.getKeys().size();
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The options, statistics and rate limit shared by the batches of one
+     * batch operation.
+     */
+    private static final class BatchContext {
+
+        private final BatchOptions options;
+        private final BatchOperationReport report;
+        private final CapacityRateLimiter rateLimiter;
+        /**
+         * The number of times a batch's unprocessed items are retried,
+         * unlimited if retries aren't bounded.
+         */
+        private final int maxRetries;
+
+        BatchContext(BatchOptions options, BatchOperationReport report) {
+            this(options, report, true);
+        }
+
+        BatchContext(BatchOptions options, BatchOperationReport report, boolean boundedRetries) {
+            this.options = (options == null) ? BatchOptions.DEFAULT : options;
+            this.report = (report == null) ? new BatchOperationReport() : report;
+            this.maxRetries = boundedRetries ? this.options.getMaxRetries() : Integer.MAX_VALUE;
+            this.rateLimiter = (this.options.getTargetCapacityUnitsPerSecond() > 0)
+                    ? new CapacityRateLimiter(this.options.getTargetCapacityUnitsPerSecond()) : null;
+        }
+
+        /**
+         * Waits until a request can be sent within the rate limit.
+         */
+        void beforeRequest() {
+            if ( rateLimiter != null ) rateLimiter.acquire();
+        }
+
+        void requestCompleted(long items, List<ConsumedCapacity> consumedCapacity) {
+            double units = report.requestCompleted(items, consumedCapacity);
+            if ( rateLimiter != null ) rateLimiter.consumed(units);
+        }
     }
 
     /**
@@ -1600,7 +1800,7 @@ public class DynamoDBMapper {
         ScanRequest scanRequest = createScanRequestFromExpression(clazz, scanExpression, config);
 
         ScanResult scanResult = db.scan(applyUserAgent(scanRequest));
-        return new PaginatedScanList<T>(this, clazz, db, scanRequest, scanResult);
+        return new PaginatedScanList<T>(this, clazz, db, scanRequest, scanResult, config.getPaginationLoadingStrategy());
     }
 
     /**
@@ -1655,13 +1855,31 @@ public class DynamoDBMapper {
 	 * @see PaginatedParallelScanList
 	 */
     public <T> PaginatedParallelScanList<T> parallelScan(Class<T> clazz, DynamoDBScanExpression scanExpression, int totalSegments, DynamoDBMapperConfig config) {
+        return parallelScan(clazz, scanExpression, totalSegments, config, null);
+    }
+
+	/**
+	 * Scans through an Amazon DynamoDB table on logically partitioned segments
+	 * in parallel, as {@link #parallelScan(Class, DynamoDBScanExpression, int, DynamoDBMapperConfig)}
+	 * does, with the options given.
+	 * <p>
+	 * The options can supply the executor the segments are scanned on, hold
+	 * the read capacity consumed by each segment to a target rate, and resume
+	 * an earlier scan from a checkpoint taken with
+	 * {@link PaginatedParallelScanList#getCheckpoint()}.
+	 *
+	 * @param options
+	 *            The options for running the scan, or null for the defaults.
+	 * @see PaginatedParallelScanList
+	 */
+    public <T> PaginatedParallelScanList<T> parallelScan(Class<T> clazz, DynamoDBScanExpression scanExpression, int totalSegments, DynamoDBMapperConfig config, ParallelScanOptions options) {
         config = mergeConfig(config);
 
         // Create hard copies of the original scan request with difference segment number.
         List<ScanRequest> parallelScanRequests = createParallelScanRequestsFromExpression(clazz, scanExpression, totalSegments, config);
-        ParallelScanTask parallelScanTask = new ParallelScanTask(this, db, parallelScanRequests);
+        ParallelScanTask parallelScanTask = new ParallelScanTask(this, db, parallelScanRequests, options);
 
-        return new PaginatedParallelScanList<T>(this, clazz, db, parallelScanTask);
+        return new PaginatedParallelScanList<T>(this, clazz, db, parallelScanTask, config.getPaginationLoadingStrategy());
     }
 
     /**
@@ -1759,7 +1977,7 @@ public class DynamoDBMapper {
         QueryRequest queryRequest = createQueryRequestFromExpression(clazz, queryExpression, config);
 
         QueryResult queryResult = db.query(applyUserAgent(queryRequest));
-        return new PaginatedQueryList<T>(this, clazz, db, queryRequest, queryResult);
+        return new PaginatedQueryList<T>(this, clazz, db, queryRequest, queryResult, config.getPaginationLoadingStrategy());
     }
 
     /**
@@ -2108,11 +2326,10 @@ public class DynamoDBMapper {
             return;
         }
 
-        Random random = new Random();
-        long delay = 0;
-        long scaleFactor = 500 + random.nextInt(100);
-        delay = (long) (Math.pow(2, retries) * scaleFactor);
-        delay = Math.min(delay, MAX_BACKOFF_IN_MILLISECONDS);
+        // A random delay up to the exponential back-off, so that concurrent
+        // batches don't retry in lockstep
+        long maxDelay = (long) Math.min(Math.pow(2, retries) * 500, MAX_BACKOFF_IN_MILLISECONDS);
+        long delay = (long) (random.nextDouble() * maxDelay);
 
         try {
             Thread.sleep(delay);
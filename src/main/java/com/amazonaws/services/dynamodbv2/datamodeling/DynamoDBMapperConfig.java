@@ -92,6 +92,32 @@ public class DynamoDBMapperConfig {
         CONSISTENT, EVENTUAL
     };
 
+    /**
+     * Enumeration of the ways paginated results (see {@link PaginatedList}) are
+     * loaded and kept.
+     * <p>
+     * By default, the mapper uses LAZY_LOADING.
+     */
+    public static enum PaginationLoadingStrategy {
+        /**
+         * LAZY_LOADING loads pages of results as they are needed, and keeps
+         * all the loaded results in the list so that it can be iterated over
+         * again and accessed by index.
+         */
+        LAZY_LOADING,
+
+        /**
+         * ITERATION_ONLY only allows the list to be iterated over once, and
+         * discards each page of results once it has been iterated over, so
+         * that result sets larger than the memory available can be processed.
+         * The next page of a scan or query is requested in the background
+         * while the current one is being processed. Methods other than
+         * {@link PaginatedList#iterator()} and {@link PaginatedList#isEmpty()}
+         * throw an UnsupportedOperationException.
+         */
+        ITERATION_ONLY
+    };
+
     /**
      * Allows overriding the table name declared on a domain class by the
      * {@link DynamoDBTable} annotation.
@@ -150,9 +176,94 @@ public class DynamoDBMapperConfig {
         }   
     }
 
+    /**
+     * Options for the batch operations of the mapper, such as
+     * {@link DynamoDBMapper#batchWrite(java.util.List, java.util.List, DynamoDBMapperConfig)}
+     * and {@link DynamoDBMapper#batchLoad(java.util.List, DynamoDBMapperConfig)}.
+     * <p>
+     * By default, batches are sent one at a time on the calling thread,
+     * unprocessed items and throttled batches are retried up to 10 times with
+     * jittered exponential back-off, and the consumed capacity is not limited.
+     */
+    public static final class BatchOptions {
+
+        /** The default batch options. */
+        public static final BatchOptions DEFAULT = new BatchOptions(1, 10, 0);
+
+        private final int maxConcurrentBatches;
+        private final int maxRetries;
+        private final double targetCapacityUnitsPerSecond;
+
+        private BatchOptions(int maxConcurrentBatches, int maxRetries, double targetCapacityUnitsPerSecond) {
+            if ( maxConcurrentBatches < 1 ) {
+                throw new IllegalArgumentException("The maximum number of concurrent batches must be positive");
+            }
+            if ( maxRetries < 0 ) {
+                throw new IllegalArgumentException("The maximum number of retries must not be negative");
+            }
+            if ( targetCapacityUnitsPerSecond < 0 ) {
+                throw new IllegalArgumentException("The target capacity units per second must not be negative");
+            }
+            this.maxConcurrentBatches = maxConcurrentBatches;
+            this.maxRetries = maxRetries;
+            this.targetCapacityUnitsPerSecond = targetCapacityUnitsPerSecond;
+        }
+
+        /**
+         * Returns a copy of these options that sends up to the given number of
+         * batches at a time. Batches are prepared on the calling thread while
+         * earlier ones are sent by a thread pool created for the operation.
+         */
+        public BatchOptions withMaxConcurrentBatches(int maxConcurrentBatches) {
+            return new BatchOptions(maxConcurrentBatches, maxRetries, targetCapacityUnitsPerSecond);
+        }
+
+        /**
+         * Returns a copy of these options that retries the unprocessed items
+         * of a batch, or a throttled batch, up to the given number of times.
+         */
+        public BatchOptions withMaxRetries(int maxRetries) {
+            return new BatchOptions(maxConcurrentBatches, maxRetries, targetCapacityUnitsPerSecond);
+        }
+
+        /**
+         * Returns a copy of these options that holds the capacity consumed by
+         * the batches of an operation, as reported by DynamoDB, to about the
+         * given number of units per second, or doesn't limit it if 0.
+         */
+        public BatchOptions withTargetCapacityUnitsPerSecond(double targetCapacityUnitsPerSecond) {
+            return new BatchOptions(maxConcurrentBatches, maxRetries, targetCapacityUnitsPerSecond);
+        }
+
+        /**
+         * Returns the maximum number of batches sent at a time.
+         */
+        public int getMaxConcurrentBatches() {
+            return maxConcurrentBatches;
+        }
+
+        /**
+         * Returns the maximum number of times the unprocessed items of a
+         * batch, or a throttled batch, are retried.
+         */
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        /**
+         * Returns the capacity units per second the batches of an operation
+         * are limited to, or 0 if they aren't limited.
+         */
+        public double getTargetCapacityUnitsPerSecond() {
+            return targetCapacityUnitsPerSecond;
+        }
+    }
+
     private final SaveBehavior saveBehavior;
     private final ConsistentReads consistentReads;
     private final TableNameOverride tableNameOverride;
+    private final BatchOptions batchOptions;
+    private final PaginationLoadingStrategy paginationLoadingStrategy;
 
     /**
      * Constructs a new configuration object with the save behavior, consistent
@@ -167,9 +278,52 @@ public class DynamoDBMapperConfig {
      */
     public DynamoDBMapperConfig(SaveBehavior saveBehavior, ConsistentReads consistentReads,
             TableNameOverride tableNameOverride) {
+        this(saveBehavior, consistentReads, tableNameOverride, null);
+    }
+
+    /**
+     * Constructs a new configuration object with the save behavior, consistent
+     * read behavior, table name override and batch options given.
+     * 
+     * @param saveBehavior
+     *            The {@link SaveBehavior} to use, or null for default.
+     * @param consistentReads
+     *            The {@link ConsistentReads} to use, or null for default.
+     * @param tableNameOverride
+     *            An override for the table name, or null for no override.
+     * @param batchOptions
+     *            The {@link BatchOptions} to use, or null for default.
+     */
+    public DynamoDBMapperConfig(SaveBehavior saveBehavior, ConsistentReads consistentReads,
+            TableNameOverride tableNameOverride, BatchOptions batchOptions) {
+        this(saveBehavior, consistentReads, tableNameOverride, batchOptions, null);
+    }
+
+    /**
+     * Constructs a new configuration object with the save behavior, consistent
+     * read behavior, table name override, batch options and pagination
+     * loading strategy given.
+     * 
+     * @param saveBehavior
+     *            The {@link SaveBehavior} to use, or null for default.
+     * @param consistentReads
+     *            The {@link ConsistentReads} to use, or null for default.
+     * @param tableNameOverride
+     *            An override for the table name, or null for no override.
+     * @param batchOptions
+     *            The {@link BatchOptions} to use, or null for default.
+     * @param paginationLoadingStrategy
+     *            The {@link PaginationLoadingStrategy} to use, or null for
+     *            default.
+     */
+    public DynamoDBMapperConfig(SaveBehavior saveBehavior, ConsistentReads consistentReads,
+            TableNameOverride tableNameOverride, BatchOptions batchOptions,
+            PaginationLoadingStrategy paginationLoadingStrategy) {
         this.saveBehavior = saveBehavior;
         this.consistentReads = consistentReads;
         this.tableNameOverride = tableNameOverride;
+        this.batchOptions = batchOptions;
+        this.paginationLoadingStrategy = paginationLoadingStrategy;
     }
 
     /**
@@ -194,6 +348,21 @@ public class DynamoDBMapperConfig {
         this(null, null, tableNameOverride);
     }
 
+    /**
+     * Constructs a new configuration object with the batch options given.
+     */
+    public DynamoDBMapperConfig(BatchOptions batchOptions) {
+        this(null, null, null, batchOptions);
+    }
+
+    /**
+     * Constructs a new configuration object with the pagination loading
+     * strategy given.
+     */
+    public DynamoDBMapperConfig(PaginationLoadingStrategy paginationLoadingStrategy) {
+        this(null, null, null, null, paginationLoadingStrategy);
+    }
+
     /**
      * Constructs a new configuration object from two others: a set of defaults
      * and a set of overrides. Any non-null overrides will be applied to the
@@ -207,6 +376,8 @@ public class DynamoDBMapperConfig {
             this.saveBehavior = defaults.getSaveBehavior();
             this.consistentReads = defaults.getConsistentReads();
             this.tableNameOverride = defaults.getTableNameOverride();
+            this.batchOptions = defaults.getBatchOptions();
+            this.paginationLoadingStrategy = defaults.getPaginationLoadingStrategy();
         } else {
             this.saveBehavior = overrides.getSaveBehavior() == null ? defaults.getSaveBehavior() : overrides
                     .getSaveBehavior();
@@ -214,6 +385,10 @@ public class DynamoDBMapperConfig {
                     .getConsistentReads();
             this.tableNameOverride = overrides.getTableNameOverride() == null ? defaults.getTableNameOverride()
                     : overrides.getTableNameOverride();
+            this.batchOptions = overrides.getBatchOptions() == null ? defaults.getBatchOptions() : overrides
+                    .getBatchOptions();
+            this.paginationLoadingStrategy = overrides.getPaginationLoadingStrategy() == null ? defaults
+                    .getPaginationLoadingStrategy() : overrides.getPaginationLoadingStrategy();
         }
     }
 
@@ -245,10 +420,27 @@ public class DynamoDBMapperConfig {
         return tableNameOverride;
     }
 
+    /**
+     * Returns the options for batch operations for this configuration.
+     * 
+     * @see BatchOptions
+     */
+    public BatchOptions getBatchOptions() {
+        return batchOptions;
+    }
+
+    /**
+     * Returns the pagination loading strategy for this configuration.
+     */
+    public PaginationLoadingStrategy getPaginationLoadingStrategy() {
+        return paginationLoadingStrategy;
+    }
+
     /**
      * Default configuration uses UPDATE behavior for saves and EVENTUALly
-     * consistent reads, with no table name override.
+     * consistent reads, with no table name override, the default batch
+     * options and LAZY_LOADING of paginated results.
      */
     public static final DynamoDBMapperConfig DEFAULT = new DynamoDBMapperConfig(SaveBehavior.UPDATE,
-            ConsistentReads.EVENTUAL, null);
+            ConsistentReads.EVENTUAL, null, BatchOptions.DEFAULT, PaginationLoadingStrategy.LAZY_LOADING);
 }
@@ -35,6 +35,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.util.DateUtils;
@@ -46,43 +48,54 @@ public class DynamoDBReflector {
 
     /*
      * Several caches for performance. Collectively, they can make this class
-     * over twice as fast.
+     * over twice as fast. They are shared by every thread using the same
+     * mapper, so they are concurrent maps that are read without locking; a
+     * value computed by two threads at once is simply computed twice and the
+     * first one stored wins.
      */
-    private final Map<Class<?>, Collection<Method>> getterCache = new HashMap<Class<?>, Collection<Method>>();
-    private final Map<Class<?>, Method> hashKeyGetterCache = new HashMap<Class<?>, Method>();
-    private final Map<Class<?>, Method> rangeKeyGetterCache = new HashMap<Class<?>, Method>();
-    private final IndexKeyNameToIndexNamesCache indexKeyNameToIndexNamesCache = new IndexKeyNameToIndexNamesCache();
+    private final ConcurrentMap<Class<?>, MappedClass> mappedClassCache = new ConcurrentHashMap<Class<?>, MappedClass>();
+    private final ConcurrentMap<Class<?>, Map<String, List<String>>> indexKeyNameToIndexNamesCache = new ConcurrentHashMap<Class<?>, Map<String, List<String>>>();
 
     /*
      * All caches keyed by a Method use the getter for a particular mapped
      * property
      */
-    private final Map<Method, Method> setterCache = new HashMap<Method, Method>();
-    private final Map<Method, String> attributeNameCache = new HashMap<Method, String>();
-    private final Map<Method, ArgumentUnmarshaller> argumentUnmarshallerCache = new HashMap<Method, ArgumentUnmarshaller>();
-    private final Map<Method, ArgumentMarshaller> argumentMarshallerCache = new HashMap<Method, ArgumentMarshaller>();
-    private final Map<Method, ArgumentMarshaller> versionArgumentMarshallerCache = new HashMap<Method, ArgumentMarshaller>();
-    private final Map<Method, ArgumentMarshaller> keyArgumentMarshallerCache = new HashMap<Method, ArgumentMarshaller>();
-    private final Map<Method, Boolean> versionAttributeGetterCache = new HashMap<Method, Boolean>();
-    private final Map<Method, Boolean> autoGeneratedKeyGetterCache = new HashMap<Method, Boolean>();
+    private final ConcurrentMap<Method, Method> setterCache = new ConcurrentHashMap<Method, Method>();
+    private final ConcurrentMap<Method, String> attributeNameCache = new ConcurrentHashMap<Method, String>();
+    private final ConcurrentMap<Method, ArgumentUnmarshaller> argumentUnmarshallerCache = new ConcurrentHashMap<Method, ArgumentUnmarshaller>();
+    private final ConcurrentMap<Method, ArgumentMarshaller> argumentMarshallerCache = new ConcurrentHashMap<Method, ArgumentMarshaller>();
+    private final ConcurrentMap<Method, ArgumentMarshaller> versionArgumentMarshallerCache = new ConcurrentHashMap<Method, ArgumentMarshaller>();
+    private final ConcurrentMap<Method, ArgumentMarshaller> keyArgumentMarshallerCache = new ConcurrentHashMap<Method, ArgumentMarshaller>();
+    private final ConcurrentMap<Method, Boolean> versionAttributeGetterCache = new ConcurrentHashMap<Method, Boolean>();
+    private final ConcurrentMap<Method, Boolean> autoGeneratedKeyGetterCache = new ConcurrentHashMap<Method, Boolean>();
 
     /**
      * Returns the set of getter methods which are relevant when marshalling or
      * unmarshalling an object.
      */
     Collection<Method> getRelevantGetters(Class<?> clazz) {
-        synchronized (getterCache) {
-            if ( !getterCache.containsKey(clazz) ) {
-                List<Method> relevantGetters = new LinkedList<Method>();
-                for ( Method m : clazz.getMethods() ) {
-                    if ( isRelevantGetter(m) ) {
-                        relevantGetters.add(m);
-                    }
-                }
-                getterCache.put(clazz, relevantGetters);
-            }
-            return getterCache.get(clazz);
+        return getMappedClass(clazz).relevantGetters;
+    }
+
+    /**
+     * Returns the precomputed mapping metadata for the class given, building
+     * it the first time the class is seen.
+     */
+    private MappedClass getMappedClass(Class<?> clazz) {
+        MappedClass mappedClass = mappedClassCache.get(clazz);
+        if ( mappedClass == null ) {
+            mappedClass = cache(mappedClassCache, clazz, new MappedClass(clazz));
         }
+        return mappedClass;
+    }
+
+    /**
+     * Stores the value given in the cache unless another thread got there
+     * first, and returns whichever value ended up in the cache.
+     */
+    private static <K, V> V cache(ConcurrentMap<K, V> cache, K key, V value) {
+        V existing = cache.putIfAbsent(key, value);
+        return existing == null ? value : existing;
     }
 
     /**
@@ -103,38 +116,16 @@ public class DynamoDBReflector {
      * given, or null if the class doesn't have one.
      */
     <T> Method getRangeKeyGetter(Class<T> clazz) {
-        synchronized (rangeKeyGetterCache) {
-            if ( !rangeKeyGetterCache.containsKey(clazz) ) {
-                Method rangeKeyMethod = null;
-                for ( Method method : getRelevantGetters(clazz) ) {
-                    if ( method.getParameterTypes().length == 0 && method.isAnnotationPresent(DynamoDBRangeKey.class)) {
-                        rangeKeyMethod = method;
-                        break;
-                    }
-                }
-                rangeKeyGetterCache.put(clazz, rangeKeyMethod);
-            }
-            return rangeKeyGetterCache.get(clazz);
-        }
+        return getMappedClass(clazz).rangeKeyGetter;
     }
 
     /**
      * Returns all annotated {@link DynamoDBHashKey} and
      * {@link DynamoDBRangeKey} getters for the class given, throwing an
      * exception if there isn't one.
-     * 
-     * TODO: caching
      */
     <T> Collection<Method> getKeyGetters(Class<T> clazz) {
-        List<Method> keyGetters = new LinkedList<Method>();
-        for (Method getter : getRelevantGetters(clazz)) {
-            if (getter.isAnnotationPresent(DynamoDBHashKey.class)
-                    || getter.isAnnotationPresent(DynamoDBRangeKey.class)) {
-                keyGetters.add(getter);
-            }
-        }
-        
-        return keyGetters;
+        return getMappedClass(clazz).keyGetters;
     }
 
     
@@ -143,19 +134,7 @@ public class DynamoDBReflector {
      * throwing an exception if there isn't one.
      */
     <T> Method getHashKeyGetter(Class<T> clazz) {
-        Method hashKeyMethod;
-        synchronized (hashKeyGetterCache) {
-            if ( !hashKeyGetterCache.containsKey(clazz) ) {
-                for ( Method method : getRelevantGetters(clazz) ) {
-                    if ( method.getParameterTypes().length == 0 && method.isAnnotationPresent(DynamoDBHashKey.class)) {
-                        hashKeyGetterCache.put(clazz, method);
-                        break;
-                    }
-                }
-            }
-            hashKeyMethod = hashKeyGetterCache.get(clazz);
-        }
-
+        Method hashKeyMethod = getMappedClass(clazz).hashKeyGetter;
         if ( hashKeyMethod == null ) {
             throw new DynamoDBMappingException("Public, zero-parameter hash key property must be annotated with "
                     + DynamoDBHashKey.class);
@@ -198,35 +177,33 @@ public class DynamoDBReflector {
      *            The corresponding setter method being considered
      */
     <T> ArgumentUnmarshaller getArgumentUnmarshaller(final T toReturn, final Method getter, final Method setter, S3ClientCache s3cc) {
-        synchronized (argumentUnmarshallerCache) {
-            ArgumentUnmarshaller unmarshaller = argumentUnmarshallerCache.get(getter);
-            if ( unmarshaller != null ) {
-                return unmarshaller;
-            }
-            Class<?>[] parameterTypes = setter.getParameterTypes();
-            Class<?> paramType = parameterTypes[0];
-            if ( parameterTypes.length != 1 ) {
-                throw new DynamoDBMappingException("Expected exactly one agument to " + setter);
-            }
-    
-            if ( isCustomMarshaller(getter) ) {
-                unmarshaller = new SUnmarshaller() {
-    
-                    @Override
-                    public Object unmarshall(AttributeValue value) {
-                        return getCustomMarshalledValue(toReturn, getter, value);
-                    }
-                };
-            } else {
-                unmarshaller = computeArgumentUnmarshaller(toReturn, getter, setter, paramType, s3cc);
-            }
-            argumentUnmarshallerCache.put(getter, unmarshaller);
+        ArgumentUnmarshaller unmarshaller = argumentUnmarshallerCache.get(getter);
+        if ( unmarshaller != null ) {
             return unmarshaller;
         }
+        Class<?>[] parameterTypes = setter.getParameterTypes();
+        Class<?> paramType = parameterTypes[0];
+        if ( parameterTypes.length != 1 ) {
+            throw new DynamoDBMappingException("Expected exactly one agument to " + setter);
+        }
+
+        if ( isCustomMarshaller(getter) ) {
+            unmarshaller = new SUnmarshaller() {
+
+                @Override
+                public Object unmarshall(AttributeValue value) {
+                    return getCustomMarshalledValue(toReturn, getter, value);
+                }
+            };
+        } else {
+            unmarshaller = computeArgumentUnmarshaller(toReturn, getter, setter, paramType, s3cc);
+        }
+        return cache(argumentUnmarshallerCache, getter, unmarshaller);
     }
     
     /**
-     * Note this method is synchronized on {@link #argumentUnmarshallerCache} while being executed.
+     * Computes the argument unmarshaller for the getter / setter pair given;
+     * callers cache the result.
      */
     private <T> ArgumentUnmarshaller computeArgumentUnmarshaller(
         final T toReturn, final Method getter, final Method setter, Class<?> paramType, S3ClientCache s3cc)
@@ -664,27 +641,25 @@ public class DynamoDBReflector {
      * result of the getter given.
      */
     ArgumentMarshaller getArgumentMarshaller(final Method getter) {
-        synchronized (argumentMarshallerCache) {
-            ArgumentMarshaller marshaller = argumentMarshallerCache.get(getter);
-            if ( marshaller != null ) {
-                return marshaller;
-            }
-            if ( isCustomMarshaller(getter) ) {
-                marshaller = new ArgumentMarshaller() {
-                    @Override public AttributeValue marshall(Object obj) {
-                        return getCustomerMarshallerAttributeValue(getter, obj);
-                    }
-                };
-            } else {
-                marshaller = computeArgumentMarshaller(getter);
-            }
-            argumentMarshallerCache.put(getter, marshaller);
+        ArgumentMarshaller marshaller = argumentMarshallerCache.get(getter);
+        if ( marshaller != null ) {
             return marshaller;
         }
+        if ( isCustomMarshaller(getter) ) {
+            marshaller = new ArgumentMarshaller() {
+                @Override public AttributeValue marshall(Object obj) {
+                    return getCustomerMarshallerAttributeValue(getter, obj);
+                }
+            };
+        } else {
+            marshaller = computeArgumentMarshaller(getter);
+        }
+        return cache(argumentMarshallerCache, getter, marshaller);
     }
 
     /** 
-     * Note this method is synchronized on {@link #argumentMarshallerCache} while being executed.
+     * Computes the argument marshaller for the getter given; callers cache
+     * the result.
      */
     private ArgumentMarshaller computeArgumentMarshaller(final Method getter) {
         ArgumentMarshaller marshaller;
@@ -920,51 +895,52 @@ public class DynamoDBReflector {
      * Returns the attribute name corresponding to the given getter method.
      */
     String getAttributeName(Method getter) {
-        synchronized (attributeNameCache) {
-            if ( !attributeNameCache.containsKey(getter) ) {
-
-                // First check for a hash key annotation
-                DynamoDBHashKey hashKeyAnnotation = getter.getAnnotation(DynamoDBHashKey.class);
-                if ( hashKeyAnnotation != null && hashKeyAnnotation.attributeName() != null
-                        && hashKeyAnnotation.attributeName().length() > 0 )
-                    return hashKeyAnnotation.attributeName();
-
-                // Then a primary range key
-                DynamoDBRangeKey rangeKey = getter.getAnnotation(DynamoDBRangeKey.class);
-                if ( rangeKey != null && rangeKey.attributeName() != null && rangeKey.attributeName().length() > 0 )
-                    return rangeKey.attributeName();
-
-                // Then an index range key
-                DynamoDBIndexRangeKey indexRangeKey = getter.getAnnotation(DynamoDBIndexRangeKey.class);
-                if ( indexRangeKey != null && indexRangeKey.attributeName() != null && indexRangeKey.attributeName().length() > 0 )
-                    return indexRangeKey.attributeName();
-                
-                // Then an attribute
-                DynamoDBAttribute attribute = getter.getAnnotation(DynamoDBAttribute.class);
-                if ( attribute != null && attribute.attributeName() != null && attribute.attributeName().length() > 0 )
-                    return attribute.attributeName();
-
-                // Finally a version attribute
-                DynamoDBVersionAttribute version = getter.getAnnotation(DynamoDBVersionAttribute.class);
-                if ( version != null && version.attributeName() != null && version.attributeName().length() > 0 )
-                    return version.attributeName();
-
-                // Default to method name
-                String attributeName = null;
-                if ( getter.getName().startsWith("get") ) {
-                    attributeName = getter.getName().substring("get".length());
-                } else if ( getter.getName().startsWith("is") ) {
-                    attributeName = getter.getName().substring("is".length());
-                } else {
-                    throw new DynamoDBMappingException("Getter must begin with 'get' or 'is'");
-                }
+        String attributeName = attributeNameCache.get(getter);
+        if ( attributeName == null ) {
+            attributeName = cache(attributeNameCache, getter, computeAttributeName(getter));
+        }
+        return attributeName;
+    }
 
-                // Lowercase the first letter of the name
-                attributeName = attributeName.substring(0, 1).toLowerCase() + attributeName.substring(1);
-                attributeNameCache.put(getter, attributeName);
-            }
-            return attributeNameCache.get(getter);
+    private String computeAttributeName(Method getter) {
+        // First check for a hash key annotation
+        DynamoDBHashKey hashKeyAnnotation = getter.getAnnotation(DynamoDBHashKey.class);
+        if ( hashKeyAnnotation != null && hashKeyAnnotation.attributeName() != null
+                && hashKeyAnnotation.attributeName().length() > 0 )
+            return hashKeyAnnotation.attributeName();
+
+        // Then a primary range key
+        DynamoDBRangeKey rangeKey = getter.getAnnotation(DynamoDBRangeKey.class);
+        if ( rangeKey != null && rangeKey.attributeName() != null && rangeKey.attributeName().length() > 0 )
+            return rangeKey.attributeName();
+
+        // Then an index range key
+        DynamoDBIndexRangeKey indexRangeKey = getter.getAnnotation(DynamoDBIndexRangeKey.class);
+        if ( indexRangeKey != null && indexRangeKey.attributeName() != null && indexRangeKey.attributeName().length() > 0 )
+            return indexRangeKey.attributeName();
+
+        // Then an attribute
+        DynamoDBAttribute attribute = getter.getAnnotation(DynamoDBAttribute.class);
+        if ( attribute != null && attribute.attributeName() != null && attribute.attributeName().length() > 0 )
+            return attribute.attributeName();
+
+        // Finally a version attribute
+        DynamoDBVersionAttribute version = getter.getAnnotation(DynamoDBVersionAttribute.class);
+        if ( version != null && version.attributeName() != null && version.attributeName().length() > 0 )
+            return version.attributeName();
+
+        // Default to method name
+        String attributeName = null;
+        if ( getter.getName().startsWith("get") ) {
+            attributeName = getter.getName().substring("get".length());
+        } else if ( getter.getName().startsWith("is") ) {
+            attributeName = getter.getName().substring("is".length());
+        } else {
+            throw new DynamoDBMappingException("Getter must begin with 'get' or 'is'");
         }
+
+        // Lowercase the first letter of the name
+        return attributeName.substring(0, 1).toLowerCase() + attributeName.substring(1);
     }
 
     /**
@@ -972,32 +948,31 @@ public class DynamoDBReflector {
      * setter exists.
      */
     Method getSetter(Method getter) {
-        synchronized (setterCache) {
-            if ( !setterCache.containsKey(getter) ) {
-                String attributeName = null;
-                if ( getter.getName().startsWith("get") ) {
-                    attributeName = getter.getName().substring("get".length());
-                } else if ( getter.getName().startsWith("is") ) {
-                    attributeName = getter.getName().substring("is".length());
-                } else {
-                    // should be impossible to reach this exception
-                    throw new RuntimeException("Getter method must start with 'is' or 'get'");
-                }
-                String setterName = "set" + attributeName;
-                Method setter = null;
-                try {
-                    setter = getter.getDeclaringClass().getMethod(setterName, getter.getReturnType());
-                } catch ( NoSuchMethodException e ) {
-                    throw new DynamoDBMappingException("Expected a public, one-argument method called " + setterName
-                            + " on class " + getter.getDeclaringClass(), e);
-                } catch ( SecurityException e ) {
-                    throw new DynamoDBMappingException("No access to public, one-argument method called " + setterName
-                            + " on class " + getter.getDeclaringClass(), e);
-                }
-                setterCache.put(getter, setter);
-            }
-            return setterCache.get(getter);
+        Method setter = setterCache.get(getter);
+        if ( setter != null ) {
+            return setter;
+        }
+
+        String attributeName = null;
+        if ( getter.getName().startsWith("get") ) {
+            attributeName = getter.getName().substring("get".length());
+        } else if ( getter.getName().startsWith("is") ) {
+            attributeName = getter.getName().substring("is".length());
+        } else {
+            // should be impossible to reach this exception
+            throw new RuntimeException("Getter method must start with 'is' or 'get'");
+        }
+        String setterName = "set" + attributeName;
+        try {
+            setter = getter.getDeclaringClass().getMethod(setterName, getter.getReturnType());
+        } catch ( NoSuchMethodException e ) {
+            throw new DynamoDBMappingException("Expected a public, one-argument method called " + setterName
+                    + " on class " + getter.getDeclaringClass(), e);
+        } catch ( SecurityException e ) {
+            throw new DynamoDBMappingException("No access to public, one-argument method called " + setterName
+                    + " on class " + getter.getDeclaringClass(), e);
         }
+        return cache(setterCache, getter, setter);
     }
 
     /**
@@ -1006,98 +981,92 @@ public class DynamoDBReflector {
      * given.
      */
     ArgumentMarshaller getVersionedArgumentMarshaller(final Method getter, Object getterReturnResult) {
+        ArgumentMarshaller marshaller = versionArgumentMarshallerCache.get(getter);
+        if ( marshaller != null ) {
+            return marshaller;
+        }
 
-        synchronized (versionArgumentMarshallerCache) {
-            if ( !versionArgumentMarshallerCache.containsKey(getter) ) {
-
-                ArgumentMarshaller marshaller = null;
-
-                final Class<?> returnType = getter.getReturnType();
-                if ( BigInteger.class.isAssignableFrom(returnType) ) {
-                    marshaller = new ArgumentMarshaller() {
+        final Class<?> returnType = getter.getReturnType();
+        if ( BigInteger.class.isAssignableFrom(returnType) ) {
+            marshaller = new ArgumentMarshaller() {
 
-                        @Override
-                        public AttributeValue marshall(Object obj) {
-                            if ( obj == null )
-                                obj = BigInteger.ZERO;
-                            Object newValue = ((BigInteger) obj).add(BigInteger.ONE);
-                            return getArgumentMarshaller(getter).marshall(newValue);
-                        }
-                    };
+                @Override
+                public AttributeValue marshall(Object obj) {
+                    if ( obj == null )
+                        obj = BigInteger.ZERO;
+                    Object newValue = ((BigInteger) obj).add(BigInteger.ONE);
+                    return getArgumentMarshaller(getter).marshall(newValue);
+                }
+            };
 
-                } else if ( Integer.class.isAssignableFrom(returnType) ) {
-                    marshaller = new ArgumentMarshaller() {
+        } else if ( Integer.class.isAssignableFrom(returnType) ) {
+            marshaller = new ArgumentMarshaller() {
 
-                        @Override
-                        public AttributeValue marshall(Object obj) {
-                            if ( obj == null )
-                                obj = new Integer(0);
-                            Object newValue = ((Integer) obj).intValue() + 1;
-                            return getArgumentMarshaller(getter).marshall(newValue);
-                        }
-                    };
+                @Override
+                public AttributeValue marshall(Object obj) {
+                    if ( obj == null )
+                        obj = new Integer(0);
+                    Object newValue = ((Integer) obj).intValue() + 1;
+                    return getArgumentMarshaller(getter).marshall(newValue);
+                }
+            };
 
-                } else if ( Byte.class.isAssignableFrom(returnType) ) {
-                    marshaller = new ArgumentMarshaller() {
+        } else if ( Byte.class.isAssignableFrom(returnType) ) {
+            marshaller = new ArgumentMarshaller() {
 
-                        @Override
-                        public AttributeValue marshall(Object obj) {
-                            if ( obj == null )
-                                obj = new Byte((byte) 0);
-                            Object newValue = (byte) ((((Byte) obj).byteValue() + 1) % Byte.MAX_VALUE);
-                            return getArgumentMarshaller(getter).marshall(newValue);
-                        }
-                    };
+                @Override
+                public AttributeValue marshall(Object obj) {
+                    if ( obj == null )
+                        obj = new Byte((byte) 0);
+                    Object newValue = (byte) ((((Byte) obj).byteValue() + 1) % Byte.MAX_VALUE);
+                    return getArgumentMarshaller(getter).marshall(newValue);
+                }
+            };
 
-                } else if ( Long.class.isAssignableFrom(returnType) ) {
-                    marshaller = new ArgumentMarshaller() {
+        } else if ( Long.class.isAssignableFrom(returnType) ) {
+            marshaller = new ArgumentMarshaller() {
 
-                        @Override
-                        public AttributeValue marshall(Object obj) {
-                            if ( obj == null )
-                                obj = new Long(0);
-                            Object newValue = ((Long) obj).longValue() + 1L;
-                            return getArgumentMarshaller(getter).marshall(newValue);
-                        }
-                    };
-                } else {
-                    throw new DynamoDBMappingException("Unsupported parameter type for "
-                            + DynamoDBVersionAttribute.class + ": " + returnType + ". Must be a whole-number type.");
+                @Override
+                public AttributeValue marshall(Object obj) {
+                    if ( obj == null )
+                        obj = new Long(0);
+                    Object newValue = ((Long) obj).longValue() + 1L;
+                    return getArgumentMarshaller(getter).marshall(newValue);
                 }
-
-                versionArgumentMarshallerCache.put(getter, marshaller);
-            }
-            return versionArgumentMarshallerCache.get(getter);
+            };
+        } else {
+            throw new DynamoDBMappingException("Unsupported parameter type for "
+                    + DynamoDBVersionAttribute.class + ": " + returnType + ". Must be a whole-number type.");
         }
+
+        return cache(versionArgumentMarshallerCache, getter, marshaller);
     }
 
     /**
      * Returns a marshaller for the auto-generated key returned by the getter given.
      */
     ArgumentMarshaller getAutoGeneratedKeyArgumentMarshaller(final Method getter) {
-        synchronized (keyArgumentMarshallerCache) {
-            if ( !keyArgumentMarshallerCache.containsKey(getter) ) {
-                ArgumentMarshaller marshaller = null;
+        ArgumentMarshaller marshaller = keyArgumentMarshallerCache.get(getter);
+        if ( marshaller != null ) {
+            return marshaller;
+        }
 
-                Class<?> returnType = getter.getReturnType();
-                if ( String.class.isAssignableFrom(returnType) ) {
-                    marshaller = new ArgumentMarshaller() {
+        Class<?> returnType = getter.getReturnType();
+        if ( String.class.isAssignableFrom(returnType) ) {
+            marshaller = new ArgumentMarshaller() {
 
-                        @Override
-                        public AttributeValue marshall(Object obj) {
-                            String newValue = UUID.randomUUID().toString();
-                            return getArgumentMarshaller(getter).marshall(newValue);
-                        }
-                    };
-                } else {
-                    throw new DynamoDBMappingException("Unsupported type for " + getter + ": " + returnType
-                            + ".  Only Strings are supported when auto-generating keys.");
+                @Override
+                public AttributeValue marshall(Object obj) {
+                    String newValue = UUID.randomUUID().toString();
+                    return getArgumentMarshaller(getter).marshall(newValue);
                 }
-
-                keyArgumentMarshallerCache.put(getter, marshaller);
-            }
-            return keyArgumentMarshallerCache.get(getter);
+            };
+        } else {
+            throw new DynamoDBMappingException("Unsupported type for " + getter + ": " + returnType
+                    + ".  Only Strings are supported when auto-generating keys.");
         }
+
+        return cache(keyArgumentMarshallerCache, getter, marshaller);
     }
 
     /**
@@ -1105,31 +1074,31 @@ public class DynamoDBReflector {
      * version attribute.
      */
     boolean isVersionAttributeGetter(Method getter) {
-        synchronized (versionAttributeGetterCache) {
-            if ( !versionAttributeGetterCache.containsKey(getter) ) {
-                versionAttributeGetterCache.put(
-                        getter,
-                        getter.getName().startsWith("get") && getter.getParameterTypes().length == 0
-                                && getter.isAnnotationPresent(DynamoDBVersionAttribute.class));
-            }
-            return versionAttributeGetterCache.get(getter);
+        Boolean isVersionAttributeGetter = versionAttributeGetterCache.get(getter);
+        if ( isVersionAttributeGetter == null ) {
+            isVersionAttributeGetter = cache(
+                    versionAttributeGetterCache,
+                    getter,
+                    getter.getName().startsWith("get") && getter.getParameterTypes().length == 0
+                            && getter.isAnnotationPresent(DynamoDBVersionAttribute.class));
         }
+        return isVersionAttributeGetter;
     }
     
     /**
      * Returns whether the method given is an assignable key getter.
      */
     boolean isAssignableKey(Method getter) {
-        synchronized (autoGeneratedKeyGetterCache) {
-            if ( !autoGeneratedKeyGetterCache.containsKey(getter) ) {
-                autoGeneratedKeyGetterCache.put(
-                        getter,
-                        getter.isAnnotationPresent(DynamoDBAutoGeneratedKey.class)
-                                && (getter.isAnnotationPresent(DynamoDBHashKey.class) || getter
-                                        .isAnnotationPresent(DynamoDBRangeKey.class)));
-            }
-            return autoGeneratedKeyGetterCache.get(getter);
+        Boolean isAssignableKey = autoGeneratedKeyGetterCache.get(getter);
+        if ( isAssignableKey == null ) {
+            isAssignableKey = cache(
+                    autoGeneratedKeyGetterCache,
+                    getter,
+                    getter.isAnnotationPresent(DynamoDBAutoGeneratedKey.class)
+                            && (getter.isAnnotationPresent(DynamoDBHashKey.class) || getter
+                                    .isAnnotationPresent(DynamoDBRangeKey.class)));
         }
+        return isAssignableKey;
     }
     
     /**
@@ -1144,48 +1113,75 @@ public class DynamoDBReflector {
      * or null if the range key is not annotated with any index.
      */
     List<String> getIndexNameByIndexRangeKeyName(Class<?> clazz, String indexRangeKeyName) {
-        synchronized (indexKeyNameToIndexNamesCache) {
-            if ( !indexKeyNameToIndexNamesCache.isCached(clazz) ) {
-            	Map<String, List<String>> indexKeyNameToIndexNamesMap = new HashMap<String, List<String>>();
-            	for ( Method method : getRelevantGetters(clazz) ) {
-                    if ( method.getParameterTypes().length == 0 && method.isAnnotationPresent(DynamoDBIndexRangeKey.class)) {
-                    	DynamoDBIndexRangeKey indexRangeKeyAnnotation = method.getAnnotation(DynamoDBIndexRangeKey.class);
-                    	String localSecondaryIndexName = indexRangeKeyAnnotation.localSecondaryIndexName();
-                    	String[] localSecondaryIndexNames = indexRangeKeyAnnotation.localSecondaryIndexNames();
-                    	if (localSecondaryIndexName.length() != 0 && localSecondaryIndexNames.length != 0) {
-                    		throw new DynamoDBMappingException("@DynamoDBIndexRangeKey annotation on getter " + method + " contains both localSecondaryIndexName and localSecondaryIndexNames.");
-                    	} else if (localSecondaryIndexName.length() == 0 && localSecondaryIndexNames.length == 0) {
-                    		throw new DynamoDBMappingException("@DynamoDBIndexRangeKey annotation on getter " + method + " doesn't contain index name.");
-                    	}
-                    	
-                    	String attributeName = getAttributeName(method);
-                    	if (localSecondaryIndexName.length() != 0) {
-                    		indexKeyNameToIndexNamesMap.put(attributeName, Collections.singletonList(localSecondaryIndexName));   		
-                    	} else {
-                    		indexKeyNameToIndexNamesMap.put(attributeName, Arrays.asList(localSecondaryIndexNames));   		
-                    	}
+        Map<String, List<String>> indexKeyNameToIndexNamesMap = indexKeyNameToIndexNamesCache.get(clazz);
+        if ( indexKeyNameToIndexNamesMap == null ) {
+            indexKeyNameToIndexNamesMap = new HashMap<String, List<String>>();
+            for ( Method method : getRelevantGetters(clazz) ) {
+                if ( method.getParameterTypes().length == 0 && method.isAnnotationPresent(DynamoDBIndexRangeKey.class)) {
+                    DynamoDBIndexRangeKey indexRangeKeyAnnotation = method.getAnnotation(DynamoDBIndexRangeKey.class);
+                    String localSecondaryIndexName = indexRangeKeyAnnotation.localSecondaryIndexName();
+                    String[] localSecondaryIndexNames = indexRangeKeyAnnotation.localSecondaryIndexNames();
+                    if (localSecondaryIndexName.length() != 0 && localSecondaryIndexNames.length != 0) {
+                        throw new DynamoDBMappingException("@DynamoDBIndexRangeKey annotation on getter " + method + " contains both localSecondaryIndexName and localSecondaryIndexNames.");
+                    } else if (localSecondaryIndexName.length() == 0 && localSecondaryIndexNames.length == 0) {
+                        throw new DynamoDBMappingException("@DynamoDBIndexRangeKey annotation on getter " + method + " doesn't contain index name.");
+                    }
+
+                    String attributeName = getAttributeName(method);
+                    if (localSecondaryIndexName.length() != 0) {
+                        indexKeyNameToIndexNamesMap.put(attributeName, Collections.singletonList(localSecondaryIndexName));
+                    } else {
+                        indexKeyNameToIndexNamesMap.put(attributeName, Arrays.asList(localSecondaryIndexNames));
                     }
                 }
-            	indexKeyNameToIndexNamesCache.cache(clazz, indexKeyNameToIndexNamesMap);
             }
-            return indexKeyNameToIndexNamesCache.getIndexNames(clazz, indexRangeKeyName);
+            indexKeyNameToIndexNamesMap = cache(indexKeyNameToIndexNamesCache, clazz,
+                    Collections.unmodifiableMap(indexKeyNameToIndexNamesMap));
         }
+        return indexKeyNameToIndexNamesMap.get(indexRangeKeyName);
     }
-    
-    private static class IndexKeyNameToIndexNamesCache {
-    	private Map<Class<?>, Map<String, List<String>>> cacheMap = new HashMap<Class<?>, Map<String, List<String>>>();
-    	
-    	public boolean isCached(Class<?> clazz) {
-    		return cacheMap.containsKey(clazz);
-    	}
-    	
-    	public List<String> getIndexNames(Class<?> clazz, String indexKeyName) {
-    		return cacheMap.get(clazz).get(indexKeyName);
-    	}
-    	
-    	public Map<String, List<String>> cache(Class<?> clazz, Map<String, List<String>> indexKeyNameToIndexNamesMap) {
-    		return cacheMap.put(clazz, indexKeyNameToIndexNamesMap);
-    	}
+
+    /**
+     * Immutable mapping metadata for a single class: its relevant getters and
+     * its key getters, computed once so that marshalling and unmarshalling
+     * only need to read it.
+     */
+    private final class MappedClass {
+        private final Collection<Method> relevantGetters;
+        private final Collection<Method> keyGetters;
+        private final Method hashKeyGetter;
+        private final Method rangeKeyGetter;
+
+        private MappedClass(Class<?> clazz) {
+            List<Method> relevantGetters = new ArrayList<Method>();
+            for ( Method m : clazz.getMethods() ) {
+                if ( isRelevantGetter(m) ) {
+                    relevantGetters.add(m);
+                }
+            }
+
+            List<Method> keyGetters = new ArrayList<Method>();
+            Method hashKeyGetter = null;
+            Method rangeKeyGetter = null;
+            for ( Method getter : relevantGetters ) {
+                boolean isHashKey = getter.isAnnotationPresent(DynamoDBHashKey.class);
+                boolean isRangeKey = getter.isAnnotationPresent(DynamoDBRangeKey.class);
+                if ( isHashKey || isRangeKey ) {
+                    keyGetters.add(getter);
+                }
+                if ( isHashKey && hashKeyGetter == null ) {
+                    hashKeyGetter = getter;
+                }
+                if ( isRangeKey && rangeKeyGetter == null ) {
+                    rangeKeyGetter = getter;
+                }
+            }
+
+            this.relevantGetters = Collections.unmodifiableList(relevantGetters);
+            this.keyGetters = Collections.unmodifiableList(keyGetters);
+            this.hashKeyGetter = hashKeyGetter;
+            this.rangeKeyGetter = rangeKeyGetter;
+        }
     }
-    
+
 }
@@ -22,8 +22,19 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
-
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
 
 /**
  * Unmodifiable list supporting paginated result sets from Amazon DynamoDB.
@@ -32,6 +43,10 @@ import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
  * methods, such as {@link PaginatedList#size()} and
  * {@link PaginatedList#toArray()}, require fetching the entire result set
  * eagerly. See the javadoc of individual methods for details on which are lazy.
+ * <p>
+ * With {@link PaginationLoadingStrategy#ITERATION_ONLY}, the list can only be
+ * iterated over once, and pages of results are discarded as they are iterated
+ * over instead of being kept in the list.
  * 
  * @param <T>
  *            The domain object type stored in this list.
@@ -40,6 +55,19 @@ public abstract class PaginatedList<T> implements List<T> {
 
     private static final String UNMODIFIABLE_MESSAGE = "This is an unmodifiable list";
 
+    private static final String ITERATION_ONLY_MESSAGE = "The list can only be iterated over once in "
+            + PaginationLoadingStrategy.ITERATION_ONLY + " mode";
+
+    /** The maximum number of pages requested in the background at a time */
+    private static final int MAX_PREFETCH_THREADS = 4;
+
+    /**
+     * Requests the next pages of lists in ITERATION_ONLY mode in the
+     * background, on a bounded number of daemon threads that time out when
+     * idle; further requests wait in the queue
+     */
+    private static final ExecutorService prefetchExecutor = newPrefetchExecutor();
+
     /**
      * Reference to the DynamoDB mapper for marshalling DynamoDB attributes back
      * into objects
@@ -64,18 +92,113 @@ public abstract class PaginatedList<T> implements List<T> {
     /** Lazily loaded next results waiting to be added into allResults */
     protected final List<T> nextResults = new LinkedList<T>();
 
+    /** How the results are loaded and kept */
+    protected final PaginationLoadingStrategy paginationLoadingStrategy;
+
+    /** Tracks if the list has been iterated over in ITERATION_ONLY mode */
+    private boolean iterationStarted = false;
+
     public PaginatedList(DynamoDBMapper mapper, Class<T> clazz, AmazonDynamoDB dynamo) {
+        this(mapper, clazz, dynamo, null);
+    }
+
+    /**
+     * @param paginationLoadingStrategy
+     *            How the results are loaded and kept, or null for
+     *            {@link PaginationLoadingStrategy#LAZY_LOADING}.
+     */
+    public PaginatedList(DynamoDBMapper mapper, Class<T> clazz, AmazonDynamoDB dynamo,
+            PaginationLoadingStrategy paginationLoadingStrategy) {
         this.mapper = mapper;
         this.clazz = clazz;
         this.dynamo = dynamo;
+        this.paginationLoadingStrategy = (paginationLoadingStrategy == null)
+                ? PaginationLoadingStrategy.LAZY_LOADING : paginationLoadingStrategy;
 
         this.allResults = new ArrayList<T>();
     }
 
+    private static ExecutorService newPrefetchExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_PREFETCH_THREADS, MAX_PREFETCH_THREADS,
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "dynamodb-page-prefetch");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns whether this list only supports a single iteration, discarding
+     * results as they are iterated over.
+     */
+    protected boolean isIterationOnly() {
+        return paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY;
+    }
+
     /**
-     * Eagerly loads all results for this list.
+     * Starts the request for a page of results given, in the background if
+     * this list is in ITERATION_ONLY mode, and otherwise on the calling thread
+     * before returning.
+     */
+    protected <R> Future<R> requestPage(Callable<R> request) {
+        if ( isIterationOnly() ) {
+            return prefetchExecutor.submit(request);
+        }
+        FutureTask<R> task = new FutureTask<R>(request);
+        task.run();
+        return task;
+    }
+
+    /**
+     * Starts requesting the page after the current one in the background, if
+     * there is one, so that it is fetched while the current one is being
+     * iterated over. Called in ITERATION_ONLY mode when the iteration starts,
+     * so that no capacity is spent on lists that are never iterated over. The
+     * default implementation does nothing.
+     */
+    protected void prefetchNextPage() {
+    }
+
+    /**
+     * Returns the page of results requested with
+     * {@link #requestPage(Callable)}, waiting for it if necessary.
+     */
+    protected <R> R getPage(Future<R> page) {
+        try {
+            return page.get();
+        } catch ( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        } catch ( ExecutionException e ) {
+            Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException )
+                throw (RuntimeException) cause;
+            if ( cause instanceof Error )
+                throw (Error) cause;
+            throw new AmazonClientException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Throws an UnsupportedOperationException if this list is in
+     * ITERATION_ONLY mode.
+     */
+    private void checkUnsupportedIterationOnlyOperation() {
+        if ( isIterationOnly() ) {
+            throw new UnsupportedOperationException(ITERATION_ONLY_MESSAGE);
+        }
+    }
+
+    /**
+     * Eagerly loads all results for this list. Not supported in ITERATION_ONLY
+     * mode.
      */
     public synchronized void loadAllResults() {
+        checkUnsupportedIterationOnlyOperation();
         if ( allResultsLoaded )
             return;
 
@@ -139,6 +262,9 @@ public abstract class PaginatedList<T> implements List<T> {
      */
     @Override
     public Iterator<T> iterator() {
+        if ( isIterationOnly() ) {
+            return iterationOnlyIterator();
+        }
         
         /*
          * We make a copy of the allResults list to iterate over in order to
@@ -195,12 +321,67 @@ public abstract class PaginatedList<T> implements List<T> {
         };
     }
 
+    /**
+     * Returns the single iterator of a list in ITERATION_ONLY mode, which keeps
+     * no more than the page being iterated over and the next one.
+     */
+    private synchronized Iterator<T> iterationOnlyIterator() {
+        if ( iterationStarted ) {
+            throw new UnsupportedOperationException(ITERATION_ONLY_MESSAGE);
+        }
+        iterationStarted = true;
+        prefetchNextPage();
+
+        return new Iterator<T>() {
+
+            /** The position in the current page, held in allResults */
+            int pos = 0;
+
+            @Override
+            public boolean hasNext() {
+                return pos < allResults.size() || nextResultsAvailable();
+            }
+
+            @Override
+            public T next() {
+                if ( pos == allResults.size() ) {
+                    if ( !nextResultsAvailable() ) {
+                        throw new NoSuchElementException();
+                    }
+                    // Discard the page iterated over
+                    allResults.clear();
+                    moveNextResults();
+                    pos = 0;
+                }
+
+                // Release each result as soon as it is handed out
+                T next = allResults.get(pos);
+                allResults.set(pos++, null);
+                return next;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException(UNMODIFIABLE_MESSAGE);
+            }
+        };
+    }
+
     /**
      * Returns whether the collection is empty. At most one (non-empty) page of
-     * results is loaded to make the check.
+     * results is loaded to make the check. In ITERATION_ONLY mode, this is only
+     * supported before the list is iterated over.
      */
     @Override
     public boolean isEmpty() {
+        if ( isIterationOnly() ) {
+            synchronized (this) {
+                if ( iterationStarted ) {
+                    throw new UnsupportedOperationException(ITERATION_ONLY_MESSAGE);
+                }
+            }
+            return allResults.isEmpty() && !nextResultsAvailable();
+        }
         return !iterator().hasNext();
     }
 
@@ -210,6 +391,7 @@ public abstract class PaginatedList<T> implements List<T> {
      */
     @Override
     public T get(int n) {
+        checkUnsupportedIterationOnlyOperation();
         while ( allResults.size() <= n && nextResultsAvailable() ) {
             moveNextResults();
         }
@@ -224,6 +406,7 @@ public abstract class PaginatedList<T> implements List<T> {
      */
     @Override
     public boolean contains(Object arg0) {
+        checkUnsupportedIterationOnlyOperation();
         if ( allResults.contains(arg0) )
             return true;
         
@@ -243,6 +426,7 @@ public abstract class PaginatedList<T> implements List<T> {
      */
     @Override
     public List<T> subList(int arg0, int arg1) {
+        checkUnsupportedIterationOnlyOperation();
         while ( allResults.size() < arg1 && nextResultsAvailable() ) {
             moveNextResults();
         }
@@ -256,6 +440,7 @@ public abstract class PaginatedList<T> implements List<T> {
      */
     @Override
     public int indexOf(Object arg0) {
+        checkUnsupportedIterationOnlyOperation();
         int indexOf = allResults.indexOf(arg0);
         if ( indexOf >= 0 )
             return indexOf;
@@ -271,7 +456,8 @@ public abstract class PaginatedList<T> implements List<T> {
         return -1;
     }
 
-    // Operations requiring the entire result set
+    // Operations requiring the entire result set, which call loadAllResults()
+    // and so aren't supported in ITERATION_ONLY mode
     
     @Override
     public int size() {
@@ -18,6 +18,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
 
@@ -42,7 +43,17 @@ public class PaginatedParallelScanList<T> extends PaginatedList<T> {
     private final ParallelScanTask parallelScanTask;
 
     public PaginatedParallelScanList(DynamoDBMapper mapper, Class<T> clazz, AmazonDynamoDB dynamo, ParallelScanTask parallelScanTask) {
-        super(mapper, clazz, dynamo);
+        this(mapper, clazz, dynamo, parallelScanTask, null);
+    }
+
+    /**
+     * @param paginationLoadingStrategy
+     *            How the results are loaded and kept, or null for
+     *            {@link PaginationLoadingStrategy#LAZY_LOADING}.
+     */
+    public PaginatedParallelScanList(DynamoDBMapper mapper, Class<T> clazz, AmazonDynamoDB dynamo,
+            ParallelScanTask parallelScanTask, PaginationLoadingStrategy paginationLoadingStrategy) {
+        super(mapper, clazz, dynamo, paginationLoadingStrategy);
 
         this.parallelScanTask = parallelScanTask;
 
@@ -50,6 +61,24 @@ public class PaginatedParallelScanList<T> extends PaginatedList<T> {
         allResults.addAll(marshalParallelScanResultsIntoObjects(parallelScanTask.getNextBatchOfScanResults()));
     }
 
+    /**
+     * Returns a checkpoint from which the scan can be resumed, with
+     * {@link ParallelScanOptions#withCheckpoint(ParallelScanCheckpoint)}, by
+     * another list. Resuming from it repeats the scan of the pages most
+     * recently loaded into this list, as they may not have been processed yet.
+     */
+    public ParallelScanCheckpoint getCheckpoint() {
+        return parallelScanTask.getCheckpoint();
+    }
+
+    /**
+     * Returns the progress and throughput of the scan of each segment so far,
+     * by segment number.
+     */
+    public List<ParallelScanSegmentStatistics> getSegmentStatistics() {
+        return parallelScanTask.getSegmentStatistics();
+    }
+
     @Override
     protected boolean atEndOfResults() {
         return parallelScanTask.isAllSegmentScanFinished();
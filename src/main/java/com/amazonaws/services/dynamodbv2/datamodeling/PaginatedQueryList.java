@@ -15,8 +15,13 @@
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryResult;
 
@@ -43,12 +48,24 @@ public class PaginatedQueryList<T> extends PaginatedList<T> {
     /** The current results for the last executed query operation */
     private QueryResult queryResult;
 
+    /** The request for the next page, started early in ITERATION_ONLY mode */
+    private Future<QueryResult> nextQueryResult;
+
 
     public PaginatedQueryList(DynamoDBMapper mapper, Class<T> clazz, AmazonDynamoDB dynamo, QueryRequest queryRequest, QueryResult queryResult) {
-        super(mapper, clazz, dynamo);
+        this(mapper, clazz, dynamo, queryRequest, queryResult, null);
+    }
+
+    /**
+     * @param paginationLoadingStrategy
+     *            How the results are loaded and kept, or null for
+     *            {@link PaginationLoadingStrategy#LAZY_LOADING}.
+     */
+    public PaginatedQueryList(DynamoDBMapper mapper, Class<T> clazz, AmazonDynamoDB dynamo, QueryRequest queryRequest, QueryResult queryResult, PaginationLoadingStrategy paginationLoadingStrategy) {
+        super(mapper, clazz, dynamo, paginationLoadingStrategy);
 
         this.queryRequest = queryRequest;
-        this.queryResult  = queryResult;
+        this.queryResult = queryResult;
 
         allResults.addAll(mapper.marshallIntoObjects(clazz, queryResult.getItems()));
     }
@@ -60,8 +77,33 @@ public class PaginatedQueryList<T> extends PaginatedList<T> {
 
     @Override    
     protected synchronized List<T> fetchNextPage() {
-        queryRequest.setExclusiveStartKey(queryResult.getLastEvaluatedKey());
-        queryResult = dynamo.query(DynamoDBMapper.applyUserAgent(queryRequest));
+        if ( nextQueryResult == null ) {
+            nextQueryResult = requestPage(queryNextPage(queryResult.getLastEvaluatedKey()));
+        }
+        queryResult = getPage(nextQueryResult);
+        nextQueryResult = null;
+
+        prefetchNextPage();
         return mapper.marshallIntoObjects(clazz, queryResult.getItems());
     }
+
+    /**
+     * In ITERATION_ONLY mode, starts requesting the page after the current one,
+     * so that it is fetched while the current one is being processed.
+     */
+    @Override
+    protected synchronized void prefetchNextPage() {
+        if ( isIterationOnly() && nextQueryResult == null && queryResult.getLastEvaluatedKey() != null ) {
+            nextQueryResult = requestPage(queryNextPage(queryResult.getLastEvaluatedKey()));
+        }
+    }
+
+    private Callable<QueryResult> queryNextPage(final Map<String, AttributeValue> exclusiveStartKey) {
+        return new Callable<QueryResult>() {
+            public QueryResult call() {
+                queryRequest.setExclusiveStartKey(exclusiveStartKey);
+                return dynamo.query(DynamoDBMapper.applyUserAgent(queryRequest));
+            }
+        };
+    }
 }
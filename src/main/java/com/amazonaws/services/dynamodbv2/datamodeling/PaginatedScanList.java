@@ -15,8 +15,13 @@
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBMapperConfig.PaginationLoadingStrategy;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
 
@@ -43,9 +48,21 @@ public class PaginatedScanList<T> extends PaginatedList<T> {
     /** The current results for the last executed scan operation */
     private ScanResult scanResult;
 
+    /** The request for the next page, started early in ITERATION_ONLY mode */
+    private Future<ScanResult> nextScanResult;
+
 
     public PaginatedScanList(DynamoDBMapper mapper, Class<T> clazz, AmazonDynamoDB dynamo, ScanRequest scanRequest, ScanResult scanResult) {
-        super(mapper, clazz, dynamo);
+        this(mapper, clazz, dynamo, scanRequest, scanResult, null);
+    }
+
+    /**
+     * @param paginationLoadingStrategy
+     *            How the results are loaded and kept, or null for
+     *            {@link PaginationLoadingStrategy#LAZY_LOADING}.
+     */
+    public PaginatedScanList(DynamoDBMapper mapper, Class<T> clazz, AmazonDynamoDB dynamo, ScanRequest scanRequest, ScanResult scanResult, PaginationLoadingStrategy paginationLoadingStrategy) {
+        super(mapper, clazz, dynamo, paginationLoadingStrategy);
 
         this.scanRequest = scanRequest;
         this.scanResult = scanResult;
@@ -60,9 +77,34 @@ public class PaginatedScanList<T> extends PaginatedList<T> {
     
     @Override
     protected synchronized List<T> fetchNextPage() {
-        scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
-        scanResult = dynamo.scan(DynamoDBMapper.applyUserAgent(scanRequest));
+        if ( nextScanResult == null ) {
+            nextScanResult = requestPage(scanNextPage(scanResult.getLastEvaluatedKey()));
+        }
+        scanResult = getPage(nextScanResult);
+        nextScanResult = null;
+
+        prefetchNextPage();
         return mapper.marshallIntoObjects(clazz, scanResult.getItems());
     }
 
+    /**
+     * In ITERATION_ONLY mode, starts requesting the page after the current one,
+     * so that it is fetched while the current one is being processed.
+     */
+    @Override
+    protected synchronized void prefetchNextPage() {
+        if ( isIterationOnly() && nextScanResult == null && scanResult.getLastEvaluatedKey() != null ) {
+            nextScanResult = requestPage(scanNextPage(scanResult.getLastEvaluatedKey()));
+        }
+    }
+
+    private Callable<ScanResult> scanNextPage(final Map<String, AttributeValue> exclusiveStartKey) {
+        return new Callable<ScanResult>() {
+            public ScanResult call() {
+                scanRequest.setExclusiveStartKey(exclusiveStartKey);
+                return dynamo.scan(DynamoDBMapper.applyUserAgent(scanRequest));
+            }
+        };
+    }
+
 }
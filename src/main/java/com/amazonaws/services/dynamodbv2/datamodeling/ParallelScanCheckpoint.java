@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+/**
+ * The progress of a parallel scan on each of its segments, from which the
+ * scan can be resumed with {@link ParallelScanOptions#withCheckpoint(ParallelScanCheckpoint)}.
+ * <p>
+ * A checkpoint taken from a {@link PaginatedParallelScanList} points at the
+ * start of the batch of pages most recently loaded into the list, so resuming
+ * from it scans that batch again rather than risk skipping results that
+ * weren't processed yet. Checkpoints are serializable so that they can be
+ * saved and a long scan resumed by another process.
+ */
+public final class ParallelScanCheckpoint implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<Map<String, AttributeValue>> exclusiveStartKeys;
+    private final boolean[] completedSegments;
+
+    /**
+     * @param exclusiveStartKeys
+     *            The key to resume each segment after, by segment number, or
+     *            null for segments to scan from the start.
+     * @param completedSegments
+     *            Whether each segment has been scanned to its end.
+     */
+    public ParallelScanCheckpoint(List<Map<String, AttributeValue>> exclusiveStartKeys, boolean[] completedSegments) {
+        if (exclusiveStartKeys.size() != completedSegments.length) {
+            throw new IllegalArgumentException("Expected the same number of start keys and completion states");
+        }
+        this.exclusiveStartKeys = new ArrayList<Map<String, AttributeValue>>(exclusiveStartKeys.size());
+        for (Map<String, AttributeValue> key : exclusiveStartKeys) {
+            this.exclusiveStartKeys.add(key == null ? null : new HashMap<String, AttributeValue>(key));
+        }
+        this.completedSegments = completedSegments.clone();
+    }
+
+    /**
+     * Returns the total number of segments of the scan.
+     */
+    public int getTotalSegments() {
+        return completedSegments.length;
+    }
+
+    /**
+     * Returns the key the scan of the segment given resumes after, or null if
+     * it resumes from the start of the segment.
+     */
+    public Map<String, AttributeValue> getExclusiveStartKey(int segment) {
+        Map<String, AttributeValue> key = exclusiveStartKeys.get(segment);
+        return key == null ? null : new HashMap<String, AttributeValue>(key);
+    }
+
+    /**
+     * Returns whether the segment given has been scanned to its end.
+     */
+    public boolean isSegmentCompleted(int segment) {
+        return completedSegments[segment];
+    }
+
+    /**
+     * Returns whether all the segments have been scanned to their end.
+     */
+    public boolean isCompleted() {
+        for (boolean completed : completedSegments) {
+            if (!completed) return false;
+        }
+        return true;
+    }
+}
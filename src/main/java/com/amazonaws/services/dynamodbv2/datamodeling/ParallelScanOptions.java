@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Options for running a parallel scan.
+ *
+ * @see DynamoDBMapper#parallelScan(Class, DynamoDBScanExpression, int,
+ *      DynamoDBMapperConfig, ParallelScanOptions)
+ */
+public class ParallelScanOptions {
+
+    private ExecutorService executorService;
+    private double targetCapacityUnitsPerSecondPerSegment;
+    private ParallelScanCheckpoint checkpoint;
+
+    /**
+     * Sets the executor the segments are scanned on. The executor isn't shut
+     * down by the scan. If not set, a thread pool is created for the scan and
+     * shut down once the scan is complete.
+     */
+    public void setExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+    }
+
+    /**
+     * Returns the executor the segments are scanned on, or null if a thread
+     * pool is created for the scan.
+     */
+    public ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Sets the executor the segments are scanned on and returns a pointer to
+     * this object for method-chaining.
+     *
+     * @see ParallelScanOptions#setExecutorService(ExecutorService)
+     */
+    public ParallelScanOptions withExecutorService(ExecutorService executorService) {
+        setExecutorService(executorService);
+        return this;
+    }
+
+    /**
+     * Sets the read capacity units per second that the scan of each segment is
+     * held to, based on the consumed capacity DynamoDB returns with each page,
+     * or 0 to not limit it.
+     */
+    public void setTargetCapacityUnitsPerSecondPerSegment(double targetCapacityUnitsPerSecondPerSegment) {
+        if (targetCapacityUnitsPerSecondPerSegment < 0) {
+            throw new IllegalArgumentException("The target capacity units per second must not be negative");
+        }
+        this.targetCapacityUnitsPerSecondPerSegment = targetCapacityUnitsPerSecondPerSegment;
+    }
+
+    /**
+     * Returns the read capacity units per second that the scan of each segment
+     * is held to, or 0 if it isn't limited.
+     */
+    public double getTargetCapacityUnitsPerSecondPerSegment() {
+        return targetCapacityUnitsPerSecondPerSegment;
+    }
+
+    /**
+     * Sets the read capacity units per second that the scan of each segment is
+     * held to and returns a pointer to this object for method-chaining.
+     *
+     * @see ParallelScanOptions#setTargetCapacityUnitsPerSecondPerSegment(double)
+     */
+    public ParallelScanOptions withTargetCapacityUnitsPerSecondPerSegment(double targetCapacityUnitsPerSecondPerSegment) {
+        setTargetCapacityUnitsPerSecondPerSegment(targetCapacityUnitsPerSecondPerSegment);
+        return this;
+    }
+
+    /**
+     * Sets the checkpoint of an earlier scan to resume from, or null to scan
+     * from the start. The scan must have the same number of segments, and the
+     * same table and scan expression, as the scan the checkpoint was taken
+     * from.
+     */
+    public void setCheckpoint(ParallelScanCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Returns the checkpoint the scan resumes from, or null if it starts from
+     * the start.
+     */
+    public ParallelScanCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Sets the checkpoint of an earlier scan to resume from and returns a
+     * pointer to this object for method-chaining.
+     *
+     * @see ParallelScanOptions#setCheckpoint(ParallelScanCheckpoint)
+     */
+    public ParallelScanOptions withCheckpoint(ParallelScanCheckpoint checkpoint) {
+        setCheckpoint(checkpoint);
+        return this;
+    }
+}
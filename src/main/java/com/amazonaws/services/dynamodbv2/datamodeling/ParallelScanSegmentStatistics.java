@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.dynamodbv2.datamodeling;
+
+/**
+ * A snapshot of the progress and throughput of the scan of one segment of a
+ * parallel scan.
+ *
+ * @see PaginatedParallelScanList#getSegmentStatistics()
+ */
+public class ParallelScanSegmentStatistics {
+
+    private final int segment;
+    private final int pageCount;
+    private final long scannedCount;
+    private final long itemCount;
+    private final double consumedCapacityUnits;
+    private final long elapsedMillis;
+    private final boolean completed;
+
+    ParallelScanSegmentStatistics(int segment, int pageCount, long scannedCount, long itemCount,
+            double consumedCapacityUnits, long elapsedMillis, boolean completed) {
+        this.segment = segment;
+        this.pageCount = pageCount;
+        this.scannedCount = scannedCount;
+        this.itemCount = itemCount;
+        this.consumedCapacityUnits = consumedCapacityUnits;
+        this.elapsedMillis = elapsedMillis;
+        this.completed = completed;
+    }
+
+    /**
+     * Returns the segment number.
+     */
+    public int getSegment() {
+        return segment;
+    }
+
+    /**
+     * Returns the number of pages scanned.
+     */
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    /**
+     * Returns the number of items scanned, before any scan filter was applied.
+     */
+    public long getScannedCount() {
+        return scannedCount;
+    }
+
+    /**
+     * Returns the number of items returned.
+     */
+    public long getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Returns the read capacity units consumed, as reported by DynamoDB.
+     */
+    public double getConsumedCapacityUnits() {
+        return consumedCapacityUnits;
+    }
+
+    /**
+     * Returns the time spent scanning the segment, including waiting for the
+     * rate limit, in milliseconds.
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns the read capacity units consumed per second spent scanning.
+     */
+    public double getCapacityUnitsPerSecond() {
+        return elapsedMillis == 0 ? 0 : consumedCapacityUnits * 1000 / elapsedMillis;
+    }
+
+    /**
+     * Returns the number of items scanned per second spent scanning.
+     */
+    public double getScannedItemsPerSecond() {
+        return elapsedMillis == 0 ? 0 : scannedCount * 1000.0 / elapsedMillis;
+    }
+
+    /**
+     * Returns whether the segment has been scanned to its end.
+     */
+    public boolean isCompleted() {
+        return completed;
+    }
+}
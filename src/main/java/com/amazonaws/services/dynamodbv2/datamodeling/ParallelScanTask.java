@@ -15,9 +15,9 @@
 package com.amazonaws.services.dynamodbv2.datamodeling;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -26,9 +26,23 @@ import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
 
+/**
+ * Scans the segments of a parallel scan a page at a time: each call to
+ * {@link #getNextBatchOfScanResults()} scans the next page of every segment
+ * not yet completed, concurrently, and returns the pages.
+ * <p>
+ * Segments are scanned on the executor given in the {@link ParallelScanOptions},
+ * or on a thread pool created for the scan. The read capacity consumed by
+ * each segment can be limited, the scan can be resumed from a
+ * {@link ParallelScanCheckpoint}, and the throughput of each segment is
+ * tracked.
+ */
 public class ParallelScanTask {
 
 	/**
@@ -39,23 +53,23 @@ public class ParallelScanTask {
 	private final int totalSegments;
 	
 	/**
-	 * Cache all the future tasks, so that we can extract the exception when
-	 * we see failed segment scan.
+	 * The state of the scan on each segment. A segment is only scanned by one
+	 * worker at a time, between calls to getNextBatchOfScanResults(); its
+	 * state is guarded by its own monitor so that checkpoints and statistics
+	 * can be taken at any time.
 	 */
-	private final List<Future<ScanResult>> segmentScanFutureTasks;
+	private final List<SegmentScanState> segmentScanStates;
 	
-	/**
-	 * Cache all the most recent ScanResult on each segment.
-	 */
-	private final List<ScanResult> segmentScanResults;
+	private final ExecutorService executorService;
+	
+	/** Whether the executor was created for this scan, and is shut down with it. */
+	private final boolean ownsExecutorService;
 	
 	/**
-	 * The current state of the scan on each segment.
-	 * Used as the monitor for synchronization.
+	 * The checkpoint from which the batch of results last returned can be
+	 * scanned again.
 	 */
-	private final List<SegmentScanState> segmentScanStates;
-	
-	private ExecutorService executorService;
+	private volatile ParallelScanCheckpoint checkpoint;
 	
 	/**
 	 * Used for applyUserAgent().
@@ -65,204 +79,207 @@ public class ParallelScanTask {
 	private final AmazonDynamoDB dynamo;
 	
 	public ParallelScanTask(DynamoDBMapper mapper, AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests) {
+		this(mapper, dynamo, parallelScanRequests, null);
+	}
+	
+	/**
+	 * @param options
+	 *            The executor, rate limit and checkpoint to use, or null to
+	 *            scan every segment from the start without a rate limit, on a
+	 *            thread pool created for the scan.
+	 */
+	public ParallelScanTask(DynamoDBMapper mapper, AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests,
+			ParallelScanOptions options) {
 		this.mapper = mapper;
 		this.dynamo = dynamo;
-		this.parallelScanRequests = parallelScanRequests;
+		this.parallelScanRequests = new ArrayList<ScanRequest>(parallelScanRequests);
 		this.totalSegments = parallelScanRequests.size();
-		executorService = Executors.newCachedThreadPool();
+		if (options == null) options = new ParallelScanOptions();
 		
-		// Create synchronized views of the list to guarantee any changes are visible across all threads.
-		segmentScanFutureTasks = Collections.synchronizedList(new ArrayList<Future<ScanResult>>(totalSegments));
-		segmentScanResults = Collections.synchronizedList(new ArrayList<ScanResult>(totalSegments));
-		segmentScanStates = Collections.synchronizedList(new ArrayList<SegmentScanState>(totalSegments));
+		ParallelScanCheckpoint resumeFrom = options.getCheckpoint();
+		if (resumeFrom != null && resumeFrom.getTotalSegments() != totalSegments) {
+			throw new IllegalArgumentException("The checkpoint is for a scan of " + resumeFrom.getTotalSegments()
+					+ " segments, not " + totalSegments);
+		}
 		
-		initSegmentScanStates();
+		segmentScanStates = new ArrayList<SegmentScanState>(totalSegments);
+		for (int segment = 0; segment < totalSegments; segment++) {
+			SegmentScanState state = new SegmentScanState(segment, options.getTargetCapacityUnitsPerSecondPerSegment());
+			if (resumeFrom != null) {
+				state.exclusiveStartKey = resumeFrom.getExclusiveStartKey(segment);
+				state.completed = resumeFrom.isSegmentCompleted(segment);
+			}
+			segmentScanStates.add(state);
+		}
+		checkpoint = takeCheckpoint();
+		
+		if (options.getExecutorService() != null) {
+			executorService = options.getExecutorService();
+			ownsExecutorService = false;
+		} else {
+			executorService = Executors.newCachedThreadPool();
+			ownsExecutorService = true;
+		}
 	}
 	
 	public boolean isAllSegmentScanFinished() {
-		synchronized(segmentScanStates) {
-			for (int segment = 0; segment < totalSegments; segment++) {
-				if (segmentScanStates.get(segment) != SegmentScanState.SegmentScanCompleted)
-					return false;
+		for (SegmentScanState state : segmentScanStates) {
+			synchronized (state) {
+				if (!state.completed) return false;
 			}
-			// Shut down if all data have been scanned and loaded.
-			executorService.shutdown();
-			return true;
 		}
+		// Shut down if all data have been scanned and loaded.
+		shutdown();
+		return true;
 	}
 	
 	public List<ScanResult> getNextBatchOfScanResults() throws AmazonClientException {
+		ParallelScanCheckpoint batchCheckpoint = takeCheckpoint();
+		
 		/**
-		 * Kick-off all the parallel scan tasks.
+		 * Kick-off the scan of the next page of every segment not yet completed.
 		 */
-		startScanNextPages();
+		List<Future<ScanResult>> futures = new ArrayList<Future<ScanResult>>(totalSegments);
+		for (final SegmentScanState state : segmentScanStates) {
+			synchronized (state) {
+				if (state.completed) continue;
+			}
+			futures.add(executorService.submit(new Callable<ScanResult>() {
+				public ScanResult call() {
+					return scanNextPageOfSegment(state);
+				}
+			}));
+		}
+		
 		/**
-		 * Wait till all the tasks have finished.
+		 * Wait till all the tasks have finished, rethrowing the exception of any failed segment scan.
 		 */
-		synchronized(segmentScanStates) {
-			while (segmentScanStates.contains(SegmentScanState.Waiting)
-					|| segmentScanStates.contains(SegmentScanState.Scanning)) {
-				try {
-					segmentScanStates.wait();
-				} catch (InterruptedException ie) {
-					throw new AmazonClientException("Parallel scan interrupted by other thread.", ie);
+		List<ScanResult> scanResults = new LinkedList<ScanResult>();
+		for (Future<ScanResult> future : futures) {
+			try {
+				scanResults.add(future.get());
+			} catch (InterruptedException ie) {
+				cancel(futures);
+				Thread.currentThread().interrupt();
+				throw new AmazonClientException("Parallel scan interrupted by other thread.", ie);
+			} catch (ExecutionException ee) {
+				cancel(futures);
+				shutdown();
+				if (ee.getCause() instanceof AmazonClientException) {
+					throw (AmazonClientException) (ee.getCause());
+				} else {
+					throw new AmazonClientException("Internal error during the parallel scan.", ee.getCause());
 				}
 			}
-			/**
-			 *  Keep the lock on segmentScanStates until all the cached results are marshaled and returned.
-			 */
-			return marshalParallelScanResults();
 		}
+		
+		checkpoint = batchCheckpoint;
+		return scanResults;
+	}
 	
+	/**
+	 * Returns the checkpoint from which the batch of results last returned by
+	 * {@link #getNextBatchOfScanResults()}, and the rest of the scan, can be
+	 * scanned again.
+	 */
+	public ParallelScanCheckpoint getCheckpoint() {
+		return checkpoint;
 	}
 	
-	private void startScanNextPages() {
-		for (int segment = 0; segment < totalSegments; segment++) {
-			final int currentSegment = segment;
-			final SegmentScanState currentSegmentState = segmentScanStates.get(currentSegment);
-			/**
-			 * Assert: Should never see any task in state of "Scanning" when starting a new batch.
-			 */
-			if (currentSegmentState == SegmentScanState.Scanning){
-				throw new AmazonClientException("Should never see a 'Scanning' state when starting parallel scans.");
-			}
-			/**
-			 * Skip any failed or completed segment, and clear the corresponding cached result.
-			 */
-			else if (currentSegmentState == SegmentScanState.Failed
-					|| currentSegmentState == SegmentScanState.SegmentScanCompleted) {
-				segmentScanResults.set(currentSegment, null);
-				continue;
-			}
-			/**
-			 * Otherwise, submit a new future task and save it in segmentScanFutureTasks.
-			 */
-			else {
-				// Update the state to "Scanning" and notify any waiting thread.
-				synchronized(segmentScanStates) {
-					segmentScanStates.set(currentSegment, SegmentScanState.Scanning);
-					segmentScanStates.notifyAll();
-				}
-				Future<ScanResult> futureTask = executorService.submit(new Callable<ScanResult>() {
-					@Override
-					public ScanResult call() throws Exception {
-						try {
-							if (currentSegmentState == SegmentScanState.HasNextPage) {
-								return scanNextPageOfSegment(currentSegment, true);
-							} 
-							else if (currentSegmentState == SegmentScanState.Waiting) {
-								return scanNextPageOfSegment(currentSegment, false);
-							} 
-							else {
-								throw new AmazonClientException("Should not start a new future task");
-							}
-						} catch (Exception e) {
-							synchronized(segmentScanStates) {
-								segmentScanStates.set(currentSegment, SegmentScanState.Failed);
-								segmentScanStates.notifyAll();
-							}
-							throw e;
-						}
-					}
-				});
-				// Cache the future task (for getting the Exceptions in the working thread).
-				segmentScanFutureTasks.set(currentSegment, futureTask);
+	/**
+	 * Returns the progress and throughput of the scan of each segment so far.
+	 */
+	public List<ParallelScanSegmentStatistics> getSegmentStatistics() {
+		List<ParallelScanSegmentStatistics> statistics = new ArrayList<ParallelScanSegmentStatistics>(totalSegments);
+		for (SegmentScanState state : segmentScanStates) {
+			synchronized (state) {
+				statistics.add(new ParallelScanSegmentStatistics(state.segment, state.pageCount, state.scannedCount,
+						state.itemCount, state.consumedCapacityUnits, state.elapsedMillis, state.completed));
 			}
 		}
+		return statistics;
 	}
 	
-	private List<ScanResult> marshalParallelScanResults() {
-		List<ScanResult> scanResults = new LinkedList<ScanResult>();
-		for (int segment = 0; segment < totalSegments; segment++) {
-			SegmentScanState currentSegmentState = segmentScanStates.get(segment);
-			/**
-			 * Rethrow the exception from any failed segment scan.
-			 */
-			if (currentSegmentState == SegmentScanState.Failed) {
-				try {
-					segmentScanFutureTasks.get(segment).get();
-					throw new AmazonClientException("No Exception found in the failed scan task.");
-				} catch (ExecutionException ee) {
-					if ( ee.getCause() instanceof AmazonClientException) {
-						throw (AmazonClientException) (ee.getCause());
-					} else {
-						throw new AmazonClientException("Internal error during the scan on segment #" + segment + ".",
-								ee.getCause());
-					}
-				} catch (Exception e) {
-					throw new AmazonClientException("Error during the scan on segment #" + segment + ".", e);
-				}
-			}
-			/**
-			 * Get the ScanResult from cache if the segment scan has finished.
-			 */
-			else if (currentSegmentState == SegmentScanState.HasNextPage
-					|| currentSegmentState == SegmentScanState.SegmentScanCompleted) {
-				ScanResult scanResult = segmentScanResults.get(segment);
-				scanResults.add(scanResult);
-			}
-			else if (currentSegmentState == SegmentScanState.Waiting
-					|| currentSegmentState == SegmentScanState.Scanning){
-				throw new AmazonClientException("Should never see a 'Scanning' or 'Waiting' state when marshalling parallel scan results.");
+	private ParallelScanCheckpoint takeCheckpoint() {
+		List<Map<String, AttributeValue>> exclusiveStartKeys = new ArrayList<Map<String, AttributeValue>>(totalSegments);
+		boolean[] completedSegments = new boolean[totalSegments];
+		for (SegmentScanState state : segmentScanStates) {
+			synchronized (state) {
+				exclusiveStartKeys.add(state.exclusiveStartKey);
+				completedSegments[state.segment] = state.completed;
 			}
 		}
-		return scanResults;
+		return new ParallelScanCheckpoint(exclusiveStartKeys, completedSegments);
 	}
 	
-	private ScanResult scanNextPageOfSegment(int currentSegment, boolean checkLastEvaluatedKey) {
-		ScanRequest segmentScanRequest = parallelScanRequests.get(currentSegment);
-		if (checkLastEvaluatedKey) {
-			ScanResult lastScanResult = segmentScanResults.get(currentSegment);
-			segmentScanRequest.setExclusiveStartKey(lastScanResult.getLastEvaluatedKey());
-		} else {
-			segmentScanRequest.setExclusiveStartKey(null);
+	private ScanResult scanNextPageOfSegment(SegmentScanState state) {
+		long startTime = System.currentTimeMillis();
+		if (state.rateLimiter != null) state.rateLimiter.acquire();
+		
+		ScanRequest segmentScanRequest = parallelScanRequests.get(state.segment);
+		Map<String, AttributeValue> exclusiveStartKey;
+		synchronized (state) {
+			exclusiveStartKey = state.exclusiveStartKey;
 		}
+		segmentScanRequest.setExclusiveStartKey(exclusiveStartKey);
+		segmentScanRequest.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
 		ScanResult scanResult = dynamo.scan(mapper.applyUserAgent(segmentScanRequest));
 		
-		/**
-		 * Cache the scan result in segmentScanResults.
-		 * We should never try to get these scan results by calling get() on the cached future tasks.
-		 */
-		segmentScanResults.set(currentSegment, scanResult);
+		double consumedCapacityUnits = 0;
+		ConsumedCapacity consumedCapacity = scanResult.getConsumedCapacity();
+		if (consumedCapacity != null && consumedCapacity.getCapacityUnits() != null) {
+			consumedCapacityUnits = consumedCapacity.getCapacityUnits();
+		}
+		if (state.rateLimiter != null) state.rateLimiter.consumed(consumedCapacityUnits);
 		
 		/**
-		 * Update the state and notify any waiting thread.
+		 * Update the state of the segment.
 		 */
-		synchronized(segmentScanStates) {
-			if (null == scanResult.getLastEvaluatedKey())
-				segmentScanStates.set(currentSegment, SegmentScanState.SegmentScanCompleted);
-			else
-				segmentScanStates.set(currentSegment, SegmentScanState.HasNextPage);
-			segmentScanStates.notifyAll();
+		synchronized (state) {
+			state.exclusiveStartKey = scanResult.getLastEvaluatedKey();
+			state.completed = (null == scanResult.getLastEvaluatedKey());
+			state.pageCount++;
+			if (scanResult.getScannedCount() != null) state.scannedCount += scanResult.getScannedCount();
+			if (scanResult.getCount() != null) state.itemCount += scanResult.getCount();
+			state.consumedCapacityUnits += consumedCapacityUnits;
+			state.elapsedMillis += System.currentTimeMillis() - startTime;
 		}
 		return scanResult;
 	}
 	
-	private void initSegmentScanStates() {
-		for (int segment = 0; segment < totalSegments; segment++) {
-			segmentScanFutureTasks.add(null);
-			segmentScanResults.add(null);
-			segmentScanStates.add(SegmentScanState.Waiting);			
+	private void cancel(List<Future<ScanResult>> futures) {
+		for (Future<ScanResult> future : futures) {
+			future.cancel(true);
 		}
 	}
+	
+	private void shutdown() {
+		if (ownsExecutorService) executorService.shutdown();
+	}
+
+	/**
+	 * The state of the scan on a segment.
+	 */
+	private static final class SegmentScanState {
+		private final int segment;
+		private final CapacityRateLimiter rateLimiter;
 
-    /**
-     * Enumeration of the possible states of the scan on a segment.
-     */
-    private static enum SegmentScanState {
-        /** The scan on the segment is waiting for resources to execute and has not started yet. */
-        Waiting,
+		/** The key to scan the next page after, or null at the start of the segment. */
+		private Map<String, AttributeValue> exclusiveStartKey;
 
-        /** The scan is in process, and hasn't finished yet. */
-        Scanning,
-        
-        /** The scan has already failed. */
-        Failed,
+		/** Whether the scan on the whole segment has completed. */
+		private boolean completed;
 
-        /** The scan on the current page has finished, but there are more pages in the segment to be scanned. */
-        HasNextPage,
+		private int pageCount;
+		private long scannedCount;
+		private long itemCount;
+		private double consumedCapacityUnits;
+		private long elapsedMillis;
 
-        /** The scan on the whole segment has completed. */
-        SegmentScanCompleted,
-    } 
+		SegmentScanState(int segment, double targetCapacityUnitsPerSecond) {
+			this.segment = segment;
+			this.rateLimiter = (targetCapacityUnitsPerSecond > 0)
+					? new CapacityRateLimiter(targetCapacityUnitsPerSecond) : null;
+		}
+	}
 }
@@ -14,12 +14,13 @@
  */
 package com.amazonaws.services.glacier;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -27,7 +28,6 @@ import java.util.List;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.glacier.internal.TreeHashInputStream;
-import com.amazonaws.services.s3.internal.RepeatableFileInputStream;
 import com.amazonaws.util.BinaryUtils;
 
 /**
@@ -38,6 +38,9 @@ import com.amazonaws.util.BinaryUtils;
  */
 public class TreeHashGenerator {
 
+    /** The size of the chunks whose checksums form the leaves of the tree. */
+    private static final int ONE_MB = 1024 * 1024;
+
 	/**
 	 * Calculates a hex encoded binary hash using a tree hashing algorithm for
 	 * the data in the specified file.
@@ -53,11 +56,68 @@ public class TreeHashGenerator {
 	 *             computing the hash.
 	 */
     public static String calculateTreeHash(File file) throws AmazonClientException {
-    	try {
-			return calculateTreeHash(new RepeatableFileInputStream(file));
-		} catch (FileNotFoundException e) {
-			throw new AmazonClientException("Unable to compute hash for file: " + file.getAbsolutePath(), e);
-		}
+        RandomAccessFile randomAccessFile;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "r");
+        } catch (FileNotFoundException e) {
+            throw new AmazonClientException("Unable to compute hash for file: " + file.getAbsolutePath(), e);
+        }
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            return calculateTreeHash(channel, 0, channel.size());
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to compute hash for file: " + file.getAbsolutePath(), e);
+        } finally {
+            try { randomAccessFile.close(); } catch (Exception e) {}
+        }
+    }
+
+    /**
+     * Calculates a hex encoded binary hash using a tree hashing algorithm for
+     * the specified region of a file. The region is read with positional
+     * reads, so several regions of the same channel can be hashed
+     * concurrently, and the channel's position is left unchanged.
+     *
+     * @param channel
+     *            The channel of the file containing the data to hash.
+     * @param position
+     *            The position in the file where the region starts.
+     * @param length
+     *            The length of the region, in bytes.
+     *
+     * @return The hex encoded binary tree hash for the data in the specified
+     *         region of the file.
+     *
+     * @throws AmazonClientException
+     *             If any problems were encountered reading the data or
+     *             computing the hash.
+     */
+    public static String calculateTreeHash(FileChannel channel, long position, long length)
+            throws AmazonClientException {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocate(ONE_MB);
+            List<byte[]> checksums = new ArrayList<byte[]>((int) (length / ONE_MB) + 1);
+
+            long end = position + length;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(ONE_MB, end - position));
+                while (buffer.hasRemaining()) {
+                    int bytesRead = channel.read(buffer, position + buffer.position());
+                    if (bytesRead == -1) {
+                        throw new IOException("Unexpected end of file at position " + (position + buffer.position()));
+                    }
+                }
+                messageDigest.update(buffer.array(), 0, buffer.limit());
+                checksums.add(messageDigest.digest());
+                position += buffer.limit();
+            }
+
+            return calculateTreeHash(checksums);
+        } catch (Exception e) {
+            throw new AmazonClientException("Unable to compute hash", e);
+        }
     }
 
 	/**
@@ -135,18 +195,7 @@ public class TreeHashGenerator {
     }
     
 
-    private static byte[] computeSHA256Hash(byte[] data) throws NoSuchAlgorithmException, IOException {
-        BufferedInputStream bis = new BufferedInputStream(new ByteArrayInputStream(data));
-        try {
-            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
-            byte[] buffer = new byte[16384];
-            int bytesRead = -1;
-            while ( (bytesRead = bis.read(buffer, 0, buffer.length)) != -1 ) {
-                messageDigest.update(buffer, 0, bytesRead);
-            }
-            return messageDigest.digest();
-        } finally {
-            try { bis.close(); } catch ( Exception e ) {}
-        }
+    private static byte[] computeSHA256Hash(byte[] data) throws NoSuchAlgorithmException {
+        return MessageDigest.getInstance("SHA-256").digest(data);
     }
 }
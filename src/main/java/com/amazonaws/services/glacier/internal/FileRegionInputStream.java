@@ -0,0 +1,105 @@
+/*
+ * Copyright 2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.glacier.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Input stream over a region of a file, read with positional reads from a
+ * {@link FileChannel}. Because positional reads don't move the channel's own
+ * position, any number of these streams can read different regions of the
+ * same channel concurrently. Mark and reset are supported anywhere in the
+ * region; closing the stream doesn't close the channel.
+ */
+public class FileRegionInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long end;
+    /** Reused by {@link #read()}, since streams are often read a byte at a time. */
+    private final byte[] singleByte = new byte[1];
+    private long position;
+    private long markedPosition;
+    private boolean closed;
+
+    /**
+     * @param channel
+     *            The channel to read from; owned by the caller.
+     * @param start
+     *            The position in the file of the first byte of the region.
+     * @param length
+     *            The length of the region, in bytes.
+     */
+    public FileRegionInputStream(FileChannel channel, long start, long length) {
+        this.channel = channel;
+        this.position = start;
+        this.markedPosition = start;
+        this.end = start + length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int bytesRead = read(singleByte, 0, 1);
+        return (bytesRead == -1) ? -1 : (singleByte[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) throw new IOException("Stream closed");
+        if (len == 0) return 0;
+        if (position >= end) return -1;
+
+        int toRead = (int) Math.min(len, end - position);
+        int bytesRead = channel.read(ByteBuffer.wrap(b, off, toRead), position);
+        if (bytesRead == -1) return -1;
+        position += bytesRead;
+        return bytesRead;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) return 0;
+        long skipped = Math.min(n, end - position);
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        markedPosition = position;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        position = markedPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+    }
+}
@@ -21,8 +21,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.security.NoSuchAlgorithmException;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -40,6 +49,7 @@ import com.amazonaws.internal.StaticCredentialsProvider;
 import com.amazonaws.services.glacier.AmazonGlacier;
 import com.amazonaws.services.glacier.AmazonGlacierClient;
 import com.amazonaws.services.glacier.TreeHashGenerator;
+import com.amazonaws.services.glacier.internal.FileRegionInputStream;
 import com.amazonaws.services.glacier.internal.TreeHashInputStream;
 import com.amazonaws.services.glacier.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.glacier.model.CompleteMultipartUploadRequest;
@@ -56,7 +66,6 @@ import com.amazonaws.services.glacier.model.JobParameters;
 import com.amazonaws.services.glacier.model.UploadArchiveRequest;
 import com.amazonaws.services.glacier.model.UploadArchiveResult;
 import com.amazonaws.services.glacier.model.UploadMultipartPartRequest;
-import com.amazonaws.services.s3.internal.InputSubstream;
 import com.amazonaws.services.s3.internal.RepeatableFileInputStream;
 import com.amazonaws.services.sns.AmazonSNSClient;
 import com.amazonaws.services.sqs.AmazonSQSClient;
@@ -82,6 +91,9 @@ public class ArchiveTransferManager {
     /** Default retry time when downloading in multiple chunks using range retrieval */
     private static final int DEFAULT_MAX_RETRIES = 3;
 
+    /** The default maximum number of parts of a single upload, or chunks of a single download, transferred at the same time. */
+    public static final int DEFAULT_MAX_CONCURRENT_PARTS = 4;
+
     /** Glacier client used for making all requests. */
     private final AmazonGlacier glacier;
 
@@ -95,6 +107,9 @@ public class ArchiveTransferManager {
 
     private static final Log log = LogFactory.getLog(ArchiveTransferManager.class);
 
+    /** The maximum number of parts of a single upload, or chunks of a single download, transferred at the same time. */
+    private volatile int maxConcurrentParts = DEFAULT_MAX_CONCURRENT_PARTS;
+
     /**
      * Constructs a new ArchiveTransferManager, using the specified AWS
      * credentials to authenticate requests.
@@ -192,6 +207,34 @@ public class ArchiveTransferManager {
         this.sns = sns;
     }
 
+    /**
+     * Sets the maximum number of parts of a multipart upload that are hashed
+     * and uploaded, or chunks of a job output that are downloaded, at the
+     * same time. Each transfer uses its own threads, which are released when
+     * it finishes; a value of 1 transfers the parts one after another.
+     *
+     * @param maxConcurrentParts
+     *            The maximum number of parts transferred at the same time;
+     *            must be at least 1.
+     */
+    public void setMaxConcurrentParts(int maxConcurrentParts) {
+        if (maxConcurrentParts < 1) {
+            throw new IllegalArgumentException("The maximum number of concurrent parts must be at least 1");
+        }
+        this.maxConcurrentParts = maxConcurrentParts;
+    }
+
+    /**
+     * Returns the maximum number of parts of a multipart upload that are
+     * hashed and uploaded, or chunks of a job output that are downloaded, at
+     * the same time.
+     *
+     * @return The maximum number of parts transferred at the same time.
+     */
+    public int getMaxConcurrentParts() {
+        return maxConcurrentParts;
+    }
+
     /**
      * Uploads the specified file to Amazon Glacier for archival storage in the
      * specified vault for the user's current account. For small archives, this
@@ -481,9 +524,12 @@ public class ArchiveTransferManager {
      * Downloads the job output for the specified job (which must be ready to
      * download already, and must be a complete archive retrieval, not a partial
      * range retrieval), into the specified file. This method will request
-     * individual chunks of the data, one at a time, in order to handle any
-     * transient errors along the way. You can also add an optional progress
-     * listener for receiving updates about the download status.
+     * individual chunks of the data, several at a time (see
+     * {@link #setMaxConcurrentParts(int)}), in order to handle any transient
+     * errors along the way. If the download is interrupted, a later download
+     * of the same job into the same file only requests the chunks that were
+     * not written yet. You can also add an optional progress listener for
+     * receiving updates about the download status.
      *
      * @param accountId
      *            The account ID containing the job output to download (or null
@@ -506,10 +552,7 @@ public class ArchiveTransferManager {
     private void downloadJobOutput(String accountId, String vaultName, String jobId, File file, ProgressListenerCallbackExecutor progressListenerCallbackExecutor) {
         long archiveSize = 0;
         long chunkSize = DEFAULT_DOWNLOAD_CHUNK_SIZE;
-        long currentPosition = 0;
-        long endPosition = 0;
 
-        RandomAccessFile output = null;
         String customizedChunkSize = null;
         customizedChunkSize = System.getProperty("com.amazonaws.services.glacier.transfer.downloadChunkSizeInMB");
 
@@ -526,6 +569,9 @@ public class ArchiveTransferManager {
             validateChunkSize(chunkSize);
         }
 
+        DownloadCheckpoint checkpoint = DownloadCheckpoint.load(file, jobId, archiveSize, chunkSize);
+
+        RandomAccessFile output = null;
         try {
             output = new RandomAccessFile(file, "rw");
         } catch (IOException e) {
@@ -535,29 +581,40 @@ public class ArchiveTransferManager {
 
         fireProgressEvent(progressListenerCallbackExecutor, ProgressEvent.STARTED_EVENT_CODE);
 
-        while (currentPosition < archiveSize) {
-            if (currentPosition + chunkSize > archiveSize) {
-                endPosition = archiveSize - 1;
-            } else {
-                endPosition = currentPosition + chunkSize - 1;
-            }
+        ExecutorService executor = null;
+        try {
+            FileChannel channel = output.getChannel();
 
-            // Download the chunk
-            try {
-            downloadOneChunk(accountId, vaultName, jobId, output, currentPosition, endPosition);
-            } catch (AmazonServiceException ace) {
-                fireProgressEvent(progressListenerCallbackExecutor, ProgressEvent.FAILED_EVENT_CODE);
-                throw ace;
-            }
+            int chunkCount = (int) ((archiveSize + chunkSize - 1) / chunkSize);
+            executor = newTransferExecutor(chunkCount);
+
+            List<Future<?>> chunks = new ArrayList<Future<?>>(chunkCount);
+            int chunk = 0;
+            for (long currentPosition = 0; currentPosition < archiveSize; currentPosition += chunkSize, chunk++) {
+                // Skip chunks written by an earlier, interrupted download
+                if (checkpoint.isCompleted(chunk)) continue;
 
-            if (progressListenerCallbackExecutor != null) {
-                ProgressEvent event = new ProgressEvent(endPosition - currentPosition + 1);
-                progressListenerCallbackExecutor.progressChanged(event);
+                long endPosition = Math.min(currentPosition + chunkSize, archiveSize) - 1;
+                chunks.add(executor.submit(new DownloadChunkCallable(accountId, vaultName, jobId,
+                        channel, chunk, currentPosition, endPosition, checkpoint, progressListenerCallbackExecutor)));
             }
 
-            currentPosition += chunkSize;
+            for (Future<?> future : chunks) {
+                waitFor(future);
+            }
+            // Drop anything left over from an earlier, larger file
+            channel.truncate(archiveSize);
+        } catch (Exception e) {
+            if (executor != null) executor.shutdownNow();
+            fireProgressEvent(progressListenerCallbackExecutor, ProgressEvent.FAILED_EVENT_CODE);
+            if (e instanceof AmazonClientException) throw (AmazonClientException) e;
+            throw new AmazonClientException("Unable to download the archive: " + e.getMessage(), e);
+        } finally {
+            if (executor != null) executor.shutdownNow();
+            try {output.close();} catch (Exception e) {}
         }
-        try { output.close();} catch (Exception e) {};
+
+        checkpoint.delete();
         fireProgressEvent(progressListenerCallbackExecutor, ProgressEvent.COMPLETED_EVENT_CODE);
     }
 
@@ -573,75 +630,111 @@ public class ArchiveTransferManager {
     }
 
     /**
-     * Download one chunk from Amazon Glacier. It will do the retry if any errors are encountered while streaming the data from
-     * Amazon Glacier.
+     * Downloads one chunk from Amazon Glacier and writes it to its position
+     * in the output file, verifying the chunk's tree hash independently of
+     * the other chunks. It will do the retry if any errors are encountered
+     * while streaming the data from Amazon Glacier; since the tree hash
+     * covers the whole range, a retry fetches the chunk from its start.
      */
-    private void downloadOneChunk(String accountId, String vaultName, String jobId, RandomAccessFile output, long currentPosition, long endPosition) {
-        TreeHashInputStream  input;
-        int retries = 0;
-        while (true) {
-            try {
-                GetJobOutputResult  jobOutputResult = glacier.getJobOutput(new GetJobOutputRequest()
-                  .withAccountId(accountId)
-                  .withVaultName(vaultName)
-                  .withRange("bytes=" + Long.toString(currentPosition) + "-" + Long.toString(endPosition))
-                  .withJobId(jobId));
+    private final class DownloadChunkCallable implements Callable<Object> {
+        private final String accountId;
+        private final String vaultName;
+        private final String jobId;
+        private final FileChannel output;
+        private final int chunk;
+        private final long currentPosition;
+        private final long endPosition;
+        private final DownloadCheckpoint checkpoint;
+        private final ProgressListenerCallbackExecutor progressListenerCallbackExecutor;
+
+        DownloadChunkCallable(String accountId, String vaultName, String jobId, FileChannel output, int chunk,
+                long currentPosition, long endPosition, DownloadCheckpoint checkpoint,
+                ProgressListenerCallbackExecutor progressListenerCallbackExecutor) {
+            this.accountId = accountId;
+            this.vaultName = vaultName;
+            this.jobId = jobId;
+            this.output = output;
+            this.chunk = chunk;
+            this.currentPosition = currentPosition;
+            this.endPosition = endPosition;
+            this.checkpoint = checkpoint;
+            this.progressListenerCallbackExecutor = progressListenerCallbackExecutor;
+        }
+
+        public Object call() throws Exception {
+            byte[] buffer = new byte[1024 * 1024];
+            int retries = 0;
+            while (true) {
+                if (Thread.interrupted()) throw new InterruptedException();
 
+                TreeHashInputStream input;
                 try {
-                    input = new TreeHashInputStream(new BufferedInputStream(jobOutputResult.getBody()));
-                } catch (NoSuchAlgorithmException e) {
-                    throw new AmazonClientException("Unable to compute hash for data integrity: " + e.getMessage(), e);
-                }
+                    GetJobOutputResult jobOutputResult = glacier.getJobOutput(new GetJobOutputRequest()
+                      .withAccountId(accountId)
+                      .withVaultName(vaultName)
+                      .withRange("bytes=" + Long.toString(currentPosition) + "-" + Long.toString(endPosition))
+                      .withJobId(jobId));
 
-                appendToFile(output, input);
+                    try {
+                        input = new TreeHashInputStream(new BufferedInputStream(jobOutputResult.getBody()));
+                    } catch (NoSuchAlgorithmException e) {
+                        throw new AmazonClientException("Unable to compute hash for data integrity: " + e.getMessage(), e);
+                    }
 
-                // Only do tree-hash check when the output checksum is returned from Glacier
-                if (null != jobOutputResult.getChecksum()) {
-                    // Checksum does not match
-                    if (!input.getTreeHash().equalsIgnoreCase(jobOutputResult.getChecksum())) {
-                        throw new IOException("Client side computed hash doesn't match server side hash; possible data corruption");
+                    writeToFile(output, currentPosition, input, buffer);
+
+                    // Only do tree-hash check when the output checksum is returned from Glacier
+                    if (null != jobOutputResult.getChecksum()) {
+                        // Checksum does not match
+                        if (!input.getTreeHash().equalsIgnoreCase(jobOutputResult.getChecksum())) {
+                            throw new IOException("Client side computed hash doesn't match server side hash; possible data corruption");
+                        }
+                    } else {
+                        log.warn("Cannot validate the downloaded output since no tree-hash checksum is returned from Glacier. "
+                                + "Make sure the InitiateJob and GetJobOutput requests use tree-hash-aligned ranges.");
                     }
-                } else {
-                    log.warn("Cannot validate the downloaded output since no tree-hash checksum is returned from Glacier. "
-                            + "Make sure the InitiateJob and GetJobOutput requests use tree-hash-aligned ranges.");
-                }
 
-                // Successfully download
-                return;
+                    // Successfully downloaded; make sure the data is on disk before recording it
+                    output.force(false);
+                    checkpoint.markCompleted(chunk);
 
-                // We will retry IO exception
-            } catch (IOException ioe) {
-                if (retries < DEFAULT_MAX_RETRIES) {
-                    retries++;
-                    try {
-                        output.seek(currentPosition);
-                    } catch (Exception e) {
-                        throw new AmazonClientException("Unable to download the archive: " + ioe.getMessage(), e);
+                    if (progressListenerCallbackExecutor != null) {
+                        ProgressEvent event = new ProgressEvent(endPosition - currentPosition + 1);
+                        progressListenerCallbackExecutor.progressChanged(event);
+                    }
+                    return null;
+
+                    // We will retry IO exception
+                } catch (IOException ioe) {
+                    if (retries < DEFAULT_MAX_RETRIES && output.isOpen()) {
+                        retries++;
+                    } else {
+                        throw new AmazonClientException("Unable to download the archive: " + ioe.getMessage(), ioe);
                     }
-                } else {
-                    throw new AmazonClientException("Unable to download the archive: " + ioe.getMessage(), ioe);
                 }
             }
         }
     }
 
-    private void appendToFile(RandomAccessFile output, InputStream input) throws IOException {
-        byte[] buffer = new byte[1024 * 1024];
+    /**
+     * Writes the contents of the specified stream to the output file,
+     * starting at the specified position, with positional writes so that
+     * chunks can be written concurrently.
+     */
+    private void writeToFile(FileChannel output, long position, InputStream input, byte[] buffer) throws IOException {
         try {
-            int bytesRead = 0;
-            do {
-                bytesRead = input.read(buffer);
-                if (bytesRead < 0)
-                    break;
-                output.write(buffer, 0, bytesRead);
-            } while (bytesRead > 0);
+            int bytesRead;
+            while ((bytesRead = input.read(buffer)) > -1) {
+                ByteBuffer data = ByteBuffer.wrap(buffer, 0, bytesRead);
+                while (data.hasRemaining()) {
+                    position += output.write(data, position);
+                }
+            }
         } finally {
             try {input.close();} catch (Exception e) {}
         }
     }
 
-
-
     /**
      * Calculates the part size to use when uploading an archive of the
      * specified size using Glacier's multipart upload APIs. Because of the tree
@@ -665,16 +758,9 @@ public class ArchiveTransferManager {
     }
 
 
-    private InputSubstream newInputSubstream(File file, long startingPosition, long length) {
-        try {
-            return new InputSubstream(new RepeatableFileInputStream(file), startingPosition, length, true);
-        } catch (FileNotFoundException e) {
-            throw new AmazonClientException("Unable to find file '" + file.getAbsolutePath() + "'", e);
-        }
-    }
-
     private UploadResult uploadInMultipleParts(final String accountId, final String vaultName, final String archiveDescription, final File file, ProgressListenerCallbackExecutor progressListenerCallbackExecutor) {
-        long partSize = calculatePartSize(file.length());
+        final long fileLength = file.length();
+        long partSize = calculatePartSize(fileLength);
         String partSizeString = Long.toString(partSize);
 
         fireProgressEvent(progressListenerCallbackExecutor, ProgressEvent.PREPARING_EVENT_CODE);
@@ -693,58 +779,35 @@ public class ArchiveTransferManager {
 
         fireProgressEvent(progressListenerCallbackExecutor, ProgressEvent.STARTED_EVENT_CODE);
 
+        RandomAccessFile input = null;
+        ExecutorService executor = null;
         try {
-            List<byte[]> binaryChecksums = new LinkedList<byte[]>();
-
-            long currentPosition = 0;
-            while (currentPosition < file.length()) {
-                long length = partSize;
-                if (currentPosition + partSize > file.length()) {
-                    length = file.length() - currentPosition;
-                }
-
-                Exception failedException = null;
-                boolean completed = false;
-                int tries = 0;
-
-                while(!completed && tries<5){
-                    tries++;
-                    InputStream inputSubStream = newInputSubstream(file, currentPosition, length);
-                    inputSubStream.mark(-1);
-                    String checksum = TreeHashGenerator.calculateTreeHash(inputSubStream);
-                    byte[] binaryChecksum = BinaryUtils.fromHex(checksum);
-                    inputSubStream.reset();
-                    try {
-                        glacier.uploadMultipartPart(new UploadMultipartPartRequest()
-                                .withAccountId(accountId)
-                                .withChecksum(checksum)
-                                .withBody(inputSubStream)
-                                .withRange("bytes " + currentPosition + "-" + (currentPosition + length - 1) + "/*")
-                                .withUploadId(uploadId)
-                                .withVaultName(vaultName));
-                        completed = true;
-                        binaryChecksums.add(binaryChecksum);
-                    } catch (Exception e){
-                        failedException = e;
-                    } finally {
-                        try {inputSubStream.close();} catch (Exception e) {}
-                    }
-                }
-                if(!completed && failedException!=null){
-                    throw failedException;
-                }
-
-                if (progressListenerCallbackExecutor != null) {
-                ProgressEvent event = new ProgressEvent(length);
-                progressListenerCallbackExecutor.progressChanged(event);
-                }
+            input = new RandomAccessFile(file, "r");
+            FileChannel channel = input.getChannel();
+
+            int partCount = (int) ((fileLength + partSize - 1) / partSize);
+            executor = newTransferExecutor(partCount);
+
+            /*
+             * Parts are hashed and uploaded concurrently; their checksums are
+             * collected in part order, since the archive's tree hash is
+             * computed from them.
+             */
+            List<Future<byte[]>> partChecksums = new ArrayList<Future<byte[]>>(partCount);
+            for (long currentPosition = 0; currentPosition < fileLength; currentPosition += partSize) {
+                long length = Math.min(partSize, fileLength - currentPosition);
+                partChecksums.add(executor.submit(new UploadPartCallable(accountId, vaultName, uploadId,
+                        channel, currentPosition, length, progressListenerCallbackExecutor)));
+            }
 
-                currentPosition += partSize;
+            List<byte[]> binaryChecksums = new ArrayList<byte[]>(partCount);
+            for (Future<byte[]> partChecksum : partChecksums) {
+                binaryChecksums.add(waitFor(partChecksum));
             }
 
             String checksum = TreeHashGenerator.calculateTreeHash(binaryChecksums);
 
-            String archiveSize = Long.toString(file.length());
+            String archiveSize = Long.toString(fileLength);
             CompleteMultipartUploadResult completeMultipartUploadResult =
                 glacier.completeMultipartUpload(new CompleteMultipartUploadRequest()
                     .withAccountId(accountId)
@@ -757,9 +820,105 @@ public class ArchiveTransferManager {
             fireProgressEvent(progressListenerCallbackExecutor, ProgressEvent.COMPLETED_EVENT_CODE);
             return new UploadResult(artifactId);
         } catch (Exception e) {
+            // Stop any parts still in progress before aborting the upload
+            if (executor != null) executor.shutdownNow();
             fireProgressEvent(progressListenerCallbackExecutor, ProgressEvent.FAILED_EVENT_CODE);
             glacier.abortMultipartUpload(new AbortMultipartUploadRequest(accountId, vaultName, uploadId));
             throw new AmazonClientException("Unable to finish the upload", e);
+        } finally {
+            if (executor != null) executor.shutdownNow();
+            try {if (input != null) input.close();} catch (Exception e) {}
+        }
+    }
+
+    /**
+     * Uploads one part of a multipart upload, read from a region of the file
+     * being uploaded, and returns the binary tree hash of the part.
+     * <p>
+     * The part is hashed once, with large positional reads, and the upload
+     * itself is tried up to five times, each time streaming the part from the
+     * file again. Glacier needs the part's tree hash before its body, so the
+     * hash can't be computed while the part is being sent.
+     */
+    private final class UploadPartCallable implements Callable<byte[]> {
+        private final String accountId;
+        private final String vaultName;
+        private final String uploadId;
+        private final FileChannel channel;
+        private final long position;
+        private final long length;
+        private final ProgressListenerCallbackExecutor progressListenerCallbackExecutor;
+
+        UploadPartCallable(String accountId, String vaultName, String uploadId, FileChannel channel,
+                long position, long length, ProgressListenerCallbackExecutor progressListenerCallbackExecutor) {
+            this.accountId = accountId;
+            this.vaultName = vaultName;
+            this.uploadId = uploadId;
+            this.channel = channel;
+            this.position = position;
+            this.length = length;
+            this.progressListenerCallbackExecutor = progressListenerCallbackExecutor;
+        }
+
+        public byte[] call() throws Exception {
+            String checksum = TreeHashGenerator.calculateTreeHash(channel, position, length);
+
+            Exception failedException = null;
+            for (int tries = 0; tries < 5; tries++) {
+                if (Thread.interrupted()) throw new InterruptedException();
+
+                InputStream body = new FileRegionInputStream(channel, position, length);
+                try {
+                    glacier.uploadMultipartPart(new UploadMultipartPartRequest()
+                            .withAccountId(accountId)
+                            .withChecksum(checksum)
+                            .withBody(body)
+                            .withRange("bytes " + position + "-" + (position + length - 1) + "/*")
+                            .withUploadId(uploadId)
+                            .withVaultName(vaultName));
+
+                    if (progressListenerCallbackExecutor != null) {
+                        progressListenerCallbackExecutor.progressChanged(new ProgressEvent(length));
+                    }
+                    return BinaryUtils.fromHex(checksum);
+                } catch (Exception e) {
+                    failedException = e;
+                } finally {
+                    try {body.close();} catch (Exception e) {}
+                }
+            }
+            throw failedException;
+        }
+    }
+
+    /**
+     * Creates the executor used to transfer the parts of a single upload or
+     * download, with no more threads than there are parts to transfer.
+     */
+    private ExecutorService newTransferExecutor(int tasks) {
+        int threads = Math.max(1, Math.min(maxConcurrentParts, tasks));
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger threadCount = new AtomicInteger(0);
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "glacier-transfer-worker-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Waits for the specified task to finish and returns its result, throwing
+     * the exception that caused the task to fail, if any.
+     */
+    private static <T> T waitFor(Future<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw e;
         }
     }
 
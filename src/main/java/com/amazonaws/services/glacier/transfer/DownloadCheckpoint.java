@@ -0,0 +1,147 @@
+/*
+ * Copyright 2012-2013 Amazon Technologies, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.amazonaws.services.glacier.transfer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.BitSet;
+import java.util.Properties;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * Records which chunks of a job output download have been written to the
+ * output file, so that a download interrupted by a crash can continue where
+ * it stopped instead of starting over.
+ * <p>
+ * The checkpoint is kept next to the output file, with a
+ * {@code .checkpoint} suffix, and is only reused by a later download of the
+ * same job with the same chunk size. It is rewritten (atomically, through a
+ * temporary file) every time a chunk completes and deleted once the whole
+ * download has completed.
+ */
+class DownloadCheckpoint {
+
+    private static final Log log = LogFactory.getLog(DownloadCheckpoint.class);
+
+    private static final String JOB_ID = "jobId";
+    private static final String ARCHIVE_SIZE = "archiveSize";
+    private static final String CHUNK_SIZE = "chunkSize";
+    private static final String COMPLETED_CHUNKS = "completedChunks";
+
+    private final File checkpointFile;
+    private final String jobId;
+    private final long archiveSize;
+    private final long chunkSize;
+    private final BitSet completedChunks = new BitSet();
+
+    private DownloadCheckpoint(File checkpointFile, String jobId, long archiveSize, long chunkSize) {
+        this.checkpointFile = checkpointFile;
+        this.jobId = jobId;
+        this.archiveSize = archiveSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Returns the checkpoint of a previous, interrupted download of the
+     * specified job into the specified file, or an empty checkpoint if there
+     * isn't one or it was recorded for a different download.
+     */
+    static DownloadCheckpoint load(File outputFile, String jobId, long archiveSize, long chunkSize) {
+        File checkpointFile = new File(outputFile.getPath() + ".checkpoint");
+        DownloadCheckpoint checkpoint = new DownloadCheckpoint(checkpointFile, jobId, archiveSize, chunkSize);
+        if (!checkpointFile.isFile() || !outputFile.isFile()) return checkpoint;
+
+        Properties properties = new Properties();
+        InputStream input = null;
+        try {
+            input = new FileInputStream(checkpointFile);
+            properties.load(input);
+
+            if (!jobId.equals(properties.getProperty(JOB_ID))
+                    || !Long.toString(archiveSize).equals(properties.getProperty(ARCHIVE_SIZE))
+                    || !Long.toString(chunkSize).equals(properties.getProperty(CHUNK_SIZE))) {
+                return checkpoint;
+            }
+
+            String completed = properties.getProperty(COMPLETED_CHUNKS, "");
+            for (String chunk : completed.split(",")) {
+                if (chunk.length() > 0) checkpoint.completedChunks.set(Integer.parseInt(chunk));
+            }
+        } catch (Exception e) {
+            log.warn("Unable to read download checkpoint " + checkpointFile.getPath() + "; downloading all chunks", e);
+            checkpoint.completedChunks.clear();
+        } finally {
+            try {if (input != null) input.close();} catch (Exception e) {}
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Returns whether the specified chunk was written by an earlier download.
+     */
+    synchronized boolean isCompleted(int chunk) {
+        return completedChunks.get(chunk);
+    }
+
+    /**
+     * Records that the specified chunk has been written to the output file.
+     * The chunk's data must already be on disk.
+     */
+    synchronized void markCompleted(int chunk) throws IOException {
+        completedChunks.set(chunk);
+
+        StringBuilder completed = new StringBuilder();
+        for (int i = completedChunks.nextSetBit(0); i >= 0; i = completedChunks.nextSetBit(i + 1)) {
+            if (completed.length() > 0) completed.append(',');
+            completed.append(i);
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(JOB_ID, jobId);
+        properties.setProperty(ARCHIVE_SIZE, Long.toString(archiveSize));
+        properties.setProperty(CHUNK_SIZE, Long.toString(chunkSize));
+        properties.setProperty(COMPLETED_CHUNKS, completed.toString());
+
+        File temporaryFile = new File(checkpointFile.getPath() + ".tmp");
+        OutputStream output = new FileOutputStream(temporaryFile);
+        try {
+            properties.store(output, "Amazon Glacier job output download checkpoint");
+        } finally {
+            try {output.close();} catch (Exception e) {}
+        }
+        if (!temporaryFile.renameTo(checkpointFile)) {
+            // Some platforms can't rename over an existing file
+            checkpointFile.delete();
+            if (!temporaryFile.renameTo(checkpointFile)) {
+                throw new IOException("Unable to write download checkpoint " + checkpointFile.getPath());
+            }
+        }
+    }
+
+    /**
+     * Deletes the checkpoint once the download has completed.
+     */
+    synchronized void delete() {
+        if (checkpointFile.exists() && !checkpointFile.delete()) {
+            log.warn("Unable to delete download checkpoint " + checkpointFile.getPath());
+        }
+    }
+}
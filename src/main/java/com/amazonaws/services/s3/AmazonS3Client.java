@@ -16,7 +16,6 @@ package com.amazonaws.services.s3;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.net.URI;
@@ -81,6 +80,7 @@ import com.amazonaws.services.s3.internal.ResponseHeaderHandlerChain;
 import com.amazonaws.services.s3.internal.S3ErrorResponseHandler;
 import com.amazonaws.services.s3.internal.S3MetadataResponseHandler;
 import com.amazonaws.services.s3.internal.S3ObjectResponseHandler;
+import com.amazonaws.services.s3.internal.AWSS3V4Signer;
 import com.amazonaws.services.s3.internal.S3QueryStringSigner;
 import com.amazonaws.services.s3.internal.S3Signer;
 import com.amazonaws.services.s3.internal.S3StringResponseHandler;
@@ -1129,18 +1129,11 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
                 metadata.setContentType(Mimetypes.getInstance().getMimetype(file));
             }
 
-            FileInputStream fileInputStream = null;
-            try {
-                fileInputStream = new FileInputStream(file);
-                byte[] md5Hash = Md5Utils.computeMD5Hash(fileInputStream);
-                metadata.setContentMD5(BinaryUtils.toBase64(md5Hash));
-            } catch (Exception e) {
-                throw new AmazonClientException(
-                        "Unable to calculate MD5 hash: " + e.getMessage(), e);
-            } finally {
-                try {fileInputStream.close();} catch (Exception e) {}
-            }
-
+            /*
+             * Unless the caller already knows the file's MD5, it's calculated
+             * below as the file is sent, rather than by reading the whole file
+             * an extra time up front.
+             */
             try {
                 input = new RepeatableFileInputStream(file);
             } catch (FileNotFoundException fnfe) {
@@ -1178,7 +1171,8 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
              */
             log.warn("No content length specified for stream data.  " +
                      "Stream contents will be buffered in memory and could result in " +
-                     "out of memory errors.");
+                     "out of memory errors.  TransferManager uploads streams of unknown " +
+                     "length in parts instead.");
         }
 
         if (progressListenerCallbackExecutor != null) {
@@ -2617,6 +2611,10 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
     }
 
     protected Signer createSigner(Request<?> request, String bucketName, String key) {
+        if (clientOptions.isSignatureVersion4()) {
+            return new AWSS3V4Signer(!clientOptions.isChunkedEncodingDisabled());
+        }
+
         String resourcePath =
                 "/" +
                 ((bucketName != null) ? bucketName + "/" : "") +
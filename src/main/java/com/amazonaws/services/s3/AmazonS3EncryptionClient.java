@@ -38,6 +38,7 @@ import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.services.s3.internal.crypto.ByteRangeCapturingInputStream;
 import com.amazonaws.services.s3.internal.crypto.CipherFactory;
+import com.amazonaws.services.s3.internal.crypto.CipherPool;
 import com.amazonaws.services.s3.internal.crypto.EncryptedUploadContext;
 import com.amazonaws.services.s3.internal.crypto.EncryptionInstruction;
 import com.amazonaws.services.s3.internal.crypto.EncryptionUtils;
@@ -477,7 +478,7 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
         OutputStream outputStream = null;
         try {
             outputStream = new BufferedOutputStream(new FileOutputStream(destinationFile));
-            byte[] buffer = new byte[1024*10];
+            byte[] buffer = new byte[1024*64];
             int bytesRead;
             while ((bytesRead = s3Object.getObjectContent().read(buffer)) > -1) {
                 outputStream.write(buffer, 0, bytesRead);
@@ -549,6 +550,7 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
 
             // Put the instruction file into S3
             super.putObject(EncryptionUtils.createInstructionPutRequest(encryptedUploadContext.getBucketName(), encryptedUploadContext.getKey(), instruction));
+            CipherPool.release(symmetricCipher, cryptoConfig.getCryptoProvider());
         }
 
         currentMultipartUploadSecretKeys.remove(uploadId);
@@ -586,6 +588,7 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
         encryptedUploadContext.setNextInitializationVector(symmetricCipher.getIV());
         encryptedUploadContext.setFirstInitializationVector(symmetricCipher.getIV());
         currentMultipartUploadSecretKeys.put(result.getUploadId(), encryptedUploadContext);
+        CipherPool.release(symmetricCipher, cryptoConfig.getCryptoProvider());
 
         return result;
     }
@@ -596,9 +599,16 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
      * <p>
      * <b>NOTE:</b> Because the encryption process requires context from block
      * N-1 in order to encrypt block N, parts uploaded with the
-     * AmazonS3EncryptionClient (as opposed to the normal AmazonS3Client) must
-     * be uploaded serially, and in order. Otherwise, the previous encryption
-     * context isn't available to use when encrypting the current part.
+     * AmazonS3EncryptionClient (as opposed to the normal AmazonS3Client) from
+     * input streams must be uploaded serially, and in order. Otherwise, the
+     * previous encryption context isn't available to use when encrypting the
+     * current part.
+     * <p>
+     * Parts marked with {@link UploadPartRequest#setPartOfWholeFile(boolean)},
+     * which are read from a file whose whole contents are being uploaded, can
+     * be uploaded concurrently and in any order: if the part preceding such a
+     * part hasn't been uploaded yet, the encryption context is calculated by
+     * encrypting the preceding contents of the file.
      */
     @Override
     public UploadPartResult uploadPart(UploadPartRequest uploadPartRequest)
@@ -621,7 +631,9 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
         if (encryptedUploadContext == null) throw new AmazonClientException("No client-side information available on upload ID " + uploadId);
 
         SecretKey envelopeSymmetricKey = encryptedUploadContext.getEnvelopeEncryptionKey();
-        byte[] iv = encryptedUploadContext.getNextInitializationVector();
+        byte[] iv = getInitializationVector(encryptedUploadContext, uploadPartRequest);
+        File partFile = uploadPartRequest.isPartOfWholeFile() ? uploadPartRequest.getFile() : null;
+        long partEndOffset = uploadPartRequest.getFileOffset() + uploadPartRequest.getPartSize();
         CipherFactory cipherFactory = new CipherFactory(envelopeSymmetricKey, Cipher.ENCRYPT_MODE, iv, this.cryptoConfig.getCryptoProvider());
 
         // Create encrypted input stream
@@ -632,7 +644,9 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
         // changes the
         if (uploadPartRequest.isLastPart()) {
             // We only change the size of the last part
-            long cryptoContentLength = EncryptionUtils.calculateCryptoContentLength(cipherFactory.createCipher(), uploadPartRequest);
+            Cipher cipher = cipherFactory.createCipher();
+            long cryptoContentLength = EncryptionUtils.calculateCryptoContentLength(cipher, uploadPartRequest);
+            cipherFactory.releaseCipher(cipher);
             if (cryptoContentLength > 0) uploadPartRequest.setPartSize(cryptoContentLength);
 
             if (encryptedUploadContext.hasFinalPartBeenSeen()) {
@@ -652,6 +666,7 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
         if (encryptedInputStream instanceof ByteRangeCapturingInputStream) {
             ByteRangeCapturingInputStream bris = (ByteRangeCapturingInputStream)encryptedInputStream;
             encryptedUploadContext.setNextInitializationVector(bris.getBlock());
+            if (partFile != null) encryptedUploadContext.setFileInitializationVector(partFile, partEndOffset, bris.getBlock());
         } else {
             throw new AmazonClientException("Unable to access last block of encrypted data");
         }
@@ -675,6 +690,45 @@ public class AmazonS3EncryptionClient extends AmazonS3Client {
      * Private helper methods
      */
 
+    /**
+     * Returns the initialization vector for encrypting the specified part:
+     * the first one for part 1; for parts of a file whose whole contents are
+     * being uploaded, the one for the part's offset in the file, calculated
+     * from the preceding contents of the file if the part preceding it hasn't
+     * been uploaded yet; otherwise, the one following the last part uploaded.
+     */
+    private byte[] getInitializationVector(EncryptedUploadContext encryptedUploadContext,
+            UploadPartRequest uploadPartRequest) {
+        if (uploadPartRequest.getPartNumber() == 1) {
+            return encryptedUploadContext.getFirstInitializationVector();
+        }
+
+        File file = uploadPartRequest.getFile();
+        long offset = uploadPartRequest.getFileOffset();
+        // Other parts, including regions of files, are chained in the order they're uploaded
+        if (file == null || !uploadPartRequest.isPartOfWholeFile()) {
+            return encryptedUploadContext.getNextInitializationVector();
+        }
+
+        if (offset % JceEncryptionConstants.SYMMETRIC_CIPHER_BLOCK_SIZE != 0) {
+            throw new AmazonClientException("Invalid file offset: parts of a file in encrypted multipart uploads must start " +
+                    "at multiples of the cipher block size (" + JceEncryptionConstants.SYMMETRIC_CIPHER_BLOCK_SIZE + ").");
+        }
+
+        // Parts of the same upload wait for each other here, so the same contents are never encrypted twice
+        synchronized (encryptedUploadContext) {
+            byte[] iv = encryptedUploadContext.getFileInitializationVector(file, offset);
+            if (iv != null) return iv;
+
+            long startOffset = encryptedUploadContext.getClosestFileInitializationVectorOffset(file, offset);
+            iv = EncryptionUtils.calculateChainedInitializationVector(file, startOffset,
+                    encryptedUploadContext.getFileInitializationVector(file, startOffset), offset,
+                    encryptedUploadContext.getEnvelopeEncryptionKey(), cryptoConfig.getCryptoProvider());
+            encryptedUploadContext.setFileInitializationVector(file, offset, iv);
+            return iv;
+        }
+    }
+
     /**
      * Puts an encrypted object into S3 and stores encryption info in the object metadata.
      *
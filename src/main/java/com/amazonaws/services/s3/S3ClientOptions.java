@@ -22,13 +22,27 @@ public class S3ClientOptions {
     /** The default setting for use of path-style access */
     public static final boolean DEFAULT_PATH_STYLE_ACCESS = false;
 
+    /** The default setting for use of AWS Signature Version 4 */
+    public static final boolean DEFAULT_SIGNATURE_VERSION_4 = false;
+
+    /** The default setting for chunked encoding of uploads signed with Signature Version 4 */
+    public static final boolean DEFAULT_CHUNKED_ENCODING_DISABLED = false;
+
     /** Flag for use of path-style access */
     private boolean pathStyleAccess = DEFAULT_PATH_STYLE_ACCESS;
 
+    /** Flag for use of AWS Signature Version 4 */
+    private boolean signatureVersion4 = DEFAULT_SIGNATURE_VERSION_4;
+
+    /** Flag disabling chunked encoding of uploads signed with Signature Version 4 */
+    private boolean chunkedEncodingDisabled = DEFAULT_CHUNKED_ENCODING_DISABLED;
+
     public S3ClientOptions() {}
 
     public S3ClientOptions( S3ClientOptions other ) {
         this.pathStyleAccess = other.pathStyleAccess;
+        this.signatureVersion4 = other.signatureVersion4;
+        this.chunkedEncodingDisabled = other.chunkedEncodingDisabled;
     }
 
     /**
@@ -103,4 +117,101 @@ public class S3ClientOptions {
       return this;
     }
 
+    /**
+     * <p>
+     * Returns whether the client signs requests with AWS Signature Version 4
+     * instead of the Amazon S3 specific signature.
+     * </p>
+     * <p>
+     * With Signature Version 4, the data of uploads of known length is sent
+     * in the <code>aws-chunked</code> content encoding, signed chunk by chunk
+     * as it is sent, unless chunked encoding is disabled. Pre-signed URLs
+     * always use the Amazon S3 specific signature.
+     * </p>
+     * @return True if the client signs requests with Signature Version 4.
+     */
+    public boolean isSignatureVersion4() {
+        return signatureVersion4;
+    }
+
+    /**
+     * <p>
+     * Configures the client to sign requests with AWS Signature Version 4
+     * instead of the Amazon S3 specific signature.
+     * </p>
+     * <p>
+     * The region of the signature is determined from the client's endpoint,
+     * so the client must use the endpoint of the region of the buckets it
+     * accesses (or the global endpoint for buckets in US Standard).
+     * </p>
+     * @param signatureVersion4
+     *            True to sign requests with Signature Version 4.
+     */
+    public void setSignatureVersion4(boolean signatureVersion4) {
+        this.signatureVersion4 = signatureVersion4;
+    }
+
+    /**
+     * Configures the client to sign requests with AWS Signature Version 4.
+     *
+     * @param signatureVersion4
+     *            True to sign requests with Signature Version 4.
+     *
+     * @return The updated S3ClientOptions object.
+     *
+     * @see #setSignatureVersion4(boolean)
+     */
+    public S3ClientOptions withSignatureVersion4(boolean signatureVersion4) {
+        setSignatureVersion4(signatureVersion4);
+        return this;
+    }
+
+    /**
+     * <p>
+     * Returns whether the data of uploads signed with Signature Version 4 is
+     * sent as is, rather than in the <code>aws-chunked</code> content
+     * encoding.
+     * </p>
+     * <p>
+     * Without chunked encoding, the data is read once to compute its hash
+     * before it is sent, which requires reading the whole stream (or file)
+     * an extra time and, for streams, buffering it in memory.
+     * </p>
+     * @return True if chunked encoding is disabled.
+     */
+    public boolean isChunkedEncodingDisabled() {
+        return chunkedEncodingDisabled;
+    }
+
+    /**
+     * Configures the client to send the data of uploads signed with
+     * Signature Version 4 as is, rather than in the <code>aws-chunked</code>
+     * content encoding.
+     *
+     * @param chunkedEncodingDisabled
+     *            True to disable chunked encoding.
+     *
+     * @see #isChunkedEncodingDisabled()
+     */
+    public void setChunkedEncodingDisabled(boolean chunkedEncodingDisabled) {
+        this.chunkedEncodingDisabled = chunkedEncodingDisabled;
+    }
+
+    /**
+     * Configures the client to send the data of uploads signed with
+     * Signature Version 4 as is, rather than in the <code>aws-chunked</code>
+     * content encoding.
+     *
+     * @param chunkedEncodingDisabled
+     *            True to disable chunked encoding.
+     *
+     * @return The updated S3ClientOptions object.
+     *
+     * @see #isChunkedEncodingDisabled()
+     */
+    public S3ClientOptions withChunkedEncodingDisabled(boolean chunkedEncodingDisabled) {
+        setChunkedEncodingDisabled(chunkedEncodingDisabled);
+        return this;
+    }
+
 }
\ No newline at end of file
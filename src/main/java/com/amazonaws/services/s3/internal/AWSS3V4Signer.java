@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.net.URI;
+
+import com.amazonaws.Request;
+import com.amazonaws.auth.AWS4Signer;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.util.BinaryUtils;
+
+/**
+ * AWS Signature Version 4 signer for Amazon S3.
+ * <p>
+ * The data of PutObject and UploadPart requests of known length is sent in
+ * the <code>aws-chunked</code> content encoding (see
+ * {@link AwsChunkedEncodingInputStream}), signed chunk by chunk as it is
+ * sent, so it doesn't have to be read an extra time to compute its hash
+ * before the request is sent. Amazon S3 requires the length of the data
+ * even for chunked uploads, so data of unknown length is hashed (and
+ * buffered) up front like with other services.
+ */
+public class AWSS3V4Signer extends AWS4Signer {
+
+    private static final String STREAMING_CONTENT_SHA256 = "STREAMING-AWS4-HMAC-SHA256-PAYLOAD";
+    private static final String AWS_CHUNKED_ENCODING = "aws-chunked";
+    private static final String DECODED_CONTENT_LENGTH = "x-amz-decoded-content-length";
+
+    private final boolean chunkedEncodingEnabled;
+
+    /**
+     * @param chunkedEncodingEnabled
+     *            Whether the data of uploads is sent in the
+     *            <code>aws-chunked</code> content encoding.
+     */
+    public AWSS3V4Signer(boolean chunkedEncodingEnabled) {
+        // Amazon S3 doesn't double url-encode the resource path
+        super(false);
+        this.chunkedEncodingEnabled = chunkedEncodingEnabled;
+        setServiceName("s3");
+    }
+
+    @Override
+    protected String calculateContentHash(Request<?> request) {
+        // AWS4Signer fills in the header with the returned hash
+        request.addHeader("x-amz-content-sha256", "required");
+
+        if (!useChunkEncoding(request)) return super.calculateContentHash(request);
+
+        long decodedContentLength = Long.parseLong(request.getHeaders().get(Headers.CONTENT_LENGTH));
+        request.addHeader(DECODED_CONTENT_LENGTH, Long.toString(decodedContentLength));
+        request.addHeader(Headers.CONTENT_LENGTH,
+                Long.toString(AwsChunkedEncodingInputStream.calculateStreamContentLength(decodedContentLength)));
+
+        String contentEncoding = request.getHeaders().get(Headers.CONTENT_ENCODING);
+        request.addHeader(Headers.CONTENT_ENCODING, (contentEncoding == null)
+                ? AWS_CHUNKED_ENCODING : AWS_CHUNKED_ENCODING + "," + contentEncoding);
+        return STREAMING_CONTENT_SHA256;
+    }
+
+    @Override
+    protected void processRequestPayload(Request<?> request, HeaderSigningResult headerSigningResult) {
+        if (!useChunkEncoding(request)) return;
+
+        request.setContent(new AwsChunkedEncodingInputStream(request.getContent(),
+                headerSigningResult.getKSigning(), headerSigningResult.getDateTime(),
+                headerSigningResult.getScope(), BinaryUtils.toHex(headerSigningResult.getSignature())));
+    }
+
+    /**
+     * Returns the region of the Amazon S3 endpoint: the region in
+     * <code>s3-&lt;region&gt;</code> or <code>s3.&lt;region&gt;</code> host
+     * names, after any bucket name, or us-east-1 for the global endpoint.
+     */
+    @Override
+    protected String extractRegionName(URI endpoint) {
+        if (regionName != null) return regionName;
+
+        String host = endpoint.getHost().toLowerCase();
+        if (!host.endsWith(".amazonaws.com")) return "us-east-1";
+
+        String[] labels = host.substring(0, host.length() - ".amazonaws.com".length()).split("\\.");
+        for (int i = labels.length - 1; i >= 0; i--) {
+            if (labels[i].equals("s3")) {
+                return (i == labels.length - 1) ? "us-east-1" : labels[i + 1];
+            }
+            if (labels[i].startsWith("s3-")) {
+                String region = labels[i].substring("s3-".length());
+                return region.equals("external-1") ? "us-east-1" : region;
+            }
+        }
+        return "us-east-1";
+    }
+
+    /**
+     * Returns true if the request uploads object data of known length, which
+     * can be sent chunk-encoded.
+     */
+    private boolean useChunkEncoding(Request<?> request) {
+        if (!chunkedEncodingEnabled || request.getContent() == null) return false;
+        if (request.getHeaders().get(Headers.CONTENT_LENGTH) == null) return false;
+        return request.getOriginalRequest() instanceof PutObjectRequest
+                || request.getOriginalRequest() instanceof UploadPartRequest;
+    }
+}
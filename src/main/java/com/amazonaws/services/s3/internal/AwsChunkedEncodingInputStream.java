@@ -0,0 +1,264 @@
+/*
+ * Copyright 2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.util.BinaryUtils;
+
+/**
+ * Encodes the wrapped stream in the <code>aws-chunked</code> content encoding
+ * of AWS Signature Version 4 streaming uploads: the data is sent as a series
+ * of chunks, each signed with a signature chained to the previous chunk's,
+ * starting from the signature of the request headers, and ending with a
+ * signed empty chunk.
+ * <p>
+ * Only one chunk of the wrapped stream is held in memory at a time. Marking
+ * is only supported at the start of the stream; resetting restarts the
+ * encoding from the start, after resetting the wrapped stream.
+ */
+public class AwsChunkedEncodingInputStream extends InputStream {
+
+    /** The size of the data in each chunk, except the last ones. */
+    public static final int DEFAULT_CHUNK_SIZE = 128 * 1024;
+
+    private static final String CHUNK_STRING_TO_SIGN_PREFIX = "AWS4-HMAC-SHA256-PAYLOAD";
+    private static final String CHUNK_SIGNATURE_HEADER = ";chunk-signature=";
+    private static final int SIGNATURE_LENGTH = 64;
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final String EMPTY_STRING_HASH = BinaryUtils.toHex(sha256(new byte[0]));
+
+    private final InputStream in;
+    private final int chunkSize;
+    private final byte[] signingKey;
+    private final String dateTime;
+    private final String scope;
+    private final String headerSignature;
+
+    private String previousSignature;
+
+    /** The data of the next chunk, and the current encoded chunk. */
+    private final byte[] chunkData;
+    private byte[] encodedChunk;
+    private int encodedChunkPosition;
+    private boolean isLastChunkEncoded;
+    private boolean isAtStart = true;
+
+    /**
+     * @param in
+     *            The data to encode.
+     * @param signingKey
+     *            The derived AWS4 signing key used to sign the request.
+     * @param dateTime
+     *            The date and time of the request signature.
+     * @param scope
+     *            The scope of the request signature.
+     * @param headerSignature
+     *            The signature of the request headers, as a hex string; the
+     *            first chunk's signature is chained to it.
+     */
+    public AwsChunkedEncodingInputStream(InputStream in, byte[] signingKey, String dateTime, String scope,
+            String headerSignature) {
+        this(in, signingKey, dateTime, scope, headerSignature, DEFAULT_CHUNK_SIZE);
+    }
+
+    public AwsChunkedEncodingInputStream(InputStream in, byte[] signingKey, String dateTime, String scope,
+            String headerSignature, int chunkSize) {
+        this.in = in;
+        this.signingKey = signingKey;
+        this.dateTime = dateTime;
+        this.scope = scope;
+        this.headerSignature = headerSignature;
+        this.previousSignature = headerSignature;
+        this.chunkSize = chunkSize;
+        this.chunkData = new byte[chunkSize];
+    }
+
+    /**
+     * Returns the length of the encoded stream, for the specified length of
+     * the data to encode, with the default chunk size.
+     */
+    public static long calculateStreamContentLength(long originalLength) {
+        return calculateStreamContentLength(originalLength, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Returns the length of the encoded stream, for the specified length of
+     * the data to encode and chunk size.
+     */
+    public static long calculateStreamContentLength(long originalLength, int chunkSize) {
+        if (originalLength < 0) {
+            throw new IllegalArgumentException("Nonnegative content length expected.");
+        }
+        long fullChunks = originalLength / chunkSize;
+        long remainingBytes = originalLength % chunkSize;
+        return fullChunks * calculateChunkLength(chunkSize)
+                + (remainingBytes > 0 ? calculateChunkLength(remainingBytes) : 0)
+                + calculateChunkLength(0);
+    }
+
+    private static long calculateChunkLength(long dataLength) {
+        return Long.toHexString(dataLength).length() + CHUNK_SIGNATURE_HEADER.length() + SIGNATURE_LENGTH
+                + CRLF.length + dataLength + CRLF.length;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int count = read(b, 0, 1);
+        return (count == -1) ? -1 : (b[0] & 0xff);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        isAtStart = false;
+
+        if (encodedChunk == null || encodedChunkPosition == encodedChunk.length) {
+            if (isLastChunkEncoded) return -1;
+            encodeNextChunk();
+        }
+
+        int count = Math.min(len, encodedChunk.length - encodedChunkPosition);
+        System.arraycopy(encodedChunk, encodedChunkPosition, b, off, count);
+        encodedChunkPosition += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        byte[] buffer = new byte[(int)Math.min(n, 4096)];
+        while (skipped < n) {
+            int count = read(buffer, 0, (int)Math.min(n - skipped, buffer.length));
+            if (count == -1) break;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return in.markSupported();
+    }
+
+    /**
+     * Marks the start of the stream; the stream can't be marked once it has
+     * been read from.
+     */
+    @Override
+    public synchronized void mark(int readlimit) {
+        if (!isAtStart) {
+            throw new UnsupportedOperationException("Chunk-encoded stream only supports mark() at the start of the stream.");
+        }
+        in.mark(readlimit);
+    }
+
+    /**
+     * Resets the wrapped stream and restarts the encoding.
+     */
+    @Override
+    public synchronized void reset() throws IOException {
+        in.reset();
+        previousSignature = headerSignature;
+        encodedChunk = null;
+        encodedChunkPosition = 0;
+        isLastChunkEncoded = false;
+        isAtStart = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Reads the next chunk of data from the wrapped stream and encodes it; an
+     * empty chunk is the last one.
+     */
+    private void encodeNextChunk() throws IOException {
+        int length = 0;
+        while (length < chunkSize) {
+            int count = in.read(chunkData, length, chunkSize - length);
+            if (count == -1) break;
+            length += count;
+        }
+
+        byte[] chunkHeader = toBytes(Integer.toHexString(length) + CHUNK_SIGNATURE_HEADER + signChunk(length));
+        encodedChunk = new byte[chunkHeader.length + CRLF.length + length + CRLF.length];
+        int position = 0;
+        System.arraycopy(chunkHeader, 0, encodedChunk, position, chunkHeader.length);
+        position += chunkHeader.length;
+        System.arraycopy(CRLF, 0, encodedChunk, position, CRLF.length);
+        position += CRLF.length;
+        System.arraycopy(chunkData, 0, encodedChunk, position, length);
+        position += length;
+        System.arraycopy(CRLF, 0, encodedChunk, position, CRLF.length);
+
+        encodedChunkPosition = 0;
+        isLastChunkEncoded = (length == 0);
+    }
+
+    /**
+     * Signs the chunk holding the specified number of bytes of the chunk data,
+     * chaining its signature to the previous one.
+     */
+    private String signChunk(int length) {
+        MessageDigest digest = newDigest();
+        digest.update(chunkData, 0, length);
+
+        String stringToSign = CHUNK_STRING_TO_SIGN_PREFIX + "\n"
+                + dateTime + "\n"
+                + scope + "\n"
+                + previousSignature + "\n"
+                + EMPTY_STRING_HASH + "\n"
+                + BinaryUtils.toHex(digest.digest());
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(signingKey, "HmacSHA256"));
+            previousSignature = BinaryUtils.toHex(mac.doFinal(toBytes(stringToSign)));
+        } catch (Exception e) {
+            throw new AmazonClientException("Unable to sign chunk: " + e.getMessage(), e);
+        }
+        return previousSignature;
+    }
+
+    private static byte[] sha256(byte[] data) {
+        return newDigest().digest(data);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (Exception e) {
+            throw new AmazonClientException("Unable to compute hash while signing request: " + e.getMessage(), e);
+        }
+    }
+
+    private static byte[] toBytes(String s) {
+        try {
+            return s.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new AmazonClientException("Unable to encode string into bytes", e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Filtered input stream that replaces every carriage return (0x0D) byte in a
+ * UTF-8 XML document with the character entity "&amp;#013;", as the document
+ * is read.
+ * <p>
+ * Without this, a SAX parser normalizes carriage returns in element content
+ * (such as S3 object keys) to line feeds. Since 0x0D never occurs inside a
+ * multi-byte UTF-8 sequence, the replacement can be done on the raw bytes,
+ * without decoding the document or holding more of it than the caller's read
+ * buffer.
+ */
+public final class CarriageReturnEscapingInputStream extends FilterInputStream {
+
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte[] ESCAPED_CARRIAGE_RETURN = { '&', '#', '0', '1', '3', ';' };
+
+    /**
+     * Position within ESCAPED_CARRIAGE_RETURN of the next byte to return, or
+     * the length of the escape sequence if no escape is in progress.
+     */
+    private int escapePosition = ESCAPED_CARRIAGE_RETURN.length;
+
+    public CarriageReturnEscapingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (escapePosition < ESCAPED_CARRIAGE_RETURN.length) {
+            return ESCAPED_CARRIAGE_RETURN[escapePosition++];
+        }
+
+        int b = in.read();
+        if (b == CARRIAGE_RETURN) {
+            escapePosition = 1;
+            return ESCAPED_CARRIAGE_RETURN[0];
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+
+        int written = 0;
+        while (escapePosition < ESCAPED_CARRIAGE_RETURN.length && written < len) {
+            b[off + written++] = ESCAPED_CARRIAGE_RETURN[escapePosition++];
+        }
+        if (written == len) return written;
+
+        /*
+         * Read raw bytes into the tail of the caller's buffer, then expand
+         * them into place from the front. Each carriage return needs five
+         * extra bytes, so only read as much as is sure to fit if every byte
+         * needs escaping; any escape that still doesn't fit is finished on
+         * the next read.
+         */
+        int space = len - written;
+        int toRead = Math.max(1, space / ESCAPED_CARRIAGE_RETURN.length);
+        int rawStart = off + len - toRead;
+        int read = in.read(b, rawStart, toRead);
+        if (read == -1) {
+            return written == 0 ? -1 : written;
+        }
+
+        for (int i = rawStart; i < rawStart + read; i++) {
+            byte next = b[i];
+            if (next != CARRIAGE_RETURN) {
+                b[off + written++] = next;
+                continue;
+            }
+
+            escapePosition = 0;
+            while (escapePosition < ESCAPED_CARRIAGE_RETURN.length && written < len) {
+                b[off + written++] = ESCAPED_CARRIAGE_RETURN[escapePosition++];
+            }
+        }
+        return written;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && read() != -1) {
+            skipped++;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (ESCAPED_CARRIAGE_RETURN.length - escapePosition) + in.available();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public void mark(int readlimit) {}
+
+    @Override
+    public void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+}
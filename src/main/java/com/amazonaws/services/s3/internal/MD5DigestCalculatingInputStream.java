@@ -28,10 +28,16 @@ public class MD5DigestCalculatingInputStream extends FilterInputStream {
     
     /** The MD5 message digest being calculated by this input stream */
     private MessageDigest digest;
-    
+
+    /**
+     * The state of the digest at the last mark point, or null if the stream
+     * hasn't been marked and resetting restarts the digest from scratch.
+     */
+    private MessageDigest digestAtMark;
+
     public MD5DigestCalculatingInputStream(InputStream in) throws NoSuchAlgorithmException {
         super(in);
-        
+
         digest = MessageDigest.getInstance("MD5");
     }
 
@@ -40,14 +46,42 @@ public class MD5DigestCalculatingInputStream extends FilterInputStream {
     }
 
     /**
-     * Resets the wrapped input stream and the in progress message digest.
-     * 
+     * Marks the wrapped input stream, and remembers the in progress message
+     * digest so that it can be restored if the stream is reset.
+     *
+     * @see java.io.InputStream#mark(int)
+     */
+    @Override
+    public synchronized void mark(int readlimit) {
+        try {
+            digestAtMark = (MessageDigest)digest.clone();
+        } catch (CloneNotSupportedException e) {
+            /*
+             * The JDK's MD5 implementation supports cloning, so this can only
+             * happen with an unusual security provider, in which case resets
+             * fall back to restarting the digest from scratch.
+             */
+            digestAtMark = null;
+        }
+        in.mark(readlimit);
+    }
+
+    /**
+     * Resets the wrapped input stream and the in progress message digest to
+     * the last mark point.
+     *
      * @see java.io.InputStream#reset()
      */
     @Override
     public synchronized void reset() throws IOException {
         try {
-            digest = MessageDigest.getInstance("MD5");
+            if (digestAtMark != null) {
+                digest = (MessageDigest)digestAtMark.clone();
+            } else {
+                digest = MessageDigest.getInstance("MD5");
+            }
+        } catch (CloneNotSupportedException e) {
+            // Can't happen, since the digest was already cloned once in mark()
         } catch (NoSuchAlgorithmException e) {
             /*
              * Not much to do here. We know the algorithm existed when we
@@ -34,6 +34,8 @@ import com.amazonaws.services.s3.internal.crypto.CipherFactory;
 public class RepeatableCipherInputStream extends AbstractRepeatableInputStream {
     private CipherFactory cipherFactory;
     private InputStream unencryptedDataStream;
+    /** The cipher of the current CipherInputStream, released once the stream is replaced or closed. */
+    private Cipher cipher;
 
     
     /**
@@ -49,19 +51,19 @@ public class RepeatableCipherInputStream extends AbstractRepeatableInputStream {
      *            this stream is reset and a new CipherInputStream is needed.
      */
     public RepeatableCipherInputStream(InputStream input, CipherFactory cipherFactory) {
-        super(createCipherInputStream(input, cipherFactory));
+        this(input, cipherFactory, cipherFactory.createCipher());
+    }
+
+    private RepeatableCipherInputStream(InputStream input, CipherFactory cipherFactory, Cipher cipher) {
+        super(new CipherInputStream(input, cipher));
         this.unencryptedDataStream = input;
         this.cipherFactory = cipherFactory;
+        this.cipher = cipher;
 
         // Mark the beginning of the data stream so we can reset back to it
         unencryptedDataStream.mark(-1);
     }
 
-    private static CipherInputStream createCipherInputStream(InputStream input, CipherFactory cipherFactory) {
-        Cipher cipher = cipherFactory.createCipher();
-        return new CipherInputStream(input, cipher);
-    }
-
     @Override
     protected void reopenWrappedStream() throws IOException {
 		// We don't need to call in.close() here, since what
@@ -71,7 +73,24 @@ public class RepeatableCipherInputStream extends AbstractRepeatableInputStream {
 		// So this actually means we SHOULD NOT call in.close(), since we still
 		// need the unencryptedDataStream to be available for reset.
         unencryptedDataStream.reset();
-        in = createCipherInputStream(unencryptedDataStream, cipherFactory);
+        releaseCipher();
+        cipher = cipherFactory.createCipher();
+        in = new CipherInputStream(unencryptedDataStream, cipher);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            releaseCipher();
+        }
+    }
+
+    private synchronized void releaseCipher() {
+        if (cipher == null) return;
+        cipherFactory.releaseCipher(cipher);
+        cipher = null;
     }
 
 }
\ No newline at end of file
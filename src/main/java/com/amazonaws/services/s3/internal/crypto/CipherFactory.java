@@ -75,4 +75,12 @@ public class CipherFactory {
         return cipher;
     }
 
+    /**
+     * Returns a Cipher created by this factory to the {@link CipherPool} once
+     * it is no longer used.
+     */
+    public void releaseCipher(Cipher cipher) {
+        CipherPool.release(cipher, cryptoProvider);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import java.security.GeneralSecurityException;
+import java.security.Provider;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Pool of idle Cipher instances, by transformation and crypto provider.
+ * <p>
+ * Looking up a Cipher implementation from the JCE providers costs more than
+ * encrypting a small object, so ciphers are reused once they are released.
+ * Borrowed ciphers must be initialized before use; {@link Cipher#init} resets
+ * all of a cipher's state, so a released cipher can be borrowed for any key,
+ * mode and IV. A cipher must not be used after it is released, and must be
+ * released at most once.
+ * <p>
+ * Released ciphers are re-initialized with a throwaway all-zero key before
+ * they are pooled, so idle ciphers never hold on to the keys they were last
+ * used with; ciphers that can't be re-initialized that way are discarded.
+ * Only the symmetric data ciphers are pooled, the ciphers that wrap and
+ * unwrap envelope keys with the master key aren't.
+ */
+public final class CipherPool {
+
+    /** The maximum number of idle ciphers kept per transformation and provider. */
+    static final int MAX_IDLE_CIPHERS = 16;
+
+    /** The length, in bytes, of the all-zero key released ciphers are re-initialized with. */
+    private static final int CLEARED_KEY_LENGTH = 16;
+
+    private static final ConcurrentMap<String, LinkedList<Cipher>> idleCiphers =
+            new ConcurrentHashMap<String, LinkedList<Cipher>>();
+
+    private CipherPool() {}
+
+    /**
+     * Returns an idle cipher for the specified transformation from the
+     * specified provider, or from the default JCE provider if the provider is
+     * null, creating one if none is idle.
+     */
+    public static Cipher borrow(String transformation, Provider cryptoProvider) throws GeneralSecurityException {
+        LinkedList<Cipher> ciphers = idleCiphers.get(key(transformation, cryptoProvider));
+        if (ciphers != null) {
+            synchronized (ciphers) {
+                if (!ciphers.isEmpty()) return ciphers.removeFirst();
+            }
+        }
+
+        if (cryptoProvider != null) {
+            return Cipher.getInstance(transformation, cryptoProvider);
+        } else {
+            return Cipher.getInstance(transformation);
+        }
+    }
+
+    /**
+     * Returns a cipher borrowed with {@link #borrow(String, Provider)} to the
+     * pool, so it can be borrowed again.
+     *
+     * @param cipher
+     *            The cipher to release; ignored if null.
+     * @param cryptoProvider
+     *            The provider the cipher was borrowed from, or null if it was
+     *            borrowed from the default JCE provider.
+     */
+    public static void release(Cipher cipher, Provider cryptoProvider) {
+        if (cipher == null || !clearKey(cipher)) return;
+
+        String key = key(cipher.getAlgorithm(), cryptoProvider);
+        LinkedList<Cipher> ciphers = idleCiphers.get(key);
+        if (ciphers == null) {
+            idleCiphers.putIfAbsent(key, new LinkedList<Cipher>());
+            ciphers = idleCiphers.get(key);
+        }
+        synchronized (ciphers) {
+            if (ciphers.size() < MAX_IDLE_CIPHERS) ciphers.addFirst(cipher);
+        }
+    }
+
+    /**
+     * Re-initializes the specified cipher with an all-zero key and IV, so it
+     * no longer holds the key it was last initialized with.
+     *
+     * @return True if the cipher was re-initialized, false if it doesn't
+     *         accept such a key and should be discarded.
+     */
+    private static boolean clearKey(Cipher cipher) {
+        String algorithm = cipher.getAlgorithm();
+        int modeIndex = algorithm.indexOf('/');
+        if (modeIndex != -1) algorithm = algorithm.substring(0, modeIndex);
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(new byte[CLEARED_KEY_LENGTH], algorithm),
+                    new IvParameterSpec(new byte[cipher.getBlockSize()]));
+            return true;
+        } catch (GeneralSecurityException e) {
+            return false;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static String key(String transformation, Provider cryptoProvider) {
+        return (cryptoProvider == null) ? transformation : transformation + "@" + cryptoProvider.getName();
+    }
+}
@@ -14,6 +14,12 @@
  */
 package com.amazonaws.services.s3.internal.crypto;
 
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
 import javax.crypto.SecretKey;
 
 /**
@@ -21,6 +27,11 @@ import javax.crypto.SecretKey;
  * including the envelope encryption key used to encrypt each individual
  * part in a multipart upload, and the next initialization vector (IV) for
  * the next part to encrypt.
+ * <p>
+ * For parts read from a file whose whole contents are being uploaded, the
+ * initialization vectors of the contents at the offsets where parts start
+ * are also recorded by file, so parts of such a file can be encrypted in any
+ * order.
  */
 public class EncryptedUploadContext {
 	private final String bucketName;
@@ -30,6 +41,7 @@ public class EncryptedUploadContext {
 	private byte[] firstIV;
 	private byte[] nextIV;
 	private boolean hasFinalPartBeenSeen;
+	private final Map<String, SortedMap<Long, byte[]>> fileInitializationVectors = new HashMap<String, SortedMap<Long, byte[]>>();
 
 	public EncryptedUploadContext(String bucketName, String key, SecretKey envelopeEncryptionKey) {
 		this.bucketName = bucketName;
@@ -72,4 +84,40 @@ public class EncryptedUploadContext {
 	public byte[] getFirstInitializationVector() {
 		return firstIV;
 	}
+
+	/**
+	 * Records the initialization vector needed to encrypt the contents of the
+	 * specified file from the specified offset onwards.
+	 */
+	public synchronized void setFileInitializationVector(File file, long offset, byte[] iv) {
+		SortedMap<Long, byte[]> initializationVectors = fileInitializationVectors.get(file.getAbsolutePath());
+		if (initializationVectors == null) {
+			initializationVectors = new TreeMap<Long, byte[]>();
+			fileInitializationVectors.put(file.getAbsolutePath(), initializationVectors);
+		}
+		initializationVectors.put(offset, iv);
+	}
+
+	/**
+	 * Returns the greatest offset of the specified file, no greater than the
+	 * specified one, whose initialization vector is known; the start of the
+	 * file, whose initialization vector is the first one, if there is none.
+	 */
+	public synchronized long getClosestFileInitializationVectorOffset(File file, long offset) {
+		SortedMap<Long, byte[]> initializationVectors = fileInitializationVectors.get(file.getAbsolutePath());
+		if (initializationVectors == null) return 0;
+		SortedMap<Long, byte[]> preceding = initializationVectors.headMap(offset + 1);
+		return preceding.isEmpty() ? 0 : preceding.lastKey();
+	}
+
+	/**
+	 * Returns the recorded initialization vector needed to encrypt the
+	 * contents of the specified file from the specified offset onwards; the
+	 * first initialization vector for the start of the file.
+	 */
+	public synchronized byte[] getFileInitializationVector(File file, long offset) {
+		if (offset == 0) return firstIV;
+		SortedMap<Long, byte[]> initializationVectors = fileInitializationVectors.get(file.getAbsolutePath());
+		return (initializationVectors == null) ? null : initializationVectors.get(offset);
+	}
 }
@@ -16,9 +16,12 @@ package com.amazonaws.services.s3.internal.crypto;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.security.GeneralSecurityException;
 import java.security.Key;
 import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
@@ -65,6 +68,9 @@ public class EncryptionUtils {
     /** Suffix appended to the end of instruction file names */
     private static final String INSTRUCTION_SUFFIX = ".instruction";
 
+    /** The symmetric cipher without padding, for encrypting whole blocks of contents */
+    private static final String UNPADDED_SYMMETRIC_CIPHER_METHOD = "AES/CBC/NoPadding";
+
     /**
      * Returns an updated request where the metadata contains encryption information and the input stream contains
      * the encrypted object contents.  The specified encryption materials will be used to encrypt and decrypt data.
@@ -536,15 +542,13 @@ public class EncryptionUtils {
      * Creates a symmetric cipher in the specified mode from the given symmetric key and IV.  The given
      * crypto provider will provide the encryption implementation.  If the crypto provider is null, then
      * the default JCE crypto provider will be used.
+     *
+     * The cipher is borrowed from the {@link CipherPool}; callers that know when they are done with it
+     * can return it with {@link CipherPool#release(Cipher, Provider)}.
      */
     public static Cipher createSymmetricCipher(SecretKey symmetricCryptoKey, int encryptMode, Provider cryptoProvider, byte[] initVector) {
         try {
-            Cipher cipher;
-            if (cryptoProvider != null) {
-                cipher = Cipher.getInstance(JceEncryptionConstants.SYMMETRIC_CIPHER_METHOD, cryptoProvider);
-            } else {
-                cipher = Cipher.getInstance(JceEncryptionConstants.SYMMETRIC_CIPHER_METHOD);
-            }
+            Cipher cipher = CipherPool.borrow(JceEncryptionConstants.SYMMETRIC_CIPHER_METHOD, cryptoProvider);
             if (initVector != null) {
                 cipher.init(encryptMode, symmetricCryptoKey, new IvParameterSpec(initVector));
             } else {
@@ -642,7 +646,7 @@ public class EncryptionUtils {
             }
 
             long partSize = request.getPartSize();
-            int cipherBlockSize = cipherFactory.createCipher().getBlockSize();
+            int cipherBlockSize = JceEncryptionConstants.SYMMETRIC_CIPHER_BLOCK_SIZE;
             return new ByteRangeCapturingInputStream(originalInputStream, partSize - cipherBlockSize, partSize);
         } catch (Exception e) {
             throw new AmazonClientException("Unable to create cipher input stream: " + e.getMessage(), e);
@@ -799,6 +803,62 @@ public class EncryptionUtils {
         return plaintextLength + offset;
     }
 
+    /**
+     * Returns the initialization vector needed to encrypt the contents of a file from the specified end
+     * offset onwards as the continuation of the chained block cipher encryption of the preceding contents,
+     * which is the last cipher block of the encrypted contents preceding the end offset.
+     *
+     * Only the contents between the start and end offsets are encrypted to find it, from the given
+     * initialization vector of the contents at the start offset.  Both offsets must be multiples of the
+     * cipher block size.  The contents are encrypted without padding and to the end with doFinal, since
+     * providers may hold back complete blocks from update (BouncyCastle's padded ciphers keep the last one).
+     */
+    public static byte[] calculateChainedInitializationVector(File file, long startOffset, byte[] startInitVector,
+            long endOffset, SecretKey symmetricKey, Provider cryptoProvider) {
+        byte[] lastCipherBlock = startInitVector.clone();
+        Cipher cipher = null;
+        RandomAccessFile input = null;
+        try {
+            cipher = CipherPool.borrow(UNPADDED_SYMMETRIC_CIPHER_METHOD, cryptoProvider);
+            cipher.init(Cipher.ENCRYPT_MODE, symmetricKey, new IvParameterSpec(startInitVector));
+
+            input = new RandomAccessFile(file, "r");
+            input.seek(startOffset);
+            byte[] buffer = new byte[1024 * 128];
+            long remainingBytes = endOffset - startOffset;
+            while (remainingBytes > 0) {
+                int bytesRead = input.read(buffer, 0, (int)Math.min(buffer.length, remainingBytes));
+                if (bytesRead == -1) {
+                    throw new AmazonClientException("Unable to read file " + file + " up to offset " + endOffset);
+                }
+                remainingBytes -= bytesRead;
+                keepLastBlock(lastCipherBlock, cipher.update(buffer, 0, bytesRead));
+            }
+            keepLastBlock(lastCipherBlock, cipher.doFinal());
+            return lastCipherBlock;
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to read file " + file + ": " + e.getMessage(), e);
+        } catch (GeneralSecurityException e) {
+            throw new AmazonClientException("Unable to encrypt file " + file + ": " + e.getMessage(), e);
+        } finally {
+            try {if (input != null) input.close();} catch (Exception e) {}
+            CipherPool.release(cipher, cryptoProvider);
+        }
+    }
+
+    /**
+     * Shifts the specified encrypted output into the last block seen so far.
+     */
+    private static void keepLastBlock(byte[] lastBlock, byte[] output) {
+        if (output == null || output.length == 0) return;
+        if (output.length >= lastBlock.length) {
+            System.arraycopy(output, output.length - lastBlock.length, lastBlock, 0, lastBlock.length);
+        } else {
+            System.arraycopy(lastBlock, output.length, lastBlock, 0, lastBlock.length - output.length);
+            System.arraycopy(output, 0, lastBlock, lastBlock.length - output.length, output.length);
+        }
+    }
+
     /**
      * Returns the content length of the unencrypted data in a PutObjectRequest,
      * or -1 if the original content-length isn't known.
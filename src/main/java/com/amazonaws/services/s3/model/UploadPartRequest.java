@@ -90,6 +90,14 @@ public class UploadPartRequest extends AmazonWebServiceRequest {
 	 */
 	private boolean isLastPart;
 
+	/**
+	 * Allows the caller to indicate that this part is read from a file whose
+	 * whole contents, from its start, are being uploaded in the multipart
+	 * upload, so that the part's offset in the file is also its offset in the
+	 * uploaded object.
+	 */
+	private boolean isPartOfWholeFile;
+
 
     /**
      * Sets the stream containing the data to upload for the new part.
@@ -541,6 +549,51 @@ public class UploadPartRequest extends AmazonWebServiceRequest {
         return this;
     }
 
+    /**
+     * Returns true if the creator of this request has indicated this part is
+     * read from a file whose whole contents, from its start, are being
+     * uploaded in the multipart upload.
+     *
+     * @return True if the creator of this request has indicated this part's
+     *         offset in its file is also its offset in the uploaded object.
+     */
+    public boolean isPartOfWholeFile() {
+        return isPartOfWholeFile;
+    }
+
+    /**
+     * Marks this part as read from a file whose whole contents, from its
+     * start, are being uploaded in the multipart upload, so that the part's
+     * file offset is also its offset in the uploaded object. The
+     * AmazonS3EncryptionClient relies on this to encrypt such parts
+     * concurrently and in any order.
+     *
+     * @param isPartOfWholeFile
+     *            Whether or not this part is read from a file whose whole
+     *            contents are being uploaded in the multipart upload.
+     */
+    public void setPartOfWholeFile(boolean isPartOfWholeFile) {
+        this.isPartOfWholeFile = isPartOfWholeFile;
+    }
+
+    /**
+     * Marks this part as read from a file whose whole contents, from its
+     * start, are being uploaded in the multipart upload, and returns this
+     * updated request object so that additional method calls can be chained
+     * together.
+     *
+     * @param isPartOfWholeFile
+     *            Whether or not this part is read from a file whose whole
+     *            contents are being uploaded in the multipart upload.
+     *
+     * @return This updated request object so that additional method calls can
+     *         be chained together.
+     */
+    public UploadPartRequest withPartOfWholeFile(boolean isPartOfWholeFile) {
+        setPartOfWholeFile(isPartOfWholeFile);
+        return this;
+    }
+
     /**
      * Sets the optional progress listener for receiving updates about object
      * download status.
@@ -56,4 +56,27 @@ public interface Download extends Transfer {
      */
     public void abort() throws IOException;
 
+    /**
+     * Returns the state of this download, which can be saved and used later
+     * to resume it with
+     * {@link TransferManager#resumeDownload(PersistableDownload)}.
+     *
+     * @return The state of this download, or null if the download hasn't
+     *         started yet.
+     */
+    public PersistableDownload getPersistableDownload();
+
+    /**
+     * Pauses this download: the download is canceled like with
+     * {@link #abort()}, but the data already written to the file is kept so
+     * that the download can be resumed later with the returned state (see
+     * {@link TransferManager#resumeDownload(PersistableDownload)}).
+     *
+     * @return The state of this download, or null if the download hasn't
+     *         started yet.
+     *
+     * @throws IOException
+     */
+    public PersistableDownload pause() throws IOException;
+
 }
\ No newline at end of file
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.util.BitSet;
+import java.util.Properties;
+
+/**
+ * The state of a download of an object into a file, which can be used to
+ * resume the download with
+ * {@link TransferManager#resumeDownload(PersistableDownload)}.
+ * <p>
+ * Downloads split into parallel byte ranges (see
+ * {@link TransferManagerConfiguration#setMultipartDownloadThreshold(long)})
+ * record which ranges have been written to the file, and only the others are
+ * downloaded again when the download is resumed. Other downloads are started
+ * over.
+ */
+public final class PersistableDownload extends PersistableTransfer {
+
+    static final String TYPE = "download";
+
+    private final String bucketName;
+    private final String key;
+    private final String versionId;
+    private final String file;
+    private final String eTag;
+    private final long contentLength;
+    private final long partSize;
+    private final BitSet completedParts;
+
+    /**
+     * @param bucketName
+     *            The bucket containing the object being downloaded.
+     * @param key
+     *            The key of the object being downloaded.
+     * @param versionId
+     *            The version of the object being downloaded, or null for the
+     *            latest version.
+     * @param file
+     *            The path of the file the object is downloaded into.
+     * @param eTag
+     *            The ETag of the object when the download started.
+     * @param contentLength
+     *            The size of the object.
+     * @param partSize
+     *            The size of the byte ranges the download is split into, or 0
+     *            if it is downloaded over a single connection.
+     * @param completedParts
+     *            The indexes of the byte ranges already written to the file.
+     */
+    public PersistableDownload(String bucketName, String key, String versionId, String file, String eTag,
+            long contentLength, long partSize, BitSet completedParts) {
+        this.bucketName = bucketName;
+        this.key = key;
+        this.versionId = versionId;
+        this.file = file;
+        this.eTag = eTag;
+        this.contentLength = contentLength;
+        this.partSize = partSize;
+        this.completedParts = (BitSet) completedParts.clone();
+    }
+
+    /**
+     * Returns the name of the bucket containing the object being downloaded.
+     */
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    /**
+     * Returns the key of the object being downloaded.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the version of the object being downloaded, or null for the
+     * latest version.
+     */
+    public String getVersionId() {
+        return versionId;
+    }
+
+    /**
+     * Returns the path of the file the object is downloaded into.
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the ETag of the object when the download started.
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    /**
+     * Returns the size of the object.
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Returns the size of the byte ranges the download is split into, or 0
+     * if it is downloaded over a single connection.
+     */
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Returns the indexes of the byte ranges already written to the file; the
+     * range with index <code>i</code> starts at <code>i * partSize</code>.
+     */
+    public BitSet getCompletedParts() {
+        return (BitSet) completedParts.clone();
+    }
+
+    @Override
+    String getTransferType() {
+        return TYPE;
+    }
+
+    @Override
+    void store(Properties properties) {
+        properties.setProperty("bucketName", bucketName);
+        properties.setProperty("key", key);
+        setIfNotNull(properties, "versionId", versionId);
+        properties.setProperty("file", file);
+        setIfNotNull(properties, "eTag", eTag);
+        properties.setProperty("contentLength", Long.toString(contentLength));
+        properties.setProperty("partSize", Long.toString(partSize));
+
+        StringBuilder completed = new StringBuilder();
+        for (int i = completedParts.nextSetBit(0); i >= 0; i = completedParts.nextSetBit(i + 1)) {
+            if (completed.length() > 0) completed.append(',');
+            completed.append(i);
+        }
+        properties.setProperty("completedParts", completed.toString());
+    }
+
+    static PersistableDownload load(Properties properties) {
+        BitSet completedParts = new BitSet();
+        for (String part : properties.getProperty("completedParts", "").split(",")) {
+            if (part.length() > 0) completedParts.set(Integer.parseInt(part));
+        }
+        return new PersistableDownload(
+                required(properties, "bucketName"),
+                required(properties, "key"),
+                properties.getProperty("versionId"),
+                required(properties, "file"),
+                properties.getProperty("eTag"),
+                Long.parseLong(required(properties, "contentLength")),
+                Long.parseLong(required(properties, "partSize")),
+                completedParts);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.Properties;
+
+import com.amazonaws.AmazonClientException;
+
+/**
+ * The state of a transfer that can be saved, for example to a file, and used
+ * later to resume the transfer with {@link TransferManager#resumeUpload(PersistableUpload)}
+ * or {@link TransferManager#resumeDownload(PersistableDownload)}, even from
+ * another JVM.
+ * <p>
+ * The state is serialized as text in the {@link Properties} format.
+ *
+ * @see Upload#getPersistableUpload()
+ * @see Download#getPersistableDownload()
+ */
+public abstract class PersistableTransfer {
+
+    private static final String TRANSFER_TYPE = "transferType";
+
+    /** Property names are plain ASCII; values use the Properties escapes. */
+    private static final String ENCODING = "ISO-8859-1";
+
+    /**
+     * Returns the type of the transfer, stored with its state.
+     */
+    abstract String getTransferType();
+
+    /**
+     * Stores the state of the transfer in the specified properties.
+     */
+    abstract void store(Properties properties);
+
+    /**
+     * Writes the state of this transfer to the specified stream. The stream
+     * is not closed.
+     *
+     * @param output
+     *            The stream to write the state of this transfer to.
+     *
+     * @throws IOException
+     *             If the state can't be written.
+     */
+    public void serialize(OutputStream output) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(TRANSFER_TYPE, getTransferType());
+        store(properties);
+        properties.store(output, "Amazon S3 transfer state");
+    }
+
+    /**
+     * Returns the state of this transfer as a string.
+     *
+     * @return The state of this transfer.
+     */
+    public String serialize() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            serialize(output);
+            return output.toString(ENCODING);
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to serialize transfer state: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads the state of a transfer written by {@link #serialize(OutputStream)}.
+     * The stream is not closed.
+     *
+     * @param input
+     *            The stream to read the state of the transfer from.
+     *
+     * @return The state of the transfer; either a {@link PersistableUpload}
+     *         or a {@link PersistableDownload}.
+     *
+     * @throws IOException
+     *             If the state can't be read.
+     */
+    public static PersistableTransfer deserializeFrom(InputStream input) throws IOException {
+        Properties properties = new Properties();
+        properties.load(input);
+
+        String type = properties.getProperty(TRANSFER_TYPE);
+        try {
+            if (PersistableUpload.TYPE.equals(type)) return PersistableUpload.load(properties);
+            if (PersistableDownload.TYPE.equals(type)) return PersistableDownload.load(properties);
+        } catch (RuntimeException e) {
+            throw new AmazonClientException("Invalid transfer state: " + e.getMessage(), e);
+        }
+        throw new AmazonClientException("Invalid transfer state: unknown transfer type " + type);
+    }
+
+    /**
+     * Reads the state of a transfer returned by {@link #serialize()}.
+     *
+     * @param serialized
+     *            The state of the transfer.
+     *
+     * @return The state of the transfer; either a {@link PersistableUpload}
+     *         or a {@link PersistableDownload}.
+     */
+    public static PersistableTransfer deserializeFrom(String serialized) {
+        try {
+            return deserializeFrom(new ByteArrayInputStream(serialized.getBytes(ENCODING)));
+        } catch (UnsupportedEncodingException e) {
+            throw new AmazonClientException("Unable to deserialize transfer state: " + e.getMessage(), e);
+        } catch (IOException e) {
+            throw new AmazonClientException("Unable to deserialize transfer state: " + e.getMessage(), e);
+        }
+    }
+
+    static String required(Properties properties, String name) {
+        String value = properties.getProperty(name);
+        if (value == null) throw new IllegalArgumentException("missing " + name);
+        return value;
+    }
+
+    static void setIfNotNull(Properties properties, String name, String value) {
+        if (value != null) properties.setProperty(name, value);
+    }
+}
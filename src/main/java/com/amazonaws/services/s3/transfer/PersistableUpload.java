@@ -0,0 +1,154 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.amazonaws.services.s3.model.PartETag;
+
+/**
+ * The state of a multipart upload of a file, which can be used to resume the
+ * upload with {@link TransferManager#resumeUpload(PersistableUpload)}.
+ * <p>
+ * The multipart upload identified here must not be aborted (for example with
+ * {@link TransferManager#abortMultipartUploads(String, java.util.Date)}) if
+ * the upload is to be resumed; the parts already uploaded are kept by Amazon
+ * S3 until the upload is completed or aborted.
+ */
+public final class PersistableUpload extends PersistableTransfer {
+
+    static final String TYPE = "upload";
+
+    private final String bucketName;
+    private final String key;
+    private final String file;
+    private final String multipartUploadId;
+    private final long partSize;
+    private final SortedMap<Integer, String> completedParts;
+
+    /**
+     * @param bucketName
+     *            The bucket the file is being uploaded to.
+     * @param key
+     *            The key the file is being uploaded to.
+     * @param file
+     *            The path of the file being uploaded.
+     * @param multipartUploadId
+     *            The ID of the multipart upload.
+     * @param partSize
+     *            The size of the parts of the upload, except the last one.
+     * @param completedParts
+     *            The ETags of the parts known to be uploaded, by part number.
+     */
+    public PersistableUpload(String bucketName, String key, String file, String multipartUploadId,
+            long partSize, Map<Integer, String> completedParts) {
+        this.bucketName = bucketName;
+        this.key = key;
+        this.file = file;
+        this.multipartUploadId = multipartUploadId;
+        this.partSize = partSize;
+        this.completedParts = Collections.unmodifiableSortedMap(new TreeMap<Integer, String>(completedParts));
+    }
+
+    /**
+     * Returns the name of the bucket the file is being uploaded to.
+     */
+    public String getBucketName() {
+        return bucketName;
+    }
+
+    /**
+     * Returns the key the file is being uploaded to.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the path of the file being uploaded.
+     */
+    public String getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the ID of the multipart upload.
+     */
+    public String getMultipartUploadId() {
+        return multipartUploadId;
+    }
+
+    /**
+     * Returns the size, in bytes, of the parts of the upload, except the last
+     * one.
+     */
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Returns the parts known to be uploaded when this state was saved, in
+     * part number order. When the upload is resumed, the parts actually
+     * uploaded are listed from Amazon S3.
+     */
+    public List<PartETag> getCompletedParts() {
+        List<PartETag> partETags = new ArrayList<PartETag>(completedParts.size());
+        for (Map.Entry<Integer, String> part : completedParts.entrySet()) {
+            partETags.add(new PartETag(part.getKey(), part.getValue()));
+        }
+        return partETags;
+    }
+
+    @Override
+    String getTransferType() {
+        return TYPE;
+    }
+
+    @Override
+    void store(Properties properties) {
+        properties.setProperty("bucketName", bucketName);
+        properties.setProperty("key", key);
+        properties.setProperty("file", file);
+        properties.setProperty("multipartUploadId", multipartUploadId);
+        properties.setProperty("partSize", Long.toString(partSize));
+        for (Map.Entry<Integer, String> part : completedParts.entrySet()) {
+            properties.setProperty("part." + part.getKey(), part.getValue());
+        }
+    }
+
+    static PersistableUpload load(Properties properties) {
+        SortedMap<Integer, String> completedParts = new TreeMap<Integer, String>();
+        for (Enumeration<?> names = properties.propertyNames(); names.hasMoreElements();) {
+            String name = (String) names.nextElement();
+            if (name.startsWith("part.")) {
+                completedParts.put(Integer.valueOf(name.substring("part.".length())), properties.getProperty(name));
+            }
+        }
+        return new PersistableUpload(
+                required(properties, "bucketName"),
+                required(properties, "key"),
+                required(properties, "file"),
+                required(properties, "multipartUploadId"),
+                Long.parseLong(required(properties, "partSize")),
+                completedParts);
+    }
+}
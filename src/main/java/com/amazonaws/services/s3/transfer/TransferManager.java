@@ -17,6 +17,7 @@ package com.amazonaws.services.s3.transfer;
 import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
@@ -42,6 +43,7 @@ import com.amazonaws.services.s3.AmazonS3EncryptionClient;
 import com.amazonaws.services.s3.internal.Mimetypes;
 import com.amazonaws.services.s3.internal.ServiceUtils;
 import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ListMultipartUploadsRequest;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
@@ -55,6 +57,7 @@ import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.transfer.Transfer.TransferState;
 import com.amazonaws.services.s3.transfer.internal.DownloadImpl;
 import com.amazonaws.services.s3.transfer.internal.DownloadMonitor;
+import com.amazonaws.services.s3.transfer.internal.MultipartDownloadCallable;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileDownloadImpl;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileTransfer;
 import com.amazonaws.services.s3.transfer.internal.MultipleFileTransferMonitor;
@@ -350,15 +353,46 @@ public class TransferManager {
      */
     public Upload upload(final PutObjectRequest putObjectRequest)
         throws AmazonServiceException, AmazonClientException {
-        return upload(putObjectRequest, null);
+        return upload(putObjectRequest, null, null);
+    }
+
+    /**
+     * Resumes an upload paused with {@link Upload#pause()}, or interrupted
+     * (for example by the JVM exiting) after its state was saved with
+     * {@link Upload#getPersistableUpload()}. This method is non-blocking and
+     * returns immediately.
+     * <p>
+     * The parts already uploaded are listed from Amazon S3 and only the other
+     * parts of the file are uploaded; the file must not have been modified
+     * since the upload started. If the resumed upload fails, the multipart
+     * upload is not aborted, so that it can be resumed again.
+     *
+     * @param persistableUpload
+     *            The state of the upload to resume.
+     *
+     * @return A new <code>Upload</code> object to use to check the state of
+     *         the upload, listen for progress notifications, and otherwise
+     *         manage the upload.
+     *
+     * @throws AmazonClientException
+     *             If the upload can't be resumed by this transfer manager.
+     */
+    public Upload resumeUpload(PersistableUpload persistableUpload) throws AmazonClientException {
+        if (s3 instanceof AmazonS3EncryptionClient) {
+            throw new AmazonClientException("Uploads through an encryption client can't be resumed");
+        }
+        PutObjectRequest putObjectRequest = new PutObjectRequest(persistableUpload.getBucketName(),
+                persistableUpload.getKey(), new File(persistableUpload.getFile()));
+        return upload(putObjectRequest, null, persistableUpload);
     }
 
     /**
      * Same as public version of upload, but attaches a
      * {@link TransferStateChangeListener} to the upload object so that it can be
-     * monitored.
+     * monitored, and optionally resumes a multipart upload.
      */
-    private Upload upload(final PutObjectRequest putObjectRequest, final TransferStateChangeListener stateListener)
+    private Upload upload(final PutObjectRequest putObjectRequest, final TransferStateChangeListener stateListener,
+            final PersistableUpload resumeFrom)
             throws AmazonServiceException, AmazonClientException {
 
             appendUserAgent(putObjectRequest, USER_AGENT);
@@ -389,7 +423,8 @@ public class TransferManager {
 
             UploadImpl upload = new UploadImpl(description, transferProgress, listenerChain, stateListener);
 
-            UploadCallable uploadCallable = new UploadCallable(this, threadPool, upload, putObjectRequest, listenerChain);
+            UploadCallable uploadCallable = new UploadCallable(this, threadPool, upload, putObjectRequest, listenerChain,
+                    resumeFrom);
             UploadMonitor watcher = new UploadMonitor(this, upload, threadPool, uploadCallable, putObjectRequest, listenerChain);
             watcher.setTimedThreadPool(timedThreadPool);
             upload.setMonitor(watcher);
@@ -453,18 +488,44 @@ public class TransferManager {
      *             request.
      */
     public Download download(final GetObjectRequest getObjectRequest, final File file) {
-        return download(getObjectRequest, file, null);
+        return download(getObjectRequest, file, null, null);
+    }
+
+    /**
+     * Resumes a download paused with {@link Download#pause()}, or interrupted
+     * (for example by the JVM exiting) after its state was saved with
+     * {@link Download#getPersistableDownload()}. This method is non-blocking
+     * and returns immediately.
+     * <p>
+     * If the download was split into byte ranges, only the ranges not yet
+     * written to the file are downloaded. The download starts over if the
+     * object has changed since the download started, or if it was downloaded
+     * over a single connection.
+     *
+     * @param persistableDownload
+     *            The state of the download to resume.
+     *
+     * @return A new <code>Download</code> object to use to check the state of
+     *         the download, listen for progress notifications, and otherwise
+     *         manage the download.
+     */
+    public Download resumeDownload(PersistableDownload persistableDownload) {
+        GetObjectRequest getObjectRequest = new GetObjectRequest(persistableDownload.getBucketName(),
+                persistableDownload.getKey(), persistableDownload.getVersionId());
+        return download(getObjectRequest, new File(persistableDownload.getFile()), null, persistableDownload);
     }
 
     /**
      * Same as public interface, but adds a state listener so that callers can
-     * be notified of state changes to the download.
+     * be notified of state changes to the download, and optionally resumes a
+     * download.
      *
      * @see TransferManager#download(GetObjectRequest, File)
      */
     private Download download(final GetObjectRequest getObjectRequest,
                               final File file,
-                              final TransferStateChangeListener stateListener) {
+                              final TransferStateChangeListener stateListener,
+                              final PersistableDownload resumeFrom) {
 
         appendUserAgent(getObjectRequest, USER_AGENT);
 
@@ -475,7 +536,8 @@ public class TransferManager {
         ProgressListenerChain listenerChain = new ProgressListenerChain(new TransferProgressUpdatingListener(
                 transferProgress), getObjectRequest.getGeneralProgressListener());
         getObjectRequest.setGeneralProgressListener(listenerChain);
-        final ObjectMetadata objectMetadata = s3.getObjectMetadata(getObjectRequest.getBucketName(), getObjectRequest.getKey());
+        final ObjectMetadata objectMetadata = s3.getObjectMetadata(new GetObjectMetadataRequest(
+                getObjectRequest.getBucketName(), getObjectRequest.getKey(), getObjectRequest.getVersionId()));
 
         final StartDownloadLock startDownloadLock = new StartDownloadLock();
         final DownloadImpl download = new DownloadImpl(description, transferProgress, listenerChain, null, stateListener);
@@ -488,6 +550,27 @@ public class TransferManager {
 
         transferProgress.setTotalBytesToTransfer(contentLength);
 
+        final boolean isUsingEncryption = s3 instanceof AmazonS3EncryptionClient;
+        boolean isResumable = resumeFrom != null && resumeFrom.getPartSize() > 0 && !isUsingEncryption
+                && objectMetadata.getETag() != null && objectMetadata.getETag().equals(resumeFrom.getETag())
+                && contentLength == resumeFrom.getContentLength() && file.length() == contentLength;
+        if (resumeFrom != null && !isResumable) {
+            log.info("Unable to resume the download of " + getObjectRequest.getBucketName() + "/"
+                    + getObjectRequest.getKey() + " where it stopped; downloading the whole object");
+        }
+
+        final boolean isMultipartDownload = isResumable || TransferManagerUtils.shouldUseMultipartDownload(
+                getObjectRequest, contentLength, isUsingEncryption, configuration);
+        final long partSize = isResumable ? resumeFrom.getPartSize() : configuration.getMultipartDownloadPartSize();
+        final BitSet completedParts = isResumable ? resumeFrom.getCompletedParts() : new BitSet();
+
+        // Ranged downloads aren't resumable, their state would not record the range
+        if (getObjectRequest.getRange() == null) {
+            download.setPersistableDownload(new PersistableDownload(getObjectRequest.getBucketName(),
+                    getObjectRequest.getKey(), getObjectRequest.getVersionId(), file.getAbsolutePath(),
+                    objectMetadata.getETag(), contentLength, isMultipartDownload ? partSize : 0, completedParts));
+        }
+
         Future<?> future = threadPool.submit(new Callable<Object>() {
             @Override
             public Object call() throws Exception {
@@ -502,26 +585,33 @@ public class TransferManager {
                          }
                      }
                     download.setState(TransferState.InProgress);
-                    S3Object s3Object = ServiceUtils.retryableDownloadS3ObjectToFile(file, new ServiceUtils.RetryableS3DownloadTask() {
+                    S3Object s3Object;
+                    if (isMultipartDownload) {
+                        s3Object = new MultipartDownloadCallable(s3, threadPool, getObjectRequest, file, objectMetadata,
+                                download, partSize, configuration.getMultipartDownloadParallelism(),
+                                !isUsingEncryption, completedParts).call();
+                    } else {
+                        s3Object = ServiceUtils.retryableDownloadS3ObjectToFile(file, new ServiceUtils.RetryableS3DownloadTask() {
                         
-                        @Override
-                        public S3Object getS3ObjectStream() {
-                            S3Object s3Object = s3.getObject(getObjectRequest);
-                            download.setS3Object(s3Object);
-                            return s3Object;
-                        }
+                            @Override
+                            public S3Object getS3ObjectStream() {
+                                S3Object s3Object = s3.getObject(getObjectRequest);
+                                download.setS3Object(s3Object);
+                                return s3Object;
+                            }
                         
-                        @Override
-                        public boolean needIntegrityCheck() {
-                            // Don't perform the integrity check if the stream data is wrapped
-                            // in a decryption stream, or if we're only looking at a range of
-                            // the data, since otherwise the checksum won't match up.
-                            boolean performIntegrityCheck = true;
-                            if (getObjectRequest.getRange() != null) performIntegrityCheck = false;
-                            if (s3 instanceof AmazonS3EncryptionClient) performIntegrityCheck = false;
-                            return performIntegrityCheck;
-                        }
-                    });
+                            @Override
+                            public boolean needIntegrityCheck() {
+                                // Don't perform the integrity check if the stream data is wrapped
+                                // in a decryption stream, or if we're only looking at a range of
+                                // the data, since otherwise the checksum won't match up.
+                                boolean performIntegrityCheck = true;
+                                if (getObjectRequest.getRange() != null) performIntegrityCheck = false;
+                                if (s3 instanceof AmazonS3EncryptionClient) performIntegrityCheck = false;
+                                return performIntegrityCheck;
+                            }
+                        });
+                    }
                     
 
                     if (s3Object == null) {
@@ -633,7 +723,7 @@ public class TransferManager {
 
             downloads.add((DownloadImpl) download(
                     new GetObjectRequest(summary.getBucketName(), summary.getKey()).withGeneralProgressListener(listener), f,
-                    stateChangeListener));
+                    stateChangeListener, null));
         }
 
         if ( downloads.isEmpty() ) {
@@ -860,7 +950,7 @@ public class TransferManager {
                 
                 uploads.add((UploadImpl) upload(
                         new PutObjectRequest(bucketName, virtualDirectoryKeyPrefix + key, f).withMetadata(metadata).withGeneralProgressListener(listener),
-                        stateChangeListener));
+                        stateChangeListener, null));
             }
         }
 
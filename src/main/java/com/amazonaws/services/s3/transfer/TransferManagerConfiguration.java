@@ -33,6 +33,15 @@ public class TransferManagerConfiguration {
     /** Default size threshold for when to use multipart uploads.  */
     private static final int DEFAULT_MULTIPART_UPLOAD_THRESHOLD = 16 * MB;
 
+    /** Default part size for parallel ranged downloads. */
+    private static final long DEFAULT_MULTIPART_DOWNLOAD_PART_SIZE = 8 * MB;
+
+    /** Default size threshold for when to use parallel ranged downloads. */
+    private static final long DEFAULT_MULTIPART_DOWNLOAD_THRESHOLD = 16 * MB;
+
+    /** Default maximum number of parts of a single download fetched at the same time. */
+    private static final int DEFAULT_MULTIPART_DOWNLOAD_PARALLELISM = 10;
+
     
     /**
      * The minimum part size for upload parts. Decreasing the minimum part size
@@ -57,6 +66,26 @@ public class TransferManagerConfiguration {
      */
     private int multipartUploadThreshold = DEFAULT_MULTIPART_UPLOAD_THRESHOLD;
 
+    /**
+     * The size, in bytes, of the byte ranges a download is split into when
+     * it is downloaded in parallel parts.
+     */
+    private long multipartDownloadPartSize = DEFAULT_MULTIPART_DOWNLOAD_PART_SIZE;
+
+    /**
+     * The size threshold, in bytes, for when to use parallel ranged
+     * downloads. Downloads of objects over this size are split into byte
+     * ranges fetched with concurrent requests, while smaller objects are
+     * downloaded over a single connection.
+     */
+    private long multipartDownloadThreshold = DEFAULT_MULTIPART_DOWNLOAD_THRESHOLD;
+
+    /**
+     * The maximum number of byte ranges of a single download fetched at the
+     * same time.
+     */
+    private int multipartDownloadParallelism = DEFAULT_MULTIPART_DOWNLOAD_PARALLELISM;
+
     
     /**
      * Returns the minimum part size for upload parts. 
@@ -124,4 +153,79 @@ public class TransferManagerConfiguration {
     public void setMultipartUploadThreshold(int multipartUploadThreshold) {
         this.multipartUploadThreshold = multipartUploadThreshold;
     }
+
+    /**
+     * Returns the size, in bytes, of the byte ranges a download is split into
+     * when it is downloaded in parallel parts.
+     *
+     * @return The part size for parallel ranged downloads.
+     */
+    public long getMultipartDownloadPartSize() {
+        return multipartDownloadPartSize;
+    }
+
+    /**
+     * Sets the size, in bytes, of the byte ranges a download is split into
+     * when it is downloaded in parallel parts. Smaller parts spread a
+     * download over more connections, at the cost of one request per part.
+     *
+     * @param multipartDownloadPartSize
+     *            The part size for parallel ranged downloads.
+     */
+    public void setMultipartDownloadPartSize(long multipartDownloadPartSize) {
+        this.multipartDownloadPartSize = multipartDownloadPartSize;
+    }
+
+    /**
+     * Returns the size threshold in bytes for when to use parallel ranged
+     * downloads. Downloads of objects over this size are split into byte
+     * ranges fetched with concurrent requests, while smaller objects are
+     * downloaded over a single connection.
+     *
+     * @return The size threshold in bytes for when to use parallel ranged
+     *         downloads.
+     */
+    public long getMultipartDownloadThreshold() {
+        return multipartDownloadThreshold;
+    }
+
+    /**
+     * Sets the size threshold in bytes for when to use parallel ranged
+     * downloads. Downloads of objects over this size are split into byte
+     * ranges fetched with concurrent requests, while smaller objects are
+     * downloaded over a single connection. Set to {@link Long#MAX_VALUE} to
+     * always download over a single connection.
+     *
+     * @param multipartDownloadThreshold
+     *            The size threshold in bytes for when to use parallel ranged
+     *            downloads.
+     */
+    public void setMultipartDownloadThreshold(long multipartDownloadThreshold) {
+        this.multipartDownloadThreshold = multipartDownloadThreshold;
+    }
+
+    /**
+     * Returns the maximum number of byte ranges of a single download fetched
+     * at the same time.
+     *
+     * @return The maximum number of parts of a download fetched at the same
+     *         time.
+     */
+    public int getMultipartDownloadParallelism() {
+        return multipartDownloadParallelism;
+    }
+
+    /**
+     * Sets the maximum number of byte ranges of a single download fetched at
+     * the same time. The parts are fetched on the transfer manager's thread
+     * pool, so the effective parallelism is also limited by the size of the
+     * pool. A value of 1 disables parallel ranged downloads.
+     *
+     * @param multipartDownloadParallelism
+     *            The maximum number of parts of a download fetched at the
+     *            same time.
+     */
+    public void setMultipartDownloadParallelism(int multipartDownloadParallelism) {
+        this.multipartDownloadParallelism = multipartDownloadParallelism;
+    }
 }
@@ -49,4 +49,29 @@ public interface Upload extends Transfer {
      */
     public UploadResult waitForUploadResult() 
             throws AmazonClientException, AmazonServiceException, InterruptedException;
+
+    /**
+     * Returns the state of this upload, which can be saved and used later to
+     * resume it with {@link TransferManager#resumeUpload(PersistableUpload)}.
+     * Only multipart uploads of files can be resumed; for other uploads, and
+     * before the multipart upload has been initiated, this method returns
+     * null.
+     *
+     * @return The state of this upload, or null if it can't be resumed.
+     */
+    public PersistableUpload getPersistableUpload();
+
+    /**
+     * Pauses this upload: no more parts are uploaded, and parts being
+     * uploaded are interrupted, but the multipart upload is not aborted, so
+     * the upload can be resumed later with the returned state (see
+     * {@link TransferManager#resumeUpload(PersistableUpload)}). A paused
+     * upload ends in the {@link TransferState#Canceled} state.
+     * <p>
+     * Uploads that can't be resumed (see {@link #getPersistableUpload()}) are
+     * not paused, and this method returns null.
+     *
+     * @return The state of this upload, or null if it can't be paused.
+     */
+    public PersistableUpload pause();
 }
@@ -15,17 +15,27 @@
 package com.amazonaws.services.s3.transfer.internal;
 
 import java.io.IOException;
+import java.util.BitSet;
 
 import com.amazonaws.event.ProgressListenerChain;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.transfer.Download;
+import com.amazonaws.services.s3.transfer.PersistableDownload;
 import com.amazonaws.services.s3.transfer.TransferProgress;
 
 public class DownloadImpl extends AbstractTransfer implements Download {
     
     S3Object s3Object;
 
+    /*
+     * The state this download can be resumed from; null for downloads that
+     * can't be resumed. The completed parts are tracked separately as they
+     * are written.
+     */
+    private PersistableDownload persistableDownload;
+    private final BitSet completedParts = new BitSet();
+
     public DownloadImpl(String description, TransferProgress transferProgress,
             ProgressListenerChain progressListenerChain, S3Object s3Object, TransferStateChangeListener listener) {
         super(description, transferProgress, progressListenerChain, listener);
@@ -90,4 +100,33 @@ public class DownloadImpl extends AbstractTransfer implements Download {
     public synchronized void setS3Object(S3Object s3Object) {
     	this.s3Object = s3Object;
     }
+
+    /**
+     * Sets the state this download can be resumed from, including the parts
+     * already written to the file.
+     */
+    public synchronized void setPersistableDownload(PersistableDownload persistableDownload) {
+        this.persistableDownload = persistableDownload;
+        this.completedParts.clear();
+        this.completedParts.or(persistableDownload.getCompletedParts());
+    }
+
+    /**
+     * Records a byte range of the object as written to the file.
+     */
+    public synchronized void partCompleted(int part) {
+        completedParts.set(part);
+    }
+
+    public synchronized PersistableDownload getPersistableDownload() {
+        if (persistableDownload == null) return null;
+        return new PersistableDownload(persistableDownload.getBucketName(), persistableDownload.getKey(),
+                persistableDownload.getVersionId(), persistableDownload.getFile(), persistableDownload.getETag(),
+                persistableDownload.getContentLength(), persistableDownload.getPartSize(), completedParts);
+    }
+
+    public PersistableDownload pause() throws IOException {
+        abort();
+        return getPersistableDownload();
+    }
 }
\ No newline at end of file
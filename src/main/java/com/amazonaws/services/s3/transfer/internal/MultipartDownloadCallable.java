@@ -0,0 +1,382 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.transfer.internal;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.net.ssl.SSLProtocolException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.event.ProgressEvent;
+import com.amazonaws.event.ProgressListenerCallbackExecutor;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.internal.ServiceUtils;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.transfer.Transfer.TransferState;
+import com.amazonaws.util.BinaryUtils;
+import com.amazonaws.util.Md5Utils;
+
+/**
+ * Downloads an object into a file as byte ranges fetched with concurrent
+ * GetObject requests, each written at its offset in the file.
+ * <p>
+ * The calling thread fetches parts itself, helped by up to
+ * <code>parallelism - 1</code> tasks submitted to the transfer manager's
+ * thread pool. Helpers that haven't started by the time the calling thread
+ * runs out of parts are skipped rather than waited for, so a download never
+ * waits for a free thread in the pool it is itself running on.
+ * <p>
+ * Every ranged request is conditional on the ETag of the object when the
+ * download started, so parts of different versions of the object are never
+ * mixed. Each part is retried once if it can't be read or written, and the
+ * whole file is checked against the object's MD5 hash at the end when Amazon
+ * S3 provides one. It doesn't for objects uploaded in multiple parts, whose
+ * ETag isn't an MD5 hash of their content; since objects large enough to be
+ * downloaded in parts are usually uploaded in parts too, most downloads made
+ * by this class are not checked against a hash at all.
+ * <p>
+ * The bytes written to the file are reported as they are written, through
+ * the same progress callback executor as the start and completion events, so
+ * the completion event is only delivered after all the bytes of the parts.
+ * <p>
+ * Objects downloaded through an encryption client are decrypted range by
+ * range, and are shorter than they are stored by the padding of the last
+ * cipher block, so the file is cut off where the last part ends.
+ * <p>
+ * Each part written to the file is recorded with the download, so that a
+ * paused download can be resumed by fetching only the parts it is missing.
+ */
+public class MultipartDownloadCallable implements Callable<S3Object> {
+
+    private static final Log log = LogFactory.getLog(MultipartDownloadCallable.class);
+
+    private final AmazonS3 s3;
+    private final ExecutorService threadPool;
+    private final GetObjectRequest getObjectRequest;
+    private final File file;
+    private final ObjectMetadata objectMetadata;
+    private final DownloadImpl download;
+    private final long partSize;
+    private final int parallelism;
+    private final boolean performIntegrityCheck;
+    private final BitSet completedParts;
+
+    /** Receives the bytes written by all parts, and the overall start and completion events. */
+    private final ProgressListenerCallbackExecutor progressListenerCallbackExecutor;
+
+    /** The index, first and last byte of each part left to download. */
+    private final Queue<long[]> pendingParts = new ConcurrentLinkedQueue<long[]>();
+    private final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+    private final AtomicBoolean firstPartFetched = new AtomicBoolean(false);
+    /** The position in the file where the last part ends, once it has been written. */
+    private final AtomicLong lastPartEnd = new AtomicLong(-1);
+
+    public MultipartDownloadCallable(AmazonS3 s3, ExecutorService threadPool, GetObjectRequest getObjectRequest,
+            File file, ObjectMetadata objectMetadata, DownloadImpl download, long partSize, int parallelism,
+            boolean performIntegrityCheck) {
+        this(s3, threadPool, getObjectRequest, file, objectMetadata, download, partSize, parallelism,
+                performIntegrityCheck, new BitSet());
+    }
+
+    /**
+     * Creates a callable that resumes a download, fetching only the parts not
+     * in the specified completed parts; the part with index <code>i</code>
+     * starts at byte <code>i * partSize</code>.
+     */
+    public MultipartDownloadCallable(AmazonS3 s3, ExecutorService threadPool, GetObjectRequest getObjectRequest,
+            File file, ObjectMetadata objectMetadata, DownloadImpl download, long partSize, int parallelism,
+            boolean performIntegrityCheck, BitSet completedParts) {
+        this.completedParts = completedParts;
+        this.s3 = s3;
+        this.threadPool = threadPool;
+        this.getObjectRequest = getObjectRequest;
+        this.file = file;
+        this.objectMetadata = objectMetadata;
+        this.download = download;
+        this.partSize = partSize;
+        this.parallelism = parallelism;
+        this.performIntegrityCheck = performIntegrityCheck;
+        this.progressListenerCallbackExecutor =
+                ProgressListenerCallbackExecutor.wrapListener(getObjectRequest.getGeneralProgressListener());
+    }
+
+    /**
+     * Downloads the object.
+     *
+     * @return An object holding the metadata of the downloaded object, or
+     *         null if the download was canceled.
+     */
+    public S3Object call() throws Exception {
+        long contentLength = objectMetadata.getContentLength();
+
+        // attempt to create the parent if it doesn't exist
+        File parentDirectory = file.getParentFile();
+        if ( parentDirectory != null && !parentDirectory.exists() ) {
+            parentDirectory.mkdirs();
+        }
+
+        long completedBytes = 0;
+        int index = 0;
+        for (long start = 0; start < contentLength; start += partSize, index++) {
+            long end = Math.min(start + partSize, contentLength) - 1;
+            if (completedParts.get(index)) {
+                completedBytes += end - start + 1;
+            } else {
+                pendingParts.add(new long[] {index, start, end});
+            }
+        }
+
+        fireProgressEvent(ProgressEvent.STARTED_EVENT_CODE);
+        if (completedBytes > 0 && progressListenerCallbackExecutor != null) {
+            progressListenerCallbackExecutor.progressChanged(new ProgressEvent(completedBytes));
+        }
+
+        RandomAccessFile output = new RandomAccessFile(file, "rw");
+        try {
+            // Keeps the parts of a resumed download already in the file
+            output.setLength(contentLength);
+            FileChannel channel = output.getChannel();
+
+            int helperCount = Math.min(parallelism, pendingParts.size()) - 1;
+            List<PartWorker> helpers = new ArrayList<PartWorker>(helperCount);
+            for (int i = 0; i < helperCount; i++) {
+                PartWorker helper = new PartWorker(channel);
+                try {
+                    threadPool.submit(helper);
+                } catch (RejectedExecutionException e) {
+                    break;
+                }
+                helpers.add(helper);
+            }
+
+            new PartWorker(channel).run();
+            for (PartWorker helper : helpers) {
+                helper.awaitOrPreempt();
+            }
+
+            if (failure.get() == null && lastPartEnd.get() >= 0 && lastPartEnd.get() < contentLength) {
+                output.setLength(lastPartEnd.get());
+            }
+        } finally {
+            try {output.close();} catch (Exception e) {}
+        }
+
+        if (isCanceled()) return null;
+
+        Exception e = failure.get();
+        if (e != null) {
+            fireProgressEvent(ProgressEvent.FAILED_EVENT_CODE);
+            throw e;
+        }
+
+        checkIntegrity();
+        fireProgressEvent(ProgressEvent.COMPLETED_EVENT_CODE);
+
+        S3Object s3Object = new S3Object();
+        s3Object.setBucketName(getObjectRequest.getBucketName());
+        s3Object.setKey(getObjectRequest.getKey());
+        s3Object.setObjectMetadata(objectMetadata);
+        // A resumed download may not have had any part left to fetch
+        if (firstPartFetched.compareAndSet(false, true)) download.setS3Object(s3Object);
+        return s3Object;
+    }
+
+    /**
+     * Fetches parts from the pending parts until there are none left, one of
+     * them failed, or the download was canceled.
+     */
+    private final class PartWorker implements Runnable {
+        private final FileChannel channel;
+        private final AtomicBoolean started = new AtomicBoolean(false);
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        PartWorker(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        public void run() {
+            if (!started.compareAndSet(false, true)) return;
+            try {
+                long[] part;
+                while (failure.get() == null && !isCanceled() && (part = pendingParts.poll()) != null) {
+                    try {
+                        downloadPart(channel, (int)part[0], part[1], part[2]);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        /**
+         * Waits for this worker to finish if it has started, otherwise
+         * prevents it from ever starting.
+         */
+        void awaitOrPreempt() throws InterruptedException {
+            if (started.compareAndSet(false, true)) return;
+            finished.await();
+        }
+    }
+
+    /**
+     * Downloads one byte range of the object into its position in the file.
+     * The download is retried once if the data can't be read or written,
+     * unless the connection was closed by aborting the download.
+     */
+    private void downloadPart(FileChannel channel, int index, long start, long end) throws IOException {
+        boolean hasRetried = false;
+        while (true) {
+            S3Object part = s3.getObject(newPartRequest(start, end));
+            if (part == null) {
+                throw new AmazonClientException("Unable to download " + getObjectRequest.getBucketName() + "/"
+                        + getObjectRequest.getKey() + ": the object was modified during the download");
+            }
+            if (firstPartFetched.compareAndSet(false, true)) {
+                S3Object s3Object = new S3Object();
+                s3Object.setBucketName(part.getBucketName());
+                s3Object.setKey(part.getKey());
+                s3Object.setObjectMetadata(objectMetadata);
+                s3Object.setObjectContent(part.getObjectContent());
+                download.setS3Object(s3Object);
+            }
+
+            try {
+                long partEnd = writePart(channel, start, part.getObjectContent());
+                if (partEnd >= 0) {
+                    if (end == objectMetadata.getContentLength() - 1) lastPartEnd.set(partEnd);
+                    download.partCompleted(index);
+                }
+                return;
+            } catch (IOException e) {
+                try {part.getObjectContent().abort();} catch (IOException abortException) {}
+                if (e instanceof SocketException || e instanceof SSLProtocolException || hasRetried || isCanceled()) {
+                    throw new AmazonClientException("Unable to store object contents to disk: " + e.getMessage(), e);
+                }
+                log.info("Retry the download of bytes " + start + "-" + end + " of object " + part.getKey()
+                        + " (bucket " + part.getBucketName() + ")", e);
+                hasRetried = true;
+            } finally {
+                try {part.getObjectContent().close();} catch (Exception e) {}
+            }
+        }
+    }
+
+    /**
+     * Writes a part at its position in the file.
+     *
+     * @return The position in the file where the part ends, once it has been
+     *         written in whole, or -1 if the download was canceled first.
+     */
+    private long writePart(FileChannel channel, long position, InputStream input) throws IOException {
+        byte[] buffer = new byte[1024 * 16];
+        int bytesRead;
+        while ((bytesRead = input.read(buffer)) > -1) {
+            if (isCanceled()) return -1;
+            ByteBuffer data = ByteBuffer.wrap(buffer, 0, bytesRead);
+            while (data.hasRemaining()) {
+                position += channel.write(data, position);
+            }
+            if (progressListenerCallbackExecutor != null) {
+                progressListenerCallbackExecutor.progressChanged(new ProgressEvent(bytesRead));
+            }
+        }
+        return position;
+    }
+
+    private GetObjectRequest newPartRequest(long start, long end) {
+        GetObjectRequest partRequest = new GetObjectRequest(getObjectRequest.getBucketName(),
+                getObjectRequest.getKey(), getObjectRequest.getVersionId())
+            .withRange(start, end)
+            .withResponseHeaders(getObjectRequest.getResponseHeaders());
+        if (objectMetadata.getETag() != null) {
+            partRequest.setMatchingETagConstraints(Arrays.asList(objectMetadata.getETag()));
+        }
+        String clientMarker = getObjectRequest.getRequestClientOptions().getClientMarker();
+        if (clientMarker != null) partRequest.getRequestClientOptions().addClientMarker(clientMarker.trim());
+        return partRequest;
+    }
+
+    /**
+     * Checks the downloaded file against the MD5 hash of the object, if Amazon
+     * S3 provides one. Objects uploaded in multiple parts have an ETag
+     * containing a "-" that isn't an MD5 hash of their content, and are not
+     * checked.
+     */
+    private void checkIntegrity() {
+        if (!performIntegrityCheck) return;
+
+        String eTag = objectMetadata.getETag();
+        if (eTag == null) return;
+        if (ServiceUtils.isMultipartUploadETag(eTag)) {
+            log.debug("Not checking the integrity of " + file.getAbsolutePath()
+                    + ": no MD5 hash is available for an object uploaded in parts");
+            return;
+        }
+
+        byte[] clientSideHash = null;
+        byte[] serverSideHash = null;
+        try {
+            clientSideHash = Md5Utils.computeMD5Hash(new FileInputStream(file));
+            serverSideHash = BinaryUtils.fromHex(eTag);
+        } catch (Exception e) {
+            log.warn("Unable to calculate MD5 hash to validate download: " + e.getMessage(), e);
+        }
+
+        if (clientSideHash != null && serverSideHash != null && !Arrays.equals(clientSideHash, serverSideHash)) {
+            fireProgressEvent(ProgressEvent.FAILED_EVENT_CODE);
+            throw new AmazonClientException("Unable to verify integrity of data download.  " +
+                    "Client calculated content hash didn't match hash calculated by Amazon S3.  " +
+                    "The data stored in '" + file.getAbsolutePath() + "' may be corrupt.");
+        }
+    }
+
+    private boolean isCanceled() {
+        return download.getState() == TransferState.Canceled;
+    }
+
+    private void fireProgressEvent(int eventType) {
+        if (progressListenerCallbackExecutor == null) return;
+        ProgressEvent event = new ProgressEvent(0);
+        event.setEventCode(eventType);
+        progressListenerCallbackExecutor.progressChanged(event);
+    }
+}
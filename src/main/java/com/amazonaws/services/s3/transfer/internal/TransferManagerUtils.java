@@ -21,6 +21,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
 
@@ -60,11 +61,10 @@ public class TransferManagerUtils {
 	 *         uploads.
 	 */
     public static boolean isUploadParallelizable(final PutObjectRequest putObjectRequest, final boolean isUsingEncryption) {
-    	// Each uploaded part in an encrypted upload depends on the encryption context
-    	// from the previous upload, so we cannot parallelize encrypted upload parts.
-    	if (isUsingEncryption) return false;
-
-    	// Otherwise, if there's a file, we can process the uploads concurrently.
+    	// If there's a file, we can process the uploads concurrently.  Each part of an
+    	// encrypted upload depends on the encryption context from the previous part,
+    	// which the encryption client calculates from the file when it's not available
+    	// yet, but parts of an encrypted stream have to be uploaded in order.
         return (getRequestFile(putObjectRequest) != null);
     }
 
@@ -129,6 +129,44 @@ public class TransferManagerUtils {
         return (contentLength > configuration.getMultipartUploadThreshold());
     }
 
+    /**
+     * Returns true if the specified download should be split into byte
+     * ranges fetched in parallel (instead of being downloaded over a single
+     * connection).
+     *
+     * @param getObjectRequest
+     *            The request containing all the details of the download.
+     * @param contentLength
+     *            The size of the object being downloaded.
+     * @param isUsingEncryption
+     *            True if the object is decrypted while it is downloaded,
+     *            otherwise false. Encrypted objects can be split too, each
+     *            byte range being decrypted from the cipher block preceding
+     *            it.
+     * @param configuration
+     *            Configuration settings controlling how transfer manager
+     *            processes requests.
+     *
+     * @return True if the specified download should use parallel ranged
+     *         downloads.
+     */
+    public static boolean shouldUseMultipartDownload(GetObjectRequest getObjectRequest, long contentLength,
+            boolean isUsingEncryption, TransferManagerConfiguration configuration) {
+        // Ranged requests and conditional requests are passed to Amazon S3 as-is
+        if (getObjectRequest.getRange() != null) return false;
+        if (!getObjectRequest.getMatchingETagConstraints().isEmpty()
+                || !getObjectRequest.getNonmatchingETagConstraints().isEmpty()
+                || getObjectRequest.getModifiedSinceConstraint() != null
+                || getObjectRequest.getUnmodifiedSinceConstraint() != null) {
+            return false;
+        }
+
+        return configuration.getMultipartDownloadParallelism() > 1
+                && configuration.getMultipartDownloadPartSize() > 0
+                && contentLength > configuration.getMultipartDownloadThreshold()
+                && contentLength > configuration.getMultipartDownloadPartSize();
+    }
+
     /**
      * Convenience method for getting the file specified in a request.
      */
@@ -14,13 +14,21 @@
  */
 package com.amazonaws.services.s3.transfer.internal;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -34,11 +42,15 @@ import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
 import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ListPartsRequest;
 import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PartSummary;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectResult;
 import com.amazonaws.services.s3.model.StorageClass;
 import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.transfer.PersistableUpload;
 import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.TransferManagerConfiguration;
 import com.amazonaws.services.s3.transfer.Transfer.TransferState;
@@ -54,9 +66,24 @@ public class UploadCallable implements Callable<UploadResult> {
     private static final Log log = LogFactory.getLog(UploadCallable.class);
     private final TransferManagerConfiguration configuration;
     private final ProgressListenerCallbackExecutor progressListenerChainCallbackExecutor;
-    private final List<Future<PartETag>> futures = new ArrayList<Future<PartETag>>();
+    private final List<Future<PartETag>> futures = Collections.synchronizedList(new ArrayList<Future<PartETag>>());
+
+    /** The state of the paused upload this callable resumes, if any. */
+    private final PersistableUpload resumeFrom;
+
+    /** Set once a stream of unknown length turns out to need a multipart upload. */
+    private volatile boolean isStreamedInParts;
 
     public UploadCallable(TransferManager transferManager, ExecutorService threadPool, UploadImpl upload, PutObjectRequest putObjectRequest, ProgressListenerChain progressListenerChain) {
+        this(transferManager, threadPool, upload, putObjectRequest, progressListenerChain, null);
+    }
+
+    /**
+     * Creates a callable that resumes the specified multipart upload,
+     * uploading only the parts that Amazon S3 doesn't already have.
+     */
+    public UploadCallable(TransferManager transferManager, ExecutorService threadPool, UploadImpl upload, PutObjectRequest putObjectRequest, ProgressListenerChain progressListenerChain, PersistableUpload resumeFrom) {
+        this.resumeFrom = resumeFrom;
         this.s3 = transferManager.getAmazonS3Client();
         this.configuration = transferManager.getConfiguration();
 
@@ -88,7 +115,8 @@ public class UploadCallable implements Callable<UploadResult> {
      * @return True if this UploadCallable is processing a multipart upload.
      */
     public boolean isMultipartUpload() {
-    	return TransferManagerUtils.shouldUseMultipartUpload(putObjectRequest, configuration);
+    	return isStreamedInParts || resumeFrom != null
+    	        || TransferManagerUtils.shouldUseMultipartUpload(putObjectRequest, configuration);
     }
 
     public UploadResult call() throws Exception {
@@ -96,11 +124,122 @@ public class UploadCallable implements Callable<UploadResult> {
         if ( isMultipartUpload() ) {
             fireProgressEvent(ProgressEvent.STARTED_EVENT_CODE);
             return uploadInParts();
+        } else if (putObjectRequest.getInputStream() != null
+                && TransferManagerUtils.getContentLength(putObjectRequest) < 0
+                && configuration.getMultipartUploadThreshold() < Integer.MAX_VALUE) {
+            return uploadStreamOfUnknownLength();
         } else {
             return uploadInOneChunk();
         }
     }
 
+    /**
+     * Uploads a stream of unknown length without ever holding all of it in
+     * memory: in a single request if it ends before the multipart upload
+     * threshold, otherwise as a multipart upload of parts read one at a time.
+     * {@link #call()} only takes this path for thresholds below
+     * Integer.MAX_VALUE, so the start of the stream always fits in an array.
+     */
+    private UploadResult uploadStreamOfUnknownLength() throws Exception {
+        long threshold = configuration.getMultipartUploadThreshold();
+        InputStream input = putObjectRequest.getInputStream();
+        try {
+            // The buffer grows as data arrives, so short streams only take the memory they need
+            HeadBuffer head = new HeadBuffer();
+            byte[] chunk = new byte[(int)Math.min(threshold, 1024 * 64)];
+            int next = -1;
+            while (true) {
+                int count = input.read(chunk, 0, (int)Math.min(chunk.length, threshold - head.size()));
+                if (count == -1) break;
+                head.write(chunk, 0, count);
+                if (head.size() == threshold) {
+                    next = input.read();
+                    break;
+                }
+            }
+            if (next == -1) {
+                putObjectRequest.getMetadata().setContentLength(head.size());
+                putObjectRequest.setInputStream(head.toInputStream());
+                return uploadInOneChunk();
+            }
+
+            isStreamedInParts = true;
+            fireProgressEvent(ProgressEvent.STARTED_EVENT_CODE);
+            InputStream remaining = new SequenceInputStream(head.toInputStream(),
+                    new SequenceInputStream(new ByteArrayInputStream(new byte[] {(byte)next}), input));
+            return uploadStreamInParts(remaining);
+        } finally {
+            try {input.close();} catch (Exception e) {
+                log.warn("Unable to cleanly close input stream: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Uploads the stream as a multipart upload, one part at a time, reading
+     * one byte ahead of each part to find out whether it is the last one.
+     */
+    private UploadResult uploadStreamInParts(InputStream input) throws Exception {
+        boolean isUsingEncryption = s3 instanceof AmazonS3EncryptionClient;
+        long optimalPartSize = getOptimalPartSize(isUsingEncryption);
+        multipartUploadId = initiateMultipartUpload(putObjectRequest);
+
+        try {
+            List<PartETag> partETags = new ArrayList<PartETag>();
+            byte[] part = new byte[(int)Math.min(optimalPartSize, Integer.MAX_VALUE)];
+            int pending = -1;
+            boolean isLastPart = false;
+            for (int partNumber = 1; !isLastPart; partNumber++) {
+                if (threadPool.isShutdown()) throw new CancellationException("TransferManager has been shutdown");
+
+                int partSize = 0;
+                if (pending != -1) part[partSize++] = (byte)pending;
+                partSize += readFully(input, part, partSize);
+                pending = (partSize == part.length) ? input.read() : -1;
+                isLastPart = (pending == -1);
+
+                UploadPartRequest uploadPartRequest = new UploadPartRequest()
+                    .withBucketName(putObjectRequest.getBucketName())
+                    .withKey(putObjectRequest.getKey())
+                    .withUploadId(multipartUploadId)
+                    .withInputStream(new ByteArrayInputStream(part, 0, partSize))
+                    .withPartNumber(partNumber)
+                    .withPartSize(partSize);
+                uploadPartRequest.setLastPart(isLastPart);
+                uploadPartRequest.setGeneralProgressListener(putObjectRequest.getGeneralProgressListener());
+                partETags.add(s3.uploadPart(uploadPartRequest).getPartETag());
+            }
+            return completeMultipartUpload(partETags);
+        } catch (Exception e) {
+            abortMultipartUpload();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads from the stream until the buffer is full or the stream ends, and
+     * returns the number of bytes read.
+     */
+    private static int readFully(InputStream input, byte[] buffer, int offset) throws IOException {
+        int length = 0;
+        while (offset + length < buffer.length) {
+            int count = input.read(buffer, offset + length, buffer.length - offset - length);
+            if (count == -1) break;
+            length += count;
+        }
+        return length;
+    }
+
+    /**
+     * Buffer for the start of a stream of unknown length, which can be read
+     * back without copying its contents.
+     */
+    private static final class HeadBuffer extends ByteArrayOutputStream {
+        InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
+    }
+
     /**
      * Uploads the given request in a single chunk and returns the result.
      */
@@ -125,27 +264,36 @@ public class UploadCallable implements Callable<UploadResult> {
         final String key        = putObjectRequest.getKey();
 
         boolean isUsingEncryption = s3 instanceof AmazonS3EncryptionClient;
-        long optimalPartSize = getOptimalPartSize(isUsingEncryption);
-
-        multipartUploadId = initiateMultipartUpload(putObjectRequest);
+        long optimalPartSize;
+        if (resumeFrom != null) {
+            optimalPartSize = resumeFrom.getPartSize();
+            multipartUploadId = resumeFrom.getMultipartUploadId();
+        } else {
+            optimalPartSize = getOptimalPartSize(isUsingEncryption);
+            multipartUploadId = initiateMultipartUpload(putObjectRequest);
+        }
 
         try {
             UploadPartRequestFactory requestFactory = new UploadPartRequestFactory(putObjectRequest, multipartUploadId, optimalPartSize);
 
             if (TransferManagerUtils.isUploadParallelizable(putObjectRequest, isUsingEncryption)) {
-                uploadPartsInParallel(requestFactory);
+                // The encryption context of an encrypted upload only lives in the client, so it can't be resumed
+                if (!isUsingEncryption) {
+                    upload.setMultipartUpload(bucketName, key, TransferManagerUtils.getRequestFile(putObjectRequest),
+                            multipartUploadId, optimalPartSize);
+                }
+                Map<Integer, PartSummary> uploadedParts = (resumeFrom == null)
+                        ? new HashMap<Integer, PartSummary>() : listUploadedParts();
+                uploadPartsInParallel(requestFactory, uploadedParts);
                 return null;
             } else {
                 return uploadPartsInSeries(requestFactory);
             }
         } catch (Exception e) {
-            fireProgressEvent(ProgressEvent.FAILED_EVENT_CODE);
+            // Paused and resumed uploads are kept so that they can be resumed (again)
+            if (upload.isPaused() || resumeFrom != null) throw e;
 
-            try {
-                s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, multipartUploadId));
-            } catch (Exception e2) {
-                log.info("Unable to abort multipart upload, you may need to manually remove uploaded parts: " + e2.getMessage(), e2);
-            }
+            abortMultipartUpload();
             throw e;
         } finally {
             if (putObjectRequest.getInputStream() != null) {
@@ -156,6 +304,20 @@ public class UploadCallable implements Callable<UploadResult> {
         }
     }
 
+    /**
+     * Reports the failure of the multipart upload and aborts it.
+     */
+    private void abortMultipartUpload() {
+        fireProgressEvent(ProgressEvent.FAILED_EVENT_CODE);
+
+        try {
+            s3.abortMultipartUpload(new AbortMultipartUploadRequest(
+                    putObjectRequest.getBucketName(), putObjectRequest.getKey(), multipartUploadId));
+        } catch (Exception e2) {
+            log.info("Unable to abort multipart upload, you may need to manually remove uploaded parts: " + e2.getMessage(), e2);
+        }
+    }
+
     /**
      * Computes and returns the optimal part size for the upload.
      */
@@ -192,6 +354,14 @@ public class UploadCallable implements Callable<UploadResult> {
             partETags.add(s3.uploadPart(uploadPartRequest).getPartETag());
         }
 
+        return completeMultipartUpload(partETags);
+    }
+
+    /**
+     * Completes the multipart upload with the specified parts and returns the
+     * result.
+     */
+    private UploadResult completeMultipartUpload(List<PartETag> partETags) {
         CompleteMultipartUploadResult completeMultipartUploadResult = s3
                 .completeMultipartUpload(new CompleteMultipartUploadRequest(putObjectRequest.getBucketName(),
                         putObjectRequest.getKey(), multipartUploadId, partETags));
@@ -206,12 +376,59 @@ public class UploadCallable implements Callable<UploadResult> {
 
     /**
      * Submits a callable for each part to upload to our thread pool and records its corresponding Future.
+     * Parts already uploaded (when resuming an upload) are recorded as completed without uploading them again.
      */
-    private void uploadPartsInParallel(UploadPartRequestFactory requestFactory) {
+    private void uploadPartsInParallel(UploadPartRequestFactory requestFactory, Map<Integer, PartSummary> uploadedParts) {
         while (requestFactory.hasMoreRequests()) {
             if (threadPool.isShutdown()) throw new CancellationException("TransferManager has been shutdown");
+            if (upload.isPaused()) throw new CancellationException("Upload has been paused");
             UploadPartRequest request = requestFactory.getNextUploadPartRequest();
-            futures.add(threadPool.submit(new UploadPartCallable(s3, request)));
+
+            PartSummary uploadedPart = uploadedParts.get(request.getPartNumber());
+            if (uploadedPart != null && uploadedPart.getSize() == request.getPartSize()) {
+                final PartETag partETag = new PartETag(request.getPartNumber(), uploadedPart.getETag());
+                upload.partCompleted(partETag);
+                FutureTask<PartETag> uploaded = new FutureTask<PartETag>(new Callable<PartETag>() {
+                    public PartETag call() {
+                        return partETag;
+                    }
+                });
+                uploaded.run();
+                futures.add(uploaded);
+                if (progressListenerChainCallbackExecutor != null) {
+                    progressListenerChainCallbackExecutor.progressChanged(new ProgressEvent(request.getPartSize()));
+                }
+                continue;
+            }
+
+            final UploadPartCallable uploadPartCallable = new UploadPartCallable(s3, request);
+            futures.add(threadPool.submit(new Callable<PartETag>() {
+                public PartETag call() throws Exception {
+                    PartETag partETag = uploadPartCallable.call();
+                    upload.partCompleted(partETag);
+                    return partETag;
+                }
+            }));
+        }
+    }
+
+    /**
+     * Lists the parts of the multipart upload being resumed that Amazon S3
+     * already has, by part number.
+     */
+    private Map<Integer, PartSummary> listUploadedParts() {
+        Map<Integer, PartSummary> uploadedParts = new HashMap<Integer, PartSummary>();
+        Integer partNumberMarker = null;
+        while (true) {
+            ListPartsRequest listPartsRequest = new ListPartsRequest(
+                    putObjectRequest.getBucketName(), putObjectRequest.getKey(), multipartUploadId);
+            listPartsRequest.setPartNumberMarker(partNumberMarker);
+            PartListing partListing = s3.listParts(listPartsRequest);
+            for (PartSummary part : partListing.getParts()) {
+                uploadedParts.put(part.getPartNumber(), part);
+            }
+            if (!partListing.isTruncated()) return uploadedParts;
+            partNumberMarker = partListing.getNextPartNumberMarker();
         }
     }
 
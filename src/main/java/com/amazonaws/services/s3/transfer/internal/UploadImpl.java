@@ -14,16 +14,35 @@
  */
 package com.amazonaws.services.s3.transfer.internal;
 
+import java.io.File;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.event.ProgressListenerChain;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.transfer.PersistableUpload;
 import com.amazonaws.services.s3.transfer.Upload;
 import com.amazonaws.services.s3.transfer.model.UploadResult;
 
 public class UploadImpl extends AbstractTransfer implements Upload {
+
+    /*
+     * The state of a resumable multipart upload; the upload ID is null until
+     * the multipart upload is initiated, and for uploads that can't be
+     * resumed.
+     */
+    private String bucketName;
+    private String key;
+    private File file;
+    private String multipartUploadId;
+    private long partSize;
+    private final SortedMap<Integer, String> completedParts = new TreeMap<Integer, String>();
+
+    private volatile boolean paused;
     
     public UploadImpl(String description, TransferProgressImpl transferProgressInternalState,
             ProgressListenerChain progressListenerChain, TransferStateChangeListener listener) {
@@ -72,4 +91,48 @@ public class UploadImpl extends AbstractTransfer implements Upload {
         }
     }
 
+    /**
+     * Records the multipart upload of a file that can be resumed if it is
+     * paused or interrupted.
+     */
+    public synchronized void setMultipartUpload(String bucketName, String key, File file,
+            String multipartUploadId, long partSize) {
+        this.bucketName = bucketName;
+        this.key = key;
+        this.file = file;
+        this.multipartUploadId = multipartUploadId;
+        this.partSize = partSize;
+    }
+
+    /**
+     * Records a part of the multipart upload as uploaded.
+     */
+    public synchronized void partCompleted(PartETag partETag) {
+        completedParts.put(partETag.getPartNumber(), partETag.getETag());
+    }
+
+    public synchronized PersistableUpload getPersistableUpload() {
+        if (multipartUploadId == null) return null;
+        return new PersistableUpload(bucketName, key, file.getAbsolutePath(), multipartUploadId,
+                partSize, completedParts);
+    }
+
+    public PersistableUpload pause() {
+        if (getPersistableUpload() == null) return null;
+
+        paused = true;
+        if (monitor instanceof UploadMonitor) {
+            ((UploadMonitor)monitor).pause();
+        }
+        // Includes any parts that finished while the upload was stopping
+        return getPersistableUpload();
+    }
+
+    /**
+     * Returns true if this upload has been paused; a paused multipart upload
+     * must not be aborted.
+     */
+    public boolean isPaused() {
+        return paused;
+    }
 }
@@ -202,6 +202,21 @@ public class UploadMonitor implements Callable<UploadResult>, TransferMonitor {
         return result;
     }
 
+    /**
+     * Stops uploading the remaining parts of a multipart upload without
+     * aborting it, so that it can be resumed later. The parts that haven't
+     * been uploaded yet are canceled, and the upload ends up canceled the
+     * next time it is polled.
+     */
+    void pause() {
+        List<Future<PartETag>> partFutures = multipartUploadCallable.getFutures();
+        synchronized (partFutures) {
+            for (Future<PartETag> f : partFutures) {
+                f.cancel(true);
+            }
+        }
+    }
+
     private void uploadComplete() {
         markAllDone();
         transfer.setState(TransferState.Completed);
@@ -75,7 +75,8 @@ public class UploadPartRequestFactory {
                 .withFile(file)
                 .withFileOffset(offset)
                 .withPartNumber(partNumber++)
-                .withPartSize(partSize);
+                .withPartSize(partSize)
+                .withPartOfWholeFile(true);
         }
 
         offset += partSize;
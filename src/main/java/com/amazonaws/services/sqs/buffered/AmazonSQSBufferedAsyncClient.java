@@ -380,6 +380,47 @@ public class AmazonSQSBufferedAsyncClient implements AmazonSQSAsync {
         return buffer.deleteMessage(deleteMessageRequest, null);
     }
     
+    /**
+     * Returns the batching statistics for the {@code SendMessage} requests
+     * buffered for the specified queue.
+     *
+     * @return the statistics, or null if this client has not buffered any
+     *         requests for the queue
+     */
+    public OutboundBatchStatistics getSendMessageStatistics(String queueUrl) {
+        SendQueueBuffer sendBuffer = getSendQueueBuffer(queueUrl);
+        return (sendBuffer == null) ? null : sendBuffer.getSendMessageStatistics();
+    }
+
+    /**
+     * Returns the batching statistics for the {@code DeleteMessage} requests
+     * buffered for the specified queue.
+     *
+     * @return the statistics, or null if this client has not buffered any
+     *         requests for the queue
+     */
+    public OutboundBatchStatistics getDeleteMessageStatistics(String queueUrl) {
+        SendQueueBuffer sendBuffer = getSendQueueBuffer(queueUrl);
+        return (sendBuffer == null) ? null : sendBuffer.getDeleteMessageStatistics();
+    }
+
+    /**
+     * Returns the batching statistics for the {@code ChangeMessageVisibility}
+     * requests buffered for the specified queue.
+     *
+     * @return the statistics, or null if this client has not buffered any
+     *         requests for the queue
+     */
+    public OutboundBatchStatistics getChangeMessageVisibilityStatistics(String queueUrl) {
+        SendQueueBuffer sendBuffer = getSendQueueBuffer(queueUrl);
+        return (sendBuffer == null) ? null : sendBuffer.getChangeMessageVisibilityStatistics();
+    }
+
+    private synchronized SendQueueBuffer getSendQueueBuffer(String qUrl) {
+        QueueBuffer buffer = buffers.get(qUrl);
+        return (buffer == null) ? null : buffer.getSendBuffer();
+    }
+
     /**
      * Returns (creating it if necessary) a queue buffer for a particular queue
      * Since we are only storing a limited number of queue buffers, it is
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2012-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.services.sqs.buffered;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batching statistics for one type of outbound request ({@code SendMessage},
+ * {@code DeleteMessage} or {@code ChangeMessageVisibility}) of a queue
+ * buffer: how many batches were sent, how full they were, and how long
+ * requests waited in the buffer before their batch was sent.
+ * <p>
+ * The buffer also uses these statistics to estimate the arrival rate of
+ * requests when adaptive batching is enabled (see
+ * {@link QueueBufferConfig#setAdaptiveBatching(boolean)}).
+ * <p>
+ * Instances of this class are thread-safe. The values are updated without
+ * locking, so a snapshot taken while batches are completing may be very
+ * slightly inconsistent.
+ */
+public final class OutboundBatchStatistics {
+
+    /** Weight given to the newest sample in the inter-arrival time average. */
+    private static final double ARRIVAL_SMOOTHING = 0.25;
+
+    private final int maxBatchSize;
+
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong totalQueueingNanos = new AtomicLong();
+    private final AtomicLong maxQueueingNanos = new AtomicLong();
+
+    /**
+     * Marks that no request has arrived yet. 0 can't be used for this since
+     * {@link System#nanoTime()} may return any value, including 0.
+     */
+    private static final long NO_ARRIVAL = Long.MIN_VALUE;
+
+    private final AtomicLong lastArrivalNanos = new AtomicLong(NO_ARRIVAL);
+
+    /**
+     * Smoothed time between consecutive requests. Updated with a racy
+     * read-modify-write, which is fine for an estimate; negative until the
+     * second request is seen.
+     */
+    private volatile long interArrivalNanos = -1;
+
+    OutboundBatchStatistics(int maxBatchSize) {
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
+    /**
+     * Records the arrival of a request at the given time.
+     */
+    void requestArrived(long nowNanos) {
+        long previous = lastArrivalNanos.getAndSet(nowNanos);
+        if (previous == NO_ARRIVAL) return;
+
+        long gap = Math.max(0, nowNanos - previous);
+        long average = interArrivalNanos;
+        interArrivalNanos = (average < 0) ? gap
+                : (long) (average + ARRIVAL_SMOOTHING * (gap - average));
+    }
+
+    /**
+     * Returns the time the most recent request arrived, as reported by
+     * {@link System#nanoTime()}. Only meaningful once a request has arrived.
+     */
+    long getLastArrivalNanos() {
+        return lastArrivalNanos.get();
+    }
+
+    /**
+     * Returns the smoothed time between consecutive requests, in
+     * nanoseconds, or a negative value if it isn't known yet.
+     */
+    long getInterArrivalNanos() {
+        return interArrivalNanos;
+    }
+
+    /**
+     * Records a batch of the given size that was sent after its requests
+     * spent the given total and maximum time in the buffer.
+     */
+    void batchSent(int size, long queueingNanos, long maxNanos) {
+        batchCount.incrementAndGet();
+        requestCount.addAndGet(size);
+        totalQueueingNanos.addAndGet(queueingNanos);
+
+        long currentMax;
+        while ((currentMax = maxQueueingNanos.get()) < maxNanos) {
+            if (maxQueueingNanos.compareAndSet(currentMax, maxNanos)) break;
+        }
+    }
+
+    /**
+     * Returns the number of batches sent to SQS.
+     */
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * Returns the number of requests sent to SQS in batches.
+     */
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * Returns the average number of requests per batch, or 0 if no batches
+     * have been sent.
+     */
+    public double getAverageBatchSize() {
+        long batches = batchCount.get();
+        return (batches == 0) ? 0 : (double) requestCount.get() / batches;
+    }
+
+    /**
+     * Returns how full batches were on average, as a fraction of the
+     * configured maximum batch size, or 0 if no batches have been sent.
+     */
+    public double getAverageBatchFill() {
+        return getAverageBatchSize() / maxBatchSize;
+    }
+
+    /**
+     * Returns the average time, in milliseconds, a request spent in the
+     * buffer before its batch was sent, or 0 if no batches have been sent.
+     */
+    public double getAverageQueueingLatencyMillis() {
+        long requests = requestCount.get();
+        if (requests == 0) return 0;
+        return (double) totalQueueingNanos.get() / requests / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Returns the longest time, in milliseconds, a request spent in the
+     * buffer before its batch was sent.
+     */
+    public double getMaxQueueingLatencyMillis() {
+        return (double) maxQueueingNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        return "OutboundBatchStatistics [batchCount=" + getBatchCount()
+                + ", requestCount=" + getRequestCount()
+                + ", averageBatchFill=" + getAverageBatchFill()
+                + ", averageQueueingLatencyMillis=" + getAverageQueueingLatencyMillis()
+                + ", maxQueueingLatencyMillis=" + getMaxQueueingLatencyMillis() + "]";
+    }
+}
@@ -195,6 +195,14 @@ class QueueBuffer {
         return waitForFuture(future);
     }
     
+    /**
+     * @return the buffer batching the outbound requests to this queue, never
+     *         null
+     */
+    SendQueueBuffer getSendBuffer() {
+        return sendBuffer;
+    }
+
     /**
      * Shuts down the queue buffer.  Once this method has been called, the 
      * queue buffer is not operational and all subsequent calls to it may fail
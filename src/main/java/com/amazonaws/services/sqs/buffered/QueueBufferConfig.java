@@ -123,6 +123,18 @@ public class QueueBufferConfig {
     private int longPollWaitTimeoutSeconds;
     
     public static final int LONGPOLL_WAIT_TIMEOUT_SECONDS_DEFAULT = 20;
+
+    /**
+     * Whether outbound batches may be sent before {@code maxBatchOpenMs}
+     * elapses when, judging by the recent arrival rate of requests, they are
+     * not going to fill up any further. This lowers the latency of outbound
+     * requests at low request rates, while batches still fill up at high
+     * rates.
+     */
+    private boolean adaptiveBatching;
+
+    /** false */
+    public static final boolean ADAPTIVE_BATCHING_DEFAULT = false;
     
     public QueueBufferConfig( long maxBatchOpenMs, 
             int maxInflightOutboundBatches,
@@ -144,6 +156,7 @@ public class QueueBufferConfig {
         this.visibilityTimeoutSeconds = visibilityTimeout;
         this.longPollWaitTimeoutSeconds = longPollTimeout;
         this.maxBatchSize = maxBatch;
+        this.adaptiveBatching = ADAPTIVE_BATCHING_DEFAULT;
     }
     
     public QueueBufferConfig() {
@@ -170,6 +183,7 @@ public class QueueBufferConfig {
         maxInflightOutboundBatches = other.maxInflightOutboundBatches;
         maxInflightReceiveBatches = other.maxInflightReceiveBatches;
         visibilityTimeoutSeconds = other.visibilityTimeoutSeconds;
+        adaptiveBatching = other.adaptiveBatching;
     }
     
 
@@ -184,7 +198,8 @@ public class QueueBufferConfig {
                 + maxDoneReceiveBatches + ", maxBatchSizeBytes="
                 + maxBatchSizeBytes + ", visibilityTimeoutSeconds="
                 + visibilityTimeoutSeconds + ", longPollWaitTimeoutSeconds="
-                + longPollWaitTimeoutSeconds + "]";
+                + longPollWaitTimeoutSeconds + ", adaptiveBatching="
+                + adaptiveBatching + "]";
     }
 
     /**
@@ -440,6 +455,34 @@ public class QueueBufferConfig {
         return this;
     }
 
+    /**
+     * Whether outbound batches may be sent before {@code maxBatchOpenMs}
+     * elapses when, judging by the recent arrival rate of requests, they are
+     * not going to fill up any further. A batch is kept open while another
+     * request is expected to arrive before {@code maxBatchOpenMs} elapses and
+     * there is room for it, and always while the limit of in-flight batches
+     * has been reached.
+     */
+    public boolean isAdaptiveBatching() {
+        return adaptiveBatching;
+    }
+
+    /**
+     * Whether outbound batches may be sent before {@code maxBatchOpenMs}
+     * elapses when, judging by the recent arrival rate of requests, they are
+     * not going to fill up any further. This lowers the latency of outbound
+     * requests at low request rates, while batches still fill up at high
+     * rates.
+     */
+    public void setAdaptiveBatching(boolean adaptiveBatching) {
+        this.adaptiveBatching = adaptiveBatching;
+    }
+
+    public QueueBufferConfig withAdaptiveBatching(boolean adaptiveBatching) {
+        this.adaptiveBatching = adaptiveBatching;
+        return this;
+    }
+
     /**
      * this method checks the config for validity. If the config is deemed to be
      * invalid, an informative exception is thrown.
@@ -22,7 +22,10 @@ import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -60,7 +63,13 @@ import com.amazonaws.services.sqs.model.SendMessageResult;
  * 
  * Internally, the batch objects maintain a list of futures corresponding to the
  * requests added to them. When a batch completes, it loads the results into the
- * futures and marks the futures as complete.
+ * futures and marks the futures as complete. <br>
+ * 
+ * Requests are added to the open batch without locking; the per-operation
+ * locks are only taken to replace a batch that has closed. With adaptive
+ * batching enabled in the {@link QueueBufferConfig}, a batch may also be sent
+ * before {@code maxBatchOpenMs} elapses when, judging by the recent arrival
+ * rate of requests, it is not going to grow any further.
  * */
 public class SendQueueBuffer {
     
@@ -104,23 +113,32 @@ public class SendQueueBuffer {
     private final Object changeMessageVisibilityLock = new Object();
 
     /**
-     * Current batching task for sendMessage. Using a size 1 array to allow
-     * "passing by reference". Synchronized by {@code sendMessageLock}.
+     * Current batching task for sendMessage. Read without locking; replaced
+     * only while holding {@code sendMessageLock}.
      */
-    private final SendMessageBatchTask[] openSendMessageBatchTask = new SendMessageBatchTask[1];
+    private final AtomicReference<SendMessageBatchTask> openSendMessageBatchTask = new AtomicReference<SendMessageBatchTask>();
 
     /**
-     * Current batching task for deleteMessage. Using a size 1 array to allow
-     * "passing by reference". Synchronized by {@code deleteMessageLock}.
+     * Current batching task for deleteMessage. Read without locking; replaced
+     * only while holding {@code deleteMessageLock}.
      */
-    private final DeleteMessageBatchTask[] openDeleteMessageBatchTask = new DeleteMessageBatchTask[1];
+    private final AtomicReference<DeleteMessageBatchTask> openDeleteMessageBatchTask = new AtomicReference<DeleteMessageBatchTask>();
 
     /**
-     * Current batching task for changeMessageVisibility. Using a size 1 array
-     * to allow "passing by reference". Synchronized by
+     * Current batching task for changeMessageVisibility. Read without
+     * locking; replaced only while holding
      * {@code changeMessageVisibilityLock}.
      */
-    private final ChangeMessageVisibilityBatchTask[] openChangeMessageVisibilityBatchTask = new ChangeMessageVisibilityBatchTask[1];
+    private final AtomicReference<ChangeMessageVisibilityBatchTask> openChangeMessageVisibilityBatchTask = new AtomicReference<ChangeMessageVisibilityBatchTask>();
+
+    /** Batching statistics for SendMessage requests. */
+    private final OutboundBatchStatistics sendMessageStatistics;
+
+    /** Batching statistics for DeleteMessage requests. */
+    private final OutboundBatchStatistics deleteMessageStatistics;
+
+    /** Batching statistics for ChangeMessageVisibility requests. */
+    private final OutboundBatchStatistics changeMessageVisibilityStatistics;
 
     /**
      * Permits controlling the number of in flight SendMessage batches.
@@ -151,12 +169,41 @@ public class SendQueueBuffer {
         this.inflightSendMessageBatches = new Semaphore( maxBatch);
         this.inflightDeleteMessageBatches = new Semaphore( maxBatch);
         this.inflightChangeMessageVisibilityBatches = new Semaphore( maxBatch);
+
+        this.sendMessageStatistics = new OutboundBatchStatistics(config.getMaxBatchSize());
+        this.deleteMessageStatistics = new OutboundBatchStatistics(config.getMaxBatchSize());
+        this.changeMessageVisibilityStatistics = new OutboundBatchStatistics(config.getMaxBatchSize());
     }
     
       public QueueBufferConfig getConfig()  {
           return config;
       }
 
+      /**
+       * @return the batching statistics for the {@code SendMessage} requests
+       *         buffered here, never null
+       */
+      public OutboundBatchStatistics getSendMessageStatistics() {
+          return sendMessageStatistics;
+      }
+
+      /**
+       * @return the batching statistics for the {@code DeleteMessage} requests
+       *         buffered here, never null
+       */
+      public OutboundBatchStatistics getDeleteMessageStatistics() {
+          return deleteMessageStatistics;
+      }
+
+      /**
+       * @return the batching statistics for the
+       *         {@code ChangeMessageVisibility} requests buffered here, never
+       *         null
+       */
+      public OutboundBatchStatistics getChangeMessageVisibilityStatistics() {
+          return changeMessageVisibilityStatistics;
+      }
+
       /**
        * @return never null
        */
@@ -250,7 +297,8 @@ public class SendQueueBuffer {
      *            {@code sendMessage}, {@code deleteMessage},
      *            {@code changeMessageVisibility} )
      * @param openOutboundBatchTask
-     *            the open batch task for this call type
+     *            the open batch task for this call type; read without
+     *            locking, and replaced while holding {@code operationLock}
      * @param request
      *            the request to submit
      * @param inflightOperationBatches
@@ -262,30 +310,37 @@ public class SendQueueBuffer {
     @SuppressWarnings("unchecked")
     <OBT extends OutboundBatchTask<R, Result>, R extends AmazonWebServiceRequest, Result> QueueBufferFuture<R, Result> submitOutboundRequest(
             Object operationLock, 
-            OBT[] openOutboundBatchTask, 
+            AtomicReference<OBT> openOutboundBatchTask, 
             R request,
             final Semaphore inflightOperationBatches, 
             QueueBufferCallback<R, Result> callback) {
         /*
          * Callers add requests to a single batch task (openOutboundBatchTask)
-         * until it is full or maxBatchOpenMs elapses. The total number of batch
-         * task in flight is controlled by the inflightOperationBatch semaphore
-         * capped at maxInflightOutboundBatches.
+         * until it is full or closes. The total number of batch task in flight
+         * is controlled by the inflightOperationBatch semaphore capped at
+         * maxInflightOutboundBatches. Adding to the open batch takes no locks;
+         * the operation lock is only taken when it has to be replaced.
          */
+        OBT openTask = openOutboundBatchTask.get();
         QueueBufferFuture<R, Result> theFuture = null;
+        if (openTask != null && (theFuture = openTask.addRequest(request, callback)) != null) {
+            return theFuture;
+        }
+
         try {
             synchronized (operationLock) {
-                if (openOutboundBatchTask[0] == null || ((theFuture = openOutboundBatchTask[0].addRequest(request, callback))) == null) {
+                openTask = openOutboundBatchTask.get();
+                if (openTask == null || ((theFuture = openTask.addRequest(request, callback))) == null) {
                     OBT obt = (OBT) newOutboundBatchTask(request);
                     inflightOperationBatches.acquire();
-                    openOutboundBatchTask[0] = obt;
                     // Register a listener for the event signaling that the
                     // batch task has completed (successfully or not).
-                    openOutboundBatchTask[0].onCompleted = new Listener<OutboundBatchTask<R, Result>>() {
+                    obt.onCompleted = new Listener<OutboundBatchTask<R, Result>>() {
                         public void invoke(OutboundBatchTask<R, Result> task) {
                             inflightOperationBatches.release();
                         }
                     };
+                    openOutboundBatchTask.set(obt);
                     
                     if ( log.isTraceEnabled() ) {
                         log.trace("Queue " + qUrl + " created new batch for " + request.getClass().toString()
@@ -293,8 +348,8 @@ public class SendQueueBuffer {
                                 + " free slots remain");
                     }
                     
-                    theFuture = openOutboundBatchTask[0].addRequest(request, callback);
-                    executor.execute(openOutboundBatchTask[0]);
+                    theFuture = obt.addRequest(request, callback);
+                    executor.execute(obt);
                     if ( null == theFuture ) {
                         //this can happen only if the request itself is flawed, 
                         //so that it can't be added to any batch, even a brand
@@ -319,88 +374,214 @@ public class SendQueueBuffer {
      * Task to send a batch of outbound requests to SQS.
      * <p>
      * The batch task is constructed open and accepts requests until full, or
-     * until {@code maxBatchOpenMs} elapses. At that point, the batch closes and
-     * the collected requests are assembled into a single batch request to SQS.
-     * Specialized for each type of outbound request.
+     * until {@code maxBatchOpenMs} elapses (or earlier, with adaptive batching,
+     * once more requests are not expected to arrive in time). At that point,
+     * the batch closes and the collected requests are assembled into a single
+     * batch request to SQS. Specialized for each type of outbound request.
+     * <p>
+     * Requests are added without locking: the open flag, the number of claimed
+     * slots and their total size in bytes are packed into a single
+     * {@code AtomicLong} so a producer can check capacity and claim a slot
+     * with one compare-and-set. The producer then fills the slot and counts
+     * it as published; once the batch is closed, the task waits for every
+     * claimed slot to be published before reading them.
      * <p>
      * Instances of this class (and subclasses) are thread-safe.
-     * 
+     *
      * @param <R>
      *            the type of the SQS request to batch
      * @param <Result>
      *            the type of result he futures issued by this task will return
      */
     private abstract class OutboundBatchTask<R extends AmazonWebServiceRequest, Result> implements Runnable {
-        final List<R> requests;
-        final ArrayList<QueueBufferFuture<R, Result>> futures;
-        AtomicBoolean open = new AtomicBoolean(true);
+        private static final long CLOSED = 1L << 62;
+        private static final int COUNT_SHIFT = 32;
+        private static final long COUNT_MASK = 0x3FFFFFFFL;
+        private static final long BYTES_MASK = 0xFFFFFFFFL;
+
+        private final AtomicLong state = new AtomicLong();
+        private final AtomicInteger published = new AtomicInteger();
+        private final Object[] slotRequests;
+        private final Object[] slotFutures;
+        private final long[] slotArrivalNanos;
+
+        private final Semaphore inflightBatches;
+        private final OutboundBatchStatistics statistics;
+        private final long maxBatchSizeBytes;
+
+        /** The thread running this task while it waits for the batch to close. */
+        private volatile Thread waiter;
+
+        /** The batched requests and their futures; populated once the batch is closed. */
+        List<R> requests;
+        List<QueueBufferFuture<R, Result>> futures;
+
         volatile Listener<OutboundBatchTask<R, Result>> onCompleted = null;
 
-        OutboundBatchTask() {
-            requests = new ArrayList<R>(config.getMaxBatchSize());
-            futures = new ArrayList<QueueBufferFuture<R, Result>>(config.getMaxBatchSize());
+        OutboundBatchTask(Semaphore inflightBatches, OutboundBatchStatistics statistics, long maxBatchSizeBytes) {
+            int slots = Math.max(1, config.getMaxBatchSize());
+            this.slotRequests = new Object[slots];
+            this.slotFutures = new Object[slots];
+            this.slotArrivalNanos = new long[slots];
+            this.inflightBatches = inflightBatches;
+            this.statistics = statistics;
+            this.maxBatchSizeBytes = maxBatchSizeBytes;
+        }
+
+        /**
+         * Returns the size of the request counted against the batch size
+         * limit in bytes; by default requests have no size.
+         */
+        protected int sizeInBytes(R request) {
+            return 0;
         }
 
         /**
          * Adds a request to the batch if it is still open and has capacity.
-         * 
-         * @return the future that can be used to get the results of the 
-         * execution, or null if the addition failed. 
+         *
+         * @return the future that can be used to get the results of the
+         * execution, or null if the addition failed.
          */
-        synchronized QueueBufferFuture<R, Result> addRequest(R request, QueueBufferCallback<R, Result> callback) {
-            if (!open.get())
-                return null;
+        QueueBufferFuture<R, Result> addRequest(R request, QueueBufferCallback<R, Result> callback) {
+            int size = sizeInBytes(request);
+            while (true) {
+                long current = state.get();
+                if ((current & CLOSED) != 0) return null;
+
+                int count = count(current);
+                long bytes = current & BYTES_MASK;
+                if (count >= config.getMaxBatchSize() || bytes + size >= maxBatchSizeBytes) {
+                    // the addition did not work, so we can close the batch
+                    if (state.compareAndSet(current, current | CLOSED)) {
+                        wakeUp();
+                        return null;
+                    }
+                    continue;
+                }
+
+                int newCount = count + 1;
+                long newBytes = bytes + size;
+                boolean full = newCount >= config.getMaxBatchSize() || newBytes >= maxBatchSizeBytes;
+                long next = ((long) newCount << COUNT_SHIFT) | newBytes | (full ? CLOSED : 0);
+                if (!state.compareAndSet(current, next)) continue;
+
+                QueueBufferFuture<R, Result> theFuture = new QueueBufferFuture<R, Result>(callback);
+                long now = System.nanoTime();
+                slotRequests[count] = request;
+                slotFutures[count] = theFuture;
+                slotArrivalNanos[count] = now;
+                published.incrementAndGet();
+                statistics.requestArrived(now);
+
+                // the batch request is as full as it will ever be. no need to
+                // wait for the timeout, we can run it now.
+                if (full) wakeUp();
+
+                return theFuture;
+            }
+        }
+
+        private int count(long state) {
+            return (int) ((state >>> COUNT_SHIFT) & COUNT_MASK);
+        }
 
-            QueueBufferFuture<R, Result> theFuture = addIfAllowed(request, callback);
+        private boolean isOpen() {
+            return (state.get() & CLOSED) == 0;
+        }
 
-            // if the addition did not work, or this addition made us full,
-            // we can close the request
-            if ((null == theFuture) || isFull()) {
-                open.set(false);
+        private void close() {
+            long current;
+            while (((current = state.get()) & CLOSED) == 0) {
+                if (state.compareAndSet(current, current | CLOSED)) return;
             }
+        }
 
-            // the batch request is as full as it will ever be. no need to wait
-            // for the timeout, we can run it now.
-            if (!open.get())
-                notify();
+        private void wakeUp() {
+            Thread thread = waiter;
+            if (thread != null) LockSupport.unpark(thread);
+        }
 
-            return theFuture;
+        /**
+         * Waits until the batch is full, {@code maxBatchOpenMs} elapses, or
+         * (with adaptive batching) the batch is not expected to grow any
+         * further, then closes the batch and collects its requests.
+         */
+        private void awaitClose() throws InterruptedException {
+            try {
+                waiter = Thread.currentThread();
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getMaxBatchOpenMs());
+                while (isOpen()) {
+                    long now = System.nanoTime();
+                    long toWait = deadline - now;
+                    if (toWait <= 0) break;
+
+                    if (config.isAdaptiveBatching()) {
+                        long worthWaiting = adaptiveWaitNanos(now, deadline);
+                        if (worthWaiting <= 0) break;
+                        toWait = Math.min(toWait, worthWaiting);
+                    }
+
+                    LockSupport.parkNanos(this, toWait);
+                    if (Thread.interrupted()) throw new InterruptedException();
+                }
+            } finally {
+                waiter = null;
+                close();
+                collectRequests();
+            }
         }
 
         /**
-         * Adds the request to the batch if capacity allows it.
-         * 
-         * @param request
-         * @return the future that will be signaled when the request is
-         *         completed and can be used to retrieve the result. Can be null
-         *         if the addition could not be done
+         * Returns how much longer it is worth keeping the batch open for more
+         * requests, or zero if it should be sent now. The batch is kept open
+         * while the next request is expected before the deadline (allowing
+         * for twice the average time between requests), while there is room
+         * in the byte budget for another average-sized request, and always
+         * while no other batch could be started because the in-flight limit
+         * has been reached.
          */
-        synchronized QueueBufferFuture<R, Result> addIfAllowed(R request, QueueBufferCallback<R,Result> callback) {
-            if (isOkToAdd(request)) {
-                requests.add(request);
+        private long adaptiveWaitNanos(long now, long deadline) {
+            if (inflightBatches.availablePermits() == 0) return deadline - now;
 
-                QueueBufferFuture<R, Result> theFuture = new QueueBufferFuture<R, Result>(callback);
+            long interArrival = statistics.getInterArrivalNanos();
+            if (interArrival < 0) return 0;
 
-                futures.add(theFuture);
-                onRequestAdded(request);
-                return theFuture;
-            } else
-                return null;
-        }
+            long current = state.get();
+            int count = count(current);
+            long bytes = current & BYTES_MASK;
+            if (count > 0 && maxBatchSizeBytes - bytes <= bytes / count) return 0;
 
-        protected synchronized boolean isOkToAdd(R request) {
-            return requests.size() < config.getMaxBatchSize();
-        }
-        
-        protected synchronized void onRequestAdded(R request) {
-            // to be overridden by subclasses
+            long expectedNext = statistics.getLastArrivalNanos() + 2 * interArrival;
+            if (expectedNext - deadline >= 0) return 0;
+            return expectedNext - now;
         }
 
         /**
-         * @return whether the buffer is filled to capacity
+         * Waits for every claimed slot to be filled, then copies the closed
+         * batch into {@link #requests} and {@link #futures}.
          */
-        synchronized boolean isFull() {
-            return requests.size() >= config.getMaxBatchSize();
+        @SuppressWarnings("unchecked")
+        private void collectRequests() {
+            int claimed = count(state.get());
+            while (published.get() < claimed) {
+                Thread.yield();
+            }
+
+            requests = new ArrayList<R>(claimed);
+            futures = new ArrayList<QueueBufferFuture<R, Result>>(claimed);
+            if (claimed == 0) return;
+
+            long now = System.nanoTime();
+            long totalQueueing = 0;
+            long maxQueueing = 0;
+            for (int i = 0; i < claimed; i++) {
+                requests.add((R) slotRequests[i]);
+                futures.add((QueueBufferFuture<R, Result>) slotFutures[i]);
+                long queueing = now - slotArrivalNanos[i];
+                totalQueueing += queueing;
+                maxQueueing = Math.max(maxQueueing, queueing);
+            }
+            statistics.batchSent(claimed, totalQueueing, maxQueueing);
         }
 
         /**
@@ -409,20 +590,9 @@ public class SendQueueBuffer {
         abstract void process();
 
         @Override
-        public synchronized void run() {
+        public void run() {
             try {
-                long deadlineMs = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS ) + 
-                        config.getMaxBatchOpenMs() +1;
-                long t = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS );
-                while (open.get()  && (t  < deadlineMs ) ) {
-                    t = TimeUnit.MILLISECONDS.convert(System.nanoTime(), TimeUnit.NANOSECONDS );
-                    
-                    //zero means "wait forever", can't have that.
-                    long toWait = Math.max(1, deadlineMs - t);
-                    wait(toWait);
-                }
-                    
-                open.set(false);
+                awaitClose();
                 process();
             } catch (InterruptedException e) {
                 failAll( e );
@@ -441,8 +611,9 @@ public class SendQueueBuffer {
                     completionListener.invoke(this);
             }
         }
-        
+
         private void failAll( Exception e) {
+            if (futures == null) return;
             for( QueueBufferFuture<R, Result> f : futures ) {
                 f.setFailure(e);
             }
@@ -451,23 +622,15 @@ public class SendQueueBuffer {
 
     private class SendMessageBatchTask extends
             OutboundBatchTask<SendMessageRequest, SendMessageResult> {
-        int batchSizeBytes = 0;
 
-        @Override
-        protected synchronized boolean isOkToAdd(SendMessageRequest request) {
-            return ( requests.size() < config.getMaxBatchSize() ) && 
-                    ((request.getMessageBody().getBytes().length + batchSizeBytes) < config.getMaxBatchSizeBytes()); 
-        }
-
-        @Override
-        protected void onRequestAdded(SendMessageRequest request) {
-            batchSizeBytes += request.getMessageBody().getBytes().length;
+        SendMessageBatchTask() {
+            super(inflightSendMessageBatches, sendMessageStatistics,
+                    Math.min(config.getMaxBatchSizeBytes(), Integer.MAX_VALUE));
         }
 
         @Override
-        synchronized boolean isFull() {
-            return ( requests.size() >= config.getMaxBatchSize() ) || 
-                    ( batchSizeBytes >= config.getMaxBatchSizeBytes());
+        protected int sizeInBytes(SendMessageRequest request) {
+            return request.getMessageBody().getBytes().length;
         }
 
         @Override
@@ -519,6 +682,10 @@ public class SendQueueBuffer {
     private class DeleteMessageBatchTask extends
             OutboundBatchTask<DeleteMessageRequest, Void> {
 
+        DeleteMessageBatchTask() {
+            super(inflightDeleteMessageBatches, deleteMessageStatistics, Long.MAX_VALUE);
+        }
+
         @Override
         void process() {
             if (requests.isEmpty())
@@ -565,6 +732,10 @@ public class SendQueueBuffer {
     private class ChangeMessageVisibilityBatchTask extends
             OutboundBatchTask<ChangeMessageVisibilityRequest, Void> {
 
+        ChangeMessageVisibilityBatchTask() {
+            super(inflightChangeMessageVisibilityBatches, changeMessageVisibilityStatistics, Long.MAX_VALUE);
+        }
+
         @Override
         void process() {
             if (requests.isEmpty())
@@ -25,7 +25,6 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Stack;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
@@ -36,8 +35,24 @@ public class JsonUnmarshallerContext {
 
     private final JsonParser jsonParser;
 
-    private final Stack<String> stack = new Stack<String>();
-    private String stackString = "";
+    /*
+     * The path to the current position is tracked incrementally rather than
+     * rebuilt on every token: path holds "/field1/field2/currentField", and
+     * for each enclosing object or array we remember its field name, the
+     * token that opened it, and the length of path up to and including its
+     * field name, so closing it is just a truncation.
+     */
+    private final StringBuilder path = new StringBuilder();
+    private String[] stackFields = new String[16];
+    private JsonToken[] stackTokens = new JsonToken[16];
+    private int[] stackPathLengths = new int[16];
+    private int stackSize;
+
+    /*
+     * Enclosing arrays have always counted as an extra level of depth, and the
+     * generated unmarshallers compute their target depths accordingly.
+     */
+    private int arrayCount;
 
     private String currentField;
 
@@ -90,12 +105,7 @@ public class JsonUnmarshallerContext {
      *         document being parsed.
      */
     public int getCurrentDepth() {
-        int depth = 0;
-        for (String s : stack) {
-            if (!(s.equals(START_OBJECT.asString()) || s.equals(START_ARRAY.toString()))) {
-                 depth++;
-            }
-        }
+        int depth = stackSize + arrayCount;
         if (currentField != null) depth++;
         return depth;
     }
@@ -143,7 +153,7 @@ public class JsonUnmarshallerContext {
     public boolean testExpression(String expression) {
         if (expression.equals("."))
             return true;
-        return stackString.endsWith(expression);
+        return pathEndsWith(expression, false);
     }
 
     /**
@@ -151,11 +161,10 @@ public class JsonUnmarshallerContext {
      * stackString
      */
     public String getCurrentParentElement() {
-        String[] tokens = stackString.split("/");
-        if (tokens.length == 0) {
-            return "";
-        }
-        return tokens[tokens.length - 1];
+        int end = path.length();
+        while (end > 0 && path.charAt(end - 1) == '/') end--;
+        int start = path.lastIndexOf("/", end - 1) + 1;
+        return path.substring(start, end);
     }
 
     /**
@@ -183,8 +192,8 @@ public class JsonUnmarshallerContext {
             }
         }
 
-        return stackString.endsWith("/" + expression) &&
-               stackDepth == getCurrentDepth();
+        return stackDepth == getCurrentDepth() &&
+               pathEndsWith(expression, true);
     }
 
     public JsonToken nextToken() throws IOException {
@@ -268,31 +277,82 @@ public class JsonUnmarshallerContext {
 
         if (currentToken == START_OBJECT || currentToken == START_ARRAY) {
             if (currentField != null) {
-                stack.push(currentField);
-                stack.push(currentToken.asString());
+                // The field name is already the last segment of the path
+                push(currentField, currentToken);
                 currentField = null;
             }
         } else if (currentToken == END_OBJECT || currentToken == END_ARRAY) {
-            if (!stack.isEmpty()) {
-                boolean squareBracketsMatch = currentToken == END_ARRAY && stack.peek().equals(START_ARRAY.asString());
-                boolean curlyBracketsMatch = currentToken == END_OBJECT && stack.peek().equals(START_OBJECT.asString());
+            if (stackSize > 0) {
+                JsonToken top = stackTokens[stackSize - 1];
+                boolean squareBracketsMatch = currentToken == END_ARRAY && top == START_ARRAY;
+                boolean curlyBracketsMatch = currentToken == END_OBJECT && top == START_OBJECT;
                 if (squareBracketsMatch || curlyBracketsMatch) {
-                stack.pop();
-                lastParsedParentElement = stack.pop();
+                    stackSize--;
+                    if (top == START_ARRAY) arrayCount--;
+                    lastParsedParentElement = stackFields[stackSize];
+                    stackFields[stackSize] = null;
                 }
             }
             currentField = null;
+            path.setLength(parentPathLength());
         } else if (currentToken == FIELD_NAME) {
             String t = jsonParser.getText();
             currentField = t;
+            path.setLength(parentPathLength());
+            path.append('/').append(t);
         }
+    }
 
-        rebuildStackString();
+    private void push(String field, JsonToken token) {
+        if (stackSize == stackFields.length) {
+            int newLength = stackSize * 2;
+            String[] newFields = new String[newLength];
+            JsonToken[] newTokens = new JsonToken[newLength];
+            int[] newPathLengths = new int[newLength];
+            System.arraycopy(stackFields, 0, newFields, 0, stackSize);
+            System.arraycopy(stackTokens, 0, newTokens, 0, stackSize);
+            System.arraycopy(stackPathLengths, 0, newPathLengths, 0, stackSize);
+            stackFields = newFields;
+            stackTokens = newTokens;
+            stackPathLengths = newPathLengths;
+        }
+        stackFields[stackSize] = field;
+        stackTokens[stackSize] = token;
+        stackPathLengths[stackSize] = path.length();
+        stackSize++;
+        if (token == START_ARRAY) arrayCount++;
+    }
+
+    /**
+     * Returns the length of the path up to (and excluding) the current field.
+     */
+    private int parentPathLength() {
+        return (stackSize == 0) ? 0 : stackPathLengths[stackSize - 1];
+    }
+
+    /**
+     * Returns whether the current path (as returned by {@link #toString()})
+     * ends with the specified suffix, optionally requiring the suffix to be
+     * preceded by a '/'. Compares in place so no strings are built.
+     */
+    private boolean pathEndsWith(String suffix, boolean leadingSlash) {
+        CharSequence current = (path.length() == 0) ? "/" : path;
+        int offset = current.length() - suffix.length();
+        if (leadingSlash) {
+            if (offset < 1 || current.charAt(offset - 1) != '/') return false;
+        } else if (offset < 0) {
+            return false;
+        }
+
+        for (int i = 0; i < suffix.length(); i++) {
+            if (current.charAt(offset + i) != suffix.charAt(i)) return false;
+        }
+        return true;
     }
 
     @Override
     public String toString() {
-        return stackString;
+        return (path.length() == 0) ? "/" : path.toString();
     }
 
     /**
@@ -302,20 +362,4 @@ public class JsonUnmarshallerContext {
     public String getLastParsedParentElement() {
         return lastParsedParentElement;
     }
-
-    private void rebuildStackString() {
-        stackString = "";
-
-        for (String s : stack) {
-            if (! (s.equals(START_ARRAY.asString()) || s.equals(START_OBJECT.asString()))) {
-                stackString += "/" + s;
-            }
-        }
-
-        if (currentField != null) {
-            stackString += "/" + currentField;
-        }
-
-        if (stackString == "") stackString = "/";
-    }
 }
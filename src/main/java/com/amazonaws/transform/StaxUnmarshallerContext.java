@@ -41,7 +41,18 @@ public class StaxUnmarshallerContext {
     private final XMLEventReader eventReader;
 
     public final Stack<String> stack = new Stack<String>();
-    private String stackString = "";
+
+    /*
+     * The current path ("/element1/element2", or "/element1/@attribute" while
+     * attributes are being read) is maintained incrementally, along with the
+     * length of the path at each level of the stack, so that ending an
+     * element only truncates the path rather than rebuilding it. Once an
+     * attribute segment has been appended the path no longer mirrors the
+     * stack, and it is rebuilt from the stack the next time it is needed.
+     */
+    private final StringBuilder path = new StringBuilder();
+    private int[] pathLengths = new int[16];
+    private boolean pathMatchesStack = true;
 
     private Map<String, String> metadata = new HashMap<String, String>();
     private List<MetadataExpression> metadataExpressions = new ArrayList<MetadataExpression>();
@@ -138,7 +149,7 @@ public class StaxUnmarshallerContext {
      */
     public boolean testExpression(String expression) {
         if (expression.equals(".")) return true;
-        return stackString.endsWith(expression);
+        return pathEndsWith(expression, false);
     }
 
     /**
@@ -168,7 +179,7 @@ public class StaxUnmarshallerContext {
 
 
         return (startingStackDepth == getCurrentDepth()
-                && stackString.endsWith("/" + expression));
+                && pathEndsWith(expression, true));
     }
 
     /**
@@ -272,21 +283,60 @@ public class StaxUnmarshallerContext {
 
         if (event.isEndElement()) {
             stack.pop();
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
+            if (pathMatchesStack) {
+                int depth = stack.size();
+                path.setLength(depth == 0 ? 0 : pathLengths[depth - 1]);
+            } else {
+                rebuildPath();
             }
         } else if (event.isStartElement()) {
-            stack.push(event.asStartElement().getName().getLocalPart());
-            stackString += "/" + event.asStartElement().getName().getLocalPart();
+            String name = event.asStartElement().getName().getLocalPart();
+            stack.push(name);
+            path.append('/').append(name);
+            recordPathLength(stack.size() - 1);
         } else if (event.isAttribute()) {
             Attribute attribute = (Attribute)event;
-            stackString = "";
-            for (String s : stack) {
-                stackString += "/" + s;
-            }
-            stackString += "/@" + attribute.getName().getLocalPart();
+            if (!pathMatchesStack) rebuildPath();
+            path.append("/@").append(attribute.getName().getLocalPart());
+            pathMatchesStack = false;
+        }
+    }
+
+    private void rebuildPath() {
+        path.setLength(0);
+        for (int i = 0; i < stack.size(); i++) {
+            path.append('/').append(stack.get(i));
+            recordPathLength(i);
+        }
+        pathMatchesStack = true;
+    }
+
+    private void recordPathLength(int depth) {
+        if (depth == pathLengths.length) {
+            int[] newPathLengths = new int[depth * 2];
+            System.arraycopy(pathLengths, 0, newPathLengths, 0, depth);
+            pathLengths = newPathLengths;
+        }
+        pathLengths[depth] = path.length();
+    }
+
+    /**
+     * Returns whether the current path ends with the specified suffix,
+     * optionally requiring the suffix to be preceded by a '/'. Compares in
+     * place so that testing an expression doesn't build any strings.
+     */
+    private boolean pathEndsWith(String suffix, boolean leadingSlash) {
+        int offset = path.length() - suffix.length();
+        if (leadingSlash) {
+            if (offset < 1 || path.charAt(offset - 1) != '/') return false;
+        } else if (offset < 0) {
+            return false;
+        }
+
+        for (int i = 0; i < suffix.length(); i++) {
+            if (path.charAt(offset + i) != suffix.charAt(i)) return false;
         }
+        return true;
     }
 
 }
@@ -26,27 +26,45 @@ import java.util.SimpleTimeZone;
 /**
  * Utilities for parsing and formatting dates.
  * <p>
- * Note that this class doesn't use static methods because of the
- * synchronization issues with SimpleDateFormat. This lets synchronization be
- * done on a per-object level, instead of on a per-class level.
+ * Dates are parsed and formatted by {@link GmtDateFormat}, which is
+ * thread-safe without locking, so a single instance can be shared by any
+ * number of threads.
  */
 public class DateUtils {
 
-    /** ISO 8601 format */
+    /**
+     * ISO 8601 format
+     *
+     * @deprecated No longer used; dates are handled by {@link GmtDateFormat}.
+     */
+    @Deprecated
     protected final SimpleDateFormat iso8601DateFormat =
         new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
 
-    /** Alternate ISO 8601 format without fractional seconds */
+    /**
+     * Alternate ISO 8601 format without fractional seconds
+     *
+     * @deprecated No longer used; dates are handled by {@link GmtDateFormat}.
+     */
+    @Deprecated
     protected final SimpleDateFormat alternateIso8601DateFormat =
         new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
 
-    /** RFC 822 format */
+    /**
+     * RFC 822 format
+     *
+     * @deprecated No longer used; dates are handled by {@link GmtDateFormat}.
+     */
+    @Deprecated
     protected final SimpleDateFormat rfc822DateFormat =
         new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss z", Locale.US);
 
     /**
      * This is another ISO 8601 format that's used in clock skew error response
+     *
+     * @deprecated No longer used; dates are handled by {@link GmtDateFormat}.
      */
+    @Deprecated
     protected final SimpleDateFormat compressedIso8601DateFormat =
         new SimpleDateFormat("yyyyMMdd'T'HHmmss'Z'");
 
@@ -73,17 +91,7 @@ public class DateUtils {
      *             If the date string could not be parsed.
      */
     public Date parseIso8601Date(String dateString) throws ParseException {
-        try {
-            synchronized (iso8601DateFormat) {
-                return iso8601DateFormat.parse(dateString);
-            }
-        } catch (ParseException e) {
-            // If the first ISO 8601 parser didn't work, try the alternate
-            // version which doesn't include fractional seconds
-            synchronized (alternateIso8601DateFormat) {
-                return alternateIso8601DateFormat.parse(dateString);
-            }
-        }
+        return new Date(GmtDateFormat.parseIso8601(dateString));
     }
 
     /**
@@ -95,9 +103,7 @@ public class DateUtils {
      * @return The ISO 8601 string representing the specified date.
      */
     public String formatIso8601Date(Date date) {
-        synchronized (iso8601DateFormat) {
-            return iso8601DateFormat.format(date);
-        }
+        return GmtDateFormat.formatIso8601(date.getTime());
     }
 
     /**
@@ -113,9 +119,7 @@ public class DateUtils {
      *             If the date string could not be parsed.
      */
     public Date parseRfc822Date(String dateString) throws ParseException {
-        synchronized (rfc822DateFormat) {
-            return rfc822DateFormat.parse(dateString);
-        }
+        return new Date(GmtDateFormat.parseRfc822(dateString));
     }
 
     /**
@@ -127,9 +131,7 @@ public class DateUtils {
      * @return The RFC 822 string representing the specified date.
      */
     public String formatRfc822Date(Date date) {
-        synchronized (rfc822DateFormat) {
-            return rfc822DateFormat.format(date);
-        }
+        return GmtDateFormat.formatRfc822(date.getTime());
     }
 
     /**
@@ -145,8 +147,6 @@ public class DateUtils {
      *             If the date string could not be parsed.
      */
     public Date parseCompressedIso8601Date(String dateString) throws ParseException {
-        synchronized (compressedIso8601DateFormat) {
-            return compressedIso8601DateFormat.parse(dateString);
-        }
+        return new Date(GmtDateFormat.parseCompressedIso8601(dateString));
     }
 }
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.SimpleTimeZone;
+
+/**
+ * Thread-safe formatting and parsing of the GMT date formats used by AWS
+ * services, without locks or shared {@link SimpleDateFormat} instances.
+ * <p>
+ * Dates are formatted and parsed directly for the years 1970 to 9999, and
+ * the string formatted for the most recent second (or day) is cached for each
+ * format, since most formatted dates are the current time. Other dates, and
+ * strings not exactly in the expected form, are handled by a new
+ * {@link SimpleDateFormat}, so the results are always the same as with the
+ * patterns documented on each method.
+ */
+public final class GmtDateFormat {
+
+    private static final String ISO8601_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+    private static final String ALTERNATE_ISO8601_PATTERN = "yyyy-MM-dd'T'HH:mm:ss'Z'";
+    private static final String RFC822_PATTERN = "EEE, dd MMM yyyy HH:mm:ss z";
+    private static final String COMPRESSED_ISO8601_PATTERN = "yyyyMMdd'T'HHmmss'Z'";
+    private static final String DATE_STAMP_PATTERN = "yyyyMMdd";
+
+    /** Day names, starting with the day of the epoch (a Thursday). */
+    private static final String[] DAY_NAMES = {"Thu", "Fri", "Sat", "Sun", "Mon", "Tue", "Wed"};
+    private static final String[] MONTH_NAMES =
+        {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    /** 9999-12-31T23:59:59.999Z, the last instant handled directly. */
+    private static final long MAX_MILLIS = 253402300799999L;
+
+    /** A formatted second (or day), published as a whole through a volatile field. */
+    private static final class Cached {
+        final long time;
+        final String text;
+
+        Cached(long time, String text) {
+            this.time = time;
+            this.text = text;
+        }
+    }
+
+    /** Caches the seconds, formatted without milliseconds. */
+    private static volatile Cached iso8601Second;
+    private static volatile Cached rfc822Second;
+    private static volatile Cached compressedIso8601Second;
+    private static volatile Cached dateStampDay;
+
+    private GmtDateFormat() {
+    }
+
+    /**
+     * Formats the specified time as <code>yyyy-MM-dd'T'HH:mm:ss.SSS'Z'</code>.
+     */
+    public static String formatIso8601(long millis) {
+        if (millis < 0 || millis > MAX_MILLIS) return fallbackFormat(ISO8601_PATTERN, millis);
+
+        long second = millis / 1000;
+        Cached cached = iso8601Second;
+        if (cached == null || cached.time != second) {
+            int[] fields = fields(second);
+            char[] text = new char[19];
+            appendDigits(text, 0, fields[0], 4);
+            text[4] = '-';
+            appendDigits(text, 5, fields[1], 2);
+            text[7] = '-';
+            appendDigits(text, 8, fields[2], 2);
+            text[10] = 'T';
+            appendTime(text, 11, fields);
+            cached = iso8601Second = new Cached(second, new String(text));
+        }
+
+        char[] text = new char[24];
+        cached.text.getChars(0, 19, text, 0);
+        text[19] = '.';
+        appendDigits(text, 20, (int)(millis - second * 1000), 3);
+        text[23] = 'Z';
+        return new String(text);
+    }
+
+    /**
+     * Formats the specified time as <code>EEE, dd MMM yyyy HH:mm:ss z</code>,
+     * in the GMT time zone.
+     */
+    public static String formatRfc822(long millis) {
+        if (millis < 0 || millis > MAX_MILLIS) return fallbackFormat(RFC822_PATTERN, millis);
+
+        long second = millis / 1000;
+        Cached cached = rfc822Second;
+        if (cached == null || cached.time != second) {
+            int[] fields = fields(second);
+            char[] text = new char[29];
+            DAY_NAMES[(int)((second / (24 * 60 * 60)) % 7)].getChars(0, 3, text, 0);
+            text[3] = ',';
+            text[4] = ' ';
+            appendDigits(text, 5, fields[2], 2);
+            text[7] = ' ';
+            MONTH_NAMES[fields[1] - 1].getChars(0, 3, text, 8);
+            text[11] = ' ';
+            appendDigits(text, 12, fields[0], 4);
+            text[16] = ' ';
+            appendTime(text, 17, fields);
+            text[25] = ' ';
+            "GMT".getChars(0, 3, text, 26);
+            cached = rfc822Second = new Cached(second, new String(text));
+        }
+        return cached.text;
+    }
+
+    /**
+     * Formats the specified time as <code>yyyyMMdd'T'HHmmss'Z'</code>.
+     */
+    public static String formatCompressedIso8601(long millis) {
+        if (millis < 0 || millis > MAX_MILLIS) return fallbackFormat(COMPRESSED_ISO8601_PATTERN, millis);
+
+        long second = millis / 1000;
+        Cached cached = compressedIso8601Second;
+        if (cached == null || cached.time != second) {
+            int[] fields = fields(second);
+            char[] text = new char[16];
+            appendDate(text, 0, fields);
+            text[8] = 'T';
+            appendDigits(text, 9, fields[3], 2);
+            appendDigits(text, 11, fields[4], 2);
+            appendDigits(text, 13, fields[5], 2);
+            text[15] = 'Z';
+            cached = compressedIso8601Second = new Cached(second, new String(text));
+        }
+        return cached.text;
+    }
+
+    /**
+     * Formats the date of the specified time as <code>yyyyMMdd</code>.
+     */
+    public static String formatDateStamp(long millis) {
+        if (millis < 0 || millis > MAX_MILLIS) return fallbackFormat(DATE_STAMP_PATTERN, millis);
+
+        long day = millis / MILLIS_PER_DAY;
+        Cached cached = dateStampDay;
+        if (cached == null || cached.time != day) {
+            char[] text = new char[8];
+            appendDate(text, 0, fields(day * 24 * 60 * 60));
+            cached = dateStampDay = new Cached(day, new String(text));
+        }
+        return cached.text;
+    }
+
+    /**
+     * Parses a date formatted as <code>yyyy-MM-dd'T'HH:mm:ss.SSS'Z'</code> or
+     * <code>yyyy-MM-dd'T'HH:mm:ss'Z'</code>.
+     *
+     * @return The parsed time, in milliseconds since the epoch.
+     *
+     * @throws ParseException
+     *             If the date string could not be parsed.
+     */
+    public static long parseIso8601(String dateString) throws ParseException {
+        int length = dateString.length();
+        if ((length == 24 && dateString.charAt(19) == '.' && dateString.charAt(23) == 'Z')
+                || (length == 20 && dateString.charAt(19) == 'Z')) {
+            if (dateString.charAt(4) == '-' && dateString.charAt(7) == '-' && dateString.charAt(10) == 'T'
+                    && dateString.charAt(13) == ':' && dateString.charAt(16) == ':') {
+                int millis = (length == 24) ? parseDigits(dateString, 20, 3) : 0;
+                long time = toMillis(parseDigits(dateString, 0, 4), parseDigits(dateString, 5, 2),
+                        parseDigits(dateString, 8, 2), parseDigits(dateString, 11, 2),
+                        parseDigits(dateString, 14, 2), parseDigits(dateString, 17, 2), millis);
+                if (time >= 0) return time;
+            }
+        }
+
+        try {
+            return fallbackParse(ISO8601_PATTERN, dateString);
+        } catch (ParseException e) {
+            // If the first ISO 8601 parser didn't work, try the alternate
+            // version which doesn't include fractional seconds
+            return fallbackParse(ALTERNATE_ISO8601_PATTERN, dateString);
+        }
+    }
+
+    /**
+     * Parses a date formatted as <code>EEE, dd MMM yyyy HH:mm:ss z</code>.
+     *
+     * @return The parsed time, in milliseconds since the epoch.
+     *
+     * @throws ParseException
+     *             If the date string could not be parsed.
+     */
+    public static long parseRfc822(String dateString) throws ParseException {
+        if (dateString.length() == 29 && dateString.charAt(3) == ',' && dateString.charAt(4) == ' '
+                && dateString.charAt(7) == ' ' && dateString.charAt(11) == ' ' && dateString.charAt(16) == ' '
+                && dateString.charAt(19) == ':' && dateString.charAt(22) == ':' && dateString.charAt(25) == ' '
+                && dateString.endsWith("GMT") && indexOf(DAY_NAMES, dateString, 0) >= 0) {
+            int month = indexOf(MONTH_NAMES, dateString, 8) + 1;
+            if (month > 0) {
+                // The day of the week isn't checked against the date, like SimpleDateFormat
+                long time = toMillis(parseDigits(dateString, 12, 4), month, parseDigits(dateString, 5, 2),
+                        parseDigits(dateString, 17, 2), parseDigits(dateString, 20, 2),
+                        parseDigits(dateString, 23, 2), 0);
+                if (time >= 0) return time;
+            }
+        }
+        return fallbackParse(RFC822_PATTERN, dateString);
+    }
+
+    /**
+     * Parses a date formatted as <code>yyyyMMdd'T'HHmmss'Z'</code>.
+     *
+     * @return The parsed time, in milliseconds since the epoch.
+     *
+     * @throws ParseException
+     *             If the date string could not be parsed.
+     */
+    public static long parseCompressedIso8601(String dateString) throws ParseException {
+        if (dateString.length() == 16 && dateString.charAt(8) == 'T' && dateString.charAt(15) == 'Z') {
+            long time = toMillis(parseDigits(dateString, 0, 4), parseDigits(dateString, 4, 2),
+                    parseDigits(dateString, 6, 2), parseDigits(dateString, 9, 2),
+                    parseDigits(dateString, 11, 2), parseDigits(dateString, 13, 2), 0);
+            if (time >= 0) return time;
+        }
+        return fallbackParse(COMPRESSED_ISO8601_PATTERN, dateString);
+    }
+
+    /**
+     * Returns the year, month, day, hours, minutes and seconds of the
+     * specified number of seconds since the epoch.
+     */
+    private static int[] fields(long second) {
+        long days = second / (24 * 60 * 60);
+        int secondOfDay = (int)(second - days * 24 * 60 * 60);
+
+        // Civil date from the number of days, with years starting in March
+        long z = days + 719468;
+        long era = z / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int)(dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int)(shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        int year = (int)(yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        return new int[] {year, month, day, secondOfDay / 3600, (secondOfDay / 60) % 60, secondOfDay % 60};
+    }
+
+    /**
+     * Returns the milliseconds since the epoch of the specified date and
+     * time, or -1 if any field is out of range or outside the years handled
+     * directly.
+     */
+    private static long toMillis(int year, int month, int day, int hours, int minutes, int seconds, int millis) {
+        if (year < 1970 || year > 9999 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+                || hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59
+                || millis < 0) {
+            return -1;
+        }
+
+        long y = (month <= 2) ? year - 1 : year;
+        long era = y / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long days = era * 146097 + dayOfEra - 719468;
+
+        return days * MILLIS_PER_DAY + ((hours * 60L + minutes) * 60 + seconds) * 1000 + millis;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean isLeapYear = (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+            return isLeapYear ? 29 : 28;
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
+
+    private static void appendDate(char[] text, int offset, int[] fields) {
+        appendDigits(text, offset, fields[0], 4);
+        appendDigits(text, offset + 4, fields[1], 2);
+        appendDigits(text, offset + 6, fields[2], 2);
+    }
+
+    private static void appendTime(char[] text, int offset, int[] fields) {
+        appendDigits(text, offset, fields[3], 2);
+        text[offset + 2] = ':';
+        appendDigits(text, offset + 3, fields[4], 2);
+        text[offset + 5] = ':';
+        appendDigits(text, offset + 6, fields[5], 2);
+    }
+
+    private static void appendDigits(char[] text, int offset, int value, int count) {
+        for (int i = offset + count - 1; i >= offset; i--) {
+            text[i] = (char)('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Returns the value of the specified decimal digits, or -1 if they aren't
+     * all ASCII digits.
+     */
+    private static int parseDigits(String text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int indexOf(String[] names, String text, int offset) {
+        for (int i = 0; i < names.length; i++) {
+            if (text.startsWith(names[i], offset)) return i;
+        }
+        return -1;
+    }
+
+    private static SimpleDateFormat newDateFormat(String pattern) {
+        SimpleDateFormat dateFormat = new SimpleDateFormat(pattern, Locale.US);
+        dateFormat.setTimeZone(new SimpleTimeZone(0, "GMT"));
+        return dateFormat;
+    }
+
+    private static String fallbackFormat(String pattern, long millis) {
+        return newDateFormat(pattern).format(new Date(millis));
+    }
+
+    private static long fallbackParse(String pattern, String dateString) throws ParseException {
+        return newDateFormat(pattern).parse(dateString).getTime();
+    }
+}
@@ -14,6 +14,7 @@
  */
 package com.amazonaws.util;
 
+import java.lang.ref.WeakReference;
 import java.util.LinkedHashMap;
 import java.util.Map.Entry;
 
@@ -23,9 +24,20 @@ import com.amazonaws.ResponseMetadata;
  * Cache of response metadata for recently executed requests for diagnostic
  * purposes. This cache has a max size and as entries are added, the oldest
  * entry is aged out once the max size has been reached.
+ * <p>
+ * Entries are keyed by the identity of the request object, and only hold a
+ * weak reference to it, so the cache never confuses two distinct requests
+ * and never keeps a request from being garbage collected. The cache is split
+ * into independently locked stripes, so concurrent requests sharing a client
+ * rarely contend on the same lock. A cache created with a maximum size of
+ * zero is disabled and stores nothing.
  */
 public class ResponseMetadataCache {
-    private final InternalCache internalCache;
+
+    /** The maximum number of stripes the cache is split into. */
+    private static final int MAX_STRIPES = 16;
+
+    private final InternalCache[] stripes;
 
 
     /**
@@ -33,10 +45,24 @@ public class ResponseMetadataCache {
      * entries.
      *
      * @param maxEntries
-     *            The maximum size of this cache.
+     *            The maximum size of this cache, or zero to disable it.
      */
     public ResponseMetadataCache(int maxEntries) {
-        internalCache = new InternalCache(maxEntries);
+        if (maxEntries <= 0) {
+            stripes = new InternalCache[0];
+            return;
+        }
+
+        int stripeCount = 1;
+        while (stripeCount * 2 <= Math.min(MAX_STRIPES, maxEntries)) {
+            stripeCount *= 2;
+        }
+        stripes = new InternalCache[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            // Spread the entries evenly, rounding up so the whole cache
+            // can still hold at least maxEntries entries
+            stripes[i] = new InternalCache((maxEntries + stripeCount - 1) / stripeCount);
+        }
     }
 
     /**
@@ -48,9 +74,14 @@ public class ResponseMetadataCache {
      * @param metadata
      *            The metadata for this entry.
      */
-    public synchronized void add(Object obj, ResponseMetadata metadata) {
-        if (obj == null) return;
-        internalCache.put(System.identityHashCode(obj), metadata);
+    public void add(Object obj, ResponseMetadata metadata) {
+        if (obj == null || stripes.length == 0) return;
+
+        int hash = System.identityHashCode(obj);
+        InternalCache stripe = stripeFor(hash);
+        synchronized (stripe) {
+            stripe.put(new WeakIdentityKey(obj, hash), metadata);
+        }
     }
 
     /**
@@ -64,20 +95,85 @@ public class ResponseMetadataCache {
      *         otherwise null if no metadata is associated with that object.
      */
     public ResponseMetadata get(Object obj) {
-        // System.identityHashCode isn't guaranteed to be unique
-        // on all platforms, but should be reasonable enough to use
-        // for a few requests at a time.  We can always easily move
-        // to our own unique IDs if needed.
-        return internalCache.get(System.identityHashCode(obj));
+        if (obj == null || stripes.length == 0) return null;
+
+        int hash = System.identityHashCode(obj);
+        InternalCache stripe = stripeFor(hash);
+        synchronized (stripe) {
+            return stripe.get(new StrongIdentityKey(obj, hash));
+        }
     }
 
+    private InternalCache stripeFor(int hash) {
+        // Mix the high bits in, since identity hash codes are often sequential
+        hash ^= (hash >>> 16);
+        return stripes[hash & (stripes.length - 1)];
+    }
+
+
+    /**
+     * Cache key that compares objects by identity. The stored keys hold their
+     * object weakly; lookups use a strong key, which compares equal to a
+     * stored key for the same object.
+     */
+    private static abstract class IdentityKey {
+        private final int hash;
+
+        IdentityKey(int hash) {
+            this.hash = hash;
+        }
+
+        abstract Object getObject();
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof IdentityKey)) return false;
+            IdentityKey that = (IdentityKey)other;
+            Object obj = getObject();
+            return hash == that.hash && obj != null && obj == that.getObject();
+        }
+    }
+
+    private static final class WeakIdentityKey extends IdentityKey {
+        private final WeakReference<Object> reference;
+
+        WeakIdentityKey(Object obj, int hash) {
+            super(hash);
+            this.reference = new WeakReference<Object>(obj);
+        }
+
+        @Override
+        Object getObject() {
+            return reference.get();
+        }
+    }
+
+    private static final class StrongIdentityKey extends IdentityKey {
+        private final Object obj;
+
+        StrongIdentityKey(Object obj, int hash) {
+            super(hash);
+            this.obj = obj;
+        }
+
+        @Override
+        Object getObject() {
+            return obj;
+        }
+    }
 
     /**
      * Simple implementation of LinkedHashMap that overrides the
      * <code>removeEldestEntry</code> method to turn LinkedHashMap into a
      * LRU(ish) cache that automatically evicts old entries.
      */
-    private static final class InternalCache extends LinkedHashMap<Integer, ResponseMetadata> {
+    private static final class InternalCache extends LinkedHashMap<IdentityKey, ResponseMetadata> {
         private int maxSize;
 
         public InternalCache(int maxSize) {
@@ -86,7 +182,7 @@ public class ResponseMetadataCache {
         }
 
         @Override
-        protected boolean removeEldestEntry(Entry eldest) {
+        protected boolean removeEldestEntry(Entry<IdentityKey, ResponseMetadata> eldest) {
             return size() > maxSize;
         }
     }
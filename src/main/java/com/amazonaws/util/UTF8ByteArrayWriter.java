@@ -0,0 +1,157 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.Writer;
+
+/**
+ * Writer that encodes characters as UTF-8 straight into a growable byte
+ * array, for building request content without first building a String.
+ * <p>
+ * Once writing is finished, {@link #getInputStream()} returns a stream over
+ * the encoded bytes that shares this writer's buffer rather than copying it,
+ * and {@link #size()} gives the content length without re-encoding anything.
+ * Malformed surrogate characters are encoded as '?', the same as
+ * {@link String#getBytes(String)} does.
+ */
+public class UTF8ByteArrayWriter extends Writer {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    private byte[] buf;
+    private int count;
+
+    /** A high surrogate waiting for the low surrogate of its pair, or 0. */
+    private char pendingHighSurrogate;
+
+    public UTF8ByteArrayWriter() {
+        this(DEFAULT_INITIAL_CAPACITY);
+    }
+
+    public UTF8ByteArrayWriter(int initialCapacity) {
+        buf = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    @Override
+    public void write(int c) {
+        ensureCapacity(4);
+        encode((char)c);
+    }
+
+    @Override
+    public void write(char[] chars, int off, int len) {
+        ensureCapacity(len * 3);
+        for (int i = off; i < off + len; i++) {
+            encode(chars[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        ensureCapacity(len * 3);
+        for (int i = off; i < off + len; i++) {
+            encode(str.charAt(i));
+        }
+    }
+
+    @Override
+    public void flush() {}
+
+    /**
+     * Finishes any incomplete surrogate pair. Further writes are not
+     * prevented, since closing a byte array has no effect.
+     */
+    @Override
+    public void close() {
+        finish();
+    }
+
+    /** Returns the number of bytes written so far. */
+    public int size() {
+        finish();
+        return count;
+    }
+
+    /**
+     * Returns a stream over the bytes written so far. The stream shares this
+     * writer's buffer, so nothing should be written after calling this.
+     */
+    public ByteArrayInputStream getInputStream() {
+        finish();
+        return new ByteArrayInputStream(buf, 0, count);
+    }
+
+    /** Returns a copy of the bytes written so far. */
+    public byte[] toByteArray() {
+        finish();
+        byte[] copy = new byte[count];
+        System.arraycopy(buf, 0, copy, 0, count);
+        return copy;
+    }
+
+    private void encode(char c) {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                buf[count++] = (byte)(0xF0 | (codePoint >> 18));
+                buf[count++] = (byte)(0x80 | ((codePoint >> 12) & 0x3F));
+                buf[count++] = (byte)(0x80 | ((codePoint >> 6) & 0x3F));
+                buf[count++] = (byte)(0x80 | (codePoint & 0x3F));
+                return;
+            }
+            buf[count++] = '?';
+        }
+
+        if (c < 0x80) {
+            buf[count++] = (byte)c;
+        } else if (c < 0x800) {
+            buf[count++] = (byte)(0xC0 | (c >> 6));
+            buf[count++] = (byte)(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            buf[count++] = '?';
+        } else {
+            buf[count++] = (byte)(0xE0 | (c >> 12));
+            buf[count++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+            buf[count++] = (byte)(0x80 | (c & 0x3F));
+        }
+    }
+
+    private void finish() {
+        if (pendingHighSurrogate != 0) {
+            ensureCapacity(1);
+            pendingHighSurrogate = 0;
+            buf[count++] = '?';
+        }
+    }
+
+    /**
+     * Makes room for the specified number of bytes, plus a few more for a
+     * pending surrogate pair.
+     */
+    private void ensureCapacity(int bytes) {
+        int required = count + bytes + 4;
+        if (required <= buf.length) return;
+
+        int capacity = Math.max(buf.length * 2, required);
+        byte[] grown = new byte[capacity];
+        System.arraycopy(buf, 0, grown, 0, count);
+        buf = grown;
+    }
+}
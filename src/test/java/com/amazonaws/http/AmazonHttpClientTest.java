@@ -0,0 +1,259 @@
+/*
+ * Copyright 2010-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.AmazonWebServiceResponse;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.DefaultRequest;
+import com.amazonaws.Request;
+import com.amazonaws.internal.CustomBackoffStrategy;
+
+/**
+ * Tests for {@link AmazonHttpClient#executeAsync}, run against a local server
+ * that replays canned status codes.
+ */
+public class AmazonHttpClientTest {
+
+    private StubServer server;
+    private AmazonHttpClient client;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new StubServer();
+        client = new AmazonHttpClient(new ClientConfiguration().withMaxErrorRetry(2));
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        client.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void testSuccessfulRequest() throws Exception {
+        server.respondWith(200);
+
+        Future<String> future = client.executeAsync(newRequest(), new BodyHandler(), new ErrorHandler(), newContext(), executor);
+
+        assertEquals("200", future.get(10, TimeUnit.SECONDS));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testRetriesServerErrors() throws Exception {
+        server.respondWith(500, 503, 200);
+
+        Future<String> future = client.executeAsync(newRequest(), new BodyHandler(), new ErrorHandler(), newContext(), executor);
+
+        assertEquals("200", future.get(10, TimeUnit.SECONDS));
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void testFailsOnceRetriesAreExhausted() throws Exception {
+        server.respondWith(500, 500, 500);
+
+        Future<String> future = client.executeAsync(newRequest(), new BodyHandler(), new ErrorHandler(), newContext(), executor);
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Expected the request to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AmazonServiceException);
+            assertEquals(500, ((AmazonServiceException)e.getCause()).getStatusCode());
+        }
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void testFailsWhenRetryIsRejected() throws Exception {
+        server.respondWith(500, 200);
+
+        // Accepts the first attempt, then rejects the retry
+        Executor rejectingExecutor = new Executor() {
+            private final AtomicInteger executions = new AtomicInteger();
+
+            public void execute(Runnable command) {
+                if (executions.getAndIncrement() > 0) {
+                    throw new RejectedExecutionException("Executor is shut down");
+                }
+                executor.execute(command);
+            }
+        };
+
+        Future<String> future = client.executeAsync(newRequest(), new BodyHandler(), new ErrorHandler(), newContext(), rejectingExecutor);
+
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            fail("Expected the request to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof AmazonClientException);
+            assertTrue(e.getCause().getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(1, server.getRequestCount());
+    }
+
+    private Request<?> newRequest() {
+        Request<?> request = new DefaultRequest<Void>("stub");
+        request.setEndpoint(URI.create("http://localhost:" + server.getPort()));
+        request.setHttpMethod(HttpMethodName.GET);
+        return request;
+    }
+
+    private static ExecutionContext newContext() {
+        ExecutionContext context = new ExecutionContext();
+        context.setCustomBackoffStrategy(new CustomBackoffStrategy() {
+            public int getBackoffPeriod(int retryAttempts) {
+                return 10;
+            }
+        });
+        return context;
+    }
+
+    /** Returns the response body as the result. */
+    private static final class BodyHandler implements HttpResponseHandler<AmazonWebServiceResponse<String>> {
+        public AmazonWebServiceResponse<String> handle(HttpResponse response) throws Exception {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(response.getContent(), "UTF-8"));
+            AmazonWebServiceResponse<String> awsResponse = new AmazonWebServiceResponse<String>();
+            awsResponse.setResult(reader.readLine());
+            return awsResponse;
+        }
+
+        public boolean needsConnectionLeftOpen() {
+            return false;
+        }
+    }
+
+    /** Turns any error response into a service exception with its status code. */
+    private static final class ErrorHandler implements HttpResponseHandler<AmazonServiceException> {
+        public AmazonServiceException handle(HttpResponse response) throws Exception {
+            AmazonServiceException ase = new AmazonServiceException(response.getStatusText());
+            ase.setStatusCode(response.getStatusCode());
+            ase.setErrorCode("Stub" + response.getStatusCode());
+            return ase;
+        }
+
+        public boolean needsConnectionLeftOpen() {
+            return false;
+        }
+    }
+
+    /**
+     * Minimal HTTP server that answers each request with the next queued
+     * status code, using the status code as the body, and closes the
+     * connection.
+     */
+    private static final class StubServer implements Runnable {
+        private final ServerSocket serverSocket;
+        private final LinkedList<Integer> statusCodes = new LinkedList<Integer>();
+        private final AtomicInteger requestCount = new AtomicInteger();
+
+        StubServer() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread thread = new Thread(this, "stub-http-server");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        synchronized void respondWith(int... codes) {
+            for (int code : codes) statusCodes.add(code);
+        }
+
+        private synchronized int nextStatusCode() {
+            return statusCodes.isEmpty() ? 500 : statusCodes.removeFirst();
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        int getRequestCount() {
+            return requestCount.get();
+        }
+
+        void close() throws IOException {
+            serverSocket.close();
+        }
+
+        public void run() {
+            while (!serverSocket.isClosed()) {
+                Socket socket = null;
+                try {
+                    socket = serverSocket.accept();
+                    readRequestHeaders(socket.getInputStream());
+                    requestCount.incrementAndGet();
+
+                    int statusCode = nextStatusCode();
+                    String body = statusCode + "\n";
+                    String response = "HTTP/1.1 " + statusCode + " Stub\r\n"
+                            + "Content-Type: text/plain\r\n"
+                            + "Content-Length: " + body.length() + "\r\n"
+                            + "Connection: close\r\n"
+                            + "\r\n"
+                            + body;
+                    OutputStream out = socket.getOutputStream();
+                    out.write(response.getBytes("UTF-8"));
+                    out.flush();
+                } catch (IOException e) {
+                    // Server closed
+                } finally {
+                    if (socket != null) {
+                        try {socket.close();} catch (IOException e) {}
+                    }
+                }
+            }
+        }
+
+        private static void readRequestHeaders(InputStream in) throws IOException {
+            int matched = 0;
+            byte[] terminator = "\r\n\r\n".getBytes("UTF-8");
+            int b;
+            while (matched < terminator.length && (b = in.read()) != -1) {
+                matched = (b == terminator[matched]) ? matched + 1 : (b == terminator[0] ? 1 : 0);
+            }
+        }
+    }
+}
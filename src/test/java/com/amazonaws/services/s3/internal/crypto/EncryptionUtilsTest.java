@@ -0,0 +1,116 @@
+/*
+ * Copyright 2011-2013 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3.internal.crypto;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that the initialization vectors calculated for parts of a file match
+ * the ones a sequential encryption of the whole file chains through.
+ */
+public class EncryptionUtilsTest {
+
+    private static final int BLOCK_SIZE = JceEncryptionConstants.SYMMETRIC_CIPHER_BLOCK_SIZE;
+
+    private static File file;
+    private static SecretKey key;
+    private static byte[] firstIV;
+    private static byte[] encrypted;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        Random random = new Random(42);
+        // Longer than the 128 KB read buffer, and a whole number of blocks
+        byte[] contents = new byte[1024 * 300];
+        random.nextBytes(contents);
+        file = File.createTempFile("encryption-utils-test", ".bin");
+        FileOutputStream output = new FileOutputStream(file);
+        try {
+            output.write(contents);
+        } finally {
+            output.close();
+        }
+
+        byte[] keyBytes = new byte[16];
+        random.nextBytes(keyBytes);
+        key = new SecretKeySpec(keyBytes, JceEncryptionConstants.SYMMETRIC_KEY_ALGORITHM);
+        firstIV = new byte[BLOCK_SIZE];
+        random.nextBytes(firstIV);
+
+        Cipher cipher = Cipher.getInstance(JceEncryptionConstants.SYMMETRIC_CIPHER_METHOD);
+        cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(firstIV));
+        encrypted = cipher.doFinal(contents);
+    }
+
+    @AfterClass
+    public static void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testChainedInitializationVectorFromStartOfFile() {
+        assertChainedInitializationVector(0, BLOCK_SIZE);
+        assertChainedInitializationVector(0, 1024 * 5);
+        assertChainedInitializationVector(0, 1024 * 128);
+        assertChainedInitializationVector(0, 1024 * 128 + BLOCK_SIZE);
+    }
+
+    @Test
+    public void testChainedInitializationVectorFromOffset() {
+        assertChainedInitializationVector(1024 * 5, 1024 * 10);
+        assertChainedInitializationVector(BLOCK_SIZE * 3, 1024 * 200 + BLOCK_SIZE * 7);
+    }
+
+    @Test
+    public void testChainedInitializationVectorToEndOfFile() {
+        assertChainedInitializationVector(0, file.length());
+        assertChainedInitializationVector(1024 * 100, file.length());
+    }
+
+    @Test
+    public void testEmptyRangeKeepsInitializationVector() {
+        assertChainedInitializationVector(1024 * 5, 1024 * 5);
+    }
+
+    private static void assertChainedInitializationVector(long startOffset, long endOffset) {
+        byte[] iv = EncryptionUtils.calculateChainedInitializationVector(file, startOffset,
+                sequentialInitializationVector(startOffset), endOffset, key, null);
+        assertArrayEquals("IV at offset " + endOffset + " from offset " + startOffset,
+                sequentialInitializationVector(endOffset), iv);
+    }
+
+    /**
+     * Returns the IV the sequential encryption continues with at the specified
+     * offset: the first IV, or the cipher block preceding the offset.
+     */
+    private static byte[] sequentialInitializationVector(long offset) {
+        if (offset == 0) return firstIV.clone();
+        return Arrays.copyOfRange(encrypted, (int)offset - BLOCK_SIZE, (int)offset);
+    }
+}